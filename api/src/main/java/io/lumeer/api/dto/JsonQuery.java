@@ -36,6 +36,7 @@ public class JsonQuery implements Query {
    private final String fulltext;
    private final Integer page;
    private final Integer pageSize;
+   private final Set<String> fields;
 
    public JsonQuery() {
       this.collectionCodes = Collections.emptySet();
@@ -46,6 +47,7 @@ public class JsonQuery implements Query {
       this.fulltext = "";
       this.page = null;
       this.pageSize = null;
+      this.fields = Collections.emptySet();
    }
 
    public JsonQuery(String fulltext){
@@ -58,6 +60,7 @@ public class JsonQuery implements Query {
       this.filters = Collections.emptySet();
       this.page = 0;
       this.pageSize = 0;
+      this.fields = Collections.emptySet();
    }
 
    public JsonQuery(Integer page, Integer pageSize) {
@@ -74,6 +77,7 @@ public class JsonQuery implements Query {
       this.linkTypeIds = Collections.emptySet();
       this.filters = Collections.emptySet();
       this.fulltext = "";
+      this.fields = Collections.emptySet();
    }
 
    public JsonQuery(Set<String> collectionIds, Set<String> linkTypeIds, Set<String> documentIds) {
@@ -86,6 +90,7 @@ public class JsonQuery implements Query {
       this.page = 0;
       this.pageSize = 0;
       this.fulltext = "";
+      this.fields = Collections.emptySet();
    }
 
    public JsonQuery(Query query) {
@@ -97,6 +102,12 @@ public class JsonQuery implements Query {
       this.documentIds = query.getDocumentIds();
       this.page = query.getPage();
       this.pageSize = query.getPageSize();
+      this.fields = query.getFields();
+   }
+
+   public JsonQuery(final Set<String> collectionCodes, final Set<String> filters, final Set<String> collectionIds, final Set<String> linkTypeIds,
+         final Set<String> documentIds, final String fulltext, final Integer page, final Integer pageSize) {
+      this(collectionCodes, filters, collectionIds, linkTypeIds, documentIds, fulltext, page, pageSize, null);
    }
 
    @JsonCreator
@@ -107,7 +118,8 @@ public class JsonQuery implements Query {
          @JsonProperty("documentIds") final Set<String> documentIds,
          @JsonProperty("fulltext") final String fulltext,
          @JsonProperty("page") final Integer page,
-         @JsonProperty("pageSize") final Integer pageSize) {
+         @JsonProperty("pageSize") final Integer pageSize,
+         @JsonProperty("fields") final Set<String> fields) {
       this.collectionCodes = collectionCodes != null ? collectionCodes : Collections.emptySet();
       this.filters = filters != null ? filters : Collections.emptySet();
       this.collectionIds = collectionIds != null ? collectionIds : Collections.emptySet();
@@ -116,6 +128,7 @@ public class JsonQuery implements Query {
       this.fulltext = fulltext;
       this.page = page;
       this.pageSize = pageSize;
+      this.fields = fields != null ? fields : Collections.emptySet();
    }
 
    @Override
@@ -158,6 +171,11 @@ public class JsonQuery implements Query {
       return pageSize;
    }
 
+   @Override
+   public Set<String> getFields() {
+      return fields;
+   }
+
    @Override
    public boolean equals(final Object o) {
       if (this == o) {
@@ -190,7 +208,10 @@ public class JsonQuery implements Query {
       if (getPage() != null ? !getPage().equals(query.getPage()) : query.getPage() != null) {
          return false;
       }
-      return getPageSize() != null ? getPageSize().equals(query.getPageSize()) : query.getPageSize() == null;
+      if (getPageSize() != null ? !getPageSize().equals(query.getPageSize()) : query.getPageSize() != null) {
+         return false;
+      }
+      return getFields() != null ? getFields().equals(query.getFields()) : query.getFields() == null;
    }
 
    @Override
@@ -203,6 +224,7 @@ public class JsonQuery implements Query {
       result = 31 * result + (getFulltext() != null ? getFulltext().hashCode() : 0);
       result = 31 * result + (getPage() != null ? getPage().hashCode() : 0);
       result = 31 * result + (getPageSize() != null ? getPageSize().hashCode() : 0);
+      result = 31 * result + (getFields() != null ? getFields().hashCode() : 0);
       return result;
    }
 
@@ -217,6 +239,7 @@ public class JsonQuery implements Query {
             ", fulltext='" + fulltext + '\'' +
             ", page=" + page +
             ", pageSize=" + pageSize +
+            ", fields=" + fields +
             '}';
    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.api.model;
+
+import io.lumeer.api.dto.JsonQuery;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Aggregation of the data of the documents found by a query. Each collection is aggregated separately, the documents
+ * are grouped by the given groups and the metrics are computed for each group.
+ */
+@Immutable
+public class Aggregation {
+
+   public static final String QUERY = "query";
+   public static final String GROUPS = "groups";
+   public static final String METRICS = "metrics";
+   public static final String LIMIT = "limit";
+
+   private final JsonQuery query;
+   private final List<AggregationGroup> groups;
+   private final List<AggregationMetric> metrics;
+   private final Integer limit;
+
+   @JsonCreator
+   public Aggregation(@JsonProperty(QUERY) final JsonQuery query,
+         @JsonProperty(GROUPS) final List<AggregationGroup> groups,
+         @JsonProperty(METRICS) final List<AggregationMetric> metrics,
+         @JsonProperty(LIMIT) final Integer limit) {
+      this.query = query != null ? query : new JsonQuery();
+      this.groups = groups != null ? groups : Collections.emptyList();
+      this.metrics = metrics != null && !metrics.isEmpty() ? metrics : Collections.singletonList(new AggregationMetric(AggregationMetric.Function.COUNT.name(), null, null));
+      this.limit = limit;
+   }
+
+   public JsonQuery getQuery() {
+      return query;
+   }
+
+   public List<AggregationGroup> getGroups() {
+      return Collections.unmodifiableList(groups);
+   }
+
+   /**
+    * Gets the metrics computed for each group, documents are counted when no metric was requested.
+    *
+    * @return the metrics
+    */
+   public List<AggregationMetric> getMetrics() {
+      return Collections.unmodifiableList(metrics);
+   }
+
+   /**
+    * Gets the maximal number of groups returned for each collection.
+    *
+    * @return the limit or null when all the groups are returned
+    */
+   public Integer getLimit() {
+      return limit;
+   }
+
+   @Override
+   public String toString() {
+      return "Aggregation{" +
+            "query=" + query +
+            ", groups=" + groups +
+            ", metrics=" + metrics +
+            ", limit=" + limit +
+            '}';
+   }
+}
@@ -0,0 +1,106 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.api.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Groups the documents by the value of an attribute. Dates can be bucketed by a date unit and numbers by an interval
+ * to build histograms.
+ */
+@Immutable
+public class AggregationGroup {
+
+   public static final String ATTRIBUTE = "attribute";
+   public static final String NAME = "name";
+   public static final String DATE_UNIT = "dateUnit";
+   public static final String INTERVAL = "interval";
+
+   public enum DateUnit {
+      YEAR,
+      MONTH,
+      WEEK,
+      DAY,
+      HOUR;
+
+      public static DateUnit fromString(String dateUnit) {
+         return DateUnit.valueOf(dateUnit.toUpperCase());
+      }
+   }
+
+   private final String attribute;
+   private final String name;
+   private final DateUnit dateUnit;
+   private final Double interval;
+
+   @JsonCreator
+   public AggregationGroup(@JsonProperty(ATTRIBUTE) final String attribute,
+         @JsonProperty(NAME) final String name,
+         @JsonProperty(DATE_UNIT) final String dateUnit,
+         @JsonProperty(INTERVAL) final Double interval) {
+      if (attribute == null || attribute.isEmpty()) {
+         throw new IllegalArgumentException("Group attribute must be set");
+      }
+      if (interval != null && interval <= 0) {
+         throw new IllegalArgumentException("Group interval must be a positive number");
+      }
+
+      this.attribute = attribute;
+      this.name = name != null && !name.isEmpty() ? name : attribute.replace('.', '_');
+      if (this.name.contains(".") || this.name.startsWith("$")) {
+         throw new IllegalArgumentException("Group name must not contain dots or start with $");
+      }
+      this.dateUnit = dateUnit != null ? DateUnit.fromString(dateUnit) : null;
+      this.interval = interval;
+   }
+
+   public String getAttribute() {
+      return attribute;
+   }
+
+   /**
+    * Gets the name of the group in the result rows, the attribute name with dots replaced by underscores by default.
+    *
+    * @return the name of the group
+    */
+   public String getName() {
+      return name;
+   }
+
+   public DateUnit getDateUnit() {
+      return dateUnit;
+   }
+
+   public Double getInterval() {
+      return interval;
+   }
+
+   @Override
+   public String toString() {
+      return "AggregationGroup{" +
+            "attribute='" + attribute + '\'' +
+            ", name='" + name + '\'' +
+            ", dateUnit=" + dateUnit +
+            ", interval=" + interval +
+            '}';
+   }
+}
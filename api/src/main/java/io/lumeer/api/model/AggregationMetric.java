@@ -0,0 +1,105 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.api.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Value computed over the documents of an aggregation group.
+ */
+@Immutable
+public class AggregationMetric {
+
+   public static final String FUNCTION = "function";
+   public static final String ATTRIBUTE = "attribute";
+   public static final String NAME = "name";
+
+   public enum Function {
+      COUNT,
+      SUM,
+      AVG,
+      MIN,
+      MAX;
+
+      public static Function fromString(String function) {
+         return Function.valueOf(function.toUpperCase());
+      }
+   }
+
+   private final Function function;
+   private final String attribute;
+   private final String name;
+
+   @JsonCreator
+   public AggregationMetric(@JsonProperty(FUNCTION) final String function,
+         @JsonProperty(ATTRIBUTE) final String attribute,
+         @JsonProperty(NAME) final String name) {
+      this.function = function != null ? Function.fromString(function) : Function.COUNT;
+      if (this.function != Function.COUNT && (attribute == null || attribute.isEmpty())) {
+         throw new IllegalArgumentException("Metric attribute must be set for " + this.function);
+      }
+
+      this.attribute = attribute;
+      this.name = name != null && !name.isEmpty() ? name : defaultName(this.function, attribute);
+      if (this.name.contains(".") || this.name.startsWith("$")) {
+         throw new IllegalArgumentException("Metric name must not contain dots or start with $");
+      }
+   }
+
+   private static String defaultName(final Function function, final String attribute) {
+      if (function == Function.COUNT) {
+         return "count";
+      }
+      return function.name().toLowerCase() + "_" + attribute.replace('.', '_');
+   }
+
+   public Function getFunction() {
+      return function;
+   }
+
+   /**
+    * Gets the attribute the metric is computed from, it is not used for counting.
+    *
+    * @return the attribute
+    */
+   public String getAttribute() {
+      return attribute;
+   }
+
+   /**
+    * Gets the name of the metric in the result rows, for example <code>sum_price</code> by default.
+    *
+    * @return the name of the metric
+    */
+   public String getName() {
+      return name;
+   }
+
+   @Override
+   public String toString() {
+      return "AggregationMetric{" +
+            "function=" + function +
+            ", attribute='" + attribute + '\'' +
+            ", name='" + name + '\'' +
+            '}';
+   }
+}
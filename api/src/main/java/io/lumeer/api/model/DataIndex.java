@@ -0,0 +1,110 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.api.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Secondary index of the data of a collection. The keys map the indexed attributes to their direction, 1 for ascending
+ * and -1 for descending, in the order of the index.
+ */
+@Immutable
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DataIndex {
+
+   public static final String NAME = "name";
+   public static final String KEYS = "keys";
+   public static final String ACCESSES = "accesses";
+   public static final String ACCESSES_SINCE = "accessesSince";
+
+   private final String name;
+   private final Map<String, Integer> keys;
+   private final long accesses;
+   private final LocalDateTime accessesSince;
+
+   @JsonCreator
+   public DataIndex(@JsonProperty(NAME) final String name,
+         @JsonProperty(KEYS) final Map<String, Integer> keys) {
+      this(name, keys, 0, null);
+   }
+
+   public DataIndex(final String name, final Map<String, Integer> keys, final long accesses, final LocalDateTime accessesSince) {
+      if (keys == null || keys.isEmpty()) {
+         throw new IllegalArgumentException("Index keys must be set");
+      }
+      for (Map.Entry<String, Integer> key : keys.entrySet()) {
+         if (key.getKey() == null || key.getKey().isEmpty() || key.getKey().startsWith("$")) {
+            throw new IllegalArgumentException("Invalid index attribute '" + key.getKey() + "'");
+         }
+         if (key.getValue() == null || (key.getValue() != 1 && key.getValue() != -1)) {
+            throw new IllegalArgumentException("Index direction of '" + key.getKey() + "' must be 1 or -1");
+         }
+      }
+
+      this.name = name;
+      this.keys = Collections.unmodifiableMap(new LinkedHashMap<>(keys));
+      this.accesses = accesses;
+      this.accessesSince = accessesSince;
+   }
+
+   /**
+    * @return the name of the index, null when the index is not created yet
+    */
+   public String getName() {
+      return name;
+   }
+
+   public Map<String, Integer> getKeys() {
+      return keys;
+   }
+
+   /**
+    * Gets the number of operations that used the index, for a recommended index it is the number of queries it would serve.
+    *
+    * @return the number of accesses
+    */
+   public long getAccesses() {
+      return accesses;
+   }
+
+   /**
+    * @return the time the accesses are counted from, null when it is not known
+    */
+   public LocalDateTime getAccessesSince() {
+      return accessesSince;
+   }
+
+   @Override
+   public String toString() {
+      return "DataIndex{" +
+            "name='" + name + '\'' +
+            ", keys=" + keys +
+            ", accesses=" + accesses +
+            ", accessesSince=" + accessesSince +
+            '}';
+   }
+}
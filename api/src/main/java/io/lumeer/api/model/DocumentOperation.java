@@ -0,0 +1,105 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.api.model;
+
+import io.lumeer.engine.api.data.DataDocument;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * One write of a bulk document request: creates a document, replaces or patches its data, or deletes it.
+ */
+@Immutable
+public class DocumentOperation {
+
+   public static final String TYPE = "type";
+   public static final String ID = "id";
+   public static final String DATA = "data";
+
+   public enum Type {
+      CREATE,
+      UPDATE,
+      PATCH,
+      DELETE;
+
+      public static Type fromString(String type) {
+         return Type.valueOf(type.toUpperCase());
+      }
+   }
+
+   private final Type type;
+   private final String id;
+   private final DataDocument data;
+
+   @JsonCreator
+   public DocumentOperation(@JsonProperty(TYPE) final String type,
+         @JsonProperty(ID) final String id,
+         @JsonProperty(DATA) final DataDocument data) {
+      this(type != null ? Type.fromString(type) : null, id, data);
+   }
+
+   public DocumentOperation(final Type type, final String id, final DataDocument data) {
+      if (type == null) {
+         throw new IllegalArgumentException("Operation type must be set");
+      }
+      if (type != Type.CREATE && (id == null || id.isEmpty())) {
+         throw new IllegalArgumentException("Document id must be set for " + type);
+      }
+      if (type != Type.DELETE && data == null) {
+         throw new IllegalArgumentException("Document data must be set for " + type);
+      }
+
+      this.type = type;
+      this.id = id;
+      this.data = data;
+   }
+
+   public Type getType() {
+      return type;
+   }
+
+   /**
+    * Gets the id of the document, it is not set for documents to be created.
+    *
+    * @return the document id
+    */
+   public String getId() {
+      return id;
+   }
+
+   /**
+    * Gets the new data of the document, it is not set for documents to be deleted.
+    *
+    * @return the document data
+    */
+   public DataDocument getData() {
+      return data;
+   }
+
+   @Override
+   public String toString() {
+      return "DocumentOperation{" +
+            "type=" + type +
+            ", id='" + id + '\'' +
+            '}';
+   }
+}
@@ -0,0 +1,86 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.api.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Outcome of one {@link DocumentOperation} of a bulk document request.
+ */
+@Immutable
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DocumentOperationResult {
+
+   public static final String ID = "id";
+   public static final String ERROR = "error";
+
+   private final String id;
+   private final String error;
+
+   @JsonCreator
+   public DocumentOperationResult(@JsonProperty(ID) final String id,
+         @JsonProperty(ERROR) final String error) {
+      this.id = id;
+      this.error = error;
+   }
+
+   public static DocumentOperationResult success(final String id) {
+      return new DocumentOperationResult(id, null);
+   }
+
+   public static DocumentOperationResult failure(final String id, final String error) {
+      return new DocumentOperationResult(id, error);
+   }
+
+   /**
+    * Gets the id of the document, the id of a created document is not set when the creation failed.
+    *
+    * @return the document id
+    */
+   public String getId() {
+      return id;
+   }
+
+   /**
+    * Gets the reason why the operation failed.
+    *
+    * @return the error message or null when the operation succeeded
+    */
+   public String getError() {
+      return error;
+   }
+
+   @JsonIgnore
+   public boolean isSuccessful() {
+      return error == null;
+   }
+
+   @Override
+   public String toString() {
+      return "DocumentOperationResult{" +
+            "id='" + id + '\'' +
+            ", error='" + error + '\'' +
+            '}';
+   }
+}
@@ -38,4 +38,11 @@ public interface Query {
 
    Integer getPageSize();
 
+   /**
+    * Gets the document attributes to be read, all of them are read when empty.
+    *
+    * @return names of the attributes to be read
+    */
+   Set<String> getFields();
+
 }
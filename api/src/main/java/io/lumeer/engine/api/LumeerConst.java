@@ -40,12 +40,22 @@ public final class LumeerConst {
    public static final String DB_USER_PROPERTY = "db_user";
    public static final String DB_PASSWORD_PROPERTY = "db_passwd";
    public static final String DB_USE_SSL = "db_ssl";
+   public static final String DB_POOL_MIN_SIZE = "db_pool_min_size";
+   public static final String DB_POOL_MAX_SIZE = "db_pool_max_size";
+   public static final String DB_POOL_MAX_WAIT_QUEUE_SIZE = "db_pool_max_wait_queue_size";
+   public static final String DB_POOL_MAX_WAIT_TIME = "db_pool_max_wait_time";
+   public static final String DB_POOL_MAX_IDLE_TIME = "db_pool_max_idle_time";
 
    public static final String SYSTEM_DB_HOSTS_PROPERTY = "sys_db_hosts";
    public static final String SYSTEM_DB_NAME_PROPERTY = "sys_db_name";
    public static final String SYSTEM_DB_USER_PROPERTY = "sys_db_user";
    public static final String SYSTEM_DB_PASSWORD_PROPERTY = "sys_db_passwd";
    public static final String SYSTEM_DB_USE_SSL = "sys_db_ssl";
+   public static final String SYSTEM_DB_POOL_MIN_SIZE = "sys_db_pool_min_size";
+   public static final String SYSTEM_DB_POOL_MAX_SIZE = "sys_db_pool_max_size";
+   public static final String SYSTEM_DB_POOL_MAX_WAIT_QUEUE_SIZE = "sys_db_pool_max_wait_queue_size";
+   public static final String SYSTEM_DB_POOL_MAX_WAIT_TIME = "sys_db_pool_max_wait_time";
+   public static final String SYSTEM_DB_POOL_MAX_IDLE_TIME = "sys_db_pool_max_idle_time";
 
    public static final String USER_LOCALE_PROPERTY = "locale";
 
@@ -112,6 +122,10 @@ public final class LumeerConst {
       public static final String COLLECTION_NAME = METADATA_PREFIX + "collection"; // used in cases where we need to note the source collection in the document
       public static final String METADATA_VERSION_KEY = METADATA_PREFIX + "version";
       public static final List<String> METADATA_KEYS = Arrays.asList(METADATA_VERSION_KEY, CREATE_DATE_KEY, UPDATE_DATE_KEY, CREATE_BY_USER_KEY, UPDATED_BY_USER_KEY, USER_RIGHTS);
+
+      // keys used only by old versions of documents stored in shadow collections
+      public static final String SHADOW_DELTA_KEY = METADATA_PREFIX + "delta";
+      public static final String SHADOW_BACKUP_DATE_KEY = METADATA_PREFIX + "backup-date";
    }
 
    public static class View {
@@ -268,6 +282,32 @@ public final class LumeerConst {
 
    }
 
+   public static class Job {
+
+      public static final String COLLECTION_NAME = "_system-jobs";
+      public static final String ATTR_JOB_ID = Document.ID;
+      public static final String ATTR_TYPE = "type";
+      public static final String ATTR_TASK = "task";
+      public static final String ATTR_ORGANIZATION = "organization";
+      public static final String ATTR_PROJECT = "project";
+      public static final String ATTR_USER = "user";
+      public static final String ATTR_SESSION = "session";
+      public static final String ATTR_PRIORITY = "priority";
+      public static final String ATTR_STATE = "state";
+      public static final String ATTR_ATTEMPTS = "attempts";
+      public static final String ATTR_PROGRESS = "progress";
+      public static final String ATTR_TOTAL = "total";
+      public static final String ATTR_ERROR = "error";
+      public static final String ATTR_CANCEL_REQUESTED = "cancel-requested";
+      public static final String ATTR_LEASE_OWNER = "lease-owner";
+      public static final String ATTR_LEASE_UNTIL = "lease-until";
+      public static final String ATTR_NOT_BEFORE = "not-before";
+      public static final String ATTR_CREATE_DATE = "create-date";
+      public static final String ATTR_START_DATE = "start-date";
+      public static final String ATTR_FINISH_DATE = "finish-date";
+
+   }
+
    public static class Configuration {
 
       public static final String NAMEVALUE = "namevalue";
@@ -18,6 +18,8 @@
  */
 package io.lumeer.engine.api.cache;
 
+import java.util.function.ToIntFunction;
+
 /**
  * The factory is needed so that we can have a replaceable Cache implementations. The factory is the part that is injectable.
  *
@@ -33,4 +35,54 @@ public interface CacheFactory {
     * @return A fresh cache of given type.
     */
    <T> Cache<T> getCache();
+
+   /**
+    * Obtains a fresh cache of given type configured for the given cache name. The cache keeps all its entries
+    * unless limits are configured for its name.
+    * Implementations that do not support per cache configuration can just ignore the name.
+    *
+    * @param cacheName
+    *       Name of the cache used to look up its configuration.
+    * @param <T>
+    *       Type of values stored in the cache.
+    * @return A fresh cache of given type.
+    */
+   default <T> Cache<T> getCache(final String cacheName) {
+      return getCache(cacheName, CacheLimits.UNLIMITED);
+   }
+
+   /**
+    * Obtains a fresh cache of given type configured for the given cache name that opts in to the given limits.
+    * The configuration of the cache name takes precedence over the limits.
+    * Implementations that do not support limits can just ignore them.
+    *
+    * @param cacheName
+    *       Name of the cache used to look up its configuration.
+    * @param limits
+    *       Limits used when they are not configured for the cache name.
+    * @param <T>
+    *       Type of values stored in the cache.
+    * @return A fresh cache of given type.
+    */
+   default <T> Cache<T> getCache(final String cacheName, final CacheLimits limits) {
+      return getCache();
+   }
+
+   /**
+    * Obtains a fresh cache of given type whose size is measured by the total weight of its values rather than by
+    * the number of entries. Implementations that do not support weighing can just ignore the weigher.
+    *
+    * @param cacheName
+    *       Name of the cache used to look up its configuration.
+    * @param limits
+    *       Limits used when they are not configured for the cache name, the maximum size is the total weight.
+    * @param weigher
+    *       Computes a non-negative weight of a value.
+    * @param <T>
+    *       Type of values stored in the cache.
+    * @return A fresh cache of given type.
+    */
+   default <T> Cache<T> getCache(final String cacheName, final CacheLimits limits, final ToIntFunction<? super T> weigher) {
+      return getCache(cacheName, limits);
+   }
 }
@@ -0,0 +1,84 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.api.cache;
+
+import java.util.Objects;
+
+/**
+ * A message telling other nodes of the cluster to evict an entry of a cache. When the key is null, the whole cache is to be cleared.
+ */
+public class CacheInvalidation {
+
+   private final String origin;
+   private final String cacheName;
+   private final String key;
+
+   public CacheInvalidation(final String origin, final String cacheName, final String key) {
+      this.origin = origin;
+      this.cacheName = cacheName;
+      this.key = key;
+   }
+
+   /**
+    * Gets the identifier of the node that sent the message.
+    *
+    * @return The identifier of the sending node.
+    */
+   public String getOrigin() {
+      return origin;
+   }
+
+   public String getCacheName() {
+      return cacheName;
+   }
+
+   public String getKey() {
+      return key;
+   }
+
+   public boolean isClear() {
+      return key == null;
+   }
+
+   @Override
+   public boolean equals(final Object o) {
+      if (this == o) {
+         return true;
+      }
+      if (!(o instanceof CacheInvalidation)) {
+         return false;
+      }
+      final CacheInvalidation that = (CacheInvalidation) o;
+      return Objects.equals(origin, that.origin) && Objects.equals(cacheName, that.cacheName) && Objects.equals(key, that.key);
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash(origin, cacheName, key);
+   }
+
+   @Override
+   public String toString() {
+      return "CacheInvalidation{" +
+            "origin='" + origin + '\'' +
+            ", cacheName='" + cacheName + '\'' +
+            ", key='" + key + '\'' +
+            '}';
+   }
+}
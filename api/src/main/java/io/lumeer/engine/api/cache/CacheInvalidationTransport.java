@@ -0,0 +1,60 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.api.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Delivers cache invalidation messages among the nodes of a cluster. Implementations decide how the messages travel,
+ * they are delivered to all the nodes including the sending one.
+ */
+public interface CacheInvalidationTransport extends AutoCloseable {
+
+   /**
+    * Sends the message to all the nodes.
+    *
+    * @param invalidation
+    *       The message to send.
+    */
+   void publish(final CacheInvalidation invalidation);
+
+   /**
+    * Starts delivering received messages to the given listener. It can be called just once.
+    *
+    * @param listener
+    *       Listener of the received messages.
+    */
+   void start(final Consumer<CacheInvalidation> listener);
+
+   /**
+    * Whether the messages reach the other nodes of the cluster, i.e. caches of data shared by the nodes are kept
+    * up to date by the transport.
+    *
+    * @return true if and only if the messages leave the JVM
+    */
+   default boolean isClusterWide() {
+      return false;
+   }
+
+   /**
+    * Stops delivering messages and releases all resources.
+    */
+   @Override
+   void close();
+}
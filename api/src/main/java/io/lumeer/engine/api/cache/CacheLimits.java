@@ -0,0 +1,65 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.api.cache;
+
+import java.io.Serializable;
+
+/**
+ * Default limits a cache opts in to. Sizes are counted in entries (or weight units when a weigher is used),
+ * times are in milliseconds. Zero means no limit, so {@link #UNLIMITED} keeps all entries until they are removed.
+ */
+public class CacheLimits implements Serializable {
+
+   public static final CacheLimits UNLIMITED = new CacheLimits(0, 0, 0);
+
+   private final long maximumSize;
+   private final long expireAfterWrite;
+   private final long expireAfterAccess;
+
+   public CacheLimits(final long maximumSize, final long expireAfterWrite, final long expireAfterAccess) {
+      if (maximumSize < 0 || expireAfterWrite < 0 || expireAfterAccess < 0) {
+         throw new IllegalArgumentException("Cache limits must not be negative.");
+      }
+
+      this.maximumSize = maximumSize;
+      this.expireAfterWrite = expireAfterWrite;
+      this.expireAfterAccess = expireAfterAccess;
+   }
+
+   public long getMaximumSize() {
+      return maximumSize;
+   }
+
+   public long getExpireAfterWrite() {
+      return expireAfterWrite;
+   }
+
+   public long getExpireAfterAccess() {
+      return expireAfterAccess;
+   }
+
+   @Override
+   public String toString() {
+      return "CacheLimits{" +
+            "maximumSize=" + maximumSize +
+            ", expireAfterWrite=" + expireAfterWrite +
+            ", expireAfterAccess=" + expireAfterAccess +
+            '}';
+   }
+}
@@ -0,0 +1,71 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.api.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers cache invalidation messages within a single JVM only. It is used when the application runs on a single node.
+ * All instances created with the same message list share the messages.
+ */
+public class LocalCacheInvalidationTransport implements CacheInvalidationTransport {
+
+   private final List<Consumer<CacheInvalidation>> listeners;
+
+   private Consumer<CacheInvalidation> listener;
+
+   public LocalCacheInvalidationTransport() {
+      this(new CopyOnWriteArrayList<>());
+   }
+
+   LocalCacheInvalidationTransport(final List<Consumer<CacheInvalidation>> listeners) {
+      this.listeners = listeners;
+   }
+
+   /**
+    * Creates another transport connected to this one, so that both receive messages published by any of them.
+    *
+    * @return The connected transport.
+    */
+   public LocalCacheInvalidationTransport connect() {
+      return new LocalCacheInvalidationTransport(listeners);
+   }
+
+   @Override
+   public void publish(final CacheInvalidation invalidation) {
+      listeners.forEach(listener -> listener.accept(invalidation));
+   }
+
+   @Override
+   public synchronized void start(final Consumer<CacheInvalidation> listener) {
+      if (this.listener != null) {
+         throw new IllegalStateException("Transport has already been started");
+      }
+
+      this.listener = listener;
+      listeners.add(listener);
+   }
+
+   @Override
+   public synchronized void close() {
+      listeners.remove(listener);
+   }
+}
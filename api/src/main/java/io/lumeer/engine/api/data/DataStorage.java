@@ -25,6 +25,7 @@ import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Represents a data storage.
@@ -43,6 +44,23 @@ public interface DataStorage extends Serializable {
       connect(Collections.singletonList(connection), database, useSsl);
    }
 
+   /**
+    * Connects to the data storage using the given connection pool settings. Storages that do not support
+    * connection pooling ignore the settings.
+    *
+    * @param connections
+    *       Hosts and credentials of the data storage.
+    * @param database
+    *       Name of the database.
+    * @param useSsl
+    *       Whether to use SSL for the connections.
+    * @param poolSettings
+    *       Settings of the connection pool.
+    */
+   default void connect(final List<StorageConnection> connections, final String database, final Boolean useSsl, final StoragePoolSettings poolSettings) {
+      connect(connections, database, useSsl);
+   }
+
    void disconnect();
 
    /**
@@ -145,6 +163,19 @@ public interface DataStorage extends Serializable {
     */
    void createOldDocument(final String collectionName, final DataDocument document, String documentId, int version) throws UnsuccessfulOperationException;
 
+   /**
+    * Creates and inserts old documents to specified collection in a single bulk operation. Each document must carry
+    * the id of the original document and its version.
+    *
+    * @param collectionName
+    *       the name of the collection where the documents will be created
+    * @param documents
+    *       the DataDocument objects representing documents to be created
+    * @throws UnsuccessfulOperationException
+    *       When somebody already updated some of the documents.
+    */
+   void createOldDocuments(final String collectionName, final List<DataDocument> documents) throws UnsuccessfulOperationException;
+
    /**
     * Reads the specified document in given collection by filter.
     *
@@ -181,6 +212,54 @@ public interface DataStorage extends Serializable {
     */
    void updateDocument(final String collectionName, final DataDocument updatedDocument, final DataFilter filter);
 
+   /**
+    * Atomically updates the first document matching the filter in the given order and reads it after the update.
+    * Unlike {@link #updateDocument(String, DataDocument, DataFilter)}, no document is created when none matches the filter.
+    *
+    * @param collectionName
+    *       the name of the collection where the document is located
+    * @param filter
+    *       the filter to obtain the document
+    * @param sort
+    *       the order in which the first matching document is selected, null for any order
+    * @param updatedDocument
+    *       the attributes to set in the document
+    * @return the updated document, null when no document matches the filter
+    */
+   DataDocument updateAndReadDocument(final String collectionName, final DataFilter filter, final DataSort sort, final DataDocument updatedDocument);
+
+   /**
+    * Atomically updates the first document matching the filter in the given order, increments its numeric attributes
+    * and reads it after the update.
+    *
+    * @param collectionName
+    *       the name of the collection where the document is located
+    * @param filter
+    *       the filter to obtain the document
+    * @param sort
+    *       the order in which the first matching document is selected, null for any order
+    * @param updatedDocument
+    *       the attributes to set in the document
+    * @param incrementedAttributes
+    *       the amounts the attributes are incremented by, missing attributes are set to them
+    * @return the updated document, null when no document matches the filter
+    */
+   DataDocument updateAndReadDocument(final String collectionName, final DataFilter filter, final DataSort sort, final DataDocument updatedDocument, final DataDocument incrementedAttributes);
+
+   /**
+    * Sets the given attributes in all documents matching the filter by a single operation.
+    * Unlike {@link #updateDocument(String, DataDocument, DataFilter)}, no document is created when none matches the filter.
+    *
+    * @param collectionName
+    *       the name of the collection where the documents are located
+    * @param filter
+    *       the filter to obtain the documents
+    * @param updatedDocument
+    *       the attributes to set in the documents
+    * @return the number of modified documents
+    */
+   long updateManyDocuments(final String collectionName, final DataFilter filter, final DataDocument updatedDocument);
+
    /**
     * Replace an existing document in given collection by filter.
     *
@@ -404,6 +483,54 @@ public interface DataStorage extends Serializable {
     */
    List<DataDocument> aggregate(final String collectionName, final DataDocument... stages);
 
+   /**
+    * Reads all documents matching the filter through a cursor ordered by their ids and passes them to the consumer
+    * in batches of limited size, so that the whole collection is never held in memory.
+    *
+    * @param collectionName
+    *       the name of the collection to read
+    * @param filter
+    *       the filter on documents, null to read all of them
+    * @param batchSize
+    *       the maximal number of documents passed to the consumer at once
+    * @param consumer
+    *       the consumer of document batches
+    */
+   void processDocuments(final String collectionName, final DataFilter filter, final int batchSize, final Consumer<List<DataDocument>> consumer);
+
+   /**
+    * Updates the given documents by their ids in a single unordered bulk operation.
+    *
+    * @param collectionName
+    *       the name of the collection where the documents are located
+    * @param updatedDocuments
+    *       the documents carrying their ids and the attributes to set
+    * @param droppedAttributes
+    *       the attributes to remove from all the updated documents
+    */
+   void updateDocuments(final String collectionName, final List<DataDocument> updatedDocuments, final List<String> droppedAttributes);
+
+   /**
+    * Whether the storage is able to evaluate update pipelines by itself, see {@link #updateDocuments(String, DataFilter, DataDocument...)}.
+    *
+    * @return true if and only if the update pipelines are supported
+    */
+   boolean supportsUpdatePipelines();
+
+   /**
+    * Updates all documents matching the filter by a pipeline of stages evaluated by the storage itself,
+    * no document is transferred to the application.
+    *
+    * @param collectionName
+    *       the name of the collection where the documents are located
+    * @param filter
+    *       the filter on documents, null to update all of them
+    * @param stages
+    *       the update pipeline
+    * @return the number of modified documents
+    */
+   long updateDocuments(final String collectionName, final DataFilter filter, final DataDocument... stages);
+
    /**
     * Increment attribute value of document by specified amount. If the field does not exist, it creates the field and sets the field to the specified value.
     *
@@ -18,7 +18,11 @@
  */
 package io.lumeer.engine.api.data;
 
+import io.lumeer.engine.api.batch.MergeBatch;
+import io.lumeer.engine.api.batch.SplitBatch;
+
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -34,8 +38,30 @@ public interface DataStorageDialect extends Serializable {
 
    DataDocument[] usersOfGroupAggregate(final String organization, final String group);
 
+   // VersionFacade
+   DataDocument[] backUpDocumentsAggregate(final String shadowCollection);
+
+   // BatchFacade
+   DataDocument[] mergeBatchUpdate(final MergeBatch batch, final DataDocument updatedValues);
+
+   DataDocument[] splitBatchUpdate(final SplitBatch batch, final DataDocument updatedValues);
+
    DataFilter fieldValueFilter(final String fieldName, final Object value);
 
+   DataFilter fieldExistsFilter(final String fieldName);
+
+   /**
+    * Matches the documents in which the field holds a value other than a string, an integer, a boolean or null. The
+    * storage converts such values to strings differently from Java.
+    *
+    * @param fieldName
+    *       name of the field
+    * @return the filter
+    */
+   DataFilter fieldNonTextualValueFilter(final String fieldName);
+
+   DataFilter fieldValuesFilter(final String fieldName, final Collection<?> values);
+
    DataFilter fieldValueWildcardFilter(final String fieldName, final Object valuePart);
 
    DataFilter fieldValueWildcardFilterOneSided(final String fieldName, final Object valuePart);
@@ -48,6 +74,8 @@ public interface DataStorageDialect extends Serializable {
 
    DataFilter documentIdFilter(final String documentId);
 
+   DataFilter documentIdsFilter(final Collection<String> documentIds);
+
    DataFilter multipleFieldsValueFilter(final Map<String, Object> fields);
 
    DataFilter combineFilters(DataFilter... filters);
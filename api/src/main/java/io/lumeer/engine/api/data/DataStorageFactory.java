@@ -36,4 +36,8 @@ public interface DataStorageFactory {
       return getStorage(cacheProvider, Collections.singletonList(connection), database, useSsl);
    }
 
+   default DataStorage getStorage(final CacheProvider cacheProvider, final List<StorageConnection> connections, final String database, final Boolean useSsl, final StoragePoolSettings poolSettings) {
+      return getStorage(cacheProvider, connections, database, useSsl);
+   }
+
 }
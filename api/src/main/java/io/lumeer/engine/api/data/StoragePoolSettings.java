@@ -0,0 +1,118 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.api.data;
+
+import java.io.Serializable;
+
+/**
+ * Settings of the pool of connections to a data storage.
+ */
+public class StoragePoolSettings implements Serializable {
+
+   private static final long serialVersionUID = 2847311956087604261L;
+
+   /**
+    * Settings used when nothing is configured.
+    */
+   public static final StoragePoolSettings DEFAULT = new StoragePoolSettings(0, 100, 500, 120_000, 0);
+
+   private final int minSize;
+   private final int maxSize;
+   private final int maxWaitQueueSize;
+   private final int maxWaitTime;
+   private final int maxIdleTime;
+
+   /**
+    * Defines new pool settings.
+    *
+    * @param minSize
+    *       The minimal number of connections kept open per host.
+    * @param maxSize
+    *       The maximal number of connections open per host.
+    * @param maxWaitQueueSize
+    *       The maximal number of threads waiting for a free connection, further requests fail immediately.
+    * @param maxWaitTime
+    *       The maximal time in milliseconds a thread waits for a free connection.
+    * @param maxIdleTime
+    *       The maximal time in milliseconds a connection can stay idle before it is closed, 0 means no limit.
+    */
+   public StoragePoolSettings(final int minSize, final int maxSize, final int maxWaitQueueSize, final int maxWaitTime, final int maxIdleTime) {
+      this.minSize = minSize;
+      this.maxSize = maxSize;
+      this.maxWaitQueueSize = maxWaitQueueSize;
+      this.maxWaitTime = maxWaitTime;
+      this.maxIdleTime = maxIdleTime;
+   }
+
+   public int getMinSize() {
+      return minSize;
+   }
+
+   public int getMaxSize() {
+      return maxSize;
+   }
+
+   public int getMaxWaitQueueSize() {
+      return maxWaitQueueSize;
+   }
+
+   public int getMaxWaitTime() {
+      return maxWaitTime;
+   }
+
+   public int getMaxIdleTime() {
+      return maxIdleTime;
+   }
+
+   @Override
+   public String toString() {
+      return "StoragePoolSettings{"
+            + "minSize=" + minSize
+            + ", maxSize=" + maxSize
+            + ", maxWaitQueueSize=" + maxWaitQueueSize
+            + ", maxWaitTime=" + maxWaitTime
+            + ", maxIdleTime=" + maxIdleTime
+            + '}';
+   }
+
+   @Override
+   public boolean equals(final Object o) {
+      if (this == o) {
+         return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+         return false;
+      }
+
+      final StoragePoolSettings that = (StoragePoolSettings) o;
+
+      return minSize == that.minSize && maxSize == that.maxSize && maxWaitQueueSize == that.maxWaitQueueSize
+            && maxWaitTime == that.maxWaitTime && maxIdleTime == that.maxIdleTime;
+   }
+
+   @Override
+   public int hashCode() {
+      int result = minSize;
+      result = 31 * result + maxSize;
+      result = 31 * result + maxWaitQueueSize;
+      result = 31 * result + maxWaitTime;
+      result = 31 * result + maxIdleTime;
+      return result;
+   }
+}
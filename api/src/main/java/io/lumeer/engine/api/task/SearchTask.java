@@ -30,7 +30,7 @@ public class SearchTask implements Task {
    }
 
    @Override
-   public void process() {
+   public void process(final TaskContext context) {
       // TBD
    }
 }
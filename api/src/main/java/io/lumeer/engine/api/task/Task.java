@@ -21,11 +21,29 @@ package io.lumeer.engine.api.task;
 import java.io.Serializable;
 
 /**
- * A task that can be processed.
+ * A task that can be processed. Tasks are serialized and stored in the persistent job queue, so they should carry
+ * only the parameters of the work and obtain everything else when being processed.
  *
  * @author <a href="mailto:marvenec@gmail.com">Martin Večeřa</a>
  */
 public interface Task extends Serializable {
 
-   void process();
+   /**
+    * Processes the task. The task can be processed again when it fails or when the node processing it goes down.
+    *
+    * @param context
+    *       Context of the processing used to report progress and to check for cancellation.
+    * @throws Exception
+    *       When the task failed and may be retried.
+    */
+   void process(TaskContext context) throws Exception;
+
+   /**
+    * Gets whether the task can be processed again after it failed or after its processing was interrupted.
+    *
+    * @return True if and only if the failed or interrupted task should be retried.
+    */
+   default boolean isRetryable() {
+      return true;
+   }
 }
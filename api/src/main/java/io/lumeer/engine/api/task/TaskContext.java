@@ -0,0 +1,43 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.api.task;
+
+/**
+ * Context of a task being processed.
+ */
+public interface TaskContext {
+
+   /**
+    * Reports progress of the task.
+    *
+    * @param done
+    *       Amount of the work already done.
+    * @param total
+    *       Total amount of the work, negative when unknown.
+    */
+   void setProgress(long done, long total);
+
+   /**
+    * Whether the cancellation of the task was requested. Long running tasks should check it regularly and return
+    * as soon as possible when it is true.
+    *
+    * @return True if and only if the task should stop.
+    */
+   boolean isCancelled();
+}
@@ -0,0 +1,57 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks matching the given pattern and writes their results as JSON so that runs can be compared
+ * over time.
+ */
+public final class BenchmarkRunner {
+
+   private static final String DEFAULT_INCLUDE = ".*";
+   private static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+   private BenchmarkRunner() {
+      // no instance is allowed
+   }
+
+   /**
+    * Runs the benchmarks.
+    *
+    * @param args
+    *       Optional regular expression selecting the benchmarks to run and optional path of the JSON result file.
+    * @throws RunnerException
+    *       When the benchmarks cannot be run.
+    */
+   public static void main(final String[] args) throws RunnerException {
+      final String include = args.length > 0 ? args[0] : DEFAULT_INCLUDE;
+      final String result = args.length > 1 ? args[1] : DEFAULT_RESULT;
+
+      new Runner(new OptionsBuilder()
+            .include(include)
+            .resultFormat(ResultFormatType.JSON)
+            .result(result)
+            .build()).run();
+   }
+}
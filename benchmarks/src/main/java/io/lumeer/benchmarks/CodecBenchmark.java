@@ -0,0 +1,140 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.benchmarks;
+
+import io.lumeer.api.dto.JsonPermission;
+import io.lumeer.api.dto.JsonPermissions;
+import io.lumeer.api.dto.JsonQuery;
+import io.lumeer.api.dto.JsonView;
+import io.lumeer.api.model.Role;
+import io.lumeer.storage.mongodb.codecs.BigDecimalCodec;
+import io.lumeer.storage.mongodb.codecs.RoleCodec;
+import io.lumeer.storage.mongodb.codecs.providers.AttributeCodecProvider;
+import io.lumeer.storage.mongodb.codecs.providers.LinkInstanceCodecProvider;
+import io.lumeer.storage.mongodb.codecs.providers.LinkTypeCodecProvider;
+import io.lumeer.storage.mongodb.codecs.providers.PermissionCodecProvider;
+import io.lumeer.storage.mongodb.codecs.providers.PermissionsCodecProvider;
+import io.lumeer.storage.mongodb.codecs.providers.QueryCodecProvider;
+import io.lumeer.storage.mongodb.codecs.providers.ViewCodecProvider;
+
+import com.mongodb.MongoClient;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding of views and permissions by the codecs registered in
+ * {@link io.lumeer.storage.mongodb.MongoDbStorage}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+   /**
+    * Number of user permissions and also of group permissions.
+    */
+   @Param({ "10", "100" })
+   private int permissions;
+
+   private CollectibleCodec<JsonView> viewCodec;
+   private Codec<JsonPermissions> permissionsCodec;
+
+   private JsonPermissions jsonPermissions;
+   private JsonView view;
+   private BsonDocument encodedView;
+   private BsonDocument encodedPermissions;
+
+   @Setup
+   public void prepareCodecs() {
+      final CodecRegistry registry = CodecRegistries.fromRegistries(
+            MongoClient.getDefaultCodecRegistry(),
+            CodecRegistries.fromCodecs(new BigDecimalCodec(), new RoleCodec()),
+            CodecRegistries.fromProviders(
+                  new PermissionsCodecProvider(), new PermissionCodecProvider(), new QueryCodecProvider(), new ViewCodecProvider(),
+                  new AttributeCodecProvider(), new LinkInstanceCodecProvider(), new LinkTypeCodecProvider()
+            ));
+      viewCodec = (CollectibleCodec<JsonView>) registry.get(JsonView.class);
+      permissionsCodec = registry.get(JsonPermissions.class);
+
+      jsonPermissions = new JsonPermissions();
+      for (int i = 0; i < permissions; i++) {
+         jsonPermissions.updateUserPermissions(new JsonPermission("user" + i + "@lumeer.io", new HashSet<>(Arrays.asList(Role.READ.toString(), Role.WRITE.toString()))));
+         jsonPermissions.updateGroupPermissions(new JsonPermission("group" + i, Collections.singleton(Role.READ.toString())));
+      }
+
+      final JsonQuery query = new JsonQuery(Collections.singleton("collection"), Collections.emptySet(), Collections.emptySet());
+      view = new JsonView("code", "name", "icon", "color", jsonPermissions, query, "table", null);
+      viewCodec.generateIdIfAbsentFromDocument(view);
+
+      encodedView = encodeView();
+      encodedPermissions = encodePermissions();
+   }
+
+   @Benchmark
+   public BsonDocument encodeView() {
+      return encode(viewCodec, view);
+   }
+
+   @Benchmark
+   public JsonView decodeView() {
+      return viewCodec.decode(new BsonDocumentReader(encodedView), DecoderContext.builder().build());
+   }
+
+   @Benchmark
+   public BsonDocument encodePermissions() {
+      return encode(permissionsCodec, jsonPermissions);
+   }
+
+   @Benchmark
+   public JsonPermissions decodePermissions() {
+      return permissionsCodec.decode(new BsonDocumentReader(encodedPermissions), DecoderContext.builder().build());
+   }
+
+   private static <T> BsonDocument encode(final Codec<T> codec, final T value) {
+      final BsonDocument document = new BsonDocument();
+      codec.encode(new BsonDocumentWriter(document), value, EncoderContext.builder().build());
+      return document;
+   }
+}
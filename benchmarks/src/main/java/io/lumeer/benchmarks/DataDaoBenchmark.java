@@ -0,0 +1,165 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.benchmarks;
+
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.data.StorageConnection;
+import io.lumeer.storage.api.query.SearchQuery;
+import io.lumeer.storage.mongodb.EmbeddedMongoDb;
+import io.lumeer.storage.mongodb.MongoDbStorage;
+import io.lumeer.storage.mongodb.dao.collection.MongoDataDao;
+import io.lumeer.storage.mongodb.model.MorphiaView;
+
+import org.bson.types.ObjectId;
+import org.mongodb.morphia.Morphia;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link MongoDataDao} against an embedded MongoDB started for the trial, or against the database configured
+ * by the same system properties the storage tests use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataDaoBenchmark {
+
+   private static final String COLLECTION_ID = "59a51b83d412bc2da88b010f";
+   private static final String USER = "benchmark";
+   private static final int ATTRIBUTES = 20;
+
+   @Param({ "1000", "10000" })
+   private int documents;
+
+   /**
+    * Page size of the paginated search.
+    */
+   @Param({ "100" })
+   private int pageSize;
+
+   private EmbeddedMongoDb embeddedMongoDb;
+   private MongoDbStorage mongoDbStorage;
+   private ExecutorService executorService;
+   private MongoDataDao dataDao;
+
+   private List<String> documentIds;
+   private SearchQuery pageQuery;
+   private SearchQuery fulltextQuery;
+
+   @Setup(Level.Trial)
+   public void prepareDatabase() {
+      embeddedMongoDb = new EmbeddedMongoDb();
+      embeddedMongoDb.start();
+
+      final Morphia morphia = new Morphia().mapPackage(MorphiaView.class.getPackage().getName());
+      morphia.getMapper().getOptions().setStoreEmpties(true);
+
+      mongoDbStorage = new MongoDbStorage(morphia);
+      mongoDbStorage.connect(new StorageConnection(EmbeddedMongoDb.HOST, EmbeddedMongoDb.PORT, EmbeddedMongoDb.USER, EmbeddedMongoDb.PASSWORD),
+            EmbeddedMongoDb.NAME, EmbeddedMongoDb.SSL);
+      mongoDbStorage.getDatabase().drop();
+
+      executorService = Executors.newFixedThreadPool(4);
+
+      dataDao = new MongoDataDao();
+      dataDao.setDatabase(mongoDbStorage.getDatabase());
+      dataDao.setDatastore(mongoDbStorage.getDataStore());
+      dataDao.setExecutorService(executorService);
+      dataDao.createDataRepository(COLLECTION_ID);
+
+      final List<DataDocument> data = new ArrayList<>(documents);
+      for (int i = 0; i < documents; i++) {
+         final DataDocument document = createDocument(i);
+         document.setId(new ObjectId().toHexString());
+         data.add(document);
+      }
+      documentIds = new ArrayList<>(documents);
+      dataDao.createData(COLLECTION_ID, data).forEach(document -> documentIds.add(document.getId()));
+
+      pageQuery = SearchQuery.createBuilder(USER).page(1).pageSize(pageSize).build();
+      fulltextQuery = SearchQuery.createBuilder(USER).fulltext("value7").page(0).pageSize(pageSize).build();
+   }
+
+   @TearDown(Level.Trial)
+   public void stopDatabase() {
+      executorService.shutdownNow();
+      if (mongoDbStorage != null) {
+         mongoDbStorage.getDatabase().drop();
+         mongoDbStorage.disconnect();
+      }
+      if (embeddedMongoDb != null) {
+         embeddedMongoDb.stop();
+      }
+   }
+
+   private static DataDocument createDocument(final int index) {
+      final DataDocument document = new DataDocument();
+      for (int i = 0; i < ATTRIBUTES; i++) {
+         document.append("a" + i, i % 2 == 0 ? "value" + index : index * i);
+      }
+      document.append("nested", new DataDocument("index", index).append("name", "nested" + index));
+      return document;
+   }
+
+   @Benchmark
+   public DataDocument getDataById() {
+      return dataDao.getData(COLLECTION_ID, documentIds.get(ThreadLocalRandom.current().nextInt(documentIds.size())));
+   }
+
+   @Benchmark
+   public List<DataDocument> getDataPage() {
+      return dataDao.getData(COLLECTION_ID, pageQuery);
+   }
+
+   @Benchmark
+   public List<DataDocument> getDataByFulltext() {
+      return dataDao.getData(COLLECTION_ID, fulltextQuery);
+   }
+
+   @Benchmark
+   public long getDataCount() {
+      return dataDao.getDataCount(COLLECTION_ID, fulltextQuery);
+   }
+
+   @Benchmark
+   public DataDocument createData() {
+      return dataDao.createData(COLLECTION_ID, new ObjectId().toHexString(), createDocument(0));
+   }
+}
@@ -0,0 +1,152 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.benchmarks;
+
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.mongodb.MongoUtils;
+import io.lumeer.storage.mongodb.codecs.DataDocumentCodec;
+
+import com.mongodb.MongoClient;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversion of documents read from MongoDB to {@link DataDocument} and the typed getters
+ * used on the converted documents.
+ * Conversion works in place, so each invocation builds a fresh document first; {@link #buildDocument()} measures
+ * that overhead alone. Decoding of the same document from BSON is measured both through {@link Document} and
+ * directly by {@link DataDocumentCodec}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentConversionBenchmark {
+
+   /**
+    * Number of top level attributes of the document.
+    */
+   @Param({ "10", "100" })
+   private int attributes;
+
+   /**
+    * Number of nested documents in the list attribute.
+    */
+   @Param({ "0", "20" })
+   private int nested;
+
+   private DataDocument converted;
+
+   private RawBsonDocument rawDocument;
+   private DocumentCodec documentCodec;
+   private DataDocumentCodec dataDocumentCodec;
+
+   @Setup
+   public void prepareDocument() {
+      converted = MongoUtils.convertDocument(buildDocument());
+
+      documentCodec = new DocumentCodec(MongoClient.getDefaultCodecRegistry());
+      dataDocumentCodec = new DataDocumentCodec(MongoClient.getDefaultCodecRegistry());
+      rawDocument = new RawBsonDocument(buildDocument(), documentCodec);
+   }
+
+   @Benchmark
+   public Document buildDocument() {
+      final Document document = new Document("_id", new ObjectId());
+      for (int i = 0; i < attributes; i++) {
+         document.append("a" + i, i % 2 == 0 ? "value" + i : i);
+      }
+      document.append("meta", new Document("created", new Date()).append("author", "benchmark"));
+
+      final List<Document> list = new ArrayList<>(nested);
+      for (int i = 0; i < nested; i++) {
+         list.add(new Document("n", i).append("inner", new Document("value", "v" + i)));
+      }
+      document.append("list", list);
+
+      return document;
+   }
+
+   @Benchmark
+   public DataDocument convertDocument() {
+      return MongoUtils.convertDocument(buildDocument());
+   }
+
+   @Benchmark
+   public DataDocument convertNestedAndListDocuments() {
+      final DataDocument document = new DataDocument(buildDocument());
+      MongoUtils.convertNestedAndListDocuments(document);
+      return document;
+   }
+
+   @Benchmark
+   public DataDocument decodeThroughDocument() {
+      return MongoUtils.convertDocument(rawDocument.decode(documentCodec));
+   }
+
+   @Benchmark
+   public DataDocument decodeWithDataDocumentCodec() {
+      return rawDocument.decode(dataDocumentCodec);
+   }
+
+   @Benchmark
+   public String getString() {
+      return converted.getString("a0");
+   }
+
+   @Benchmark
+   public Integer getInteger() {
+      return converted.getInteger("a1");
+   }
+
+   @Benchmark
+   public Date getDate() {
+      return converted.getDate("meta.created");
+   }
+
+   @Benchmark
+   public Object getNestedObject() {
+      return converted.getObject("meta.author");
+   }
+
+   @Benchmark
+   public DataDocument getDataDocument() {
+      return converted.getDataDocument("meta");
+   }
+}
@@ -0,0 +1,110 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.cache.simple;
+
+import io.lumeer.engine.api.cache.Cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link SimpleCache} and {@link BoundedCache} under concurrent reads and writes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CacheBenchmark {
+
+   private static final int KEY_COUNT = 100_000;
+
+   @Param({ "simple", "bounded" })
+   private String implementation;
+
+   /**
+    * Maximum size of the bounded cache relative to the number of keys.
+    */
+   @Param({ "10", "100" })
+   private int capacityPercent;
+
+   private String[] keys;
+
+   private Cache<String> cache;
+
+   @Setup
+   public void prepareCache() {
+      keys = new String[KEY_COUNT];
+      for (int i = 0; i < KEY_COUNT; i++) {
+         keys[i] = "key" + i;
+      }
+
+      if ("simple".equals(implementation)) {
+         cache = new SimpleCache<>();
+      } else {
+         cache = new BoundedCache<>(new BoundedCacheConfiguration(KEY_COUNT * capacityPercent / 100, 0, 0, BoundedCacheConfiguration.DEFAULT_CONCURRENCY_LEVEL));
+      }
+
+      for (final String key : keys) {
+         cache.set(key, key);
+      }
+   }
+
+   @Benchmark
+   public String get() {
+      return cache.get(randomKey());
+   }
+
+   @Benchmark
+   public String computeIfAbsent() {
+      return cache.computeIfAbsent(randomKey(), k -> k);
+   }
+
+   @Benchmark
+   public void set() {
+      final String key = randomKey();
+      cache.set(key, key);
+   }
+
+   @Benchmark
+   public void lockUnlock() {
+      final String key = randomKey();
+      cache.lock(key);
+      cache.unlock(key);
+   }
+
+   private String randomKey() {
+      return keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)];
+   }
+}
@@ -0,0 +1,107 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core;
+
+import io.lumeer.api.dto.JsonPermission;
+import io.lumeer.api.dto.JsonPermissions;
+import io.lumeer.api.dto.JsonQuery;
+import io.lumeer.api.dto.JsonView;
+import io.lumeer.api.model.Permission;
+import io.lumeer.api.model.Role;
+import io.lumeer.api.model.User;
+import io.lumeer.core.cache.UserCache;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PermissionsChecker#getActualRoles} on a resource with many user and group permissions.
+ * Placed in the core package to reach the package private constructor of the checker.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionsCheckerBenchmark {
+
+   private static final String USER = "user@lumeer.io";
+   private static final String GROUP = "group";
+
+   /**
+    * Number of user permissions and also of group permissions on the resource.
+    */
+   @Param({ "10", "1000" })
+   private int permissions;
+
+   private PermissionsChecker permissionsChecker;
+
+   private JsonView view;
+
+   @Setup
+   public void preparePermissionsChecker() {
+      final User user = Mockito.mock(User.class);
+      Mockito.when(user.getGroups()).thenReturn(Collections.singleton(GROUP));
+
+      final UserCache userCache = Mockito.mock(UserCache.class);
+      Mockito.when(userCache.getUser(USER)).thenReturn(user);
+
+      final AuthenticatedUser authenticatedUser = Mockito.mock(AuthenticatedUser.class);
+      Mockito.when(authenticatedUser.getUserEmail()).thenReturn(USER);
+
+      permissionsChecker = new PermissionsChecker(userCache, authenticatedUser);
+
+      final Set<String> readRoles = Collections.singleton(Role.READ.toString());
+      final Permission[] userPermissions = new Permission[permissions];
+      final Permission[] groupPermissions = new Permission[permissions];
+      for (int i = 0; i < permissions - 1; i++) {
+         userPermissions[i] = new JsonPermission("user" + i + "@lumeer.io", readRoles);
+         groupPermissions[i] = new JsonPermission(GROUP + i, readRoles);
+      }
+      userPermissions[permissions - 1] = new JsonPermission(USER, new HashSet<>(readRoles));
+      groupPermissions[permissions - 1] = new JsonPermission(GROUP, Collections.singleton(Role.WRITE.toString()));
+
+      final JsonPermissions jsonPermissions = new JsonPermissions();
+      jsonPermissions.updateUserPermissions(userPermissions);
+      jsonPermissions.updateGroupPermissions(groupPermissions);
+
+      view = new JsonView("code", "name", "icon", "color", jsonPermissions, new JsonQuery(), "perspective", null);
+   }
+
+   @Benchmark
+   public Set<Role> getActualRoles() {
+      return permissionsChecker.getActualRoles(view);
+   }
+}
@@ -0,0 +1,106 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.api.constraint;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of constraint configurations and encoding and decoding of attribute values.
+ * Placed in the constraint package to reach the package private {@link Coders}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstraintBenchmark {
+
+   private static final List<String> CONFIGURATIONS = Arrays.asList("isNumber", "greaterThan:10", "lessThan:1000000");
+
+   private ConstraintManager noConstraints;
+   private ConstraintManager numberConstraints;
+   private NumberFormat numberFormat;
+   private NumberFormat bigNumberFormat;
+
+   @Setup
+   public void prepareManagers() throws InvalidConstraintException {
+      noConstraints = new ConstraintManager();
+      noConstraints.setLocale(Locale.US);
+
+      numberConstraints = new ConstraintManager(CONFIGURATIONS);
+      numberConstraints.setLocale(Locale.US);
+
+      numberFormat = NumberFormat.getNumberInstance(Locale.US);
+      final DecimalFormat decimalFormat = (DecimalFormat) DecimalFormat.getNumberInstance(Locale.US);
+      decimalFormat.setParseBigDecimal(true);
+      bigNumberFormat = decimalFormat;
+   }
+
+   @Benchmark
+   public List<Constraint> parseConstraints() throws InvalidConstraintException {
+      return numberConstraints.parseConstraints(CONFIGURATIONS);
+   }
+
+   @Benchmark
+   public Object encodeWithoutConstraints() {
+      return noConstraints.encode("12345.678");
+   }
+
+   @Benchmark
+   public Object encodeWithConstraints() {
+      return numberConstraints.encode("12345");
+   }
+
+   @Benchmark
+   public Object decodeWithConstraints() {
+      return numberConstraints.decode(12345);
+   }
+
+   @Benchmark
+   public Constraint.ConstraintResult isValid() {
+      return numberConstraints.isValid("12345");
+   }
+
+   @Benchmark
+   public Number encodeNumberWithLocale() {
+      return Coders.encodeNumber(Locale.US, "12345.678");
+   }
+
+   @Benchmark
+   public Number encodeNumberWithFormats() {
+      return Coders.encodeNumber(numberFormat, bigNumberFormat, "12345.678");
+   }
+}
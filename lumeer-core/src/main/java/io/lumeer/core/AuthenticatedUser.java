@@ -42,6 +42,8 @@ public class AuthenticatedUser {
    @Inject
    private UserCache userCache;
 
+   private String delegatedUserEmail;
+
    public User getCurrentUser() {
       String username = getUserEmail();
       return userCache.getUser(username);
@@ -67,6 +69,10 @@ public class AuthenticatedUser {
     * @return The email of currently logged in user.
     */
    public String getUserEmail() {
+      if (delegatedUserEmail != null) {
+         return delegatedUserEmail;
+      }
+
       final Optional<KeycloakPrincipal> principal = getPrincipal();
       return principal.isPresent() ? principal.get().getKeycloakSecurityContext().getToken().getEmail() : DEFAULT_EMAIL;
    }
@@ -81,6 +87,17 @@ public class AuthenticatedUser {
       return principal.isPresent() ? principal.get().getKeycloakSecurityContext().getToken().getRealmAccess().getRoles() : Collections.emptySet();
    }
 
+   /**
+    * Makes the rest of the current request act on behalf of the given user. It is used by background jobs
+    * that are processed outside of the HTTP request of the user who submitted them.
+    *
+    * @param userEmail
+    *       The email of the user.
+    */
+   public void runAs(final String userEmail) {
+      this.delegatedUserEmail = userEmail;
+   }
+
    public String getUserSessionId() {
       return request.getSession().getId();
    }
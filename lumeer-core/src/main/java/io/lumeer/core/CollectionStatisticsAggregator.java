@@ -0,0 +1,235 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core;
+
+import io.lumeer.api.model.Organization;
+import io.lumeer.api.model.Project;
+import io.lumeer.storage.api.dao.CollectionDao;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Updates documents count, attributes usage and last usage time of collections. By default every change is written
+ * immediately as an atomic delta.
+ *
+ * When the <code>lumeer.collection.statisticsFlushInterval</code> system property is set to a positive number of milliseconds,
+ * the deltas of a project are coalesced in memory and written at most once per the interval. They are written by the next
+ * request working with the same project after the interval passes. Pending deltas of idle projects are written by calling
+ * {@link #flush()} in the workspaces returned by {@link #getPendingWorkspaces()}, which is done periodically and when
+ * the application stops.
+ */
+@ApplicationScoped
+public class CollectionStatisticsAggregator {
+
+   private static final Logger log = Logger.getLogger(CollectionStatisticsAggregator.class.getName());
+
+   private static final long FLUSH_INTERVAL = Long.getLong("lumeer.collection.statisticsFlushInterval", 0L);
+
+   @Inject
+   private CollectionDao collectionDao;
+
+   @Inject
+   private WorkspaceKeeper workspaceKeeper;
+
+   private long flushInterval = FLUSH_INTERVAL;
+
+   private LongSupplier clock = System::currentTimeMillis;
+
+   private final ConcurrentMap<String, ConcurrentMap<String, Delta>> pendingDeltas = new ConcurrentHashMap<>();
+
+   private final ConcurrentMap<String, Long> lastFlushes = new ConcurrentHashMap<>();
+
+   private final ConcurrentMap<String, Workspace> workspaces = new ConcurrentHashMap<>();
+
+   public CollectionStatisticsAggregator() {
+   }
+
+   CollectionStatisticsAggregator(CollectionDao collectionDao, WorkspaceKeeper workspaceKeeper, long flushInterval, LongSupplier clock) {
+      this.collectionDao = collectionDao;
+      this.workspaceKeeper = workspaceKeeper;
+      this.flushInterval = flushInterval;
+      this.clock = clock;
+   }
+
+   /**
+    * Records a document created in the collection.
+    *
+    * @param collectionId
+    *       collection id
+    * @param attributeNames
+    *       full names of the attributes of the document
+    */
+   public void documentCreated(String collectionId, Set<String> attributeNames) {
+      Map<String, Integer> attributesUsage = new HashMap<>();
+      attributeNames.forEach(name -> attributesUsage.put(name, 1));
+      documentsCreated(collectionId, 1, attributesUsage);
+   }
+
+   /**
+    * Records a batch of documents created in the collection.
+    *
+    * @param collectionId
+    *       collection id
+    * @param documentsCount
+    *       number of the created documents
+    * @param attributesUsage
+    *       numbers of the created documents using an attribute, mapped by the attribute full name
+    */
+   public void documentsCreated(String collectionId, int documentsCount, Map<String, Integer> attributesUsage) {
+      Delta delta = new Delta(documentsCount, attributesUsage, LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.getAsLong()), ZoneId.systemDefault()));
+
+      Optional<Project> project = workspaceKeeper.getProject();
+      Optional<Organization> organization = workspaceKeeper.getOrganization();
+      if (flushInterval <= 0 || !project.isPresent() || !organization.isPresent()) {
+         write(collectionId, delta);
+         return;
+      }
+
+      String projectId = project.get().getId();
+      workspaces.putIfAbsent(projectId, new Workspace(organization.get().getCode(), project.get().getCode()));
+      pendingDeltas.computeIfAbsent(projectId, id -> new ConcurrentHashMap<>()).merge(collectionId, delta, Delta::merge);
+      flushIfDue(projectId);
+   }
+
+   /**
+    * Writes all pending deltas of the current project.
+    */
+   public void flush() {
+      workspaceKeeper.getProject().map(Project::getId).ifPresent(this::flush);
+   }
+
+   /**
+    * Gets the interval of writing the coalesced deltas.
+    *
+    * @return The interval in milliseconds, zero or a negative number when every change is written immediately.
+    */
+   public long getFlushInterval() {
+      return flushInterval;
+   }
+
+   /**
+    * Gets the workspaces of all projects with pending deltas.
+    *
+    * @return The workspaces to {@link #flush()} in.
+    */
+   public List<Workspace> getPendingWorkspaces() {
+      return pendingDeltas.entrySet().stream()
+                          .filter(entry -> !entry.getValue().isEmpty())
+                          .map(entry -> workspaces.get(entry.getKey()))
+                          .filter(Objects::nonNull)
+                          .collect(Collectors.toList());
+   }
+
+   private void flushIfDue(String projectId) {
+      long now = clock.getAsLong();
+      Long lastFlush = lastFlushes.putIfAbsent(projectId, now);
+      if (lastFlush == null) {
+         return;
+      }
+
+      // only one request takes the flush over
+      if (now - lastFlush >= flushInterval && lastFlushes.replace(projectId, lastFlush, now)) {
+         flush(projectId);
+      }
+   }
+
+   private void flush(String projectId) {
+      Map<String, Delta> deltas = pendingDeltas.get(projectId);
+      if (deltas == null) {
+         return;
+      }
+
+      for (String collectionId : deltas.keySet()) {
+         Delta delta = deltas.remove(collectionId);
+         if (delta == null) {
+            continue;
+         }
+
+         try {
+            write(collectionId, delta);
+         } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Unable to update statistics of collection " + collectionId, e);
+            deltas.merge(collectionId, delta, Delta::merge);
+         }
+      }
+   }
+
+   private void write(String collectionId, Delta delta) {
+      collectionDao.updateCollectionStatistics(collectionId, delta.documentsCount, delta.attributesUsage, delta.lastTimeUsed);
+   }
+
+   /**
+    * Codes of the organization and the project with pending deltas.
+    */
+   public static class Workspace {
+
+      private final String organizationCode;
+      private final String projectCode;
+
+      Workspace(String organizationCode, String projectCode) {
+         this.organizationCode = organizationCode;
+         this.projectCode = projectCode;
+      }
+
+      public String getOrganizationCode() {
+         return organizationCode;
+      }
+
+      public String getProjectCode() {
+         return projectCode;
+      }
+   }
+
+   private static class Delta {
+
+      private final int documentsCount;
+      private final Map<String, Integer> attributesUsage;
+      private final LocalDateTime lastTimeUsed;
+
+      Delta(int documentsCount, Map<String, Integer> attributesUsage, LocalDateTime lastTimeUsed) {
+         this.documentsCount = documentsCount;
+         this.attributesUsage = Collections.unmodifiableMap(attributesUsage);
+         this.lastTimeUsed = lastTimeUsed;
+      }
+
+      Delta merge(Delta other) {
+         Map<String, Integer> mergedUsage = new HashMap<>(attributesUsage);
+         other.attributesUsage.forEach((name, count) -> mergedUsage.merge(name, count, Integer::sum));
+         LocalDateTime mergedTime = lastTimeUsed.isAfter(other.lastTimeUsed) ? lastTimeUsed : other.lastTimeUsed;
+         return new Delta(documentsCount + other.documentsCount, mergedUsage, mergedTime);
+      }
+   }
+}
@@ -0,0 +1,310 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core;
+
+import io.lumeer.api.model.DataIndex;
+import io.lumeer.storage.api.dao.DataDao;
+import io.lumeer.storage.api.query.AttributeFilter;
+import io.lumeer.storage.api.query.AttributeSort;
+import io.lumeer.storage.api.query.SearchQuery;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+
+/**
+ * Recommends indexes of the collection data from the observed workload. Every search records the shape of its attribute
+ * filters and sorts as the index that would serve it: the attributes compared for equality first, then the sorted
+ * attributes and finally one attribute compared by a range. A shape is recommended once it was queried at least
+ * <code>lumeer.index.minQueries</code> times (100 by default) and no existing index starts with its keys.
+ *
+ * When the <code>lumeer.index.autoCreate</code> system property is set to true, the search reaching the limit fires an
+ * {@link IndexRequest} and its observer builds the recommended index in the background. Indexes created by the advisor are named with the
+ * {@link #MANAGED_INDEX_PREFIX} and are reported as unused when no operation used them for
+ * <code>lumeer.index.unusedDays</code> days (7 by default). The workload is kept in memory only, so it starts over when
+ * the application restarts.
+ */
+@ApplicationScoped
+public class IndexAdvisor {
+
+   public static final String MANAGED_INDEX_PREFIX = "lumeer_";
+
+   private static final Logger log = Logger.getLogger(IndexAdvisor.class.getName());
+
+   private static final long MIN_QUERIES = Long.getLong("lumeer.index.minQueries", 100L);
+   private static final boolean AUTO_CREATE = Boolean.getBoolean("lumeer.index.autoCreate");
+   private static final long UNUSED_DAYS = Long.getLong("lumeer.index.unusedDays", 7L);
+
+   // bounds the memory used by collections queried in many different ways
+   private static final int MAX_SHAPES = 64;
+   private static final int MAX_NAME_LENGTH = 100;
+
+   @Inject
+   private DataDao dataDao;
+
+   @Inject
+   private Event<IndexRequest> indexRequestEvent;
+
+   private long minQueries = MIN_QUERIES;
+   private boolean autoCreate = AUTO_CREATE;
+   private Duration unusedAge = Duration.ofDays(UNUSED_DAYS);
+
+   private final ConcurrentMap<String, ConcurrentMap<List<AttributeSort>, Workload>> workloads = new ConcurrentHashMap<>();
+
+   public IndexAdvisor() {
+   }
+
+   IndexAdvisor(DataDao dataDao, Event<IndexRequest> indexRequestEvent, long minQueries, boolean autoCreate, Duration unusedAge) {
+      this.dataDao = dataDao;
+      this.indexRequestEvent = indexRequestEvent;
+      this.minQueries = minQueries;
+      this.autoCreate = autoCreate;
+      this.unusedAge = unusedAge;
+   }
+
+   /**
+    * Records a search of the data of collections.
+    *
+    * @param collectionIds
+    *       ids of the searched collections
+    * @param query
+    *       the query run in every collection
+    */
+   public void recordQuery(Set<String> collectionIds, SearchQuery query) {
+      List<AttributeSort> keys = indexKeys(query);
+      if (keys.isEmpty()) {
+         return;
+      }
+
+      for (String collectionId : collectionIds) {
+         ConcurrentMap<List<AttributeSort>, Workload> shapes = workloads.computeIfAbsent(collectionId, id -> new ConcurrentHashMap<>());
+         Workload workload = shapes.get(keys);
+         if (workload == null) {
+            if (shapes.size() >= MAX_SHAPES) {
+               continue;
+            }
+            workload = shapes.computeIfAbsent(keys, k -> new Workload());
+         }
+
+         workload.queries.increment();
+         if (autoCreate && workload.queries.sum() >= minQueries && workload.created.compareAndSet(false, true)) {
+            requestIndex(collectionId, keys);
+         }
+      }
+   }
+
+   private void requestIndex(String collectionId, List<AttributeSort> keys) {
+      try {
+         indexRequestEvent.fire(new IndexRequest(collectionId, toIndexKeys(keys)));
+      } catch (RuntimeException e) {
+         // the index is not requested again until the workload is cleared to avoid failing on every search
+         log.log(Level.WARNING, "Unable to request index " + keys + " of collection " + collectionId, e);
+      }
+   }
+
+   /**
+    * Creates the index of the collection data unless an existing index starts with its keys. Reading the existing
+    * indexes and building the index can take long, so it is called by the observer of the {@link IndexRequest}.
+    *
+    * @param collectionId
+    *       collection id
+    * @param indexKeys
+    *       keys of the index mapped to their directions
+    * @return true if and only if the index was created
+    */
+   public boolean createIndexIfMissing(String collectionId, Map<String, Integer> indexKeys) {
+      List<AttributeSort> keys = indexKeys.entrySet().stream()
+                                          .map(key -> new AttributeSort(key.getKey(), key.getValue() > 0))
+                                          .collect(Collectors.toList());
+      if (dataDao.getIndexes(collectionId).stream().anyMatch(index -> isCovered(keys, index))) {
+         return false;
+      }
+
+      dataDao.createIndex(collectionId, new DataIndex(indexName(indexKeys), indexKeys));
+      return true;
+   }
+
+   /**
+    * Gets the indexes serving the recorded queries that are not covered by the existing indexes.
+    *
+    * @param collectionId
+    *       collection id
+    * @param indexes
+    *       existing indexes of the collection data
+    * @return recommended indexes without names, the accesses are the numbers of the recorded queries they would serve
+    */
+   public List<DataIndex> getRecommendedIndexes(String collectionId, List<DataIndex> indexes) {
+      Map<List<AttributeSort>, Workload> shapes = workloads.getOrDefault(collectionId, new ConcurrentHashMap<>(0));
+
+      return shapes.entrySet().stream()
+                   .filter(shape -> shape.getValue().queries.sum() >= minQueries)
+                   .filter(shape -> indexes.stream().noneMatch(index -> isCovered(shape.getKey(), index)))
+                   .map(shape -> new DataIndex(null, toIndexKeys(shape.getKey()), shape.getValue().queries.sum(), null))
+                   .sorted(Comparator.comparingLong(DataIndex::getAccesses).reversed())
+                   .collect(Collectors.toList());
+   }
+
+   /**
+    * Gets the indexes created by the advisor that were not used by any operation for the configured time.
+    *
+    * @param indexes
+    *       existing indexes of the collection data
+    * @return the unused indexes
+    */
+   public List<DataIndex> getUnusedIndexes(List<DataIndex> indexes) {
+      LocalDateTime usedSince = LocalDateTime.now().minus(unusedAge);
+
+      return indexes.stream()
+                    .filter(index -> index.getName() != null && index.getName().startsWith(MANAGED_INDEX_PREFIX))
+                    .filter(index -> index.getAccesses() == 0 && index.getAccessesSince() != null && index.getAccessesSince().isBefore(usedSince))
+                    .collect(Collectors.toList());
+   }
+
+   /**
+    * Forgets the workload of a removed collection.
+    *
+    * @param collectionId
+    *       collection id
+    */
+   public void collectionRemoved(String collectionId) {
+      workloads.remove(collectionId);
+   }
+
+   /**
+    * Derives the keys of the index serving the query following the equality, sort, range rule.
+    *
+    * @param query
+    *       the query
+    * @return the index keys, empty when an index would not help the query
+    */
+   static List<AttributeSort> indexKeys(SearchQuery query) {
+      if (query.isFulltextQuery()) {
+         // fulltext queries are served by the fulltext index
+         return Collections.emptyList();
+      }
+
+      Set<String> equalities = new TreeSet<>();
+      Set<String> ranges = new TreeSet<>();
+      for (AttributeFilter filter : query.getAttributeFilters()) {
+         switch (filter.getOperator()) {
+            case EQUALS:
+               equalities.add(filter.getAttribute());
+               break;
+            case IN:
+               // the values of an IN are merged like a range when the result is sorted
+               (query.hasAttributeSorts() ? ranges : equalities).add(filter.getAttribute());
+               break;
+            case LOWER_THAN:
+            case LOWER_THAN_EQUALS:
+            case GREATER_THAN:
+            case GREATER_THAN_EQUALS:
+            case PREFIX:
+            case EXISTS:
+               ranges.add(filter.getAttribute());
+               break;
+            default:
+               // negations scan almost the whole index
+               break;
+         }
+      }
+
+      Map<String, AttributeSort> keys = new LinkedHashMap<>();
+      equalities.forEach(attribute -> keys.put(attribute, new AttributeSort(attribute, true)));
+      query.getAttributeSorts().forEach(sort -> keys.putIfAbsent(sort.getAttribute(), sort));
+      Iterator<String> range = ranges.stream().filter(attribute -> !keys.containsKey(attribute)).iterator();
+      if (range.hasNext()) {
+         // the attributes after the first range would not narrow the scanned part of the index
+         String attribute = range.next();
+         keys.put(attribute, new AttributeSort(attribute, true));
+      }
+
+      return new ArrayList<>(keys.values());
+   }
+
+   /**
+    * Checks whether the index starts with the keys, in the same or in the reversed directions.
+    */
+   static boolean isCovered(List<AttributeSort> keys, DataIndex index) {
+      List<Map.Entry<String, Integer>> indexKeys = new ArrayList<>(index.getKeys().entrySet());
+      if (indexKeys.size() < keys.size()) {
+         return false;
+      }
+
+      boolean same = true;
+      boolean reversed = true;
+      for (int i = 0; i < keys.size(); i++) {
+         AttributeSort key = keys.get(i);
+         Map.Entry<String, Integer> indexKey = indexKeys.get(i);
+         if (!key.getAttribute().equals(indexKey.getKey())) {
+            return false;
+         }
+         boolean ascending = indexKey.getValue() > 0;
+         same &= ascending == key.isAscending();
+         reversed &= ascending != key.isAscending();
+      }
+      return same || reversed;
+   }
+
+   /**
+    * Gets the name of an index managed by the advisor.
+    *
+    * @param keys
+    *       keys of the index
+    * @return the name of the index
+    */
+   public static String indexName(Map<String, Integer> keys) {
+      String name = MANAGED_INDEX_PREFIX + keys.entrySet().stream()
+                                               .map(key -> key.getKey() + "_" + key.getValue())
+                                               .collect(Collectors.joining("_"));
+      if (name.length() > MAX_NAME_LENGTH) {
+         return MANAGED_INDEX_PREFIX + Integer.toHexString(name.hashCode());
+      }
+      return name;
+   }
+
+   private static Map<String, Integer> toIndexKeys(List<AttributeSort> keys) {
+      Map<String, Integer> indexKeys = new LinkedHashMap<>();
+      keys.forEach(key -> indexKeys.put(key.getAttribute(), key.isAscending() ? 1 : -1));
+      return indexKeys;
+   }
+
+   private static class Workload {
+
+      private final LongAdder queries = new LongAdder();
+      private final AtomicBoolean created = new AtomicBoolean();
+   }
+}
@@ -0,0 +1,54 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Event fired by the {@link IndexAdvisor} when an index of the collection data should be created. The observer builds
+ * the index outside of the search that requested it.
+ */
+public class IndexRequest {
+
+   private final String collectionId;
+   private final Map<String, Integer> keys;
+
+   public IndexRequest(final String collectionId, final Map<String, Integer> keys) {
+      this.collectionId = collectionId;
+      this.keys = Collections.unmodifiableMap(new LinkedHashMap<>(keys));
+   }
+
+   public String getCollectionId() {
+      return collectionId;
+   }
+
+   public Map<String, Integer> getKeys() {
+      return keys;
+   }
+
+   @Override
+   public String toString() {
+      return "IndexRequest{" +
+            "collectionId='" + collectionId + '\'' +
+            ", keys=" + keys +
+            '}';
+   }
+}
@@ -26,8 +26,11 @@ import io.lumeer.core.cache.UserCache;
 import io.lumeer.core.exception.NoPermissionException;
 
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 
@@ -40,6 +43,11 @@ public class PermissionsChecker {
    @Inject
    private AuthenticatedUser authenticatedUser;
 
+   /**
+    * Groups of the users resolved during the current request, so that a check does not need to reach the user cache.
+    */
+   private final Map<String, Set<String>> userGroups = new HashMap<>();
+
    public PermissionsChecker() {
    }
 
@@ -78,8 +86,9 @@ public class PermissionsChecker {
       String user = authenticatedUser.getUserEmail();
       Set<String> groups = getUserGroups(user, resource);
 
-      Set<Role> actualRoles = getActualUserRoles(resource.getPermissions().getUserPermissions(), user);
-      actualRoles.addAll(getActualGroupRoles(resource.getPermissions().getGroupPermissions(), groups));
+      Set<Role> actualRoles = EnumSet.noneOf(Role.class);
+      addActualRoles(actualRoles, resource.getPermissions().getUserPermissions(), Collections.singleton(user));
+      addActualRoles(actualRoles, resource.getPermissions().getGroupPermissions(), groups);
       return actualRoles;
    }
 
@@ -87,21 +96,15 @@ public class PermissionsChecker {
       if (resource instanceof Organization) {
          return Collections.emptySet();
       }
-      return userCache.getUser(user).getGroups();
+      return userGroups.computeIfAbsent(user, name -> new HashSet<>(userCache.getUser(name).getGroups()));
    }
 
-   private Set<Role> getActualUserRoles(Set<Permission> userRoles, String user) {
-      return userRoles.stream()
-                      .filter(entity -> entity.getName().equals(user))
-                      .flatMap(entity -> entity.getRoles().stream())
-                      .collect(Collectors.toSet());
-   }
-
-   private Set<Role> getActualGroupRoles(Set<Permission> groupRoles, Set<String> groups) {
-      return groupRoles.stream()
-                       .filter(entity -> groups.contains(entity.getName()))
-                       .flatMap(entity -> entity.getRoles().stream())
-                       .collect(Collectors.toSet());
+   private static void addActualRoles(Set<Role> actualRoles, Set<Permission> permissions, Set<String> names) {
+      for (Permission permission : permissions) {
+         if (names.contains(permission.getName())) {
+            actualRoles.addAll(permission.getRoles());
+         }
+      }
    }
 
 }
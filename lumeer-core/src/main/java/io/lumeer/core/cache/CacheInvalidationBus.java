@@ -0,0 +1,152 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheInvalidation;
+import io.lumeer.engine.api.cache.CacheInvalidationTransport;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Propagates evictions of node local caches to all the other nodes of the cluster. Caches publish the keys they updated
+ * or removed and subscribe for the keys updated by the other nodes.
+ * The messages travel through the injected {@link CacheInvalidationTransport}.
+ */
+@ApplicationScoped
+public class CacheInvalidationBus {
+
+   private static final Logger log = Logger.getLogger(CacheInvalidationBus.class.getName());
+
+   private final String nodeId = UUID.randomUUID().toString();
+
+   private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+   @Inject
+   private CacheInvalidationTransport transport;
+
+   public CacheInvalidationBus() {
+   }
+
+   CacheInvalidationBus(final CacheInvalidationTransport transport) {
+      this.transport = transport;
+      transport.start(this::onInvalidation);
+   }
+
+   @PostConstruct
+   public void init() {
+      transport.start(this::onInvalidation);
+   }
+
+   @PreDestroy
+   public void close() {
+      transport.close();
+   }
+
+   /**
+    * Whether the evictions reach the other nodes of the cluster, see {@link CacheInvalidationTransport#isClusterWide()}.
+    *
+    * @return true if and only if the evictions leave this node
+    */
+   public boolean isClusterWide() {
+      return transport.isClusterWide();
+   }
+
+   /**
+    * Registers a listener of evictions made by the other nodes.
+    *
+    * @param cacheName
+    *       Name of the cache.
+    * @param listener
+    *       Receives the evicted key, or null when the whole cache is to be cleared.
+    */
+   public void subscribe(final String cacheName, final Consumer<String> listener) {
+      listeners.computeIfAbsent(cacheName, name -> new CopyOnWriteArrayList<>()).add(listener);
+   }
+
+   /**
+    * Evicts entries of the cache whenever the other nodes evict them.
+    *
+    * @param cacheName
+    *       Name of the cache.
+    * @param cache
+    *       The local cache.
+    */
+   public void subscribe(final String cacheName, final Cache<?> cache) {
+      subscribe(cacheName, key -> {
+         if (key != null) {
+            cache.remove(key);
+         } else {
+            cache.clear();
+         }
+      });
+   }
+
+   /**
+    * Tells the other nodes to evict the key from the cache.
+    *
+    * @param cacheName
+    *       Name of the cache.
+    * @param key
+    *       Key to evict.
+    */
+   public void invalidate(final String cacheName, final String key) {
+      publish(new CacheInvalidation(nodeId, cacheName, key));
+   }
+
+   /**
+    * Tells the other nodes to clear the whole cache.
+    *
+    * @param cacheName
+    *       Name of the cache.
+    */
+   public void invalidateAll(final String cacheName) {
+      publish(new CacheInvalidation(nodeId, cacheName, null));
+   }
+
+   private void publish(final CacheInvalidation invalidation) {
+      try {
+         transport.publish(invalidation);
+      } catch (RuntimeException e) {
+         log.log(Level.WARNING, "Unable to publish " + invalidation, e);
+      }
+   }
+
+   private void onInvalidation(final CacheInvalidation invalidation) {
+      if (nodeId.equals(invalidation.getOrigin())) {
+         return;
+      }
+
+      List<Consumer<String>> cacheListeners = listeners.get(invalidation.getCacheName());
+      if (cacheListeners != null) {
+         cacheListeners.forEach(listener -> listener.accept(invalidation.getKey()));
+      }
+   }
+}
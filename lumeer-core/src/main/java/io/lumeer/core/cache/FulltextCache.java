@@ -0,0 +1,385 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Organization;
+import io.lumeer.api.model.Project;
+import io.lumeer.api.model.ResourceType;
+import io.lumeer.core.AuthenticatedUser;
+import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheFactory;
+import io.lumeer.engine.api.cache.CacheLimits;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.api.dao.CollectionDao;
+import io.lumeer.storage.api.dao.DataDao;
+import io.lumeer.storage.api.exception.ResourceNotFoundException;
+import io.lumeer.storage.api.query.SearchQuery;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+
+/**
+ * Embedded fulltext engine searching the document data instead of the MongoDB text indexes. It is used when the
+ * <code>lumeer.fulltext.engine</code> system property is set to <code>embedded</code>, the text indexes of new collections
+ * can then be turned off by setting <code>lumeer.data.textIndex</code> to false.
+ *
+ * Keeps a {@link FulltextIndex} of every recently used project, the least recently used ones are dropped when the
+ * indexes contain too many words. The first search of a project fires a {@link FulltextIndexRequest} whose observer
+ * loads the index in the background, the searches use the MongoDB text indexes until it is loaded, so they should not be
+ * turned off for the collections of large projects. A loaded index is kept up to date by the facades writing the
+ * document data, so a search finds the data right after it is written. Other nodes are
+ * told the ids of the changed documents through the {@link CacheInvalidationBus} and read just these documents again
+ * before their next search. The documents changed while an index is being loaded are read again the same way once it is
+ * loaded. An index must be rebuilt when the data is changed outside of the application.
+ */
+@ApplicationScoped
+public class FulltextCache {
+
+   public static final String EMBEDDED_ENGINE = "embedded";
+
+   private static final String FULLTEXT_CACHE = "fulltext";
+
+   private static final boolean ENABLED = EMBEDDED_ENGINE.equals(System.getProperty("lumeer.fulltext.engine"));
+
+   /**
+    * Only this number of the best matching documents is returned by a search.
+    */
+   private static final int MAX_RESULTS = Integer.getInteger("lumeer.fulltext.maxResults", 10_000);
+
+   /**
+    * The indexes are kept up to date, so they never expire. Only the least recently used ones are dropped when their
+    * documents contain too many words in total, see {@link FulltextIndex#weight()}.
+    */
+   private static final CacheLimits FULLTEXT_LIMITS = new CacheLimits(Long.getLong("lumeer.fulltext.maxWords", 10_000_000L), 0, 0);
+
+   /**
+    * Other nodes read a whole collection again when more documents of it are changed at once.
+    */
+   private static final int MAX_DOCUMENT_INVALIDATIONS = 100;
+
+   @Inject
+   private CacheFactory cacheFactory;
+
+   @Inject
+   private CacheInvalidationBus invalidationBus;
+
+   @Inject
+   private WorkspaceKeeper workspaceKeeper;
+
+   @Inject
+   private AuthenticatedUser authenticatedUser;
+
+   @Inject
+   private CollectionDao collectionDao;
+
+   @Inject
+   private DataDao dataDao;
+
+   @Inject
+   private Event<FulltextIndexRequest> indexRequestEvent;
+
+   private boolean enabled = ENABLED;
+
+   // project id -> index which is being loaded
+   private final Map<String, FulltextIndex> loadingIndexes = new ConcurrentHashMap<>();
+   private final Map<String, Object> loadLocks = new ConcurrentHashMap<>();
+   // ids of the projects whose index was requested and is not loaded yet
+   private final Set<String> requestedLoads = ConcurrentHashMap.newKeySet();
+
+   private Cache<FulltextIndex> indexCache;
+
+   public FulltextCache() {
+   }
+
+   FulltextCache(final CacheFactory cacheFactory, final CacheInvalidationBus invalidationBus, final WorkspaceKeeper workspaceKeeper,
+         final AuthenticatedUser authenticatedUser, final CollectionDao collectionDao, final DataDao dataDao, final Event<FulltextIndexRequest> indexRequestEvent) {
+      this.cacheFactory = cacheFactory;
+      this.invalidationBus = invalidationBus;
+      this.workspaceKeeper = workspaceKeeper;
+      this.authenticatedUser = authenticatedUser;
+      this.collectionDao = collectionDao;
+      this.dataDao = dataDao;
+      this.indexRequestEvent = indexRequestEvent;
+      this.enabled = true;
+      initCache();
+   }
+
+   @PostConstruct
+   public void initCache() {
+      indexCache = cacheFactory.getCache(FULLTEXT_CACHE, FULLTEXT_LIMITS, FulltextIndex::weight);
+      invalidationBus.subscribe(FULLTEXT_CACHE, this::onRemoteChange);
+   }
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   /**
+    * Finds the documents of the current project matching the fulltext query.
+    *
+    * @param text
+    *       the fulltext query
+    * @param collectionIds
+    *       ids of the collections to search in
+    * @return ids of the best matching documents mapped by the id of their collection, empty when the index of the project
+    * is not loaded yet
+    */
+   public Optional<Map<String, Set<String>>> search(String text, Set<String> collectionIds) {
+      return getIndex().map(index -> index.search(text, collectionIds, MAX_RESULTS));
+   }
+
+   public void dataChanged(String collectionId, String documentId, DataDocument data) {
+      updateIndex(collectionId, Collections.singleton(documentId), index -> index.putDocument(collectionId, documentId, data));
+   }
+
+   /**
+    * Updates the index with the whole data of the documents, the id must be set in all of them.
+    *
+    * @param collectionId
+    *       id of the collection of the documents
+    * @param data
+    *       data of the documents
+    */
+   public void dataChanged(String collectionId, List<DataDocument> data) {
+      Set<String> documentIds = data.stream().map(DataDocument::getId).collect(Collectors.toSet());
+      updateIndex(collectionId, documentIds, index -> data.forEach(document -> index.putDocument(collectionId, document.getId(), document)));
+   }
+
+   public void dataRemoved(String collectionId, Set<String> documentIds) {
+      updateIndex(collectionId, documentIds, index -> documentIds.forEach(index::removeDocument));
+   }
+
+   public void collectionRemoved(String collectionId) {
+      updateIndex(collectionId, null, index -> index.removeCollection(collectionId));
+   }
+
+   /**
+    * Builds the index of the current project again from the database.
+    *
+    * @return number of the indexed documents
+    */
+   public int rebuild() {
+      String projectId = getProjectId();
+      dropIndex(projectId);
+      invalidationBus.invalidate(FULLTEXT_CACHE, projectId);
+      return loadIndex(projectId).size();
+   }
+
+   /**
+    * Loads the index of the current project unless it is loaded already. It is called by the observer of the
+    * {@link FulltextIndexRequest}.
+    *
+    * @return number of the indexed documents
+    */
+   public int load() {
+      String projectId = getProjectId();
+      try {
+         return loadIndex(projectId).size();
+      } finally {
+         requestedLoads.remove(projectId);
+      }
+   }
+
+   public void removeProject(String projectId) {
+      dropIndex(projectId);
+      loadLocks.remove(projectId);
+      invalidationBus.invalidate(FULLTEXT_CACHE, projectId);
+   }
+
+   private Optional<FulltextIndex> getIndex() {
+      String projectId = getProjectId();
+
+      FulltextIndex index = indexCache.get(projectId);
+      if (index == null) {
+         requestLoad(projectId);
+         // the observer might have loaded the index right away
+         index = indexCache.get(projectId);
+         if (index == null) {
+            return Optional.empty();
+         }
+      }
+      refreshIndex(index);
+      updateWeight(projectId, index);
+      return Optional.of(index);
+   }
+
+   private void requestLoad(String projectId) {
+      if (!requestedLoads.add(projectId)) {
+         return;
+      }
+
+      try {
+         String organizationCode = workspaceKeeper.getOrganization().map(Organization::getCode).orElse(null);
+         String projectCode = workspaceKeeper.getProject().map(Project::getCode).orElse(null);
+         indexRequestEvent.fire(new FulltextIndexRequest(organizationCode, projectCode, authenticatedUser.getUserEmail()));
+      } catch (RuntimeException e) {
+         requestedLoads.remove(projectId);
+         throw e;
+      }
+   }
+
+   /**
+    * The weight of an index is computed when it is stored in the cache, so it is stored again after it was changed.
+    */
+   private void updateWeight(String projectId, FulltextIndex index) {
+      if (indexCache.get(projectId) == index) {
+         indexCache.set(projectId, index);
+      }
+   }
+
+   /**
+    * Applies the change of the documents to the index of the current project and tells the other nodes about it.
+    *
+    * @param collectionId
+    *       id of the collection of the documents
+    * @param documentIds
+    *       ids of the changed documents, null when the whole collection changed
+    * @param update
+    *       applies the change to the index
+    */
+   private void updateIndex(String collectionId, Set<String> documentIds, Consumer<FulltextIndex> update) {
+      if (!enabled) {
+         return;
+      }
+      String projectId = getProjectId();
+
+      // the index being loaded might have read the previous data, so the documents are read again once it is loaded
+      FulltextIndex loadingIndex = loadingIndexes.get(projectId);
+      if (loadingIndex != null) {
+         markStale(loadingIndex, collectionId, documentIds);
+      } else {
+         FulltextIndex index = indexCache.get(projectId);
+         if (index != null) {
+            synchronized (index) {
+               update.accept(index);
+            }
+            updateWeight(projectId, index);
+         }
+      }
+
+      if (documentIds == null || documentIds.size() > MAX_DOCUMENT_INVALIDATIONS) {
+         invalidationBus.invalidate(FULLTEXT_CACHE, projectId + "/" + collectionId);
+      } else {
+         documentIds.forEach(documentId -> invalidationBus.invalidate(FULLTEXT_CACHE, projectId + "/" + collectionId + "/" + documentId));
+      }
+   }
+
+   private void onRemoteChange(String key) {
+      if (key == null) {
+         indexCache.clear();
+         loadingIndexes.clear();
+         return;
+      }
+
+      String[] parts = key.split("/");
+      if (parts.length == 1) {
+         dropIndex(parts[0]);
+         return;
+      }
+
+      FulltextIndex index = loadingIndexes.get(parts[0]);
+      if (index == null) {
+         index = indexCache.get(parts[0]);
+      }
+      if (index != null) {
+         index.markStale(parts[1], parts.length > 2 ? parts[2] : null);
+      }
+   }
+
+   private void dropIndex(String projectId) {
+      indexCache.remove(projectId);
+      loadingIndexes.remove(projectId);
+   }
+
+   private static void markStale(FulltextIndex index, String collectionId, Set<String> documentIds) {
+      if (documentIds != null) {
+         documentIds.forEach(documentId -> index.markStale(collectionId, documentId));
+      } else {
+         index.markStale(collectionId, null);
+      }
+   }
+
+   private FulltextIndex loadIndex(String projectId) {
+      synchronized (loadLocks.computeIfAbsent(projectId, id -> new Object())) {
+         FulltextIndex index = indexCache.get(projectId);
+         if (index != null) {
+            return index;
+         }
+
+         index = new FulltextIndex();
+         loadingIndexes.put(projectId, index);
+         try {
+            SearchQuery query = SearchQuery.createBuilder(authenticatedUser.getCurrentUsername()).build();
+            for (Collection collection : collectionDao.getAllCollections()) {
+               putDocuments(index, collection.getId(), query);
+            }
+            indexCache.set(projectId, index);
+         } finally {
+            // the index is not kept when the whole project was invalidated while it was being loaded
+            if (!loadingIndexes.remove(projectId, index)) {
+               indexCache.remove(projectId);
+            }
+         }
+         return index;
+      }
+   }
+
+   private void refreshIndex(FulltextIndex index) {
+      // holds the index, so that a concurrent update is not overwritten by the data read before it
+      synchronized (index) {
+         index.takeStaleDocuments().forEach((collectionId, documentIds) -> {
+            SearchQuery.Builder query = SearchQuery.createBuilder(authenticatedUser.getCurrentUsername());
+            if (documentIds.isEmpty()) {
+               index.removeCollection(collectionId);
+            } else {
+               documentIds.forEach(index::removeDocument);
+               query.documentIds(documentIds);
+            }
+            putDocuments(index, collectionId, query.build());
+         });
+      }
+   }
+
+   private void putDocuments(FulltextIndex index, String collectionId, SearchQuery query) {
+      try (Stream<DataDocument> data = dataDao.streamData(collectionId, query)) {
+         data.forEach(document -> index.putDocument(collectionId, document.getId(), document));
+      }
+   }
+
+   private String getProjectId() {
+      Optional<Project> project = workspaceKeeper.getProject();
+      if (!project.isPresent()) {
+         throw new ResourceNotFoundException(ResourceType.PROJECT);
+      }
+      return project.get().getId();
+   }
+}
@@ -0,0 +1,254 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.engine.api.LumeerConst;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index of the text values in the data of all the documents of a single project. The values are split
+ * into lower case words, every word of a query matches the words it is a prefix of.
+ *
+ * The query syntax follows the MongoDB text search: a document matches when it contains any of the words, it must
+ * contain all the words of every quoted phrase and none of the words prefixed by a minus sign. The documents matching
+ * more words go first.
+ */
+public class FulltextIndex {
+
+   private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+   private static final Pattern QUERY_TERM = Pattern.compile("(-?)\"([^\"]*)\"?|(-?)(\\S+)");
+
+   // word -> ids of the documents containing it
+   private final TreeMap<String, Set<String>> postings = new TreeMap<>();
+   private final Map<String, IndexedDocument> documents = new HashMap<>();
+   // collection id -> ids of the documents that must be read from the database again, empty for the whole collection
+   private final Map<String, Set<String>> staleDocuments = new HashMap<>();
+   // number of the words of all the documents, every word is counted once in every document containing it
+   private long weight;
+
+   /**
+    * Adds the document to the index, replacing its previous data.
+    *
+    * @param collectionId
+    *       id of the collection of the document
+    * @param documentId
+    *       id of the document
+    * @param data
+    *       data of the document
+    */
+   public synchronized void putDocument(final String collectionId, final String documentId, final Map<String, Object> data) {
+      removeDocument(documentId);
+
+      Set<String> words = new HashSet<>();
+      data.forEach((key, value) -> {
+         if (!LumeerConst.Document.ID.equals(key)) {
+            addWords(Collections.singleton(value), words);
+         }
+      });
+      documents.put(documentId, new IndexedDocument(collectionId, words));
+      weight += words.size();
+      words.forEach(word -> postings.computeIfAbsent(word, w -> new HashSet<>()).add(documentId));
+   }
+
+   public synchronized void removeDocument(final String documentId) {
+      IndexedDocument document = documents.remove(documentId);
+      if (document == null) {
+         return;
+      }
+
+      weight -= document.words.size();
+      for (String word : document.words) {
+         Set<String> ids = postings.get(word);
+         ids.remove(documentId);
+         if (ids.isEmpty()) {
+            postings.remove(word);
+         }
+      }
+   }
+
+   public synchronized void removeCollection(final String collectionId) {
+      List<String> ids = new ArrayList<>();
+      documents.forEach((id, document) -> {
+         if (document.collectionId.equals(collectionId)) {
+            ids.add(id);
+         }
+      });
+      ids.forEach(this::removeDocument);
+   }
+
+   /**
+    * Marks the document as changed outside of this index, so it is read from the database again before the next search.
+    *
+    * @param collectionId
+    *       id of the collection of the document
+    * @param documentId
+    *       id of the document, null when all the documents of the collection changed
+    */
+   public synchronized void markStale(final String collectionId, final String documentId) {
+      Set<String> documentIds = staleDocuments.get(collectionId);
+      if (documentIds != null && documentIds.isEmpty()) {
+         return;
+      }
+      if (documentId == null) {
+         staleDocuments.put(collectionId, new HashSet<>());
+      } else {
+         staleDocuments.computeIfAbsent(collectionId, id -> new HashSet<>()).add(documentId);
+      }
+   }
+
+   /**
+    * Gets and forgets the documents marked as stale.
+    *
+    * @return ids of the stale documents mapped by the id of their collection, an empty set means the whole collection
+    */
+   public synchronized Map<String, Set<String>> takeStaleDocuments() {
+      Map<String, Set<String>> documentIds = new HashMap<>(staleDocuments);
+      staleDocuments.clear();
+      return documentIds;
+   }
+
+   public synchronized int size() {
+      return documents.size();
+   }
+
+   /**
+    * Gets the size of the index in memory measured by the number of the words of its documents, the words contained in
+    * more documents are counted once for each of them.
+    *
+    * @return the number of the words
+    */
+   public synchronized int weight() {
+      return (int) Math.min(weight, Integer.MAX_VALUE);
+   }
+
+   /**
+    * Finds the documents matching the query.
+    *
+    * @param query
+    *       the query
+    * @param collectionIds
+    *       only the documents of these collections are returned
+    * @param limit
+    *       maximal number of returned documents
+    * @return ids of the matching documents mapped by the id of their collection
+    */
+   public synchronized Map<String, Set<String>> search(final String query, final Set<String> collectionIds, final int limit) {
+      List<String> optionalWords = new ArrayList<>();
+      List<String> requiredWords = new ArrayList<>();
+      List<String> excludedWords = new ArrayList<>();
+
+      Matcher matcher = QUERY_TERM.matcher(query);
+      while (matcher.find()) {
+         boolean phrase = matcher.group(2) != null;
+         boolean negated = !(phrase ? matcher.group(1) : matcher.group(3)).isEmpty();
+         List<String> words = splitWords(phrase ? matcher.group(2) : matcher.group(4));
+         (negated ? excludedWords : phrase ? requiredWords : optionalWords).addAll(words);
+      }
+
+      Map<String, Integer> scores = new HashMap<>();
+      if (!requiredWords.isEmpty()) {
+         Set<String> matching = null;
+         for (String word : requiredWords) {
+            Set<String> ids = findByPrefix(word);
+            if (matching == null) {
+               matching = new HashSet<>(ids);
+            } else {
+               matching.retainAll(ids);
+            }
+         }
+         matching.forEach(id -> scores.put(id, requiredWords.size()));
+         // the optional words only rank the documents containing the phrases
+         optionalWords.forEach(word -> findByPrefix(word).forEach(id -> scores.computeIfPresent(id, (key, score) -> score + 1)));
+      } else {
+         optionalWords.forEach(word -> findByPrefix(word).forEach(id -> scores.merge(id, 1, Integer::sum)));
+      }
+      excludedWords.forEach(word -> findByPrefix(word).forEach(scores::remove));
+
+      List<Map.Entry<String, Integer>> matches = new ArrayList<>();
+      for (Map.Entry<String, Integer> match : scores.entrySet()) {
+         if (collectionIds.contains(documents.get(match.getKey()).collectionId)) {
+            matches.add(match);
+         }
+      }
+      matches.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+      Map<String, Set<String>> result = new HashMap<>();
+      for (Map.Entry<String, Integer> match : matches.subList(0, Math.min(limit, matches.size()))) {
+         result.computeIfAbsent(documents.get(match.getKey()).collectionId, id -> new LinkedHashSet<>()).add(match.getKey());
+      }
+      return result;
+   }
+
+   private Set<String> findByPrefix(final String prefix) {
+      Collection<Set<String>> matching = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+      if (matching.size() == 1) {
+         return matching.iterator().next();
+      }
+
+      Set<String> ids = new HashSet<>();
+      matching.forEach(ids::addAll);
+      return ids;
+   }
+
+   private static void addWords(final Collection<?> values, final Set<String> words) {
+      for (Object value : values) {
+         if (value instanceof String) {
+            words.addAll(splitWords((String) value));
+         } else if (value instanceof Map) {
+            addWords(((Map<?, ?>) value).values(), words);
+         } else if (value instanceof Collection) {
+            addWords((Collection<?>) value, words);
+         }
+      }
+   }
+
+   private static List<String> splitWords(final String text) {
+      List<String> words = new ArrayList<>();
+      for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+         if (!word.isEmpty()) {
+            words.add(word);
+         }
+      }
+      return words;
+   }
+
+   private static class IndexedDocument {
+
+      private final String collectionId;
+      private final Set<String> words;
+
+      IndexedDocument(final String collectionId, final Set<String> words) {
+         this.collectionId = collectionId;
+         this.words = Collections.unmodifiableSet(words);
+      }
+   }
+}
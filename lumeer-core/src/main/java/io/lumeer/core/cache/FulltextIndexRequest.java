@@ -0,0 +1,57 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+/**
+ * Event fired by the {@link FulltextCache} when the fulltext index of a project is not loaded. The observer loads the
+ * index in the workspace and on behalf of the user outside of the search that requested it.
+ */
+public class FulltextIndexRequest {
+
+   private final String organizationCode;
+   private final String projectCode;
+   private final String userEmail;
+
+   public FulltextIndexRequest(final String organizationCode, final String projectCode, final String userEmail) {
+      this.organizationCode = organizationCode;
+      this.projectCode = projectCode;
+      this.userEmail = userEmail;
+   }
+
+   public String getOrganizationCode() {
+      return organizationCode;
+   }
+
+   public String getProjectCode() {
+      return projectCode;
+   }
+
+   public String getUserEmail() {
+      return userEmail;
+   }
+
+   @Override
+   public String toString() {
+      return "FulltextIndexRequest{" +
+            "organizationCode='" + organizationCode + '\'' +
+            ", projectCode='" + projectCode + '\'' +
+            ", userEmail='" + userEmail + '\'' +
+            '}';
+   }
+}
@@ -0,0 +1,106 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Usage statistics of the {@link SearchResultCache}.
+ */
+public class SearchCacheStatistics {
+
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder stale = new LongAdder();
+   private final LongAdder oversized = new LongAdder();
+
+   void recordHit() {
+      hits.increment();
+   }
+
+   void recordMiss() {
+      misses.increment();
+   }
+
+   void recordStale() {
+      stale.increment();
+   }
+
+   void recordOversized() {
+      oversized.increment();
+   }
+
+   /**
+    * Gets the number of searches answered from the cache.
+    *
+    * @return The number of cache hits.
+    */
+   public long getHitCount() {
+      return hits.sum();
+   }
+
+   /**
+    * Gets the number of searches that had to query the database, including the ones with a stale cached result.
+    *
+    * @return The number of cache misses.
+    */
+   public long getMissCount() {
+      return misses.sum();
+   }
+
+   /**
+    * Gets the number of cached results dropped because the data they were computed from has changed since.
+    *
+    * @return The number of stale results.
+    */
+   public long getStaleCount() {
+      return stale.sum();
+   }
+
+   /**
+    * Gets the number of results not cached because they were too large.
+    *
+    * @return The number of oversized results.
+    */
+   public long getOversizedCount() {
+      return oversized.sum();
+   }
+
+   /**
+    * Gets the ratio of searches answered from the cache.
+    *
+    * @return The hit rate between 0 and 1.
+    */
+   public double getHitRate() {
+      final long hitCount = getHitCount();
+      final long total = hitCount + getMissCount();
+      return total > 0 ? (double) hitCount / total : 0;
+   }
+
+   @Override
+   public String toString() {
+      return "SearchCacheStatistics{"
+            + "hits=" + getHitCount()
+            + ", misses=" + getMissCount()
+            + ", stale=" + getStaleCount()
+            + ", oversized=" + getOversizedCount()
+            + ", hitRate=" + getHitRate()
+            + '}';
+   }
+}
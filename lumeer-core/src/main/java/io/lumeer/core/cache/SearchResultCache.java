@@ -0,0 +1,358 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.Project;
+import io.lumeer.api.model.Query;
+import io.lumeer.api.model.ResourceType;
+import io.lumeer.core.AuthenticatedUser;
+import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheFactory;
+import io.lumeer.engine.api.cache.CacheLimits;
+import io.lumeer.storage.api.exception.ResourceNotFoundException;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Caches search results so that repeated searches on unchanged data do not hit the database at all.
+ *
+ * Results are cached under the normalised query, the user and the groups of the user, so a cached result never leaks
+ * documents the user cannot read. Every write of collection data and every change of the collections of a project
+ * is stamped with a number from a monotonic sequence. A result remembers the sequence number from before it was
+ * computed and the collections it was computed from or it returns, and it is served only as long as none of them has
+ * been written to since. Writes made on other nodes arrive through the {@link CacheInvalidationBus}. The stamps of
+ * removed collections and projects are forgotten, the results depending on them are never served again.
+ *
+ * The cache is bounded by the total number of documents (or aggregated rows) it holds, see the <code>searchResults</code>
+ * cache configuration. Cached results are shared by all the requests and must not be modified.
+ *
+ * The cache is enabled by the <code>lumeer.search.cache.enabled</code> system property. By default it is enabled only
+ * when the invalidations reach all the nodes, a node of a cluster connected by the local transport would serve results
+ * that do not reflect the writes made on the other nodes.
+ */
+@ApplicationScoped
+public class SearchResultCache {
+
+   private static final String SEARCH_RESULTS_CACHE = "searchResults";
+
+   /**
+    * Cached results are limited by the total number of their documents, replaced results are expired eventually.
+    */
+   private static final CacheLimits SEARCH_RESULTS_LIMITS = new CacheLimits(10_000, TimeUnit.MINUTES.toMillis(10), 0);
+   private static final String REMOVED_PREFIX = "removed:";
+
+   /**
+    * Results with more documents than this are not cached at all.
+    */
+   private static final int MAX_RESULT_SIZE = Integer.getInteger("lumeer.search.cache.maxResultSize", 1000);
+
+   private static final String ENABLED_PROPERTY = "lumeer.search.cache.enabled";
+
+   @Inject
+   private CacheFactory cacheFactory;
+
+   @Inject
+   private CacheInvalidationBus invalidationBus;
+
+   @Inject
+   private WorkspaceKeeper workspaceKeeper;
+
+   @Inject
+   private AuthenticatedUser authenticatedUser;
+
+   @Inject
+   private UserCache userCache;
+
+   private final AtomicLong sequence = new AtomicLong();
+   private final Map<String, Long> versions = new ConcurrentHashMap<>();
+   private final SearchCacheStatistics statistics = new SearchCacheStatistics();
+
+   private Cache<CachedResult> resultCache;
+
+   private boolean enabled;
+
+   public SearchResultCache() {
+   }
+
+   SearchResultCache(final CacheFactory cacheFactory, final CacheInvalidationBus invalidationBus, final WorkspaceKeeper workspaceKeeper) {
+      this.cacheFactory = cacheFactory;
+      this.invalidationBus = invalidationBus;
+      this.workspaceKeeper = workspaceKeeper;
+      initCache();
+   }
+
+   SearchResultCache(final CacheFactory cacheFactory, final CacheInvalidationBus invalidationBus, final WorkspaceKeeper workspaceKeeper, final boolean enabled) {
+      this(cacheFactory, invalidationBus, workspaceKeeper);
+      this.enabled = enabled;
+   }
+
+   @PostConstruct
+   public void initCache() {
+      resultCache = cacheFactory.getCache(SEARCH_RESULTS_CACHE, SEARCH_RESULTS_LIMITS, cached -> Math.max(1, cached.getSize()));
+      invalidationBus.subscribe(SEARCH_RESULTS_CACHE, this::onRemoteChange);
+
+      String enabledProperty = System.getProperty(ENABLED_PROPERTY);
+      enabled = enabledProperty != null ? Boolean.parseBoolean(enabledProperty) : invalidationBus.isClusterWide();
+   }
+
+   /**
+    * Whether the search results are cached, see the class description.
+    *
+    * @return true if and only if the search results are cached
+    */
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   /**
+    * Creates the cache key of a search made by the current user in the current project.
+    *
+    * @param operation
+    *       Name of the search operation.
+    * @param query
+    *       The query, the order of its values does not matter.
+    * @param parameters
+    *       Other parameters of the search that change its result.
+    * @return The cache key.
+    */
+   public String createKey(String operation, Query query, Object... parameters) {
+      String user = authenticatedUser.getCurrentUsername();
+      Set<String> groups = userCache.getUser(user).getGroups();
+
+      return getProjectId() + '|' + user + '|' + sorted(groups) + '|' + operation
+            + "|codes=" + sorted(query.getCollectionCodes())
+            + "|collections=" + sorted(query.getCollectionIds())
+            + "|documents=" + sorted(query.getDocumentIds())
+            + "|linkTypes=" + sorted(query.getLinkTypeIds())
+            + "|filters=" + sorted(query.getFilters())
+            + "|fulltext=" + query.getFulltext()
+            + "|fields=" + sorted(query.getFields())
+            + "|page=" + query.getPage() + '/' + query.getPageSize()
+            + '|' + Arrays.toString(parameters);
+   }
+
+   /**
+    * Gets the cached result of a search, running the search when there is no result cached or it is stale.
+    *
+    * @param key
+    *       The cache key, see {@link #createKey(String, Query, Object...)}.
+    * @param search
+    *       Runs the search, it must add the ids of all the collections it reads or returns to the given set.
+    * @param <T>
+    *       Type of the result, a collection of documents or a map of such collections.
+    * @return The search result.
+    */
+   @SuppressWarnings("unchecked")
+   public <T> T get(String key, Function<Set<String>, T> search) {
+      if (!enabled) {
+         return search.apply(new HashSet<>());
+      }
+
+      CachedResult cached = resultCache.get(key);
+      if (cached != null) {
+         if (isValid(cached)) {
+            statistics.recordHit();
+            return (T) cached.getValue();
+         }
+         resultCache.remove(key);
+         statistics.recordStale();
+      }
+      statistics.recordMiss();
+
+      String projectId = getProjectId();
+      long version = sequence.get();
+      Set<String> collectionIds = new HashSet<>();
+
+      T result = search.apply(collectionIds);
+
+      Set<String> dependencies = new HashSet<>();
+      dependencies.add(projectId);
+      collectionIds.forEach(collectionId -> dependencies.add(collectionDependency(projectId, collectionId)));
+
+      int size = sizeOf(result);
+      if (size <= MAX_RESULT_SIZE) {
+         resultCache.set(key, new CachedResult(result, size, version, dependencies));
+      } else {
+         statistics.recordOversized();
+      }
+      return result;
+   }
+
+   /**
+    * Marks the data of the collection as changed, so that the results computed from it are not used anymore.
+    *
+    * @param collectionId
+    *       Id of the collection.
+    */
+   public void dataChanged(String collectionId) {
+      markChanged(collectionDependency(getProjectId(), collectionId));
+   }
+
+   /**
+    * Marks the collections of the current project as changed, i.e. a collection was created, removed or its permissions
+    * were changed, so that no result computed in the project is used anymore.
+    */
+   public void collectionsChanged() {
+      markChanged(getProjectId());
+   }
+
+   /**
+    * Marks the collections of the current project as changed and forgets the collection.
+    *
+    * @param collectionId
+    *       Id of the removed collection.
+    */
+   public void collectionRemoved(String collectionId) {
+      String dependency = collectionDependency(getProjectId(), collectionId);
+      removeDependency(dependency);
+      invalidationBus.invalidate(SEARCH_RESULTS_CACHE, REMOVED_PREFIX + dependency);
+   }
+
+   /**
+    * Forgets the project and all its collections.
+    *
+    * @param projectId
+    *       Id of the removed project.
+    */
+   public void projectRemoved(String projectId) {
+      removeDependency(projectId);
+      invalidationBus.invalidate(SEARCH_RESULTS_CACHE, REMOVED_PREFIX + projectId);
+   }
+
+   public void clear() {
+      resultCache.clear();
+      invalidationBus.invalidateAll(SEARCH_RESULTS_CACHE);
+   }
+
+   /**
+    * Gets the hit, miss, stale and oversized counters of the cache.
+    *
+    * @return The cache statistics.
+    */
+   public SearchCacheStatistics getStatistics() {
+      return statistics;
+   }
+
+   int getDependenciesCount() {
+      return versions.size();
+   }
+
+   private void markChanged(String dependency) {
+      versions.put(dependency, sequence.incrementAndGet());
+      invalidationBus.invalidate(SEARCH_RESULTS_CACHE, dependency);
+   }
+
+   private void onRemoteChange(String dependency) {
+      if (dependency == null) {
+         resultCache.clear();
+      } else if (dependency.startsWith(REMOVED_PREFIX)) {
+         removeDependency(dependency.substring(REMOVED_PREFIX.length()));
+      } else {
+         versions.put(dependency, sequence.incrementAndGet());
+      }
+   }
+
+   private void removeDependency(String dependency) {
+      int separator = dependency.indexOf('/');
+      if (separator >= 0) {
+         // the results computed from the collection depend on its project as well
+         versions.put(dependency.substring(0, separator), sequence.incrementAndGet());
+         versions.remove(dependency);
+      } else {
+         versions.keySet().removeIf(key -> key.equals(dependency) || key.startsWith(dependency + '/'));
+      }
+   }
+
+   private static String collectionDependency(String projectId, String collectionId) {
+      return projectId + '/' + collectionId;
+   }
+
+   private boolean isValid(CachedResult cached) {
+      return cached.getDependencies().stream()
+                   .allMatch(dependency -> versions.getOrDefault(dependency, 0L) <= cached.getVersion());
+   }
+
+   private static int sizeOf(Object result) {
+      if (result instanceof Collection) {
+         return ((Collection<?>) result).size();
+      }
+      if (result instanceof Map) {
+         return ((Map<?, ?>) result).values().stream().mapToInt(SearchResultCache::sizeOf).sum();
+      }
+      return 1;
+   }
+
+   private static Set<String> sorted(Set<String> values) {
+      return values != null ? new TreeSet<>(values) : Collections.emptySet();
+   }
+
+   private String getProjectId() {
+      Optional<Project> project = workspaceKeeper.getProject();
+      if (!project.isPresent()) {
+         throw new ResourceNotFoundException(ResourceType.PROJECT);
+      }
+      return project.get().getId();
+   }
+
+   private static class CachedResult {
+
+      private final Object value;
+      private final int size;
+      private final long version;
+      private final Set<String> dependencies;
+
+      private CachedResult(final Object value, final int size, final long version, final Set<String> dependencies) {
+         this.value = value;
+         this.size = size;
+         this.version = version;
+         this.dependencies = dependencies;
+      }
+
+      public Object getValue() {
+         return value;
+      }
+
+      public int getSize() {
+         return size;
+      }
+
+      public long getVersion() {
+         return version;
+      }
+
+      public Set<String> getDependencies() {
+         return dependencies;
+      }
+   }
+}
@@ -0,0 +1,207 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.LinkType;
+import io.lumeer.api.model.Project;
+import io.lumeer.api.model.ResourceType;
+import io.lumeer.api.model.View;
+import io.lumeer.core.AuthenticatedUser;
+import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheFactory;
+import io.lumeer.engine.api.cache.CacheLimits;
+import io.lumeer.storage.api.dao.CollectionDao;
+import io.lumeer.storage.api.dao.LinkTypeDao;
+import io.lumeer.storage.api.dao.ViewDao;
+import io.lumeer.storage.api.exception.ResourceNotFoundException;
+import io.lumeer.storage.api.query.SearchQuery;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Keeps a {@link SuggestionIndex} of every recently used project. An index is built on its first use and then kept up to
+ * date by the facades changing the indexed resources, other nodes drop their copy through the {@link CacheInvalidationBus}.
+ * Every change of a project is stamped with a number from a monotonic sequence, so that an index loaded while the project
+ * was changed is dropped again and the change is not missed.
+ */
+@ApplicationScoped
+public class SuggestionCache {
+
+   private static final String SUGGESTION_CACHE = "suggestions";
+
+   /**
+    * Indexes of the recently used projects are kept, each of them is rebuilt from time to time.
+    */
+   private static final CacheLimits SUGGESTION_LIMITS = new CacheLimits(1_000, TimeUnit.MINUTES.toMillis(10), 0);
+
+   @Inject
+   private CacheFactory cacheFactory;
+
+   @Inject
+   private CacheInvalidationBus invalidationBus;
+
+   @Inject
+   private WorkspaceKeeper workspaceKeeper;
+
+   @Inject
+   private AuthenticatedUser authenticatedUser;
+
+   @Inject
+   private CollectionDao collectionDao;
+
+   @Inject
+   private ViewDao viewDao;
+
+   @Inject
+   private LinkTypeDao linkTypeDao;
+
+   private final AtomicLong sequence = new AtomicLong();
+   private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+   private Cache<SuggestionIndex> indexCache;
+
+   public SuggestionCache() {
+   }
+
+   SuggestionCache(final CacheFactory cacheFactory, final CacheInvalidationBus invalidationBus, final WorkspaceKeeper workspaceKeeper,
+         final AuthenticatedUser authenticatedUser, final CollectionDao collectionDao, final ViewDao viewDao, final LinkTypeDao linkTypeDao) {
+      this.cacheFactory = cacheFactory;
+      this.invalidationBus = invalidationBus;
+      this.workspaceKeeper = workspaceKeeper;
+      this.authenticatedUser = authenticatedUser;
+      this.collectionDao = collectionDao;
+      this.viewDao = viewDao;
+      this.linkTypeDao = linkTypeDao;
+      initCache();
+   }
+
+   @PostConstruct
+   public void initCache() {
+      indexCache = cacheFactory.getCache(SUGGESTION_CACHE, SUGGESTION_LIMITS);
+      invalidationBus.subscribe(SUGGESTION_CACHE, this::onRemoteChange);
+   }
+
+   /**
+    * Gets the index of the current project, loading it from the database when it is not cached.
+    *
+    * @return The index of the current project.
+    */
+   public SuggestionIndex getIndex() {
+      String projectId = getProjectId();
+
+      SuggestionIndex index = indexCache.get(projectId);
+      if (index != null) {
+         return index;
+      }
+
+      long version = versions.getOrDefault(projectId, 0L);
+      index = loadIndex();
+
+      // an index loaded while the project was changed might miss the change, so it is not kept
+      if (versions.getOrDefault(projectId, 0L) == version) {
+         indexCache.set(projectId, index);
+         if (versions.getOrDefault(projectId, 0L) != version) {
+            indexCache.remove(projectId);
+         }
+      }
+      return index;
+   }
+
+   public void collectionChanged(Collection collection) {
+      updateIndex(index -> index.putCollection(collection));
+   }
+
+   public void attributesAdded(String collectionId, Set<String> attributeNames) {
+      updateIndex(index -> index.addAttributes(collectionId, attributeNames));
+   }
+
+   public void collectionRemoved(String collectionId) {
+      updateIndex(index -> index.removeCollection(collectionId));
+   }
+
+   public void viewChanged(View view) {
+      updateIndex(index -> index.putView(view));
+   }
+
+   public void viewRemoved(String viewId) {
+      updateIndex(index -> index.removeView(viewId));
+   }
+
+   public void linkTypeChanged(LinkType linkType) {
+      updateIndex(index -> index.putLinkType(linkType));
+   }
+
+   public void linkTypeRemoved(String linkTypeId) {
+      updateIndex(index -> index.removeLinkType(linkTypeId));
+   }
+
+   public void removeProject(String projectId) {
+      indexCache.remove(projectId);
+      versions.remove(projectId);
+      invalidationBus.invalidate(SUGGESTION_CACHE, projectId);
+   }
+
+   private void updateIndex(Consumer<SuggestionIndex> update) {
+      String projectId = getProjectId();
+      versions.put(projectId, sequence.incrementAndGet());
+
+      SuggestionIndex index = indexCache.get(projectId);
+      if (index != null) {
+         update.accept(index);
+      }
+      invalidationBus.invalidate(SUGGESTION_CACHE, projectId);
+   }
+
+   private void onRemoteChange(String projectId) {
+      if (projectId != null) {
+         versions.put(projectId, sequence.incrementAndGet());
+         indexCache.remove(projectId);
+      } else {
+         indexCache.clear();
+      }
+   }
+
+   private SuggestionIndex loadIndex() {
+      List<Collection> collections = collectionDao.getAllCollections();
+      List<View> views = viewDao.getAllViews();
+      List<LinkType> linkTypes = linkTypeDao.getLinkTypes(SearchQuery.createBuilder(authenticatedUser.getCurrentUsername()).build());
+
+      return new SuggestionIndex(collections, views, linkTypes);
+   }
+
+   private String getProjectId() {
+      Optional<Project> project = workspaceKeeper.getProject();
+      if (!project.isPresent()) {
+         throw new ResourceNotFoundException(ResourceType.PROJECT);
+      }
+      return project.get().getId();
+   }
+}
@@ -0,0 +1,238 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.dto.JsonAttribute;
+import io.lumeer.api.dto.JsonCollection;
+import io.lumeer.api.dto.JsonView;
+import io.lumeer.api.model.Attribute;
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.LinkType;
+import io.lumeer.api.model.View;
+import io.lumeer.core.util.NGramIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of collection, attribute, view and link type names of a single project. It keeps copies of the indexed
+ * resources, so that suggestions are checked for permissions and returned without any database query.
+ */
+public class SuggestionIndex {
+
+   private final Map<String, Collection> collections = new HashMap<>();
+   private final Map<String, View> views = new HashMap<>();
+   private final Map<String, LinkType> linkTypes = new HashMap<>();
+
+   private final NGramIndex<String> collectionNames = new NGramIndex<>();
+   private final NGramIndex<AttributeKey> attributeNames = new NGramIndex<>();
+   private final NGramIndex<String> viewNames = new NGramIndex<>();
+   private final NGramIndex<String> linkTypeNames = new NGramIndex<>();
+
+   public SuggestionIndex(final List<Collection> collections, final List<View> views, final List<LinkType> linkTypes) {
+      collections.forEach(this::putCollection);
+      views.forEach(this::putView);
+      linkTypes.forEach(this::putLinkType);
+   }
+
+   public synchronized void putCollection(final Collection collection) {
+      Collection copy = new JsonCollection(collection);
+      collections.put(copy.getId(), copy);
+      collectionNames.put(copy.getId(), copy.getName());
+
+      attributeNames.removeIf(key -> key.collectionId.equals(copy.getId()));
+      copy.getAttributes().forEach(attribute -> attributeNames.put(new AttributeKey(copy.getId(), attribute.getFullName()), attribute.getName()));
+   }
+
+   public synchronized void addAttributes(final String collectionId, final Set<String> attributeNames) {
+      Collection collection = collections.get(collectionId);
+      if (collection == null) {
+         return;
+      }
+
+      Set<Attribute> attributes = new LinkedHashSet<>(collection.getAttributes());
+      Set<String> existingNames = attributes.stream().map(Attribute::getFullName).collect(Collectors.toSet());
+      attributeNames.stream().filter(name -> !existingNames.contains(name)).forEach(name -> {
+         attributes.add(new JsonAttribute(name, name, Collections.emptySet(), 1));
+         this.attributeNames.put(new AttributeKey(collectionId, name), name);
+      });
+      collection.setAttributes(attributes);
+   }
+
+   public synchronized void removeCollection(final String collectionId) {
+      collections.remove(collectionId);
+      collectionNames.remove(collectionId);
+      attributeNames.removeIf(key -> key.collectionId.equals(collectionId));
+
+      List<String> linkTypeIds = linkTypes.values().stream()
+                                          .filter(linkType -> linkType.getCollectionIds().contains(collectionId))
+                                          .map(LinkType::getId)
+                                          .collect(Collectors.toList());
+      linkTypeIds.forEach(this::removeLinkType);
+   }
+
+   public synchronized void putView(final View view) {
+      View copy = new JsonView(view);
+      views.put(copy.getId(), copy);
+      viewNames.put(copy.getId(), copy.getName());
+   }
+
+   public synchronized void removeView(final String viewId) {
+      views.remove(viewId);
+      viewNames.remove(viewId);
+   }
+
+   public synchronized void putLinkType(final LinkType linkType) {
+      LinkType copy = new LinkType(linkType.getId(), linkType.getName(), new ArrayList<>(linkType.getCollectionIds()), new ArrayList<>(linkType.getAttributes()));
+      linkTypes.put(copy.getId(), copy);
+      linkTypeNames.put(copy.getId(), copy.getName());
+   }
+
+   public synchronized void removeLinkType(final String linkTypeId) {
+      linkTypes.remove(linkTypeId);
+      linkTypeNames.remove(linkTypeId);
+   }
+
+   /**
+    * Suggests collections by their name.
+    *
+    * @param text
+    *       Part of the name.
+    * @param readable
+    *       Selects the collections the user can read.
+    * @param limit
+    *       Maximal number of suggestions.
+    * @return Copies of the matching collections without attributes.
+    */
+   public synchronized List<Collection> suggestCollections(final String text, final Predicate<Collection> readable, final int limit) {
+      return collectionNames.search(text, id -> readable.test(collections.get(id)), limit).stream()
+                            .map(id -> copyWithAttributes(collections.get(id), Collections.emptySet()))
+                            .collect(Collectors.toList());
+   }
+
+   /**
+    * Suggests attributes by their name.
+    *
+    * @param text
+    *       Part of the name.
+    * @param readable
+    *       Selects the collections the user can read.
+    * @param limit
+    *       Maximal number of collections.
+    * @return Copies of the collections having matching attributes, with only the matching attributes.
+    */
+   public synchronized List<Collection> suggestAttributes(final String text, final Predicate<Collection> readable, final int limit) {
+      Map<String, Set<String>> matchingAttributes = new LinkedHashMap<>();
+      for (AttributeKey key : attributeNames.search(text, key -> readable.test(collections.get(key.collectionId)), Integer.MAX_VALUE)) {
+         if (matchingAttributes.size() == limit && !matchingAttributes.containsKey(key.collectionId)) {
+            continue;
+         }
+         matchingAttributes.computeIfAbsent(key.collectionId, id -> new LinkedHashSet<>()).add(key.fullName);
+      }
+
+      return matchingAttributes.entrySet().stream()
+                               .map(entry -> {
+                                  Collection collection = collections.get(entry.getKey());
+                                  Set<Attribute> attributes = collection.getAttributes().stream()
+                                                                        .filter(attribute -> entry.getValue().contains(attribute.getFullName()))
+                                                                        .collect(Collectors.toSet());
+                                  return copyWithAttributes(collection, attributes);
+                               })
+                               .collect(Collectors.toList());
+   }
+
+   /**
+    * Suggests views by their name.
+    *
+    * @param text
+    *       Part of the name.
+    * @param readable
+    *       Selects the views the user can read.
+    * @param limit
+    *       Maximal number of suggestions.
+    * @return Copies of the matching views.
+    */
+   public synchronized List<View> suggestViews(final String text, final Predicate<View> readable, final int limit) {
+      return viewNames.search(text, id -> readable.test(views.get(id)), limit).stream()
+                      .map(id -> new JsonView(views.get(id)))
+                      .collect(Collectors.toList());
+   }
+
+   /**
+    * Suggests link types by their name.
+    *
+    * @param text
+    *       Part of the name.
+    * @param readable
+    *       Selects the collections the user can read, only link types between such collections are suggested.
+    * @param limit
+    *       Maximal number of suggestions.
+    * @return Copies of the matching link types.
+    */
+   public synchronized List<LinkType> suggestLinkTypes(final String text, final Predicate<Collection> readable, final int limit) {
+      Predicate<String> readableCollection = id -> collections.containsKey(id) && readable.test(collections.get(id));
+      return linkTypeNames.search(text, id -> linkTypes.get(id).getCollectionIds().stream().allMatch(readableCollection), limit).stream()
+                          .map(linkTypes::get)
+                          .map(linkType -> new LinkType(linkType.getId(), linkType.getName(), new ArrayList<>(linkType.getCollectionIds()), new ArrayList<>(linkType.getAttributes())))
+                          .collect(Collectors.toList());
+   }
+
+   private static Collection copyWithAttributes(final Collection collection, final Set<Attribute> attributes) {
+      Collection copy = new JsonCollection(collection);
+      copy.setAttributes(attributes);
+      return copy;
+   }
+
+   private static class AttributeKey {
+
+      private final String collectionId;
+      private final String fullName;
+
+      AttributeKey(final String collectionId, final String fullName) {
+         this.collectionId = collectionId;
+         this.fullName = fullName;
+      }
+
+      @Override
+      public boolean equals(final Object o) {
+         if (this == o) {
+            return true;
+         }
+         if (!(o instanceof AttributeKey)) {
+            return false;
+         }
+         final AttributeKey that = (AttributeKey) o;
+         return Objects.equals(collectionId, that.collectionId) && Objects.equals(fullName, that.fullName);
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hash(collectionId, fullName);
+      }
+   }
+}
@@ -32,17 +32,23 @@ import javax.inject.Inject;
 @ApplicationScoped
 public class UserCache {
 
+   private static final String USER_CACHE = "users";
+
    @Inject
    private CacheFactory cacheFactory;
 
    @Inject
    private UserDao userDao;
 
+   @Inject
+   private CacheInvalidationBus invalidationBus;
+
    private Cache<User> userCache;
 
    @PostConstruct
    public void initCache() {
-      userCache = cacheFactory.getCache();
+      userCache = cacheFactory.getCache(USER_CACHE);
+      invalidationBus.subscribe(USER_CACHE, userCache);
    }
 
    public User getUser(String username) {
@@ -61,14 +67,17 @@ public class UserCache {
 
    public void updateUser(String username, User user) {
       userCache.set(username, user);
+      invalidationBus.invalidate(USER_CACHE, username);
    }
 
    public void remoteUser(String username) {
       userCache.remove(username);
+      invalidationBus.invalidate(USER_CACHE, username);
    }
 
    public void clear() {
       userCache.clear();
+      invalidationBus.invalidateAll(USER_CACHE);
    }
 
 }
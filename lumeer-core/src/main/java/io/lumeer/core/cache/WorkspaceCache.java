@@ -32,6 +32,9 @@ import javax.inject.Inject;
 @ApplicationScoped
 public class WorkspaceCache {
 
+   private static final String ORGANIZATION_CACHE = "organizations";
+   private static final String PROJECT_CACHE = "projects";
+
    @Inject
    private CacheFactory cacheFactory;
 
@@ -41,13 +44,19 @@ public class WorkspaceCache {
    @Inject
    private ProjectDao projectDao;
 
+   @Inject
+   private CacheInvalidationBus invalidationBus;
+
    private Cache<Organization> organizationCache;
    private Cache<Project> projectCache;
 
    @PostConstruct
    public void initCaches() {
-      organizationCache = cacheFactory.getCache();
-      projectCache = cacheFactory.getCache();
+      organizationCache = cacheFactory.getCache(ORGANIZATION_CACHE);
+      projectCache = cacheFactory.getCache(PROJECT_CACHE);
+
+      invalidationBus.subscribe(ORGANIZATION_CACHE, organizationCache);
+      invalidationBus.subscribe(PROJECT_CACHE, projectCache);
    }
 
    public Organization getOrganization(String organizationCode) {
@@ -60,23 +69,29 @@ public class WorkspaceCache {
 
    public void updateOrganization(String organizationCode, Organization organization) {
       organizationCache.set(organizationCode, organization);
+      invalidationBus.invalidate(ORGANIZATION_CACHE, organizationCode);
    }
 
    public void updateProject(String projectCode, Project project) {
       projectCache.set(projectCode, project);
+      invalidationBus.invalidate(PROJECT_CACHE, projectCode);
    }
 
    public void removeOrganization(String organizationCode) {
       organizationCache.remove(organizationCode);
+      invalidationBus.invalidate(ORGANIZATION_CACHE, organizationCode);
    }
 
    public void removeProject(String projectCode) {
       projectCache.remove(projectCode);
+      invalidationBus.invalidate(PROJECT_CACHE, projectCode);
    }
 
    public void clear() {
       organizationCache.clear();
       projectCache.clear();
+      invalidationBus.invalidateAll(ORGANIZATION_CACHE);
+      invalidationBus.invalidateAll(PROJECT_CACHE);
    }
 
 }
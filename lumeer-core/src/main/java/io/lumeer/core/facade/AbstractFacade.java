@@ -36,6 +36,11 @@ import javax.inject.Inject;
 
 abstract class AbstractFacade {
 
+   /**
+    * Number of documents read from a cursor before their metadata is loaded when documents are streamed.
+    */
+   protected static final int STREAM_BATCH_SIZE = Integer.getInteger("lumeer.stream.batchSize", 500);
+
    @Inject
    protected AuthenticatedUser authenticatedUser;
 
@@ -67,6 +72,10 @@ abstract class AbstractFacade {
    }
 
    protected SearchQuery createPaginationQuery(Pagination pagination) {
+      return createPaginationQuery(pagination, null);
+   }
+
+   protected SearchQuery createPaginationQuery(Pagination pagination, Set<String> fields) {
       String user = authenticatedUser.getCurrentUsername();
       Set<String> groups = userCache.getUser(user).getGroups();
 
@@ -74,6 +83,7 @@ abstract class AbstractFacade {
                         .groups(groups)
                         .page(pagination.getPage())
                         .pageSize(pagination.getPageSize())
+                        .fields(fields)
                         .build();
    }
 }
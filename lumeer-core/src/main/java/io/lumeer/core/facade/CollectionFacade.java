@@ -20,6 +20,7 @@ package io.lumeer.core.facade;
 
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.DataIndex;
 import io.lumeer.api.model.LinkType;
 import io.lumeer.api.model.Pagination;
 import io.lumeer.api.model.Permission;
@@ -27,8 +28,14 @@ import io.lumeer.api.model.Permissions;
 import io.lumeer.api.model.Project;
 import io.lumeer.api.model.ResourceType;
 import io.lumeer.api.model.Role;
+import io.lumeer.core.IndexAdvisor;
+import io.lumeer.core.cache.FulltextCache;
+import io.lumeer.core.cache.SearchResultCache;
+import io.lumeer.core.cache.SuggestionCache;
+import io.lumeer.core.model.IndexAdvice;
 import io.lumeer.core.model.SimplePermission;
 import io.lumeer.core.util.CodeGenerator;
+import io.lumeer.engine.api.exception.InvalidValueException;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DataDao;
 import io.lumeer.storage.api.dao.DocumentDao;
@@ -39,6 +46,7 @@ import io.lumeer.storage.api.query.SearchQuery;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.enterprise.context.RequestScoped;
@@ -62,11 +70,25 @@ public class CollectionFacade extends AbstractFacade {
    @Inject
    private LinkInstanceDao linkInstanceDao;
 
+   @Inject
+   private SuggestionCache suggestionCache;
+
+   @Inject
+   private SearchResultCache searchResultCache;
+
+   @Inject
+   private IndexAdvisor indexAdvisor;
+
+   @Inject
+   private FulltextCache fulltextCache;
+
    public Collection createCollection(Collection collection) {
       checkProjectWriteRole();
 
       Collection storedCollection = createCollectionMetadata(collection);
       dataDao.createDataRepository(storedCollection.getId());
+      suggestionCache.collectionChanged(storedCollection);
+      searchResultCache.collectionsChanged();
 
       return keepOnlyActualUserRoles(storedCollection);
    }
@@ -77,6 +99,8 @@ public class CollectionFacade extends AbstractFacade {
 
       keepUnmodifiableFields(collection, storedCollection);
       Collection updatedCollection = collectionDao.updateCollection(storedCollection.getId(), collection);
+      suggestionCache.collectionChanged(updatedCollection);
+      searchResultCache.collectionsChanged();
       return keepOnlyActualUserRoles(updatedCollection);
    }
 
@@ -96,6 +120,10 @@ public class CollectionFacade extends AbstractFacade {
       collectionDao.deleteCollection(collectionId);
       documentDao.deleteDocuments(collectionId);
       dataDao.deleteDataRepository(collectionId);
+      suggestionCache.collectionRemoved(collectionId);
+      searchResultCache.collectionRemoved(collectionId);
+      indexAdvisor.collectionRemoved(collectionId);
+      fulltextCache.collectionRemoved(collectionId);
 
       SearchQuery queryLinkTypes = createQueryForLinkTypes(collectionId);
       List<LinkType> linkTypes = linkTypeDao.getLinkTypes(queryLinkTypes);
@@ -129,6 +157,8 @@ public class CollectionFacade extends AbstractFacade {
 
       collection.updateAttribute(attributeFullName, attribute);
       collectionDao.updateCollection(collection.getId(), collection);
+      suggestionCache.collectionChanged(collection);
+      searchResultCache.collectionsChanged();
 
       return attribute;
    }
@@ -139,6 +169,108 @@ public class CollectionFacade extends AbstractFacade {
 
       collection.deleteAttribute(attributeFullName);
       collectionDao.updateCollection(collection.getId(), collection);
+      suggestionCache.collectionChanged(collection);
+      searchResultCache.collectionsChanged();
+   }
+
+   public IndexAdvice getIndexAdvice(final String collectionCode) {
+      Collection collection = collectionDao.getCollectionByCode(collectionCode);
+      permissionsChecker.checkRole(collection, Role.MANAGE);
+
+      return getIndexAdvice(collection);
+   }
+
+   private IndexAdvice getIndexAdvice(Collection collection) {
+      List<DataIndex> indexes = dataDao.getIndexes(collection.getId());
+      return new IndexAdvice(indexes, indexAdvisor.getRecommendedIndexes(collection.getId(), indexes), indexAdvisor.getUnusedIndexes(indexes));
+   }
+
+   /**
+    * Creates the recommended indexes and drops the unused ones.
+    *
+    * @param collectionCode
+    *       code of the collection
+    * @return the indexes after the changes
+    */
+   public IndexAdvice applyIndexAdvice(final String collectionCode) {
+      Collection collection = collectionDao.getCollectionByCode(collectionCode);
+      permissionsChecker.checkRole(collection, Role.MANAGE);
+
+      IndexAdvice advice = getIndexAdvice(collection);
+      for (DataIndex index : advice.getRecommendedIndexes()) {
+         dataDao.createIndex(collection.getId(), new DataIndex(IndexAdvisor.indexName(index.getKeys()), index.getKeys()));
+      }
+      for (DataIndex index : advice.getUnusedIndexes()) {
+         dataDao.dropIndex(collection.getId(), index.getName());
+      }
+
+      return getIndexAdvice(collection);
+   }
+
+   /**
+    * Creates an index of the collection data. The index is managed by Lumeer, so it is named with
+    * {@link IndexAdvisor#MANAGED_INDEX_PREFIX} and it can be dropped again by {@link #dropIndex(String, String)}.
+    *
+    * @param collectionCode
+    *       code of the collection
+    * @param index
+    *       the index, the name is generated from the keys when it is not set
+    * @return the created index
+    * @throws InvalidValueException
+    *       when the keys or the name of the index are not valid
+    */
+   public DataIndex createIndex(final String collectionCode, final DataIndex index) {
+      checkIndexKeys(index.getKeys());
+      String name = index.getName() != null ? index.getName() : IndexAdvisor.indexName(index.getKeys());
+      checkManagedIndexName(name);
+
+      Collection collection = collectionDao.getCollectionByCode(collectionCode);
+      permissionsChecker.checkRole(collection, Role.MANAGE);
+
+      dataDao.createIndex(collection.getId(), new DataIndex(name, index.getKeys()));
+      return new DataIndex(name, index.getKeys());
+   }
+
+   /**
+    * Drops an index of the collection data. Only the indexes managed by Lumeer can be dropped, the id index and the
+    * fulltext index are needed by the application.
+    *
+    * @param collectionCode
+    *       code of the collection
+    * @param indexName
+    *       name of the index
+    * @throws InvalidValueException
+    *       when the index is not managed by Lumeer
+    */
+   public void dropIndex(final String collectionCode, final String indexName) {
+      checkManagedIndexName(indexName);
+
+      Collection collection = collectionDao.getCollectionByCode(collectionCode);
+      permissionsChecker.checkRole(collection, Role.MANAGE);
+
+      dataDao.dropIndex(collection.getId(), indexName);
+   }
+
+   private static void checkIndexKeys(final Map<String, Integer> keys) {
+      if (keys == null || keys.isEmpty()) {
+         throw new InvalidValueException("Index keys must be set");
+      }
+      for (Map.Entry<String, Integer> key : keys.entrySet()) {
+         String attribute = key.getKey();
+         if (attribute == null || attribute.isEmpty() || attribute.startsWith("$") || attribute.startsWith(".")
+               || attribute.endsWith(".") || attribute.contains("..") || attribute.indexOf('\0') >= 0) {
+            throw new InvalidValueException("Invalid index attribute '" + attribute + "'");
+         }
+         if (key.getValue() == null || (key.getValue() != 1 && key.getValue() != -1)) {
+            throw new InvalidValueException("Index direction of '" + attribute + "' must be 1 or -1");
+         }
+      }
+   }
+
+   private static void checkManagedIndexName(final String indexName) {
+      if (indexName == null || !indexName.startsWith(IndexAdvisor.MANAGED_INDEX_PREFIX)) {
+         throw new InvalidValueException("Index name must start with '" + IndexAdvisor.MANAGED_INDEX_PREFIX + "'");
+      }
    }
 
    public Permissions getCollectionPermissions(final String code) {
@@ -154,6 +286,8 @@ public class CollectionFacade extends AbstractFacade {
 
       collection.getPermissions().updateUserPermissions(userPermissions);
       Collection updatedCollection = collectionDao.updateCollection(collection.getId(), collection);
+      suggestionCache.collectionChanged(updatedCollection);
+      searchResultCache.collectionsChanged();
 
       return updatedCollection.getPermissions().getUserPermissions();
    }
@@ -164,6 +298,8 @@ public class CollectionFacade extends AbstractFacade {
 
       collection.getPermissions().removeUserPermission(user);
       collectionDao.updateCollection(collection.getId(), collection);
+      suggestionCache.collectionChanged(collection);
+      searchResultCache.collectionsChanged();
    }
 
    public Set<Permission> updateGroupPermissions(final String code, final Permission... groupPermissions) {
@@ -172,6 +308,8 @@ public class CollectionFacade extends AbstractFacade {
 
       collection.getPermissions().updateGroupPermissions(groupPermissions);
       Collection updatedCollection = collectionDao.updateCollection(collection.getId(), collection);
+      suggestionCache.collectionChanged(updatedCollection);
+      searchResultCache.collectionsChanged();
 
       return updatedCollection.getPermissions().getGroupPermissions();
    }
@@ -182,6 +320,8 @@ public class CollectionFacade extends AbstractFacade {
 
       collection.getPermissions().removeGroupPermission(group);
       collectionDao.updateCollection(collection.getId(), collection);
+      suggestionCache.collectionChanged(collection);
+      searchResultCache.collectionsChanged();
    }
 
    private void checkProjectWriteRole() {
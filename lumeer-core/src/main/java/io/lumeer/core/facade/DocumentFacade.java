@@ -18,14 +18,24 @@
  */
 package io.lumeer.core.facade;
 
-import io.lumeer.api.dto.JsonAttribute;
+import io.lumeer.api.dto.JsonDocument;
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
 import io.lumeer.api.model.Document;
+import io.lumeer.api.model.DocumentOperation;
+import io.lumeer.api.model.DocumentOperationResult;
 import io.lumeer.api.model.Pagination;
 import io.lumeer.api.model.Role;
+import io.lumeer.core.CollectionStatisticsAggregator;
+import io.lumeer.core.cache.FulltextCache;
+import io.lumeer.core.cache.SearchResultCache;
+import io.lumeer.core.cache.SuggestionCache;
+import io.lumeer.core.model.ResultPage;
+import io.lumeer.core.util.ContinuationToken;
 import io.lumeer.core.util.DocumentUtils;
+import io.lumeer.core.util.StreamUtils;
 import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.exception.InvalidDocumentKeyException;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DataDao;
 import io.lumeer.storage.api.dao.DocumentDao;
@@ -33,13 +43,18 @@ import io.lumeer.storage.api.dao.LinkInstanceDao;
 import io.lumeer.storage.api.query.SearchQuery;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedHashSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 
@@ -61,6 +76,18 @@ public class DocumentFacade extends AbstractFacade {
    @Inject
    private LinkInstanceDao linkInstanceDao;
 
+   @Inject
+   private CollectionStatisticsAggregator collectionStatistics;
+
+   @Inject
+   private SuggestionCache suggestionCache;
+
+   @Inject
+   private SearchResultCache searchResultCache;
+
+   @Inject
+   private FulltextCache fulltextCache;
+
    public Document createDocument(String collectionCode, Document document) {
       Collection collection = collectionDao.getCollectionByCode(collectionCode);
       permissionsChecker.checkRole(collection, Role.WRITE);
@@ -73,39 +100,36 @@ public class DocumentFacade extends AbstractFacade {
       storedDocument.setData(storedData);
 
       updateCollectionMetadataOnCreation(collection, data);
+      searchResultCache.dataChanged(collection.getId());
+      fulltextCache.dataChanged(collection.getId(), storedDocument.getId(), data);
 
       return storedDocument;
    }
 
    private Document createDocument(Collection collection, Document document) {
+      return documentDao.createDocument(prepareNewDocument(collection, document));
+   }
+
+   private Document prepareNewDocument(Collection collection, Document document) {
       document.setCollectionId(collection.getId());
       document.setCreatedBy(authenticatedUser.getCurrentUsername());
       document.setCreationDate(LocalDateTime.now());
       document.setDataVersion(INITIAL_VERSION);
-      return documentDao.createDocument(document);
+      return document;
    }
 
    private void updateCollectionMetadataOnCreation(Collection collection, DataDocument data) {
-      Map<String, Attribute> oldAttributes = collection.getAttributes().stream()
-                                                       .collect(Collectors.toMap(Attribute::getFullName, Function.identity()));
-      Set<Attribute> newAttributes = new LinkedHashSet<>();
-
       Set<String> attributeNames = DocumentUtils.getDocumentAttributes(data);
-      attributeNames.forEach(attributeName -> {
-         if (oldAttributes.containsKey(attributeName)) {
-            Attribute attribute = oldAttributes.get(attributeName);
-            attribute.setUsageCount(attribute.getUsageCount() + 1);
-         } else {
-            Attribute attribute = new JsonAttribute(attributeName, attributeName, Collections.emptySet(), 1);
-            newAttributes.add(attribute);
-         }
-      });
+      collectionStatistics.documentCreated(collection.getId(), attributeNames);
+      addNewAttributes(collection, attributeNames);
+   }
 
-      newAttributes.addAll(oldAttributes.values());
-      collection.setAttributes(newAttributes);
-      collection.setDocumentsCount(collection.getDocumentsCount() + 1);
-      collection.setLastTimeUsed(LocalDateTime.now());
-      collectionDao.updateCollection(collection.getId(), collection);
+   private void addNewAttributes(Collection collection, Set<String> attributeNames) {
+      Set<String> existingNames = collection.getAttributes().stream().map(Attribute::getFullName).collect(Collectors.toSet());
+      Set<String> newNames = attributeNames.stream().filter(name -> !existingNames.contains(name)).collect(Collectors.toSet());
+      if (!newNames.isEmpty()) {
+         suggestionCache.attributesAdded(collection.getId(), newNames);
+      }
    }
 
    public Document updateDocumentData(String collectionCode, String documentId, DataDocument data) {
@@ -117,6 +141,8 @@ public class DocumentFacade extends AbstractFacade {
 
       Document updatedDocument = updateDocument(collection, documentId);
       updatedDocument.setData(updatedData);
+      searchResultCache.dataChanged(collection.getId());
+      fulltextCache.dataChanged(collection.getId(), documentId, updatedData);
 
       return updatedDocument;
    }
@@ -130,6 +156,8 @@ public class DocumentFacade extends AbstractFacade {
 
       Document updatedDocument = updateDocument(collection, documentId);
       updatedDocument.setData(patchedData);
+      searchResultCache.dataChanged(collection.getId());
+      fulltextCache.dataChanged(collection.getId(), documentId, patchedData);
 
       return updatedDocument;
    }
@@ -152,8 +180,178 @@ public class DocumentFacade extends AbstractFacade {
       documentDao.deleteDocument(documentId);
 
       dataDao.deleteData(collection.getId(), documentId);
+      searchResultCache.dataChanged(collection.getId());
+      fulltextCache.dataRemoved(collection.getId(), Collections.singleton(documentId));
+
+      linkInstanceDao.deleteLinkInstances(createQueryForLinkInstances(Collections.singleton(documentId)));
+   }
+
+   /**
+    * Executes a batch of document writes in the collection. The permissions are checked once for the whole batch and
+    * the data is written in a single unordered bulk write, so a failed operation does not stop the others. The order
+    * of the operations is not guaranteed, so only the first operation on a document is executed and the following
+    * operations on the same document fail.
+    *
+    * @param collectionCode
+    *       code of the collection
+    * @param operations
+    *       operations to execute
+    * @return results of the operations in the same order as the operations
+    */
+   public List<DocumentOperationResult> writeDocuments(String collectionCode, List<DocumentOperation> operations) {
+      Collection collection = collectionDao.getCollectionByCode(collectionCode);
+      permissionsChecker.checkRole(collection, Role.WRITE);
+
+      DocumentOperationResult[] results = new DocumentOperationResult[operations.size()];
+      List<DocumentOperation> dataOperations = new ArrayList<>(operations.size());
+      List<Integer> dataOperationIndexes = new ArrayList<>(operations.size());
+
+      List<Document> newDocuments = new ArrayList<>();
+      List<Integer> newDocumentIndexes = new ArrayList<>();
+      Set<String> existingIds = getDocumentIds(collection, operations);
+      Set<String> operationIds = new HashSet<>();
+
+      for (int i = 0; i < operations.size(); i++) {
+         DocumentOperation operation = operations.get(i);
+         if (operation.getType() != DocumentOperation.Type.CREATE && !operationIds.add(operation.getId())) {
+            results[i] = DocumentOperationResult.failure(operation.getId(), "Duplicate operation on the document");
+         } else if (operation.getType() == DocumentOperation.Type.CREATE) {
+            try {
+               newDocuments.add(prepareNewDocument(collection, new JsonDocument(DocumentUtils.checkDocumentKeysValidity(operation.getData()))));
+               newDocumentIndexes.add(i);
+            } catch (InvalidDocumentKeyException e) {
+               results[i] = DocumentOperationResult.failure(null, "Invalid attribute name " + e.getMessage());
+            }
+         } else if (existingIds.contains(operation.getId())) {
+            dataOperations.add(operation);
+            dataOperationIndexes.add(i);
+         } else {
+            results[i] = DocumentOperationResult.failure(operation.getId(), "Document not found");
+         }
+      }
+
+      Set<String> createdIds = new HashSet<>();
+      if (!newDocuments.isEmpty()) {
+         List<Document> storedDocuments = documentDao.createDocuments(newDocuments);
+         for (int i = 0; i < storedDocuments.size(); i++) {
+            Document document = storedDocuments.get(i);
+            dataOperations.add(new DocumentOperation(DocumentOperation.Type.CREATE, document.getId(), document.getData()));
+            dataOperationIndexes.add(newDocumentIndexes.get(i));
+            createdIds.add(document.getId());
+         }
+      }
+
+      Map<Integer, String> errors;
+      try {
+         errors = dataDao.writeData(collection.getId(), dataOperations);
+      } catch (RuntimeException e) {
+         // the metadata must not outlive data that was never written
+         documentDao.deleteDocumentsByIds(createdIds);
+         throw e;
+      }
+
+      Set<String> updatedIds = new HashSet<>();
+      Set<String> patchedIds = new HashSet<>();
+      List<DataDocument> writtenData = new ArrayList<>();
+      Set<String> deletedIds = new HashSet<>();
+      Set<String> failedIds = new HashSet<>();
+      Map<String, Integer> attributesUsage = new HashMap<>();
+      int createdCount = 0;
+
+      for (int i = 0; i < dataOperations.size(); i++) {
+         DocumentOperation operation = dataOperations.get(i);
+         int index = dataOperationIndexes.get(i);
+
+         String error = errors.get(i);
+         if (error != null) {
+            if (operation.getType() == DocumentOperation.Type.CREATE) {
+               failedIds.add(operation.getId());
+               results[index] = DocumentOperationResult.failure(null, error);
+            } else {
+               results[index] = DocumentOperationResult.failure(operation.getId(), error);
+            }
+            continue;
+         }
+
+         results[index] = DocumentOperationResult.success(operation.getId());
+         switch (operation.getType()) {
+            case CREATE:
+               createdCount++;
+               DocumentUtils.getDocumentAttributes(operation.getData()).forEach(name -> attributesUsage.merge(name, 1, Integer::sum));
+               writtenData.add(withId(operation));
+               break;
+            case DELETE:
+               deletedIds.add(operation.getId());
+               break;
+            case PATCH:
+               updatedIds.add(operation.getId());
+               patchedIds.add(operation.getId());
+               break;
+            default:
+               updatedIds.add(operation.getId());
+               writtenData.add(withId(operation));
+         }
+      }
+
+      // metadata of the documents whose data could not be created is removed again
+      failedIds.addAll(deletedIds);
+      documentDao.deleteDocumentsByIds(failedIds);
+      documentDao.updateDocumentsMetadata(updatedIds, authenticatedUser.getCurrentUsername(), LocalDateTime.now());
+      if (!deletedIds.isEmpty()) {
+         linkInstanceDao.deleteLinkInstances(createQueryForLinkInstances(deletedIds));
+      }
+
+      if (createdCount > 0) {
+         collectionStatistics.documentsCreated(collection.getId(), createdCount, attributesUsage);
+         addNewAttributes(collection, attributesUsage.keySet());
+      }
+      if (createdCount > 0 || !updatedIds.isEmpty() || !deletedIds.isEmpty()) {
+         searchResultCache.dataChanged(collection.getId());
+      }
+      updateFulltextIndex(collection, writtenData, patchedIds, deletedIds);
+
+      return Arrays.asList(results);
+   }
 
-      linkInstanceDao.deleteLinkInstances(createQueryForLinkInstances(documentId));
+   private static DataDocument withId(DocumentOperation operation) {
+      DataDocument data = new DataDocument(operation.getData());
+      data.setId(operation.getId());
+      return data;
+   }
+
+   private void updateFulltextIndex(Collection collection, List<DataDocument> writtenData, Set<String> patchedIds, Set<String> deletedIds) {
+      if (!fulltextCache.isEnabled()) {
+         return;
+      }
+
+      List<DataDocument> data = new ArrayList<>(writtenData);
+      if (!patchedIds.isEmpty()) {
+         // the index needs the whole data of the patched documents
+         SearchQuery query = SearchQuery.createBuilder(authenticatedUser.getCurrentUsername()).documentIds(patchedIds).build();
+         data.addAll(dataDao.getData(collection.getId(), query));
+      }
+      if (!data.isEmpty()) {
+         fulltextCache.dataChanged(collection.getId(), data);
+      }
+      if (!deletedIds.isEmpty()) {
+         fulltextCache.dataRemoved(collection.getId(), deletedIds);
+      }
+   }
+
+   private Set<String> getDocumentIds(Collection collection, List<DocumentOperation> operations) {
+      String[] ids = operations.stream()
+                               .filter(operation -> operation.getType() != DocumentOperation.Type.CREATE)
+                               .map(DocumentOperation::getId)
+                               .distinct()
+                               .toArray(String[]::new);
+      if (ids.length == 0) {
+         return Collections.emptySet();
+      }
+
+      return documentDao.getDocumentsByIds(ids).stream()
+                        .filter(document -> collection.getId().equals(document.getCollectionId()))
+                        .map(Document::getId)
+                        .collect(Collectors.toSet());
    }
 
    public Document getDocument(String collectionCode, String documentId) {
@@ -170,16 +368,117 @@ public class DocumentFacade extends AbstractFacade {
    }
 
    public List<Document> getDocuments(String collectionCode, Pagination pagination) {
+      return getDocuments(collectionCode, pagination, Collections.emptySet());
+   }
+
+   /**
+    * Gets documents with only the given attributes read from their data.
+    *
+    * @param collectionCode
+    *       collection code
+    * @param pagination
+    *       optional pagination
+    * @param fields
+    *       attributes to be read, all of them are read when empty
+    * @return the documents
+    */
+   public List<Document> getDocuments(String collectionCode, Pagination pagination, Set<String> fields) {
       Collection collection = collectionDao.getCollectionByCode(collectionCode);
       permissionsChecker.checkRole(collection, Role.READ);
 
-      Map<String, DataDocument> dataDocuments = getDataDocuments(collection.getId(), pagination);
+      Map<String, DataDocument> dataDocuments = getDataDocuments(collection.getId(), pagination, fields);
 
       return getDocuments(collectionCode, dataDocuments);
    }
 
-   private Map<String, DataDocument> getDataDocuments(String collectionId, Pagination pagination) {
-      SearchQuery searchQuery = createPaginationQuery(pagination);
+   /**
+    * Reads documents lazily from the database cursor. Document metadata is loaded in batches, so only one batch of documents
+    * is held in memory at a time. The returned stream must be closed.
+    *
+    * @param collectionCode
+    *       collection code
+    * @param pagination
+    *       optional pagination
+    * @param fields
+    *       attributes to be read, all of them are read when empty
+    * @return stream of the documents
+    */
+   public Stream<Document> streamDocuments(String collectionCode, Pagination pagination, Set<String> fields) {
+      Collection collection = collectionDao.getCollectionByCode(collectionCode);
+      permissionsChecker.checkRole(collection, Role.READ);
+
+      Stream<DataDocument> data = dataDao.streamData(collection.getId(), createPaginationQuery(pagination, fields));
+      return StreamUtils.flatMap(StreamUtils.batches(data, STREAM_BATCH_SIZE), batch -> getDocuments(collectionCode, toDataDocumentsMap(batch)).stream());
+   }
+
+   private static Map<String, DataDocument> toDataDocumentsMap(List<DataDocument> dataDocuments) {
+      return dataDocuments.stream().collect(Collectors.toMap(DataDocument::getId, Function.identity()));
+   }
+
+   /**
+    * Gets one page of documents sorted by their ids. Every page is sought directly by the id of the last document
+    * of the previous page, so all the pages take the same time regardless of their position.
+    *
+    * @param collectionCode
+    *       collection code
+    * @param continuationToken
+    *       token returned with the previous page, null for the first page
+    * @param pageSize
+    *       maximal number of documents in the page
+    * @return the page of documents
+    * @throws IllegalArgumentException
+    *       when the continuation token is not valid
+    */
+   public ResultPage<Document> getDocuments(String collectionCode, String continuationToken, int pageSize) {
+      return getDocuments(collectionCode, continuationToken, pageSize, Collections.emptySet());
+   }
+
+   /**
+    * Gets one page of documents with only the given attributes read from their data.
+    *
+    * @param collectionCode
+    *       collection code
+    * @param continuationToken
+    *       token returned with the previous page, null for the first page
+    * @param pageSize
+    *       maximal number of documents in the page
+    * @param fields
+    *       attributes to be read, all of them are read when empty
+    * @return the page of documents
+    * @throws IllegalArgumentException
+    *       when the continuation token is not valid
+    * @see #getDocuments(String, String, int)
+    */
+   public ResultPage<Document> getDocuments(String collectionCode, String continuationToken, int pageSize, Set<String> fields) {
+      Collection collection = collectionDao.getCollectionByCode(collectionCode);
+      permissionsChecker.checkRole(collection, Role.READ);
+
+      String afterId = continuationToken != null ? ContinuationToken.decode(continuationToken, 1)[0] : null;
+      List<DataDocument> data = dataDao.getData(collection.getId(), createKeysetQuery(afterId, pageSize, fields));
+
+      Map<String, DataDocument> dataDocuments = data.stream().collect(Collectors.toMap(DataDocument::getId, Function.identity()));
+      List<Document> documents = getDocuments(collectionCode, dataDocuments);
+      documents.sort(Comparator.comparing(Document::getId));
+
+      String nextToken = data.size() == pageSize ? ContinuationToken.encode(data.get(data.size() - 1).getId()) : null;
+      return new ResultPage<>(documents, nextToken);
+   }
+
+   private SearchQuery createKeysetQuery(String afterId, int pageSize, Set<String> fields) {
+      String user = authenticatedUser.getCurrentUsername();
+      Set<String> groups = userCache.getUser(user).getGroups();
+
+      return SearchQuery.createBuilder(user)
+                        .groups(groups)
+                        .page(0)
+                        .pageSize(pageSize)
+                        .afterId(afterId)
+                        .fields(fields)
+                        .build();
+   }
+
+   private Map<String, DataDocument> getDataDocuments(String collectionId, Pagination pagination, Set<String> fields) {
+      SearchQuery searchQuery = createPaginationQuery(pagination, fields);
       return dataDao.getData(collectionId, searchQuery).stream()
                     .collect(Collectors.toMap(DataDocument::getId, Function.identity()));
    }
@@ -194,12 +493,12 @@ public class DocumentFacade extends AbstractFacade {
       return documents;
    }
 
-   private SearchQuery createQueryForLinkInstances(String documentId) {
+   private SearchQuery createQueryForLinkInstances(Set<String> documentIds) {
       String user = authenticatedUser.getCurrentUsername();
       Set<String> groups = userCache.getUser(user).getGroups();
 
       return SearchQuery.createBuilder(user).groups(groups)
-                        .documentIds(Collections.singleton(documentId))
+                        .documentIds(documentIds)
                         .build();
    }
 }
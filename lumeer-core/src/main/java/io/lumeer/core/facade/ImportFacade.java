@@ -27,6 +27,9 @@ import io.lumeer.api.model.Document;
 import io.lumeer.api.model.Project;
 import io.lumeer.api.model.ResourceType;
 import io.lumeer.api.model.Role;
+import io.lumeer.core.cache.FulltextCache;
+import io.lumeer.core.cache.SearchResultCache;
+import io.lumeer.core.cache.SuggestionCache;
 import io.lumeer.core.util.CodeGenerator;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.storage.api.dao.CollectionDao;
@@ -34,16 +37,21 @@ import io.lumeer.storage.api.dao.DataDao;
 import io.lumeer.storage.api.dao.DocumentDao;
 import io.lumeer.storage.api.exception.ResourceNotFoundException;
 
-import com.univocity.parsers.common.processor.RowListProcessor;
 import com.univocity.parsers.csv.CsvParser;
 import com.univocity.parsers.csv.CsvParserSettings;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
@@ -53,6 +61,13 @@ public class ImportFacade extends AbstractFacade {
 
    public static final String FORMAT_CSV = "csv";
 
+   /**
+    * Number of documents written to the database at once.
+    */
+   static final int IMPORT_CHUNK_SIZE = Integer.getInteger("lumeer.import.chunkSize", 1000);
+
+   private static final Logger log = Logger.getLogger(ImportFacade.class.getName());
+
    @Inject
    private CollectionDao collectionDao;
 
@@ -62,34 +77,52 @@ public class ImportFacade extends AbstractFacade {
    @Inject
    private DataDao dataDao;
 
+   @Inject
+   private SuggestionCache suggestionCache;
+
+   @Inject
+   private SearchResultCache searchResultCache;
+
+   @Inject
+   private FulltextCache fulltextCache;
+
    public Collection importDocuments(final String format, final String name, final String data) {
-      List<Document> documents;
+      return importDocuments(format, name, new StringReader(data != null ? data : ""), null);
+   }
+
+   public Collection importDocuments(final String format, final String name, final InputStream data) {
+      return importDocuments(format, name, data, null);
+   }
+
+   /**
+    * Imports documents from the given stream into a new collection. The documents are parsed incrementally and written
+    * to the database in chunks of {@link #IMPORT_CHUNK_SIZE} documents, so the whole input is never held in memory.
+    *
+    * @param format
+    *       Format of the imported data.
+    * @param name
+    *       Name of the new collection.
+    * @param data
+    *       Stream with the imported data in UTF-8.
+    * @param progressListener
+    *       Optional listener notified with the total number of imported documents after each written chunk.
+    * @return The new collection with imported documents.
+    */
+   public Collection importDocuments(final String format, final String name, final InputStream data, final LongConsumer progressListener) {
+      return importDocuments(format, name, new InputStreamReader(data, StandardCharsets.UTF_8), progressListener);
+   }
+
+   private Collection importDocuments(final String format, final String name, final Reader data, final LongConsumer progressListener) {
+      Collection collection = createImportCollection(name);
 
       switch (format.toLowerCase()) {
          case FORMAT_CSV:
-            documents = parseCSVFile(data);
+            importCSVFile(collection, data, progressListener);
             break;
          default:
-            documents = Collections.emptyList();
-      }
-
-      Collection collection = createImportCollection(name);
-      if (documents.isEmpty()) {
-         return collection;
+            // unknown format, nothing to import
       }
 
-      documents.forEach(doc -> addDocumentMetadata(collection, doc));
-
-      List<Document> storedDocuments = documentDao.createDocuments(documents);
-
-      List<DataDocument> dataDocuments = new LinkedList<>();
-      for (int i = 0; i < documents.size(); i++) {
-         DataDocument dataDocument = documents.get(i).getData();
-         dataDocument.setId(storedDocuments.get(i).getId());
-         dataDocuments.add(dataDocument);
-      }
-      dataDao.createData(collection.getId(), dataDocuments);
-
       return collection;
    }
 
@@ -113,6 +146,8 @@ public class ImportFacade extends AbstractFacade {
 
       Collection storedCollection = collectionDao.createCollection(collection);
       dataDao.createDataRepository(storedCollection.getId());
+      suggestionCache.collectionChanged(storedCollection);
+      searchResultCache.collectionsChanged();
 
       return storedCollection;
    }
@@ -130,46 +165,75 @@ public class ImportFacade extends AbstractFacade {
       permissionsChecker.checkRole(project, Role.WRITE);
    }
 
-   private List<Document> parseCSVFile(String data) {
-      if (data == null || data.trim().isEmpty()) {
-         return Collections.emptyList();
-      }
+   private void importCSVFile(final Collection collection, final Reader data, final LongConsumer progressListener) {
       CsvParserSettings settings = new CsvParserSettings();
       settings.detectFormatAutomatically();
       settings.setHeaderExtractionEnabled(true);
 
-      RowListProcessor rowProcessor = new RowListProcessor();
-      settings.setProcessor(rowProcessor);
-
       CsvParser parser = new CsvParser(settings);
-      parser.parse(new StringReader(data));
+      parser.beginParsing(data);
 
-      String[] headers = rowProcessor.getHeaders();
-      List<String[]> rows = rowProcessor.getRows();
+      try {
+         List<Document> documents = new ArrayList<>(IMPORT_CHUNK_SIZE);
+         long imported = 0;
 
-      if (headers.length == 0 || rows.isEmpty()) {
-         return Collections.emptyList();
-      }
+         String[] row;
+         while ((row = parser.parseNext()) != null) {
+            String[] headers = parser.getContext().headers();
+            if (headers == null || headers.length == 0) {
+               return;
+            }
 
-      return createDocumentsFromHeaderAndRows(headers, rows);
+            documents.add(createDocumentFromHeaderAndRow(collection, headers, row));
+            if (documents.size() == IMPORT_CHUNK_SIZE) {
+               imported += storeDocuments(collection, documents, imported, progressListener);
+               documents = new ArrayList<>(IMPORT_CHUNK_SIZE);
+            }
+         }
+
+         if (!documents.isEmpty()) {
+            storeDocuments(collection, documents, imported, progressListener);
+         }
+      } finally {
+         parser.stopParsing();
+      }
    }
 
-   private List<Document> createDocumentsFromHeaderAndRows(String[] headers, List<String[]> rows) {
-      List<DataDocument> dataDocuments = new LinkedList<>();
-      for (int i = 0; i < rows.size(); i++) {
-         dataDocuments.add(new DataDocument());
+   private int storeDocuments(final Collection collection, final List<Document> documents, final long imported, final LongConsumer progressListener) {
+      List<Document> storedDocuments = documentDao.createDocuments(documents);
+
+      List<DataDocument> dataDocuments = new ArrayList<>(documents.size());
+      for (int i = 0; i < documents.size(); i++) {
+         DataDocument dataDocument = documents.get(i).getData();
+         dataDocument.setId(storedDocuments.get(i).getId());
+         dataDocuments.add(dataDocument);
+      }
+      try {
+         dataDao.createData(collection.getId(), dataDocuments);
+      } catch (RuntimeException e) {
+         documentDao.deleteDocumentsByIds(dataDocuments.stream().map(DataDocument::getId).collect(Collectors.toSet()));
+         throw e;
+      }
+      searchResultCache.dataChanged(collection.getId());
+      fulltextCache.dataChanged(collection.getId(), dataDocuments);
+
+      long total = imported + documents.size();
+      log.log(Level.FINE, "Imported {0} documents into collection {1}.", new Object[] { total, collection.getCode() });
+      if (progressListener != null) {
+         progressListener.accept(total);
       }
 
-      for (int i = 0; i < headers.length; i++) {
-         String header = headers[i];
-         for (int j = 0; j < rows.size(); j++) {
-            String[] row = rows.get(j);
-            if (row.length > i) {
-               dataDocuments.get(j).append(header, row[i]);
-            }
-         }
+      return documents.size();
+   }
+
+   private Document createDocumentFromHeaderAndRow(final Collection collection, final String[] headers, final String[] row) {
+      DataDocument dataDocument = new DataDocument();
+      for (int i = 0; i < headers.length && i < row.length; i++) {
+         dataDocument.append(headers[i], row[i]);
       }
 
-      return dataDocuments.stream().map(JsonDocument::new).collect(Collectors.toList());
+      Document document = new JsonDocument(dataDocument);
+      addDocumentMetadata(collection, document);
+      return document;
    }
 }
@@ -23,6 +23,7 @@ import io.lumeer.api.model.Collection;
 import io.lumeer.api.model.LinkType;
 import io.lumeer.api.model.Query;
 import io.lumeer.api.model.Role;
+import io.lumeer.core.cache.SuggestionCache;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.LinkTypeDao;
 import io.lumeer.storage.api.query.SearchQuery;
@@ -42,10 +43,16 @@ public class LinkTypeFacade extends AbstractFacade {
    @Inject
    private CollectionDao collectionDao;
 
+   @Inject
+   private SuggestionCache suggestionCache;
+
    public LinkType createLinkType(LinkType linkType) {
       checkLinkTypePermission(linkType.getCollectionIds());
 
-      return linkTypeDao.createLinkType(linkType);
+      LinkType storedLinkType = linkTypeDao.createLinkType(linkType);
+      suggestionCache.linkTypeChanged(storedLinkType);
+
+      return storedLinkType;
    }
 
    public LinkType updateLinkType(String id, LinkType linkType) {
@@ -54,7 +61,10 @@ public class LinkTypeFacade extends AbstractFacade {
 
       checkLinkTypePermission(collectionIds);
 
-      return linkTypeDao.updateLinkType(id, linkType);
+      LinkType updatedLinkType = linkTypeDao.updateLinkType(id, linkType);
+      suggestionCache.linkTypeChanged(updatedLinkType);
+
+      return updatedLinkType;
    }
 
    public void deleteLinkType(String id) {
@@ -62,6 +72,7 @@ public class LinkTypeFacade extends AbstractFacade {
       checkLinkTypePermission(linkType.getCollectionIds());
 
       linkTypeDao.deleteLinkType(id);
+      suggestionCache.linkTypeRemoved(id);
    }
 
    public List<LinkType> getLinkTypes(Query query) {
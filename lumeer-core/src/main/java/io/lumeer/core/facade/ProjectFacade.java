@@ -25,6 +25,9 @@ import io.lumeer.api.model.Project;
 import io.lumeer.api.model.ResourceType;
 import io.lumeer.api.model.Role;
 import io.lumeer.api.model.User;
+import io.lumeer.core.cache.FulltextCache;
+import io.lumeer.core.cache.SearchResultCache;
+import io.lumeer.core.cache.SuggestionCache;
 import io.lumeer.core.model.SimplePermission;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DocumentDao;
@@ -62,6 +65,15 @@ public class ProjectFacade extends AbstractFacade {
    @Inject
    private LinkInstanceDao linkInstanceDao;
 
+   @Inject
+   private SuggestionCache suggestionCache;
+
+   @Inject
+   private FulltextCache fulltextCache;
+
+   @Inject
+   private SearchResultCache searchResultCache;
+
    public Project createProject(Project project) {
       checkOrganizationWriteRole();
       Permission defaultUserPermission = new SimplePermission(authenticatedUser.getCurrentUsername(), Project.ROLES);
@@ -91,6 +103,9 @@ public class ProjectFacade extends AbstractFacade {
       deleleProjectScopedRepositories(project);
 
       projectDao.deleteProject(project.getId());
+      suggestionCache.removeProject(project.getId());
+      fulltextCache.removeProject(project.getId());
+      searchResultCache.projectRemoved(project.getId());
    }
 
    public Project getProject(final String projectCode) {
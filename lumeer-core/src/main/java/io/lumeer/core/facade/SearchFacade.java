@@ -18,33 +18,55 @@
  */
 package io.lumeer.core.facade;
 
+import io.lumeer.api.model.Aggregation;
 import io.lumeer.api.model.Collection;
 import io.lumeer.api.model.Document;
+import io.lumeer.api.model.Project;
 import io.lumeer.api.model.Query;
 import io.lumeer.api.model.Resource;
+import io.lumeer.api.model.ResourceType;
+import io.lumeer.api.model.Role;
 import io.lumeer.api.model.View;
+import io.lumeer.core.IndexAdvisor;
+import io.lumeer.core.cache.FulltextCache;
+import io.lumeer.core.cache.SearchResultCache;
+import io.lumeer.core.model.ResultPage;
+import io.lumeer.core.util.ContinuationToken;
+import io.lumeer.core.util.FilterParser;
+import io.lumeer.core.util.StreamUtils;
 import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.exception.InvalidQueryException;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DataDao;
 import io.lumeer.storage.api.dao.DocumentDao;
 import io.lumeer.storage.api.dao.ViewDao;
+import io.lumeer.storage.api.exception.ResourceNotFoundException;
 import io.lumeer.storage.api.query.SearchQuery;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 
 @RequestScoped
 public class SearchFacade extends AbstractFacade {
 
+   /**
+    * Time limit in milliseconds for searching data of all collections, collections that do not respond in time are skipped.
+    */
+   private static final long SEARCH_TIMEOUT = Long.getLong("lumeer.search.timeout", 10_000L);
+
    @Inject
    private CollectionDao collectionDao;
 
@@ -57,36 +79,191 @@ public class SearchFacade extends AbstractFacade {
    @Inject
    private ViewDao viewDao;
 
+   @Inject
+   private SearchResultCache searchResultCache;
+
+   @Inject
+   private IndexAdvisor indexAdvisor;
+
+   @Inject
+   private FulltextCache fulltextCache;
+
    public List<Collection> searchCollections(Query query) {
+      return searchResultCache.get(searchResultCache.createKey("collections", query), collectionIds -> searchCollections(query, collectionIds));
+   }
+
+   private List<Collection> searchCollections(Query query, Set<String> searchedCollectionIds) {
       Set<Collection> collections = new HashSet<>();
 
-      if (query.getFulltext() != null && !query.getFulltext().isEmpty()) {
-         collections.addAll(getCollectionsByDocumentsSearch(query));
+      if ((query.getFulltext() != null && !query.getFulltext().isEmpty()) || (query.getFilters() != null && !query.getFilters().isEmpty())) {
+         collections.addAll(getCollectionsByDocumentsSearch(query, searchedCollectionIds));
       }
 
       if (query.getDocumentIds() != null && !query.getDocumentIds().isEmpty()) {
-         collections.addAll(getCollectionsByDocumentsIds(query.getDocumentIds()));
+         collections.addAll(getCollectionsByDocumentsIds(query.getDocumentIds(), searchedCollectionIds));
       }
 
       if (collectionQueryIsNotEmpty(query) || isEmptyQuery(query)) {
          collections.addAll(getCollectionsByCollectionSearch(query));
       }
 
+      // the documents count and the attributes usage of the collections change with their data
+      collections.forEach(collection -> searchedCollectionIds.add(collection.getId()));
+
       return new ArrayList<>(collections);
    }
 
+   /**
+    * Searches documents. The documents requested by their ids come first in the order of the ids, followed by the
+    * searched documents in the order of the query sorts. Only the documents of one collection can be sorted by their
+    * attributes.
+    *
+    * @param query
+    *       the query
+    * @return the documents
+    * @throws InvalidQueryException
+    *       when the query sorts the documents of more than one collection by their attributes
+    */
    public List<Document> searchDocuments(Query query) {
-      Set<Document> documents = new HashSet<>();
+      return searchResultCache.get(searchResultCache.createKey("documents", query), collectionIds -> searchDocuments(query, collectionIds));
+   }
+
+   private List<Document> searchDocuments(Query query, Set<String> searchedCollectionIds) {
+      Map<String, Document> documents = new LinkedHashMap<>();
 
       if (query.getDocumentIds() != null && !query.getDocumentIds().isEmpty()) {
-         documents.addAll(getDocumentsByIds(query.getDocumentIds()));
+         getDocumentsByIds(query.getDocumentIds(), query.getFields(), searchedCollectionIds).forEach(document -> documents.putIfAbsent(document.getId(), document));
       }
 
       if (!isOnlyDocumentsIdsQuery(query) || isEmptyQuery(query)) {
-         documents.addAll(searchDocumentsByFullText(query));
+         searchDocumentsByFullText(query, searchedCollectionIds).forEach(document -> documents.putIfAbsent(document.getId(), document));
+      }
+
+      return new ArrayList<>(documents.values());
+   }
+
+   /**
+    * Searches documents lazily. Collections are read one after another from the database cursor and document metadata
+    * is loaded in batches, so only one batch of documents is held in memory at a time. The returned stream must be closed.
+    *
+    * @param query
+    *       the query
+    * @return stream of the documents
+    * @throws InvalidQueryException
+    *       when the query sorts the documents of more than one collection by their attributes
+    */
+   public Stream<Document> streamDocuments(Query query) {
+      List<Document> documentsByIds = query.getDocumentIds() != null && !query.getDocumentIds().isEmpty() ? getDocumentsByIds(query.getDocumentIds(), query.getFields(), new HashSet<>()) : Collections.emptyList();
+      if (isOnlyDocumentsIdsQuery(query) && !isEmptyQuery(query)) {
+         return documentsByIds.stream();
       }
 
-      return new ArrayList<>(documents);
+      Set<String> documentIds = documentsByIds.stream().map(Document::getId).collect(Collectors.toSet());
+      Map<String, Collection> collections = getCollections(query);
+      SearchQuery searchQuery = createDataQueryBuilder(query, collections.keySet()).build();
+      checkSortable(searchQuery, collections.keySet());
+      indexAdvisor.recordQuery(collections.keySet(), searchQuery);
+
+      // nested Stream.flatMap would read the documents of a whole collection before returning the first one
+      Stream<Document> documents = StreamUtils.flatMap(collections.keySet().stream(), collectionId ->
+            StreamUtils.flatMap(StreamUtils.batches(dataDao.streamData(collectionId, searchQuery), STREAM_BATCH_SIZE),
+                  batch -> getDocuments(collections, toDataDocumentsMap(batch)).stream())
+                  .filter(document -> !documentIds.contains(document.getId())));
+      return Stream.concat(documentsByIds.stream(), documents);
+   }
+
+   private static Map<String, DataDocument> toDataDocumentsMap(List<DataDocument> dataDocuments) {
+      Map<String, DataDocument> dataDocumentsMap = new LinkedHashMap<>();
+      dataDocuments.forEach(dataDocument -> dataDocumentsMap.put(dataDocument.getId(), dataDocument));
+      return dataDocumentsMap;
+   }
+
+   private static void checkSortable(SearchQuery searchQuery, Set<String> collectionIds) {
+      // the data of every collection is sorted by the database separately
+      if (searchQuery.hasAttributeSorts() && collectionIds.size() > 1) {
+         throw new InvalidQueryException("Only the documents of one collection can be sorted by their attributes");
+      }
+   }
+
+   /**
+    * Searches one page of documents. The documents are sorted by their collection id and their id and every page is sought
+    * directly by the position of the last document of the previous page, so all the pages take the same time regardless
+    * of their position.
+    *
+    * @param query
+    *       the query
+    * @param continuationToken
+    *       token returned with the previous page, null for the first page
+    * @param pageSize
+    *       maximal number of documents in the page
+    * @return the page of documents
+    * @throws IllegalArgumentException
+    *       when the continuation token is not valid
+    * @throws InvalidQueryException
+    *       when the query sorts the documents by their attributes
+    */
+   public ResultPage<Document> searchDocuments(Query query, String continuationToken, int pageSize) {
+      String[] position = continuationToken != null ? ContinuationToken.decode(continuationToken, 2) : null;
+
+      Map<String, Collection> collections = new TreeMap<>(getCollections(query));
+      Map<String, DataDocument> dataDocuments = new LinkedHashMap<>();
+      String lastCollectionId = null;
+      String lastDocumentId = null;
+      SearchQuery.Builder searchQuery = createDataQueryBuilder(query, collections.keySet());
+      // the pages are sought by the document id, so the documents cannot be sorted by their attributes
+      if (searchQuery.build().hasAttributeSorts()) {
+         throw new InvalidQueryException("The paged documents cannot be sorted by their attributes");
+      }
+      indexAdvisor.recordQuery(collections.keySet(), searchQuery.build());
+
+      for (String collectionId : collections.keySet()) {
+         int remaining = pageSize - dataDocuments.size();
+         if (remaining <= 0) {
+            break;
+         }
+         if (position != null && collectionId.compareTo(position[0]) < 0) {
+            continue;
+         }
+
+         String afterId = position != null && collectionId.equals(position[0]) ? position[1] : null;
+         List<DataDocument> data = dataDao.getData(collectionId, searchQuery.page(0).pageSize(remaining).afterId(afterId).build());
+         data.forEach(dataDocument -> dataDocuments.put(dataDocument.getId(), dataDocument));
+         if (!data.isEmpty()) {
+            lastCollectionId = collectionId;
+            lastDocumentId = data.get(data.size() - 1).getId();
+         }
+      }
+
+      List<Document> documents = getDocuments(collections, dataDocuments);
+      documents.sort(Comparator.comparing(Document::getCollectionId).thenComparing(Document::getId));
+
+      String nextToken = dataDocuments.size() == pageSize ? ContinuationToken.encode(lastCollectionId, lastDocumentId) : null;
+      return new ResultPage<>(documents, nextToken);
+   }
+
+   /**
+    * Aggregates the data of the documents found by the query of the aggregation. Only the collections the user can read
+    * are aggregated and each of them separately.
+    *
+    * @param aggregation
+    *       the aggregation
+    * @return aggregated rows mapped by the collection code
+    */
+   public Map<String, List<DataDocument>> aggregateDocuments(Aggregation aggregation) {
+      String key = searchResultCache.createKey("aggregation", aggregation.getQuery(), aggregation.getGroups(), aggregation.getMetrics(), aggregation.getLimit());
+      return searchResultCache.get(key, collectionIds -> aggregateDocuments(aggregation, collectionIds));
+   }
+
+   private Map<String, List<DataDocument>> aggregateDocuments(Aggregation aggregation, Set<String> searchedCollectionIds) {
+      Map<String, Collection> collections = getCollections(aggregation.getQuery());
+      searchedCollectionIds.addAll(collections.keySet());
+      SearchQuery searchQuery = createDataQueryBuilder(aggregation.getQuery(), collections.keySet()).build();
+      indexAdvisor.recordQuery(collections.keySet(), searchQuery);
+      Map<String, List<DataDocument>> rows = dataDao.aggregateData(collections.keySet(), searchQuery, aggregation, SEARCH_TIMEOUT);
+
+      Map<String, List<DataDocument>> result = new TreeMap<>();
+      rows.forEach((collectionId, collectionRows) -> result.put(collections.get(collectionId).getCode(), collectionRows));
+      return result;
    }
 
    private boolean isEmptyQuery(final Query query) {
@@ -102,9 +279,10 @@ public class SearchFacade extends AbstractFacade {
       return isEmptyQueryExceptDocumentIds(query) && (query.getDocumentIds() != null && !query.getDocumentIds().isEmpty());
    }
 
-   private java.util.Collection<Collection> getCollectionsByDocumentsIds(final Set<String> documentIds) {
+   private java.util.Collection<Collection> getCollectionsByDocumentsIds(final Set<String> documentIds, final Set<String> searchedCollectionIds) {
       List<Document> documents = documentDao.getDocumentsByIds(documentIds.toArray(new String[documentIds.size()]));
       Set<String> collectionIds = documents.stream().map(Document::getCollectionId).collect(Collectors.toSet());
+      searchedCollectionIds.addAll(collectionIds);
 
       return collectionDao.getCollectionsByIds(collectionIds);
    }
@@ -113,23 +291,27 @@ public class SearchFacade extends AbstractFacade {
       return (query.getCollectionCodes() != null && !query.getCollectionCodes().isEmpty()) || (query.getCollectionIds() != null && !query.getCollectionIds().isEmpty());
    }
 
-   private List<Document> getDocumentsByIds(Set<String> documentIds) {
+   private List<Document> getDocumentsByIds(Set<String> documentIds, Set<String> fields, Set<String> searchedCollectionIds) {
       List<Document> documents = documentDao.getDocumentsByIds(documentIds.toArray(new String[documentIds.size()]));
-      Map<String, Document> documentsMap = documents.stream().collect(Collectors.toMap(Document::getId, Function.identity()));
+      Map<String, Document> storedDocuments = documents.stream().collect(Collectors.toMap(Document::getId, Function.identity()));
+      Map<String, Document> documentsMap = new LinkedHashMap<>();
+      documentIds.stream().filter(storedDocuments::containsKey).forEach(id -> documentsMap.put(id, storedDocuments.get(id)));
       Map<String, Set<String>> collectionsDocumentsMap = documents.stream()
                                                                   .collect(Collectors.groupingBy(Document::getCollectionId, Collectors.mapping(Document::getId, Collectors.toSet())));
+      searchedCollectionIds.addAll(collectionsDocumentsMap.keySet());
 
       collectionsDocumentsMap.forEach((collectionId, docIds) -> {
-         List<DataDocument> dataDocuments = dataDao.getData(collectionId, createDocumentIdsQuery(docIds));
+         List<DataDocument> dataDocuments = dataDao.getData(collectionId, createDocumentIdsQuery(docIds, fields));
          dataDocuments.forEach(dataDocument -> documentsMap.get(dataDocument.getId()).setData(dataDocument));
       });
 
       return new ArrayList<>(documentsMap.values());
    }
 
-   private List<Document> searchDocumentsByFullText(Query query) {
+   private List<Document> searchDocumentsByFullText(Query query, Set<String> searchedCollectionIds) {
       Map<String, Collection> collections = getCollections(query);
-      Map<String, DataDocument> dataDocuments = getDataDocuments(collections.values(), query);
+      searchedCollectionIds.addAll(collections.keySet());
+      Map<String, DataDocument> dataDocuments = getDataDocuments(collections.keySet(), query);
 
       return getDocuments(collections, dataDocuments);
    }
@@ -149,18 +331,17 @@ public class SearchFacade extends AbstractFacade {
                           .collect(Collectors.toList());
    }
 
-   private List<Collection> getCollectionsByDocumentsSearch(Query query) {
-      java.util.Collection<Collection> searchedCollections = getCollections(query).values();
-      List<Collection> matchedCollections = new ArrayList<>();
-
-      for (Collection collection : searchedCollections) {
-         long documentCount = dataDao.getDataCount(collection.getId(), createSearchQuery(query));
-         if (documentCount > 0) {
-            matchedCollections.add(collection);
-         }
-      }
-
-      return matchedCollections;
+   private List<Collection> getCollectionsByDocumentsSearch(Query query, Set<String> searchedCollectionIds) {
+      Map<String, Collection> searchedCollections = getCollections(query);
+      searchedCollectionIds.addAll(searchedCollections.keySet());
+      SearchQuery searchQuery = createDataQueryBuilder(query, searchedCollections.keySet()).build();
+      indexAdvisor.recordQuery(searchedCollections.keySet(), searchQuery);
+      Map<String, Long> documentCounts = dataDao.getDataCount(searchedCollections.keySet(), searchQuery, SEARCH_TIMEOUT);
+
+      return documentCounts.entrySet().stream()
+                           .filter(entry -> entry.getValue() > 0)
+                           .map(entry -> searchedCollections.get(entry.getKey()))
+                           .collect(Collectors.toList());
    }
 
    private static boolean isValidViewSearch(Query query) {
@@ -180,6 +361,59 @@ public class SearchFacade extends AbstractFacade {
                           .collect(Collectors.toMap(Resource::getId, Function.identity()));
    }
 
+   /**
+    * Creates the query of the searched data. When the fulltext is searched by the embedded engine, it is replaced by
+    * the ids of the matching documents and the collections without any match are removed from the searched ones. The
+    * fulltext is left to the database until the embedded index of the project is loaded.
+    *
+    * @param query
+    *       the query
+    * @param collectionIds
+    *       ids of the searched collections, they are narrowed by the embedded engine
+    * @return the query builder
+    */
+   private SearchQuery.Builder createDataQueryBuilder(Query query, Set<String> collectionIds) {
+      SearchQuery.Builder builder = createSearchQueryBuilder(query);
+      if (!fulltextCache.isEnabled() || query.getFulltext() == null || query.getFulltext().isEmpty()) {
+         return builder;
+      }
+
+      Optional<Map<String, Set<String>>> result = fulltextCache.search(query.getFulltext(), collectionIds);
+      if (!result.isPresent()) {
+         return builder;
+      }
+
+      Map<String, Set<String>> matches = result.get();
+      Set<String> documentIds = matches.values().stream().flatMap(Set::stream).collect(Collectors.toSet());
+      if (query.getDocumentIds() != null && !query.getDocumentIds().isEmpty()) {
+         documentIds.retainAll(query.getDocumentIds());
+      }
+
+      if (documentIds.isEmpty()) {
+         // an empty list of ids would not restrict the query at all
+         collectionIds.clear();
+      } else {
+         collectionIds.retainAll(matches.keySet());
+      }
+      return builder.fulltext(null).documentIds(documentIds);
+   }
+
+   /**
+    * Builds the embedded fulltext index of the current project again from the database.
+    *
+    * @return number of the indexed documents
+    */
+   public int rebuildFulltextIndex() {
+      Project project = workspaceKeeper.getProject().orElseThrow(() -> new ResourceNotFoundException(ResourceType.PROJECT));
+      permissionsChecker.checkRole(project, Role.MANAGE);
+
+      return fulltextCache.rebuild();
+   }
+
+   public boolean isFulltextIndexEnabled() {
+      return fulltextCache.isEnabled();
+   }
+
    private SearchQuery createCollectionQuery(Query query) {
       String user = authenticatedUser.getCurrentUsername();
       Set<String> groups = userCache.getUser(user).getGroups();
@@ -191,48 +425,59 @@ public class SearchFacade extends AbstractFacade {
                         .build();
    }
 
-   private Map<String, DataDocument> getDataDocuments(Iterable<Collection> collections, Query query) {
-      Map<String, DataDocument> dataDocuments = new HashMap<>();
-      for (Collection collection : collections) {
-         dataDocuments.putAll(getDataDocuments(collection.getId(), query));
-      }
-      return dataDocuments;
-   }
-
-   private Map<String, DataDocument> getDataDocuments(String collectionId, Query query) {
-      SearchQuery documentQuery = createSearchQuery(query);
-      return dataDao.getData(collectionId, documentQuery).stream()
-                    .collect(Collectors.toMap(DataDocument::getId, Function.identity()));
+   private Map<String, DataDocument> getDataDocuments(Set<String> collectionIds, Query query) {
+      SearchQuery documentQuery = createDataQueryBuilder(query, collectionIds).build();
+      checkSortable(documentQuery, collectionIds);
+      indexAdvisor.recordQuery(collectionIds, documentQuery);
+      Map<String, List<DataDocument>> data = new TreeMap<>(dataDao.getData(collectionIds, documentQuery, SEARCH_TIMEOUT));
+      return toDataDocumentsMap(data.values().stream().flatMap(List::stream).collect(Collectors.toList()));
    }
 
    private List<Document> getDocuments(Map<String, Collection> collections, Map<String, DataDocument> dataDocuments) {
       String[] documentIds = dataDocuments.keySet().toArray(new String[] {});
-      List<Document> documents = documentDao.getDocumentsByIds(documentIds);
-      documents.forEach(document -> {
-         document.setCollectionCode(collections.get(document.getCollectionId()).getCode());
-         document.setData(dataDocuments.get(document.getId()));
+      Map<String, Document> documents = documentDao.getDocumentsByIds(documentIds).stream()
+                                                   .collect(Collectors.toMap(Document::getId, Function.identity()));
+
+      // the metadata come in an arbitrary order, the documents keep the order of their data
+      List<Document> result = new ArrayList<>(documents.size());
+      dataDocuments.forEach((id, dataDocument) -> {
+         Document document = documents.get(id);
+         if (document != null) {
+            document.setCollectionCode(collections.get(document.getCollectionId()).getCode());
+            document.setData(dataDocument);
+            result.add(document);
+         }
       });
-      return documents;
+      return result;
    }
 
    private SearchQuery createSearchQuery(Query query) {
+      return createSearchQueryBuilder(query).build();
+   }
+
+   private SearchQuery.Builder createSearchQueryBuilder(Query query) {
       String user = authenticatedUser.getCurrentUsername();
       Set<String> groups = userCache.getUser(user).getGroups();
 
+      FilterParser filters = FilterParser.parse(query.getFilters());
+
       return SearchQuery.createBuilder(user).groups(groups)
                         .collectionCodes(query.getCollectionCodes())
                         .collectionIds(query.getCollectionIds())
                         .documentIds(query.getDocumentIds())
-                        .fulltext(query.getFulltext()) // TODO add filters
-                        .build();
+                        .fulltext(query.getFulltext())
+                        .fields(query.getFields())
+                        .attributeFilters(filters.getAttributeFilters())
+                        .attributeSorts(filters.getAttributeSorts());
    }
 
-   private SearchQuery createDocumentIdsQuery(Set<String> documentIds) {
+   private SearchQuery createDocumentIdsQuery(Set<String> documentIds, Set<String> fields) {
       String user = authenticatedUser.getCurrentUsername();
       Set<String> groups = userCache.getUser(user).getGroups();
 
       return SearchQuery.createBuilder(user).groups(groups)
                         .documentIds(documentIds)
+                        .fields(fields)
                         .build();
    }
 
@@ -19,21 +19,15 @@
 package io.lumeer.core.facade;
 
 import io.lumeer.api.dto.JsonSuggestions;
-import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
 import io.lumeer.api.model.LinkType;
+import io.lumeer.api.model.Resource;
+import io.lumeer.api.model.Role;
 import io.lumeer.api.model.SuggestionType;
 import io.lumeer.api.model.View;
-import io.lumeer.storage.api.dao.CollectionDao;
-import io.lumeer.storage.api.dao.LinkTypeDao;
-import io.lumeer.storage.api.dao.ViewDao;
-import io.lumeer.storage.api.query.SearchQuery;
-import io.lumeer.storage.api.query.SuggestionQuery;
+import io.lumeer.core.cache.SuggestionCache;
 
-import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 
@@ -44,13 +38,7 @@ public class SuggestionFacade extends AbstractFacade {
    private static final int TYPES_COUNT = 4;
 
    @Inject
-   private CollectionDao collectionDao;
-
-   @Inject
-   private ViewDao viewDao;
-
-   @Inject
-   private LinkTypeDao linkTypeDao;
+   private SuggestionCache suggestionCache;
 
    public JsonSuggestions suggest(String text, SuggestionType type) {
       switch (type) {
@@ -83,73 +71,22 @@ public class SuggestionFacade extends AbstractFacade {
    }
 
    private List<Collection> suggestAttributes(String text, int limit) {
-      SuggestionQuery suggestionQuery = createSuggestionQuery(text, limit);
-      List<Collection> collections = collectionDao.getCollectionsByAttributes(suggestionQuery);
-      return keepOnlyMatchingAttributes(collections, text);
-   }
-
-   private static List<Collection> keepOnlyMatchingAttributes(List<Collection> collections, String text) {
-      for (Collection collection : collections) {
-         Set<Attribute> attributes = collection.getAttributes().stream()
-                                               .filter(a -> a.getName().toLowerCase().contains(text))
-                                               .collect(Collectors.toSet());
-         collection.setAttributes(attributes);
-      }
-      return collections;
+      return suggestionCache.getIndex().suggestAttributes(text, this::isReadable, limit);
    }
 
    private List<Collection> suggestCollections(String text, int limit) {
-      SuggestionQuery suggestionQuery = createSuggestionQuery(text, limit);
-      List<Collection> collections = collectionDao.getCollections(suggestionQuery);
-
-      collections.forEach(c -> c.setAttributes(Collections.emptySet()));
-      return collections;
+      return suggestionCache.getIndex().suggestCollections(text, this::isReadable, limit);
    }
 
    private List<LinkType> suggestLinkTypes(String text, int limit) {
-      List<Collection> allowedCollections = collectionDao.getCollections(createSimpleSearchQuery());
-      if (allowedCollections.isEmpty()) {
-         return Collections.emptyList();
-      }
-
-      List<String> allowedCollectionIds = allowedCollections.stream().map(Collection::getId).collect(Collectors.toList());
-      SuggestionQuery suggestionQuery = createSuggestionQueryWithIds(text, limit, allowedCollectionIds);
-      List<LinkType> linkTypes = linkTypeDao.getLinkTypes(suggestionQuery);
-      return linkTypes.stream()
-                      .filter(linkType -> allowedCollectionIds.containsAll(linkType.getCollectionIds()))
-                      .collect(Collectors.toList());
+      return suggestionCache.getIndex().suggestLinkTypes(text, this::isReadable, limit);
    }
 
    private List<View> suggestViews(String text, int limit) {
-      SuggestionQuery suggestionQuery = createSuggestionQuery(text, limit);
-      return viewDao.getViews(suggestionQuery);
-   }
-
-   private SuggestionQuery createSuggestionQuery(String text, int limit) {
-      return createBuilderForSuggestionQuery(text, limit)
-            .build();
-   }
-
-   private SuggestionQuery createSuggestionQueryWithIds(String text, int limit, List<String> collectionIds) {
-      return createBuilderForSuggestionQuery(text, limit)
-            .collectionIds(collectionIds)
-            .build();
+      return suggestionCache.getIndex().suggestViews(text, this::isReadable, limit);
    }
 
-   private SuggestionQuery.Builder createBuilderForSuggestionQuery(String text, int limit) {
-      String user = authenticatedUser.getCurrentUsername();
-      Set<String> groups = authenticatedUser.getCurrentUser().getGroups();
-
-      return SuggestionQuery.createBuilder(user).groups(groups)
-                            .text(text)
-                            .page(0).pageSize(limit);
-   }
-
-   private SearchQuery createSimpleSearchQuery() {
-      String user = authenticatedUser.getCurrentUsername();
-      Set<String> groups = authenticatedUser.getCurrentUser().getGroups();
-
-      return SearchQuery.createBuilder(user).groups(groups)
-                        .build();
+   private boolean isReadable(Resource resource) {
+      return permissionsChecker.getActualRoles(resource).contains(Role.READ);
    }
 }
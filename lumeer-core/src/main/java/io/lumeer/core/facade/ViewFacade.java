@@ -23,6 +23,7 @@ import io.lumeer.api.model.Permission;
 import io.lumeer.api.model.Permissions;
 import io.lumeer.api.model.Role;
 import io.lumeer.api.model.View;
+import io.lumeer.core.cache.SuggestionCache;
 import io.lumeer.core.model.SimplePermission;
 import io.lumeer.core.util.CodeGenerator;
 import io.lumeer.storage.api.dao.ViewDao;
@@ -40,6 +41,9 @@ public class ViewFacade extends AbstractFacade {
    @Inject
    private ViewDao viewDao;
 
+   @Inject
+   private SuggestionCache suggestionCache;
+
    public View createView(View view) {
       // TODO check collection permissions
 
@@ -50,7 +54,10 @@ public class ViewFacade extends AbstractFacade {
       Permission defaultUserPermission = new SimplePermission(authenticatedUser.getCurrentUsername(), View.ROLES);
       view.getPermissions().updateUserPermissions(defaultUserPermission);
 
-      return viewDao.createView(view);
+      View storedView = viewDao.createView(view);
+      suggestionCache.viewChanged(storedView);
+
+      return storedView;
    }
 
    public View updateView(final String code, final View view) {
@@ -59,6 +66,7 @@ public class ViewFacade extends AbstractFacade {
 
       keepStoredPermissions(view, storedView.getPermissions());
       View updatedView = viewDao.updateView(storedView.getId(), view);
+      suggestionCache.viewChanged(updatedView);
 
       return keepOnlyActualUserRoles(updatedView);
    }
@@ -68,6 +76,7 @@ public class ViewFacade extends AbstractFacade {
       permissionsChecker.checkRole(view, Role.MANAGE);
 
       viewDao.deleteView(view.getId());
+      suggestionCache.viewRemoved(view.getId());
    }
 
    public View getViewByCode(final String code) {
@@ -98,6 +107,7 @@ public class ViewFacade extends AbstractFacade {
 
       view.getPermissions().updateUserPermissions(userPermissions);
       viewDao.updateView(view.getId(), view);
+      suggestionCache.viewChanged(view);
 
       return view.getPermissions().getUserPermissions();
    }
@@ -108,6 +118,7 @@ public class ViewFacade extends AbstractFacade {
 
       view.getPermissions().removeUserPermission(user);
       viewDao.updateView(view.getId(), view);
+      suggestionCache.viewChanged(view);
    }
 
    public Set<Permission> updateGroupPermissions(final String code, final Permission... groupPermissions) {
@@ -116,6 +127,7 @@ public class ViewFacade extends AbstractFacade {
 
       view.getPermissions().updateGroupPermissions(groupPermissions);
       viewDao.updateView(view.getId(), view);
+      suggestionCache.viewChanged(view);
 
       return view.getPermissions().getGroupPermissions();
    }
@@ -126,6 +138,7 @@ public class ViewFacade extends AbstractFacade {
 
       view.getPermissions().removeGroupPermission(group);
       viewDao.updateView(view.getId(), view);
+      suggestionCache.viewChanged(view);
    }
 
    private String generateViewCode(String viewName) {
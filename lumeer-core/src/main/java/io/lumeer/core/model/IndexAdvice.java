@@ -0,0 +1,58 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.model;
+
+import io.lumeer.api.model.DataIndex;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Indexes of the data of a collection together with the changes recommended by the workload.
+ */
+public class IndexAdvice {
+
+   private final List<DataIndex> indexes;
+   private final List<DataIndex> recommendedIndexes;
+   private final List<DataIndex> unusedIndexes;
+
+   public IndexAdvice(final List<DataIndex> indexes, final List<DataIndex> recommendedIndexes, final List<DataIndex> unusedIndexes) {
+      this.indexes = indexes;
+      this.recommendedIndexes = recommendedIndexes;
+      this.unusedIndexes = unusedIndexes;
+   }
+
+   public List<DataIndex> getIndexes() {
+      return Collections.unmodifiableList(indexes);
+   }
+
+   /**
+    * @return indexes serving the frequent queries, they are not created yet
+    */
+   public List<DataIndex> getRecommendedIndexes() {
+      return Collections.unmodifiableList(recommendedIndexes);
+   }
+
+   /**
+    * @return indexes created for the workload which are not used anymore
+    */
+   public List<DataIndex> getUnusedIndexes() {
+      return Collections.unmodifiableList(unusedIndexes);
+   }
+}
@@ -0,0 +1,54 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of results together with the token to obtain the next page.
+ *
+ * @param <T>
+ *       Type of the results.
+ */
+public class ResultPage<T> {
+
+   private final List<T> results;
+   private final String continuationToken;
+
+   public ResultPage(final List<T> results, final String continuationToken) {
+      this.results = results;
+      this.continuationToken = continuationToken;
+   }
+
+   public List<T> getResults() {
+      return Collections.unmodifiableList(results);
+   }
+
+   /**
+    * @return token to obtain the next page, null when this is the last page
+    */
+   public String getContinuationToken() {
+      return continuationToken;
+   }
+
+   public boolean hasNextPage() {
+      return continuationToken != null;
+   }
+}
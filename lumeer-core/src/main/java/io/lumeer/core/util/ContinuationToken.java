@@ -0,0 +1,55 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes position of the last returned result into an opaque token that can be used to continue with the next page.
+ */
+public class ContinuationToken {
+
+   private static final String SEPARATOR = ":";
+
+   public static String encode(String... parts) {
+      String token = String.join(SEPARATOR, parts);
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+   }
+
+   /**
+    * Decodes the token created by {@link #encode(String...)}.
+    *
+    * @param token
+    *       The token to decode.
+    * @param parts
+    *       The expected number of parts.
+    * @return The encoded parts.
+    * @throws IllegalArgumentException
+    *       When the token is not valid.
+    */
+   public static String[] decode(String token, int parts) {
+      String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      String[] result = decoded.split(SEPARATOR, -1);
+      if (result.length != parts) {
+         throw new IllegalArgumentException("Invalid continuation token");
+      }
+      return result;
+   }
+}
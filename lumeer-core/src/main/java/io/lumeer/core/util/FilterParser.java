@@ -0,0 +1,311 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import io.lumeer.engine.api.exception.InvalidQueryException;
+import io.lumeer.storage.api.query.AttributeFilter;
+import io.lumeer.storage.api.query.AttributeFilter.Operator;
+import io.lumeer.storage.api.query.AttributeSort;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the filters of a query. Every filter is a condition on one attribute of the data documents, or a sort by it:
+ *
+ * <pre>
+ * filter    := attribute ":" condition
+ * condition := ("=" | "!=" | "&lt;" | "&lt;=" | "&gt;" | "&gt;=") value
+ *            | "in" "(" [value ("," value)*] ")"
+ *            | "exists" | "!exists"
+ *            | "prefix" value
+ *            | "sort" ["asc" | "desc"]
+ * value     := number | "true" | "false" | "null" | quoted string | word
+ * </pre>
+ *
+ * For example <code>age:&gt;= 18</code>, <code>address.city:in ("Brno", "Praha")</code> or <code>name:sort desc</code>.
+ * Nested attributes are separated by dots, the conditions of all the filters must be met.
+ * Multiple sorts are applied in the iteration order of the filters.
+ */
+public class FilterParser {
+
+   private static final Pattern INTEGER = Pattern.compile("-?\\d+");
+   private static final Pattern DECIMAL = Pattern.compile("-?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+
+   private final List<AttributeFilter> attributeFilters = new ArrayList<>();
+   private final List<AttributeSort> attributeSorts = new ArrayList<>();
+
+   private FilterParser() {
+   }
+
+   /**
+    * Parses the filters.
+    *
+    * @param filters
+    *       the filters, may be null
+    * @return the parser holding the parsed filters
+    * @throws InvalidQueryException
+    *       when a filter is not valid
+    */
+   public static FilterParser parse(Collection<String> filters) {
+      FilterParser parser = new FilterParser();
+      if (filters != null) {
+         filters.forEach(parser::parseFilter);
+      }
+      return parser;
+   }
+
+   public List<AttributeFilter> getAttributeFilters() {
+      return Collections.unmodifiableList(attributeFilters);
+   }
+
+   public List<AttributeSort> getAttributeSorts() {
+      return Collections.unmodifiableList(attributeSorts);
+   }
+
+   private void parseFilter(String filter) {
+      int separator = filter.indexOf(':');
+      if (separator < 0) {
+         throw invalid(filter, "missing ':' after the attribute");
+      }
+
+      String attribute = filter.substring(0, separator).trim();
+      if (attribute.isEmpty() || attribute.startsWith("$") || attribute.startsWith(".") || attribute.endsWith(".")) {
+         throw invalid(filter, "invalid attribute name");
+      }
+
+      try {
+         parseCondition(attribute, new Scanner(filter.substring(separator + 1)));
+      } catch (IllegalArgumentException e) {
+         throw invalid(filter, e.getMessage());
+      }
+   }
+
+   private void parseCondition(String attribute, Scanner scanner) {
+      Operator operator = scanner.readOperator();
+      if (operator != null) {
+         addFilter(attribute, operator, Collections.singletonList(scanner.readValue()));
+      } else {
+         String keyword = scanner.readWord().toLowerCase(Locale.ENGLISH);
+         switch (keyword) {
+            case "in":
+               addFilter(attribute, Operator.IN, scanner.readValues());
+               break;
+            case "exists":
+               addFilter(attribute, Operator.EXISTS, Collections.emptyList());
+               break;
+            case "!exists":
+               addFilter(attribute, Operator.NOT_EXISTS, Collections.emptyList());
+               break;
+            case "prefix":
+               addFilter(attribute, Operator.PREFIX, Collections.singletonList(scanner.readString()));
+               break;
+            case "sort":
+               String direction = scanner.atEnd() ? "asc" : scanner.readWord().toLowerCase(Locale.ENGLISH);
+               if (!direction.equals("asc") && !direction.equals("desc")) {
+                  throw new IllegalArgumentException("unknown sort direction '" + direction + "'");
+               }
+               attributeSorts.add(new AttributeSort(attribute, direction.equals("asc")));
+               break;
+            default:
+               throw new IllegalArgumentException("unknown condition '" + keyword + "'");
+         }
+      }
+
+      if (!scanner.atEnd()) {
+         throw new IllegalArgumentException("unexpected text after the condition");
+      }
+   }
+
+   private void addFilter(String attribute, Operator operator, List<Object> values) {
+      attributeFilters.add(new AttributeFilter(attribute, operator, values));
+   }
+
+   private static InvalidQueryException invalid(String filter, String reason) {
+      return new InvalidQueryException("Invalid filter '" + filter + "': " + reason);
+   }
+
+   private static Object convertLiteral(String literal) {
+      switch (literal) {
+         case "true":
+            return Boolean.TRUE;
+         case "false":
+            return Boolean.FALSE;
+         case "null":
+            return null;
+         default:
+            if (INTEGER.matcher(literal).matches()) {
+               try {
+                  return Long.parseLong(literal);
+               } catch (NumberFormatException e) {
+                  return Double.parseDouble(literal);
+               }
+            }
+            if (DECIMAL.matcher(literal).matches()) {
+               return Double.parseDouble(literal);
+            }
+            return literal;
+      }
+   }
+
+   /**
+    * Reads the tokens of a condition.
+    */
+   private static class Scanner {
+
+      private final String text;
+      private int position;
+
+      private Scanner(final String text) {
+         this.text = text;
+      }
+
+      private boolean atEnd() {
+         skipWhitespace();
+         return position >= text.length();
+      }
+
+      private Operator readOperator() {
+         skipWhitespace();
+         if (text.startsWith("<=", position)) {
+            position += 2;
+            return Operator.LOWER_THAN_EQUALS;
+         }
+         if (text.startsWith(">=", position)) {
+            position += 2;
+            return Operator.GREATER_THAN_EQUALS;
+         }
+         if (text.startsWith("!=", position)) {
+            position += 2;
+            return Operator.NOT_EQUALS;
+         }
+         if (text.startsWith("<", position)) {
+            position++;
+            return Operator.LOWER_THAN;
+         }
+         if (text.startsWith(">", position)) {
+            position++;
+            return Operator.GREATER_THAN;
+         }
+         if (text.startsWith("=", position)) {
+            position++;
+            return Operator.EQUALS;
+         }
+         return null;
+      }
+
+      private String readWord() {
+         skipWhitespace();
+         int start = position;
+         while (position < text.length() && !Character.isWhitespace(text.charAt(position)) && "(),\"".indexOf(text.charAt(position)) < 0) {
+            position++;
+         }
+         if (start == position) {
+            throw new IllegalArgumentException("missing condition");
+         }
+         return text.substring(start, position);
+      }
+
+      private Object readValue() {
+         skipWhitespace();
+         if (position < text.length() && text.charAt(position) == '"') {
+            return readQuoted();
+         }
+         return convertLiteral(readLiteral());
+      }
+
+      private String readString() {
+         skipWhitespace();
+         if (position < text.length() && text.charAt(position) == '"') {
+            return readQuoted();
+         }
+         return readLiteral();
+      }
+
+      private List<Object> readValues() {
+         expect('(');
+         List<Object> values = new ArrayList<>();
+         skipWhitespace();
+         if (position < text.length() && text.charAt(position) == ')') {
+            position++;
+            return values;
+         }
+
+         values.add(readValue());
+         while (!accept(')')) {
+            expect(',');
+            values.add(readValue());
+         }
+         return values;
+      }
+
+      private String readLiteral() {
+         int start = position;
+         while (position < text.length() && "(),\"".indexOf(text.charAt(position)) < 0) {
+            position++;
+         }
+         String literal = text.substring(start, position).trim();
+         if (literal.isEmpty()) {
+            throw new IllegalArgumentException("missing value");
+         }
+         return literal;
+      }
+
+      private String readQuoted() {
+         StringBuilder value = new StringBuilder();
+         position++;
+         while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+               return value.toString();
+            }
+            if (c == '\\' && position < text.length()) {
+               c = text.charAt(position++);
+            }
+            value.append(c);
+         }
+         throw new IllegalArgumentException("unterminated string");
+      }
+
+      private void expect(char c) {
+         if (!accept(c)) {
+            throw new IllegalArgumentException("expected '" + c + "'");
+         }
+      }
+
+      private boolean accept(char c) {
+         skipWhitespace();
+         if (position < text.length() && text.charAt(position) == c) {
+            position++;
+            return true;
+         }
+         return false;
+      }
+
+      private void skipWhitespace() {
+         while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+         }
+      }
+   }
+}
@@ -0,0 +1,145 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Finds values by a case insensitive substring of their text. Every text is split into all its substrings of up to
+ * {@link #GRAM_LENGTH} characters, so a query of that length is a single map lookup and a longer query only verifies
+ * the values sharing its first gram. Values matching by a prefix go first in the results.
+ *
+ * The index is not thread safe.
+ *
+ * @param <T>
+ *       Type of the indexed values.
+ */
+public class NGramIndex<T> {
+
+   static final int GRAM_LENGTH = 3;
+
+   private final Map<String, Set<T>> grams = new HashMap<>();
+   private final Map<T, String> texts = new HashMap<>();
+
+   /**
+    * Adds the value to the index, replacing its previous text.
+    *
+    * @param value
+    *       The value to add.
+    * @param text
+    *       Text the value is found by.
+    */
+   public void put(final T value, final String text) {
+      remove(value);
+
+      String normalizedText = normalize(text);
+      texts.put(value, normalizedText);
+      getGrams(normalizedText).forEach(gram -> grams.computeIfAbsent(gram, g -> new HashSet<>()).add(value));
+   }
+
+   /**
+    * Removes the value from the index.
+    *
+    * @param value
+    *       The value to remove.
+    */
+   public void remove(final T value) {
+      String text = texts.remove(value);
+      if (text == null) {
+         return;
+      }
+
+      for (String gram : getGrams(text)) {
+         Set<T> values = grams.get(gram);
+         values.remove(value);
+         if (values.isEmpty()) {
+            grams.remove(gram);
+         }
+      }
+   }
+
+   /**
+    * Removes all the values matching the filter.
+    *
+    * @param filter
+    *       Selects the values to remove.
+    */
+   public void removeIf(final Predicate<T> filter) {
+      new ArrayList<>(texts.keySet()).stream().filter(filter).forEach(this::remove);
+   }
+
+   public int size() {
+      return texts.size();
+   }
+
+   /**
+    * Finds the values with text containing the query.
+    *
+    * @param query
+    *       The text to look for.
+    * @param filter
+    *       Only the values accepted by the filter are returned.
+    * @param limit
+    *       Maximal number of returned values.
+    * @return The matching values, those with a matching prefix first, then ordered by their text.
+    */
+   public List<T> search(final String query, final Predicate<T> filter, final int limit) {
+      String normalizedQuery = normalize(query);
+      if (normalizedQuery.isEmpty() || limit <= 0) {
+         return Collections.emptyList();
+      }
+
+      String gram = normalizedQuery.substring(0, Math.min(GRAM_LENGTH, normalizedQuery.length()));
+      Set<T> candidates = grams.getOrDefault(gram, Collections.emptySet());
+
+      List<T> matches = new ArrayList<>();
+      for (T candidate : candidates) {
+         if (texts.get(candidate).contains(normalizedQuery) && filter.test(candidate)) {
+            matches.add(candidate);
+         }
+      }
+
+      Comparator<T> byPrefix = Comparator.comparing(value -> !texts.get(value).startsWith(normalizedQuery));
+      matches.sort(byPrefix.thenComparing(texts::get));
+      return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+   }
+
+   private static Set<String> getGrams(final String text) {
+      Set<String> result = new HashSet<>();
+      for (int i = 0; i < text.length(); i++) {
+         for (int length = 1; length <= GRAM_LENGTH && i + length <= text.length(); length++) {
+            result.add(text.substring(i, i + length));
+         }
+      }
+      return result;
+   }
+
+   private static String normalize(final String text) {
+      return text != null ? text.toLowerCase(Locale.ROOT) : "";
+   }
+}
@@ -0,0 +1,148 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class StreamUtils {
+
+   private StreamUtils() {
+   }
+
+   /**
+    * Groups consecutive elements of the stream into lists of the given size. Only one batch is held in memory at a time.
+    * Closing the returned stream closes the original one.
+    *
+    * @param stream
+    *       The stream to split.
+    * @param batchSize
+    *       Maximal number of elements in a batch.
+    * @param <T>
+    *       Type of the stream elements.
+    * @return Stream of batches, the last one can be smaller.
+    */
+   public static <T> Stream<List<T>> batches(final Stream<T> stream, final int batchSize) {
+      if (batchSize <= 0) {
+         throw new IllegalArgumentException("batchSize must be positive");
+      }
+
+      final Iterator<T> iterator = stream.iterator();
+      final Iterator<List<T>> batchIterator = new Iterator<List<T>>() {
+         @Override
+         public boolean hasNext() {
+            return iterator.hasNext();
+         }
+
+         @Override
+         public List<T> next() {
+            if (!iterator.hasNext()) {
+               throw new NoSuchElementException();
+            }
+
+            List<T> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext() && batch.size() < batchSize) {
+               batch.add(iterator.next());
+            }
+            return batch;
+         }
+      };
+
+      return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batchIterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                          .onClose(stream::close);
+   }
+
+   /**
+    * Maps every element of the stream to a stream and concatenates the results. Unlike {@link Stream#flatMap(Function)},
+    * the mapped streams are read lazily element by element even when the result is consumed through its iterator,
+    * so a mapped stream is never buffered as a whole. Every mapped stream is closed once it is read, closing the returned
+    * stream closes the original one and the mapped stream being read.
+    *
+    * @param stream
+    *       The stream to map.
+    * @param mapper
+    *       Maps an element to a stream of results.
+    * @param <S>
+    *       Type of the stream elements.
+    * @param <T>
+    *       Type of the results.
+    * @return Stream of the results of all mapped streams.
+    */
+   public static <S, T> Stream<T> flatMap(final Stream<S> stream, final Function<? super S, ? extends Stream<? extends T>> mapper) {
+      final Iterator<S> iterator = stream.iterator();
+      final ChainedIterator<S, T> chainedIterator = new ChainedIterator<>(iterator, mapper);
+
+      return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chainedIterator, Spliterator.ORDERED), false)
+                          .onClose(chainedIterator::close)
+                          .onClose(stream::close);
+   }
+
+   private static class ChainedIterator<S, T> implements Iterator<T> {
+
+      private final Iterator<S> sources;
+      private final Function<? super S, ? extends Stream<? extends T>> mapper;
+
+      private Stream<? extends T> current;
+      private Iterator<? extends T> currentIterator = Collections.emptyIterator();
+
+      private ChainedIterator(final Iterator<S> sources, final Function<? super S, ? extends Stream<? extends T>> mapper) {
+         this.sources = sources;
+         this.mapper = mapper;
+      }
+
+      @Override
+      public boolean hasNext() {
+         while (!currentIterator.hasNext()) {
+            close();
+            if (!sources.hasNext()) {
+               return false;
+            }
+
+            current = mapper.apply(sources.next());
+            currentIterator = current != null ? current.iterator() : Collections.emptyIterator();
+         }
+
+         return true;
+      }
+
+      @Override
+      public T next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+
+         return currentIterator.next();
+      }
+
+      private void close() {
+         if (current != null) {
+            current.close();
+            current = null;
+         }
+      }
+   }
+}
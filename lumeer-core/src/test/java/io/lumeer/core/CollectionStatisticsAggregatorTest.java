@@ -0,0 +1,146 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+
+import io.lumeer.api.model.Organization;
+import io.lumeer.api.model.Project;
+import io.lumeer.storage.api.dao.CollectionDao;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CollectionStatisticsAggregatorTest {
+
+   private static final String ORGANIZATION_CODE = "LMR";
+   private static final String PROJECT_CODE = "PROJ";
+   private static final String PROJECT_ID = "596e3b86d412bc5a3caaa22a";
+   private static final String COLLECTION_ID = "59a4348a8eed1e53942d2d2b";
+   private static final String COLLECTION_ID2 = "59a4348a8eed1e53942d2d2c";
+
+   private static final String ATTRIBUTE1 = "a";
+   private static final String ATTRIBUTE2 = "b";
+
+   private static final long FLUSH_INTERVAL = 1000;
+
+   private CollectionDao collectionDao;
+   private WorkspaceKeeper workspaceKeeper;
+   private AtomicLong time;
+
+   @Before
+   public void prepareMocks() {
+      collectionDao = Mockito.mock(CollectionDao.class);
+
+      Organization organization = Mockito.mock(Organization.class);
+      Mockito.when(organization.getCode()).thenReturn(ORGANIZATION_CODE);
+      Project project = Mockito.mock(Project.class);
+      Mockito.when(project.getId()).thenReturn(PROJECT_ID);
+      Mockito.when(project.getCode()).thenReturn(PROJECT_CODE);
+      workspaceKeeper = Mockito.mock(WorkspaceKeeper.class);
+      Mockito.when(workspaceKeeper.getOrganization()).thenReturn(Optional.of(organization));
+      Mockito.when(workspaceKeeper.getProject()).thenReturn(Optional.of(project));
+
+      time = new AtomicLong();
+   }
+
+   @Test
+   public void testWriteThrough() {
+      CollectionStatisticsAggregator aggregator = new CollectionStatisticsAggregator(collectionDao, workspaceKeeper, 0, time::get);
+
+      aggregator.documentCreated(COLLECTION_ID, Collections.singleton(ATTRIBUTE1));
+
+      Mockito.verify(collectionDao).updateCollectionStatistics(eq(COLLECTION_ID), eq(1), eq(Collections.singletonMap(ATTRIBUTE1, 1)), any(LocalDateTime.class));
+      assertThat(aggregator.getPendingWorkspaces()).isEmpty();
+   }
+
+   @Test
+   public void testLastTimeUsedFromClock() {
+      CollectionStatisticsAggregator aggregator = new CollectionStatisticsAggregator(collectionDao, workspaceKeeper, 0, time::get);
+
+      time.set(FLUSH_INTERVAL);
+      aggregator.documentCreated(COLLECTION_ID, Collections.emptySet());
+
+      LocalDateTime expected = LocalDateTime.ofInstant(Instant.ofEpochMilli(FLUSH_INTERVAL), ZoneId.systemDefault());
+      Mockito.verify(collectionDao).updateCollectionStatistics(eq(COLLECTION_ID), eq(1), anyMap(), eq(expected));
+   }
+
+   @Test
+   public void testPendingWorkspaces() {
+      CollectionStatisticsAggregator aggregator = new CollectionStatisticsAggregator(collectionDao, workspaceKeeper, FLUSH_INTERVAL, time::get);
+
+      aggregator.documentCreated(COLLECTION_ID, Collections.emptySet());
+      assertThat(aggregator.getPendingWorkspaces()).hasSize(1);
+      assertThat(aggregator.getPendingWorkspaces().get(0).getOrganizationCode()).isEqualTo(ORGANIZATION_CODE);
+      assertThat(aggregator.getPendingWorkspaces().get(0).getProjectCode()).isEqualTo(PROJECT_CODE);
+
+      aggregator.flush();
+      Mockito.verify(collectionDao).updateCollectionStatistics(eq(COLLECTION_ID), eq(1), anyMap(), any(LocalDateTime.class));
+      assertThat(aggregator.getPendingWorkspaces()).isEmpty();
+   }
+
+   @Test
+   public void testCoalescing() {
+      CollectionStatisticsAggregator aggregator = new CollectionStatisticsAggregator(collectionDao, workspaceKeeper, FLUSH_INTERVAL, time::get);
+
+      aggregator.documentCreated(COLLECTION_ID, Collections.singleton(ATTRIBUTE1));
+      aggregator.documentCreated(COLLECTION_ID, new HashSet<>(Arrays.asList(ATTRIBUTE1, ATTRIBUTE2)));
+      aggregator.documentCreated(COLLECTION_ID2, Collections.emptySet());
+      Mockito.verify(collectionDao, Mockito.never()).updateCollectionStatistics(any(), anyInt(), anyMap(), any());
+
+      time.set(FLUSH_INTERVAL);
+      aggregator.documentCreated(COLLECTION_ID, Collections.singleton(ATTRIBUTE2));
+
+      Map<String, Integer> attributesUsage = new HashMap<>();
+      attributesUsage.put(ATTRIBUTE1, 2);
+      attributesUsage.put(ATTRIBUTE2, 2);
+      Mockito.verify(collectionDao).updateCollectionStatistics(eq(COLLECTION_ID), eq(3), eq(attributesUsage), any(LocalDateTime.class));
+      Mockito.verify(collectionDao).updateCollectionStatistics(eq(COLLECTION_ID2), eq(1), eq(Collections.emptyMap()), any(LocalDateTime.class));
+   }
+
+   @Test
+   public void testFailedDeltaIsKept() {
+      CollectionStatisticsAggregator aggregator = new CollectionStatisticsAggregator(collectionDao, workspaceKeeper, FLUSH_INTERVAL, time::get);
+      Mockito.doThrow(new IllegalStateException()).doNothing()
+             .when(collectionDao).updateCollectionStatistics(any(), anyInt(), anyMap(), any());
+
+      aggregator.documentCreated(COLLECTION_ID, Collections.emptySet());
+      time.set(FLUSH_INTERVAL);
+      aggregator.documentCreated(COLLECTION_ID, Collections.emptySet());
+      aggregator.flush();
+
+      Mockito.verify(collectionDao, Mockito.times(2)).updateCollectionStatistics(eq(COLLECTION_ID), eq(2), anyMap(), any(LocalDateTime.class));
+   }
+}
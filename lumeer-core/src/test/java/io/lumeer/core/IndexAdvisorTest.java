@@ -0,0 +1,170 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+import io.lumeer.api.model.DataIndex;
+import io.lumeer.storage.api.dao.DataDao;
+import io.lumeer.storage.api.query.AttributeFilter;
+import io.lumeer.storage.api.query.AttributeFilter.Operator;
+import io.lumeer.storage.api.query.AttributeSort;
+import io.lumeer.storage.api.query.SearchQuery;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.enterprise.event.Event;
+
+public class IndexAdvisorTest {
+
+   private static final String COLLECTION_ID = "59a4348a8eed1e53942d2d2b";
+   private static final String USER = "user";
+
+   private static final long MIN_QUERIES = 3;
+
+   private DataDao dataDao;
+   private Event<IndexRequest> indexRequestEvent;
+
+   @Before
+   @SuppressWarnings("unchecked")
+   public void prepareMocks() {
+      dataDao = Mockito.mock(DataDao.class);
+      indexRequestEvent = Mockito.mock(Event.class);
+      Mockito.when(dataDao.getIndexes(anyString())).thenReturn(Collections.emptyList());
+   }
+
+   private static AttributeFilter filter(String attribute, Operator operator, Object value) {
+      return new AttributeFilter(attribute, operator, Collections.singletonList(value));
+   }
+
+   private static SearchQuery query(List<AttributeFilter> filters, List<AttributeSort> sorts) {
+      return SearchQuery.createBuilder(USER).attributeFilters(filters).attributeSorts(sorts).build();
+   }
+
+   private static Map<String, Integer> keys(Object... keys) {
+      Map<String, Integer> map = new LinkedHashMap<>();
+      for (int i = 0; i < keys.length; i += 2) {
+         map.put((String) keys[i], (Integer) keys[i + 1]);
+      }
+      return map;
+   }
+
+   @Test
+   public void testIndexKeysFollowEqualitySortRange() {
+      SearchQuery query = query(Arrays.asList(filter("age", Operator.GREATER_THAN, 18L), filter("status", Operator.EQUALS, "open"),
+            filter("city", Operator.EQUALS, "Brno"), filter("name", Operator.PREFIX, "J"), filter("note", Operator.NOT_EQUALS, "x")),
+            Collections.singletonList(new AttributeSort("created", false)));
+
+      assertThat(IndexAdvisor.indexKeys(query)).containsExactly(new AttributeSort("city", true), new AttributeSort("status", true),
+            new AttributeSort("created", false), new AttributeSort("age", true));
+   }
+
+   @Test
+   public void testIndexKeysOfUnindexableQueries() {
+      assertThat(IndexAdvisor.indexKeys(SearchQuery.createBuilder(USER).build())).isEmpty();
+      assertThat(IndexAdvisor.indexKeys(query(Collections.singletonList(filter("a", Operator.NOT_EQUALS, 1L)), Collections.emptyList()))).isEmpty();
+      assertThat(IndexAdvisor.indexKeys(SearchQuery.createBuilder(USER).fulltext("text")
+                                                   .attributeFilters(Collections.singletonList(filter("a", Operator.EQUALS, 1L))).build())).isEmpty();
+   }
+
+   @Test
+   public void testRecommendation() {
+      IndexAdvisor advisor = new IndexAdvisor(dataDao, indexRequestEvent, MIN_QUERIES, false, Duration.ofDays(1));
+      SearchQuery query = query(Collections.singletonList(filter("a", Operator.EQUALS, 1L)), Collections.singletonList(new AttributeSort("b", false)));
+
+      advisor.recordQuery(Collections.singleton(COLLECTION_ID), query);
+      advisor.recordQuery(Collections.singleton(COLLECTION_ID), query);
+      assertThat(advisor.getRecommendedIndexes(COLLECTION_ID, Collections.emptyList())).isEmpty();
+
+      advisor.recordQuery(Collections.singleton(COLLECTION_ID), query);
+      List<DataIndex> recommended = advisor.getRecommendedIndexes(COLLECTION_ID, Collections.emptyList());
+      assertThat(recommended).hasSize(1);
+      assertThat(recommended.get(0).getKeys()).containsExactly(entry("a", 1), entry("b", -1));
+      assertThat(recommended.get(0).getAccesses()).isEqualTo(3);
+
+      // an existing index starting with the keys serves the queries, also when it is read backwards
+      DataIndex existing = new DataIndex("a_-1_b_1_c_1", keys("a", -1, "b", 1, "c", 1));
+      assertThat(advisor.getRecommendedIndexes(COLLECTION_ID, Collections.singletonList(existing))).isEmpty();
+      DataIndex other = new DataIndex("b_-1_a_1", keys("b", -1, "a", 1));
+      assertThat(advisor.getRecommendedIndexes(COLLECTION_ID, Collections.singletonList(other))).hasSize(1);
+
+      advisor.collectionRemoved(COLLECTION_ID);
+      assertThat(advisor.getRecommendedIndexes(COLLECTION_ID, Collections.emptyList())).isEmpty();
+      Mockito.verify(dataDao, Mockito.never()).createIndex(anyString(), any(DataIndex.class));
+   }
+
+   @Test
+   public void testAutoCreate() {
+      IndexAdvisor advisor = new IndexAdvisor(dataDao, indexRequestEvent, MIN_QUERIES, true, Duration.ofDays(1));
+      SearchQuery query = query(Collections.singletonList(filter("a", Operator.LOWER_THAN, 1L)), Collections.emptyList());
+
+      for (int i = 0; i < MIN_QUERIES + 2; i++) {
+         advisor.recordQuery(Collections.singleton(COLLECTION_ID), query);
+      }
+
+      // the search only requests the index, it is built by the observer of the request
+      ArgumentCaptor<IndexRequest> request = ArgumentCaptor.forClass(IndexRequest.class);
+      Mockito.verify(indexRequestEvent).fire(request.capture());
+      Mockito.verify(dataDao, Mockito.never()).createIndex(anyString(), any(DataIndex.class));
+      assertThat(request.getValue().getCollectionId()).isEqualTo(COLLECTION_ID);
+      assertThat(request.getValue().getKeys()).isEqualTo(keys("a", 1));
+
+      assertThat(advisor.createIndexIfMissing(COLLECTION_ID, request.getValue().getKeys())).isTrue();
+      ArgumentCaptor<DataIndex> index = ArgumentCaptor.forClass(DataIndex.class);
+      Mockito.verify(dataDao).createIndex(eq(COLLECTION_ID), index.capture());
+      assertThat(index.getValue().getName()).isEqualTo(IndexAdvisor.MANAGED_INDEX_PREFIX + "a_1");
+      assertThat(index.getValue().getKeys()).isEqualTo(keys("a", 1));
+   }
+
+   @Test
+   public void testCreateIndexIfMissingCovered() {
+      IndexAdvisor advisor = new IndexAdvisor(dataDao, indexRequestEvent, MIN_QUERIES, true, Duration.ofDays(1));
+      Mockito.when(dataDao.getIndexes(COLLECTION_ID)).thenReturn(Collections.singletonList(new DataIndex("a_-1_b_1", keys("a", -1, "b", 1))));
+
+      assertThat(advisor.createIndexIfMissing(COLLECTION_ID, keys("a", 1))).isFalse();
+      Mockito.verify(dataDao, Mockito.never()).createIndex(anyString(), any(DataIndex.class));
+   }
+
+   @Test
+   public void testUnusedIndexes() {
+      IndexAdvisor advisor = new IndexAdvisor(dataDao, indexRequestEvent, MIN_QUERIES, false, Duration.ofDays(1));
+      LocalDateTime old = LocalDateTime.now().minusDays(2);
+
+      DataIndex unused = new DataIndex(IndexAdvisor.MANAGED_INDEX_PREFIX + "a_1", keys("a", 1), 0, old);
+      DataIndex used = new DataIndex(IndexAdvisor.MANAGED_INDEX_PREFIX + "b_1", keys("b", 1), 5, old);
+      DataIndex recent = new DataIndex(IndexAdvisor.MANAGED_INDEX_PREFIX + "c_1", keys("c", 1), 0, LocalDateTime.now());
+      DataIndex unmanaged = new DataIndex("d_1", keys("d", 1), 0, old);
+
+      assertThat(advisor.getUnusedIndexes(Arrays.asList(unused, used, recent, unmanaged))).containsExactly(unused);
+   }
+}
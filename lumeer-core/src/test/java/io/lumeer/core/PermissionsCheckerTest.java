@@ -44,13 +44,14 @@ public class PermissionsCheckerTest {
    private static final String GROUP = "testGroup";
 
    private PermissionsChecker permissionsChecker;
+   private UserCache userCache;
 
    @Before
    public void preparePermissionsChecker() {
       User user = Mockito.mock(User.class);
       Mockito.when(user.getGroups()).thenReturn(Collections.singleton(GROUP));
 
-      UserCache userCache = Mockito.mock(UserCache.class);
+      userCache = Mockito.mock(UserCache.class);
       Mockito.when(userCache.getUser(USER)).thenReturn(user);
 
       AuthenticatedUser authenticatedUser = Mockito.mock(AuthenticatedUser.class);
@@ -136,4 +137,15 @@ public class PermissionsCheckerTest {
 
    }
 
+   @Test
+   public void testGroupsResolvedOncePerRequest() {
+      Resource resource = prepareResource(Collections.emptySet(), Collections.singleton(Role.READ));
+      Resource otherResource = prepareResource(Collections.emptySet(), Collections.singleton(Role.WRITE));
+
+      assertThat(permissionsChecker.getActualRoles(resource)).containsOnly(Role.READ);
+      assertThat(permissionsChecker.getActualRoles(otherResource)).containsOnly(Role.WRITE);
+
+      Mockito.verify(userCache, Mockito.times(1)).getUser(USER);
+   }
+
 }
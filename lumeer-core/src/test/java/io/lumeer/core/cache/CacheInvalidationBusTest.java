@@ -0,0 +1,88 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.LocalCacheInvalidationTransport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class CacheInvalidationBusTest {
+
+   private static final String CACHE = "projects";
+   private static final String KEY = "LMR";
+
+   private CacheInvalidationBus bus;
+   private CacheInvalidationBus otherBus;
+
+   private Cache<?> cache;
+   private Cache<?> otherCache;
+
+   @Before
+   public void prepareBuses() {
+      LocalCacheInvalidationTransport transport = new LocalCacheInvalidationTransport();
+      bus = new CacheInvalidationBus(transport);
+      otherBus = new CacheInvalidationBus(transport.connect());
+
+      cache = Mockito.mock(Cache.class);
+      otherCache = Mockito.mock(Cache.class);
+      bus.subscribe(CACHE, cache);
+      otherBus.subscribe(CACHE, otherCache);
+   }
+
+   @After
+   public void closeBuses() {
+      bus.close();
+      otherBus.close();
+   }
+
+   @Test
+   public void testInvalidateEvictsOtherNodes() {
+      bus.invalidate(CACHE, KEY);
+
+      Mockito.verify(otherCache).remove(KEY);
+      Mockito.verifyZeroInteractions(cache);
+   }
+
+   @Test
+   public void testInvalidateAllClearsOtherNodes() {
+      bus.invalidateAll(CACHE);
+
+      Mockito.verify(otherCache).clear();
+      Mockito.verifyZeroInteractions(cache);
+   }
+
+   @Test
+   public void testInvalidateOtherCache() {
+      bus.invalidate("organizations", KEY);
+
+      Mockito.verifyZeroInteractions(cache, otherCache);
+   }
+
+   @Test
+   public void testClosedBusIsNotNotified() {
+      otherBus.close();
+      bus.invalidate(CACHE, KEY);
+
+      Mockito.verifyZeroInteractions(otherCache);
+   }
+}
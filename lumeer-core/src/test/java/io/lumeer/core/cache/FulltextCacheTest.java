@@ -0,0 +1,210 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.dto.JsonCollection;
+import io.lumeer.api.dto.JsonPermissions;
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Project;
+import io.lumeer.cache.simple.SimpleCacheFactory;
+import io.lumeer.core.AuthenticatedUser;
+import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.engine.api.cache.LocalCacheInvalidationTransport;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.api.dao.CollectionDao;
+import io.lumeer.storage.api.dao.DataDao;
+import io.lumeer.storage.api.query.SearchQuery;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import javax.enterprise.event.Event;
+
+public class FulltextCacheTest {
+
+   private static final String COLLECTION_ID = "c1";
+   private static final String DOCUMENT_ID = "d1";
+   private static final String OTHER_DOCUMENT_ID = "d2";
+
+   private CacheInvalidationBus bus;
+   private CacheInvalidationBus otherBus;
+
+   private CollectionDao collectionDao;
+   private DataDao dataDao;
+
+   // documents stored in the database
+   private Map<String, DataDocument> data;
+
+   private FulltextCache cache;
+   private FulltextCache otherCache;
+
+   @Before
+   public void prepareCaches() {
+      Project project = Mockito.mock(Project.class);
+      Mockito.when(project.getId()).thenReturn("project");
+      WorkspaceKeeper workspaceKeeper = Mockito.mock(WorkspaceKeeper.class);
+      Mockito.when(workspaceKeeper.getProject()).thenReturn(Optional.of(project));
+
+      data = new ConcurrentHashMap<>();
+      collectionDao = Mockito.mock(CollectionDao.class);
+      Mockito.when(collectionDao.getAllCollections()).thenReturn(Collections.singletonList(prepareCollection()));
+      dataDao = Mockito.mock(DataDao.class);
+      Mockito.when(dataDao.streamData(ArgumentMatchers.eq(COLLECTION_ID), ArgumentMatchers.any())).then(invocation -> streamData(invocation.getArgument(1)));
+
+      LocalCacheInvalidationTransport transport = new LocalCacheInvalidationTransport();
+      bus = new CacheInvalidationBus(transport);
+      otherBus = new CacheInvalidationBus(transport.connect());
+
+      cache = createCache(bus, workspaceKeeper);
+      otherCache = createCache(otherBus, workspaceKeeper);
+   }
+
+   @After
+   public void closeBuses() {
+      bus.close();
+      otherBus.close();
+   }
+
+   @SuppressWarnings("unchecked")
+   private FulltextCache createCache(CacheInvalidationBus bus, WorkspaceKeeper workspaceKeeper) {
+      // the index is loaded right away instead of in the background
+      FulltextCache[] cache = new FulltextCache[1];
+      Event<FulltextIndexRequest> indexRequestEvent = Mockito.mock(Event.class);
+      Mockito.doAnswer(invocation -> cache[0].load()).when(indexRequestEvent).fire(ArgumentMatchers.any());
+
+      cache[0] = new FulltextCache(new SimpleCacheFactory(), bus, workspaceKeeper, Mockito.mock(AuthenticatedUser.class), collectionDao, dataDao, indexRequestEvent);
+      return cache[0];
+   }
+
+   private Set<String> search(FulltextCache cache, String text) {
+      return cache.search(text, Collections.singleton(COLLECTION_ID)).get().getOrDefault(COLLECTION_ID, Collections.emptySet());
+   }
+
+   @Test
+   @SuppressWarnings("unchecked")
+   public void testSearchBeforeIndexIsLoaded() {
+      WorkspaceKeeper workspaceKeeper = Mockito.mock(WorkspaceKeeper.class);
+      Project project = Mockito.mock(Project.class);
+      Mockito.when(project.getId()).thenReturn("project");
+      Mockito.when(workspaceKeeper.getProject()).thenReturn(Optional.of(project));
+      Event<FulltextIndexRequest> indexRequestEvent = Mockito.mock(Event.class);
+      FulltextCache backgroundCache = new FulltextCache(new SimpleCacheFactory(), bus, workspaceKeeper, Mockito.mock(AuthenticatedUser.class), collectionDao, dataDao,
+            indexRequestEvent);
+      store(DOCUMENT_ID, "apple");
+
+      assertThat(backgroundCache.search("apple", Collections.singleton(COLLECTION_ID))).isEmpty();
+      assertThat(backgroundCache.search("apple", Collections.singleton(COLLECTION_ID))).isEmpty();
+      Mockito.verify(indexRequestEvent).fire(ArgumentMatchers.any());
+      Mockito.verifyZeroInteractions(collectionDao);
+
+      assertThat(backgroundCache.load()).isEqualTo(1);
+      assertThat(search(backgroundCache, "apple")).containsOnly(DOCUMENT_ID);
+   }
+
+   @Test
+   public void testLocalChangeIsApplied() {
+      assertThat(search(cache, "apple")).isEmpty();
+
+      cache.dataChanged(COLLECTION_ID, DOCUMENT_ID, store(DOCUMENT_ID, "apple"));
+
+      assertThat(search(cache, "apple")).containsOnly(DOCUMENT_ID);
+      Mockito.verify(collectionDao).getAllCollections();
+      Mockito.verify(dataDao).streamData(ArgumentMatchers.eq(COLLECTION_ID), ArgumentMatchers.any());
+   }
+
+   @Test
+   public void testRemoteChangeReadsOnlyChangedDocuments() {
+      store(OTHER_DOCUMENT_ID, "pear");
+      assertThat(search(cache, "pear")).containsOnly(OTHER_DOCUMENT_ID);
+      assertThat(search(otherCache, "pear")).containsOnly(OTHER_DOCUMENT_ID);
+
+      otherCache.dataChanged(COLLECTION_ID, DOCUMENT_ID, store(DOCUMENT_ID, "apple"));
+      assertThat(search(cache, "apple")).containsOnly(DOCUMENT_ID);
+      assertThat(search(cache, "pear")).containsOnly(OTHER_DOCUMENT_ID);
+
+      data.remove(DOCUMENT_ID);
+      otherCache.dataRemoved(COLLECTION_ID, Collections.singleton(DOCUMENT_ID));
+      assertThat(search(cache, "apple")).isEmpty();
+
+      // the index is not loaded again, only the changed documents are read
+      Mockito.verify(collectionDao, Mockito.times(2)).getAllCollections();
+      Mockito.verify(dataDao, Mockito.times(2)).streamData(ArgumentMatchers.eq(COLLECTION_ID),
+            ArgumentMatchers.argThat(query -> query.getDocumentIds().equals(Collections.singleton(DOCUMENT_ID))));
+   }
+
+   @Test
+   public void testRemoteCollectionRemoval() {
+      store(DOCUMENT_ID, "apple");
+      assertThat(search(cache, "apple")).containsOnly(DOCUMENT_ID);
+
+      data.clear();
+      otherCache.collectionRemoved(COLLECTION_ID);
+
+      assertThat(search(cache, "apple")).isEmpty();
+   }
+
+   @Test
+   public void testChangeDuringLoadIsNotMissed() {
+      // the document is written right after the load read the collection
+      Mockito.when(dataDao.streamData(ArgumentMatchers.eq(COLLECTION_ID), ArgumentMatchers.any()))
+             .then(invocation -> streamData(invocation.getArgument(1))
+                   .onClose(() -> cache.dataChanged(COLLECTION_ID, DOCUMENT_ID, store(DOCUMENT_ID, "apple"))))
+             .then(invocation -> streamData(invocation.getArgument(1)));
+
+      assertThat(search(cache, "apple")).containsOnly(DOCUMENT_ID);
+   }
+
+   @Test
+   public void testRemoteChangeDuringLoadIsNotMissed() {
+      Mockito.when(dataDao.streamData(ArgumentMatchers.eq(COLLECTION_ID), ArgumentMatchers.any()))
+             .then(invocation -> streamData(invocation.getArgument(1))
+                   .onClose(() -> otherCache.dataChanged(COLLECTION_ID, DOCUMENT_ID, store(DOCUMENT_ID, "apple"))))
+             .then(invocation -> streamData(invocation.getArgument(1)));
+
+      assertThat(search(cache, "apple")).containsOnly(DOCUMENT_ID);
+   }
+
+   private Stream<DataDocument> streamData(SearchQuery query) {
+      return data.values().stream().filter(document -> !query.isDocumentIdsQuery() || query.getDocumentIds().contains(document.getId()));
+   }
+
+   private DataDocument store(String documentId, String value) {
+      DataDocument document = new DataDocument("name", value);
+      document.setId(documentId);
+      data.put(documentId, document);
+      return document;
+   }
+
+   private static Collection prepareCollection() {
+      JsonCollection collection = new JsonCollection("C1", "C1", null, null, new JsonPermissions());
+      collection.setId(COLLECTION_ID);
+      return collection;
+   }
+}
@@ -0,0 +1,92 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.engine.api.data.DataDocument;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class FulltextIndexTest {
+
+   private static final String COLLECTION1 = "c1";
+   private static final String COLLECTION2 = "c2";
+   private static final Set<String> COLLECTIONS = new HashSet<>(Arrays.asList(COLLECTION1, COLLECTION2));
+
+   private FulltextIndex index;
+
+   @Before
+   public void createIndex() {
+      index = new FulltextIndex();
+      index.putDocument(COLLECTION1, "d1", new DataDocument("name", "Red apple").append("_id", "d1"));
+      index.putDocument(COLLECTION1, "d2", new DataDocument("name", "Green apple").append("note", "sour"));
+      index.putDocument(COLLECTION2, "d3", new DataDocument("address", new DataDocument("city", "Brno-Královo Pole"))
+            .append("tags", Arrays.asList("red", "fruit")).append("count", 42));
+   }
+
+   @Test
+   public void testPrefixSearch() {
+      assertThat(index.search("APP", COLLECTIONS, 10)).containsOnlyKeys(COLLECTION1);
+      assertThat(index.search("app", COLLECTIONS, 10).get(COLLECTION1)).containsOnly("d1", "d2");
+      assertThat(index.search("král", COLLECTIONS, 10).get(COLLECTION2)).containsOnly("d3");
+      assertThat(index.search("42", COLLECTIONS, 10)).isEmpty();
+      assertThat(index.search("d1", COLLECTIONS, 10)).isEmpty();
+   }
+
+   @Test
+   public void testAnyWordMatchesAndBestMatchesGoFirst() {
+      Map<String, Set<String>> result = index.search("red apple", COLLECTIONS, 10);
+      assertThat(result.get(COLLECTION1)).containsExactly("d1", "d2");
+      assertThat(result.get(COLLECTION2)).containsOnly("d3");
+
+      assertThat(index.search("red apple", COLLECTIONS, 1)).containsOnlyKeys(COLLECTION1);
+      assertThat(index.search("red", Collections.singleton(COLLECTION2), 10)).containsOnlyKeys(COLLECTION2);
+   }
+
+   @Test
+   public void testPhrasesAndNegations() {
+      assertThat(index.search("\"green apple\"", COLLECTIONS, 10).get(COLLECTION1)).containsOnly("d2");
+      assertThat(index.search("apple -sour", COLLECTIONS, 10).get(COLLECTION1)).containsOnly("d1");
+      assertThat(index.search("-apple", COLLECTIONS, 10)).isEmpty();
+   }
+
+   @Test
+   public void testUpdatesAndRemovals() {
+      assertThat(index.weight()).isEqualTo(10);
+      index.putDocument(COLLECTION1, "d1", new DataDocument("name", "Yellow pear"));
+      assertThat(index.search("apple", COLLECTIONS, 10).get(COLLECTION1)).containsOnly("d2");
+      assertThat(index.search("pear", COLLECTIONS, 10).get(COLLECTION1)).containsOnly("d1");
+
+      index.removeDocument("d2");
+      assertThat(index.search("apple", COLLECTIONS, 10)).isEmpty();
+
+      index.removeCollection(COLLECTION1);
+      assertThat(index.size()).isEqualTo(1);
+      assertThat(index.weight()).isEqualTo(5);
+      assertThat(index.search("pear", COLLECTIONS, 10)).isEmpty();
+   }
+}
@@ -0,0 +1,184 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.Project;
+import io.lumeer.cache.simple.SimpleCacheFactory;
+import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.engine.api.cache.LocalCacheInvalidationTransport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SearchResultCacheTest {
+
+   private static final String KEY = "documents";
+   private static final String COLLECTION1 = "c1";
+   private static final String COLLECTION2 = "c2";
+
+   private CacheInvalidationBus bus;
+   private CacheInvalidationBus otherBus;
+
+   private SearchResultCache cache;
+   private SearchResultCache otherCache;
+
+   private final AtomicInteger searches = new AtomicInteger();
+
+   @Before
+   public void prepareCaches() {
+      Project project = Mockito.mock(Project.class);
+      Mockito.when(project.getId()).thenReturn("project");
+      WorkspaceKeeper workspaceKeeper = Mockito.mock(WorkspaceKeeper.class);
+      Mockito.when(workspaceKeeper.getProject()).thenReturn(Optional.of(project));
+
+      LocalCacheInvalidationTransport transport = new LocalCacheInvalidationTransport();
+      bus = new CacheInvalidationBus(transport);
+      otherBus = new CacheInvalidationBus(transport.connect());
+
+      cache = new SearchResultCache(new SimpleCacheFactory(), bus, workspaceKeeper, true);
+      otherCache = new SearchResultCache(new SimpleCacheFactory(), otherBus, workspaceKeeper, true);
+   }
+
+   @After
+   public void closeBuses() {
+      bus.close();
+      otherBus.close();
+   }
+
+   private List<String> search(SearchResultCache cache) {
+      return cache.get(KEY, collectionIds -> {
+         collectionIds.add(COLLECTION1);
+         return Collections.singletonList("result" + searches.incrementAndGet());
+      });
+   }
+
+   @Test
+   public void testRepeatedSearchIsCached() {
+      assertThat(search(cache)).containsExactly("result1");
+      assertThat(search(cache)).containsExactly("result1");
+
+      assertThat(searches.get()).isEqualTo(1);
+      assertThat(cache.getStatistics().getHitCount()).isEqualTo(1);
+      assertThat(cache.getStatistics().getMissCount()).isEqualTo(1);
+      assertThat(cache.getStatistics().getHitRate()).isEqualTo(0.5);
+   }
+
+   @Test
+   public void testDisabledByDefaultWithLocalInvalidations() {
+      SearchResultCache localCache = new SearchResultCache(new SimpleCacheFactory(), bus, Mockito.mock(WorkspaceKeeper.class));
+      assertThat(localCache.isEnabled()).isFalse();
+
+      assertThat(search(localCache)).containsExactly("result1");
+      assertThat(search(localCache)).containsExactly("result2");
+      assertThat(localCache.getStatistics().getMissCount()).isZero();
+   }
+
+   @Test
+   public void testDataChangeInvalidatesOnlyDependentResults() {
+      search(cache);
+      cache.dataChanged(COLLECTION2);
+      assertThat(search(cache)).containsExactly("result1");
+
+      cache.dataChanged(COLLECTION1);
+      assertThat(search(cache)).containsExactly("result2");
+      assertThat(cache.getStatistics().getStaleCount()).isEqualTo(1);
+   }
+
+   @Test
+   public void testChangeDuringSearchIsNotMissed() {
+      cache.get(KEY, collectionIds -> {
+         collectionIds.add(COLLECTION1);
+         cache.dataChanged(COLLECTION1);
+         return Collections.singletonList("old");
+      });
+
+      assertThat(search(cache)).containsExactly("result1");
+   }
+
+   @Test
+   public void testCollectionsChangeInvalidatesProject() {
+      search(cache);
+      cache.collectionsChanged();
+
+      assertThat(search(cache)).containsExactly("result2");
+   }
+
+   @Test
+   public void testChangeOnOtherNode() {
+      search(cache);
+      search(otherCache);
+
+      otherCache.dataChanged(COLLECTION1);
+      assertThat(search(cache)).containsExactly("result3");
+      assertThat(search(otherCache)).containsExactly("result4");
+   }
+
+   @Test
+   public void testCollectionRemoved() {
+      search(cache);
+      cache.dataChanged(COLLECTION1);
+      cache.dataChanged(COLLECTION2);
+      assertThat(search(cache)).containsExactly("result2");
+
+      cache.collectionRemoved(COLLECTION2);
+      assertThat(search(cache)).containsExactly("result3");
+
+      // the removed collection is replaced by the project
+      assertThat(cache.getDependenciesCount()).isEqualTo(2);
+      assertThat(otherCache.getDependenciesCount()).isEqualTo(2);
+   }
+
+   @Test
+   public void testProjectRemoved() {
+      cache.dataChanged(COLLECTION1);
+      cache.collectionsChanged();
+      assertThat(otherCache.getDependenciesCount()).isEqualTo(2);
+
+      cache.projectRemoved("project");
+
+      assertThat(cache.getDependenciesCount()).isEqualTo(0);
+      assertThat(otherCache.getDependenciesCount()).isEqualTo(0);
+   }
+
+   @Test
+   public void testOversizedResultIsNotCached() {
+      List<Integer> large = Arrays.asList(new Integer[1001]);
+      cache.get(KEY, collectionIds -> {
+         searches.incrementAndGet();
+         return large;
+      });
+      cache.get(KEY, collectionIds -> {
+         searches.incrementAndGet();
+         return large;
+      });
+
+      assertThat(searches.get()).isEqualTo(2);
+      assertThat(cache.getStatistics().getOversizedCount()).isEqualTo(2);
+   }
+}
@@ -0,0 +1,131 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.dto.JsonCollection;
+import io.lumeer.api.dto.JsonPermissions;
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Project;
+import io.lumeer.cache.simple.SimpleCacheFactory;
+import io.lumeer.core.AuthenticatedUser;
+import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.engine.api.cache.LocalCacheInvalidationTransport;
+import io.lumeer.storage.api.dao.CollectionDao;
+import io.lumeer.storage.api.dao.LinkTypeDao;
+import io.lumeer.storage.api.dao.ViewDao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+
+public class SuggestionCacheTest {
+
+   private static final String COLLECTION_ID = "c1";
+   private static final String COLLECTION_NAME = "Employees";
+
+   private CacheInvalidationBus bus;
+   private CacheInvalidationBus otherBus;
+
+   private CollectionDao collectionDao;
+
+   private SuggestionCache cache;
+   private SuggestionCache otherCache;
+
+   @Before
+   public void prepareCaches() {
+      Project project = Mockito.mock(Project.class);
+      Mockito.when(project.getId()).thenReturn("project");
+      WorkspaceKeeper workspaceKeeper = Mockito.mock(WorkspaceKeeper.class);
+      Mockito.when(workspaceKeeper.getProject()).thenReturn(Optional.of(project));
+
+      collectionDao = Mockito.mock(CollectionDao.class);
+
+      LocalCacheInvalidationTransport transport = new LocalCacheInvalidationTransport();
+      bus = new CacheInvalidationBus(transport);
+      otherBus = new CacheInvalidationBus(transport.connect());
+
+      cache = createCache(bus, workspaceKeeper);
+      otherCache = createCache(otherBus, workspaceKeeper);
+   }
+
+   @After
+   public void closeBuses() {
+      bus.close();
+      otherBus.close();
+   }
+
+   private SuggestionCache createCache(CacheInvalidationBus bus, WorkspaceKeeper workspaceKeeper) {
+      return new SuggestionCache(new SimpleCacheFactory(), bus, workspaceKeeper, Mockito.mock(AuthenticatedUser.class),
+            collectionDao, Mockito.mock(ViewDao.class), Mockito.mock(LinkTypeDao.class));
+   }
+
+   private List<Collection> suggestCollections(SuggestionCache cache) {
+      return cache.getIndex().suggestCollections(COLLECTION_NAME, collection -> true, 10);
+   }
+
+   @Test
+   public void testIndexIsCached() {
+      Mockito.when(collectionDao.getAllCollections()).thenReturn(Collections.singletonList(prepareCollection()));
+
+      assertThat(suggestCollections(cache)).hasSize(1);
+      assertThat(suggestCollections(cache)).hasSize(1);
+
+      Mockito.verify(collectionDao).getAllCollections();
+   }
+
+   @Test
+   public void testChangeDuringLoadIsNotMissed() {
+      Collection collection = prepareCollection();
+      Mockito.when(collectionDao.getAllCollections()).then(invocation -> {
+         cache.collectionChanged(collection);
+         return Collections.emptyList();
+      }).thenReturn(Collections.singletonList(collection));
+
+      cache.getIndex();
+
+      assertThat(suggestCollections(cache)).extracting(Collection::getId).containsExactly(COLLECTION_ID);
+   }
+
+   @Test
+   public void testRemoteChangeDuringLoadIsNotMissed() {
+      Collection collection = prepareCollection();
+      Mockito.when(collectionDao.getAllCollections()).then(invocation -> {
+         otherCache.collectionChanged(collection);
+         return Collections.emptyList();
+      }).thenReturn(Collections.singletonList(collection));
+
+      cache.getIndex();
+
+      assertThat(suggestCollections(cache)).extracting(Collection::getId).containsExactly(COLLECTION_ID);
+   }
+
+   private static Collection prepareCollection() {
+      JsonCollection collection = new JsonCollection(COLLECTION_NAME, COLLECTION_NAME, null, null, new JsonPermissions(), new LinkedHashSet<>());
+      collection.setId(COLLECTION_ID);
+      return collection;
+   }
+}
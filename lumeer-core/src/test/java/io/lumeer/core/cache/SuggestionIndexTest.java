@@ -0,0 +1,99 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.dto.JsonAttribute;
+import io.lumeer.api.dto.JsonCollection;
+import io.lumeer.api.dto.JsonPermissions;
+import io.lumeer.api.model.Attribute;
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.LinkType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+public class SuggestionIndexTest {
+
+   private static final String ID_1 = "c1";
+   private static final String ID_2 = "c2";
+   private static final String ID_NO_RIGHTS = "c3";
+
+   private SuggestionIndex index;
+
+   @Before
+   public void prepareIndex() {
+      List<Collection> collections = Arrays.asList(
+            prepareCollection(ID_1, "Employees", "name", "salary"),
+            prepareCollection(ID_2, "My employers", "address", "employed"),
+            prepareCollection(ID_NO_RIGHTS, "Employees secret", "name"));
+      List<LinkType> linkTypes = Arrays.asList(
+            new LinkType("l1", "works", Arrays.asList(ID_1, ID_2), Collections.emptyList()),
+            new LinkType("l2", "works secretly", Arrays.asList(ID_1, ID_NO_RIGHTS), Collections.emptyList()));
+
+      index = new SuggestionIndex(collections, Collections.emptyList(), linkTypes);
+   }
+
+   @Test
+   public void testSuggestCollections() {
+      List<Collection> collections = index.suggestCollections("EMPLOY", this::isReadable, 10);
+
+      assertThat(collections).extracting(Collection::getId).containsExactly(ID_1, ID_2);
+      assertThat(collections).allMatch(collection -> collection.getAttributes().isEmpty());
+   }
+
+   @Test
+   public void testSuggestAttributes() {
+      index.addAttributes(ID_1, Collections.singleton("name2"));
+
+      List<Collection> collections = index.suggestAttributes("name", this::isReadable, 10);
+
+      assertThat(collections).extracting(Collection::getId).containsOnly(ID_1);
+      assertThat(collections.get(0).getAttributes()).extracting(Attribute::getFullName).containsOnly("name", "name2");
+   }
+
+   @Test
+   public void testSuggestLinkTypesBetweenReadableCollections() {
+      assertThat(index.suggestLinkTypes("works", this::isReadable, 10)).extracting(LinkType::getId).containsExactly("l1");
+
+      index.removeCollection(ID_2);
+      assertThat(index.suggestLinkTypes("works", this::isReadable, 10)).isEmpty();
+   }
+
+   private boolean isReadable(Collection collection) {
+      return !ID_NO_RIGHTS.equals(collection.getId());
+   }
+
+   private static Collection prepareCollection(String id, String name, String... attributeNames) {
+      LinkedHashSet<JsonAttribute> attributes = new LinkedHashSet<>();
+      for (String attributeName : attributeNames) {
+         attributes.add(new JsonAttribute(attributeName));
+      }
+
+      JsonCollection collection = new JsonCollection(name, name, null, null, new JsonPermissions(), attributes);
+      collection.setId(id);
+      return collection;
+   }
+}
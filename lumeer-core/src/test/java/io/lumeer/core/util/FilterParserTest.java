@@ -0,0 +1,96 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.engine.api.exception.InvalidQueryException;
+import io.lumeer.storage.api.query.AttributeFilter;
+import io.lumeer.storage.api.query.AttributeFilter.Operator;
+import io.lumeer.storage.api.query.AttributeSort;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+public class FilterParserTest {
+
+   private static AttributeFilter filter(String attribute, Operator operator, Object... values) {
+      return new AttributeFilter(attribute, operator, Arrays.asList(values));
+   }
+
+   @Test
+   public void testComparisons() {
+      FilterParser parser = FilterParser.parse(new LinkedHashSet<>(Arrays.asList(
+            "age:>= 18", "age:<65", "score:!=1.5", "name:= \"Jan \\\"Novák\\\"\"", "active:=true", "city:=Brno", "note:=null")));
+
+      assertThat(parser.getAttributeFilters()).containsExactly(
+            filter("age", Operator.GREATER_THAN_EQUALS, 18L),
+            filter("age", Operator.LOWER_THAN, 65L),
+            filter("score", Operator.NOT_EQUALS, 1.5),
+            filter("name", Operator.EQUALS, "Jan \"Novák\""),
+            filter("active", Operator.EQUALS, true),
+            filter("city", Operator.EQUALS, "Brno"),
+            filter("note", Operator.EQUALS, (Object) null));
+      assertThat(parser.getAttributeSorts()).isEmpty();
+   }
+
+   @Test
+   public void testKeywordConditions() {
+      FilterParser parser = FilterParser.parse(new LinkedHashSet<>(Arrays.asList(
+            "address.city:in (\"Brno\", Praha, 42)", "tags:in ()", "email:exists", "phone:!exists", "name:prefix \"Jo.\"")));
+
+      assertThat(parser.getAttributeFilters()).containsExactly(
+            filter("address.city", Operator.IN, "Brno", "Praha", 42L),
+            filter("tags", Operator.IN),
+            filter("email", Operator.EXISTS),
+            filter("phone", Operator.NOT_EXISTS),
+            filter("name", Operator.PREFIX, "Jo."));
+   }
+
+   @Test
+   public void testSorts() {
+      FilterParser parser = FilterParser.parse(new LinkedHashSet<>(Arrays.asList("name:sort", "age:sort DESC", "city:sort asc")));
+
+      assertThat(parser.getAttributeFilters()).isEmpty();
+      assertThat(parser.getAttributeSorts()).containsExactly(
+            new AttributeSort("name", true), new AttributeSort("age", false), new AttributeSort("city", true));
+   }
+
+   @Test
+   public void testNoFilters() {
+      assertThat(FilterParser.parse(null).getAttributeFilters()).isEmpty();
+      assertThat(FilterParser.parse(Collections.emptySet()).getAttributeSorts()).isEmpty();
+   }
+
+   @Test
+   public void testInvalidFilters() {
+      for (String filter : Arrays.asList("age", ":=1", "$where:=1", "age:", "age:~1", "age:in (1", "age:in 1, 2",
+            "name:=\"unterminated", "name:sort up", "age:exists now")) {
+         try {
+            FilterParser.parse(Collections.singleton(filter));
+            throw new AssertionError("Filter '" + filter + "' should be invalid");
+         } catch (InvalidQueryException e) {
+            assertThat(e.getMessage()).startsWith("Invalid filter '" + filter + "'");
+         }
+      }
+   }
+}
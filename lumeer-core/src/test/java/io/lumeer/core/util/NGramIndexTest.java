@@ -0,0 +1,76 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class NGramIndexTest {
+
+   private NGramIndex<String> index;
+
+   @Before
+   public void prepareIndex() {
+      index = new NGramIndex<>();
+      index.put("1", "Projects");
+      index.put("2", "My project");
+      index.put("3", "Tasks");
+      index.put("4", "Task list");
+   }
+
+   @Test
+   public void testSearchShortQuery() {
+      assertThat(index.search("p", value -> true, 10)).containsExactly("1", "2");
+      assertThat(index.search("AS", value -> true, 10)).containsExactly("4", "3");
+   }
+
+   @Test
+   public void testSearchLongQuery() {
+      assertThat(index.search("project", value -> true, 10)).containsExactly("1", "2");
+      assertThat(index.search("sk li", value -> true, 10)).containsExactly("4");
+      assertThat(index.search("projectx", value -> true, 10)).isEmpty();
+   }
+
+   @Test
+   public void testSearchFilterAndLimit() {
+      assertThat(index.search("project", value -> !value.equals("1"), 10)).containsExactly("2");
+      assertThat(index.search("t", value -> true, 2)).containsExactly("4", "3");
+   }
+
+   @Test
+   public void testPutReplacesText() {
+      index.put("1", "Issues");
+
+      assertThat(index.search("project", value -> true, 10)).containsExactly("2");
+      assertThat(index.search("issue", value -> true, 10)).containsExactly("1");
+      assertThat(index.size()).isEqualTo(4);
+   }
+
+   @Test
+   public void testRemove() {
+      index.remove("2");
+      index.removeIf(value -> value.equals("3"));
+
+      assertThat(index.search("project", value -> true, 10)).containsExactly("1");
+      assertThat(index.search("task", value -> true, 10)).containsExactly("4");
+      assertThat(index.size()).isEqualTo(2);
+   }
+}
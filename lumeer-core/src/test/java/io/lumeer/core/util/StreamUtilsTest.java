@@ -0,0 +1,96 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class StreamUtilsTest {
+
+   @Test
+   public void testBatches() {
+      List<List<Integer>> batches = StreamUtils.batches(Stream.of(1, 2, 3, 4, 5), 2).collect(Collectors.toList());
+      assertThat(batches).containsExactly(Arrays.asList(1, 2), Arrays.asList(3, 4), Collections.singletonList(5));
+   }
+
+   @Test
+   public void testBatchesEmptyStream() {
+      List<List<Integer>> batches = StreamUtils.batches(Stream.<Integer>empty(), 2).collect(Collectors.toList());
+      assertThat(batches).isEmpty();
+   }
+
+   @Test
+   public void testBatchesClosesOriginalStream() {
+      AtomicBoolean closed = new AtomicBoolean();
+      Stream<Integer> stream = Stream.of(1, 2, 3).onClose(() -> closed.set(true));
+
+      try (Stream<List<Integer>> batches = StreamUtils.batches(stream, 2)) {
+         assertThat(batches.count()).isEqualTo(2);
+      }
+      assertThat(closed.get()).isTrue();
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testBatchesInvalidSize() {
+      StreamUtils.batches(Stream.of(1), 0);
+   }
+
+   @Test
+   public void testFlatMap() {
+      List<Integer> results = StreamUtils.flatMap(Stream.of(1, 2, 3), i -> Collections.nCopies(i, i).stream()).collect(Collectors.toList());
+      assertThat(results).containsExactly(1, 2, 2, 3, 3, 3);
+   }
+
+   @Test
+   public void testFlatMapReadsLazily() {
+      AtomicInteger read = new AtomicInteger();
+      Stream<Integer> results = StreamUtils.flatMap(Stream.of(1, 2), i -> Stream.iterate(i, n -> n + 2).peek(n -> read.incrementAndGet()));
+
+      Iterator<Integer> iterator = results.iterator();
+      assertThat(iterator.next()).isEqualTo(1);
+      assertThat(iterator.next()).isEqualTo(3);
+      assertThat(read.get()).isLessThanOrEqualTo(2);
+   }
+
+   @Test
+   public void testFlatMapClosesStreams() {
+      AtomicBoolean closed = new AtomicBoolean();
+      AtomicInteger closedMapped = new AtomicInteger();
+      Stream<Integer> stream = Stream.of(1, 2, 3).onClose(() -> closed.set(true));
+
+      try (Stream<Integer> results = StreamUtils.flatMap(stream, i -> Stream.of(i).onClose(closedMapped::incrementAndGet))) {
+         Iterator<Integer> iterator = results.iterator();
+         iterator.next();
+         iterator.next();
+         assertThat(closedMapped.get()).isEqualTo(1);
+      }
+      assertThat(closed.get()).isTrue();
+      assertThat(closedMapped.get()).isEqualTo(2);
+   }
+}
@@ -19,22 +19,53 @@
 package io.lumeer.remote.rest;
 
 import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.core.model.ResultPage;
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
 
 abstract class AbstractService {
 
+   protected static final String CONTINUATION_TOKEN_HEADER = "X-Continuation-Token";
+
+   protected static final String APPLICATION_NDJSON = "application/x-ndjson";
+   protected static final MediaType APPLICATION_NDJSON_TYPE = MediaType.valueOf(APPLICATION_NDJSON);
+
    @Inject
    private HttpServletRequest request;
 
    @Inject
    protected WorkspaceKeeper workspaceKeeper;
 
+   @Context
+   private HttpHeaders headers;
+
+   @Context
+   private Providers providers;
+
    protected URI getResourceUri(String additionalPath) {
       return UriBuilder.fromUri(request.getRequestURL() + "/" + additionalPath).build();
    }
@@ -45,4 +76,96 @@ abstract class AbstractService {
       String parentPath = fullPath.replaceFirst(regex, "");
       return UriBuilder.fromUri(parentPath).build();
    }
+
+   protected <T> Response createPageResponse(ResultPage<T> page, Function<T, ?> converter) {
+      List<?> entities = page.getResults().stream().map(converter).collect(Collectors.toList());
+      Response.ResponseBuilder builder = Response.ok(entities, MediaType.APPLICATION_JSON_TYPE);
+      if (page.hasNextPage()) {
+         builder.header(CONTINUATION_TOKEN_HEADER, page.getContinuationToken());
+      }
+      return builder.build();
+   }
+
+   /**
+    * Checks whether the client prefers newline delimited JSON, i.e. one JSON entity per line, over a JSON array.
+    *
+    * @return true when newline delimited JSON is the most acceptable media type
+    */
+   protected boolean acceptsNdJson() {
+      List<MediaType> acceptableTypes = headers.getAcceptableMediaTypes();
+      return !acceptableTypes.isEmpty() && !acceptableTypes.get(0).isWildcardSubtype() && acceptableTypes.get(0).isCompatible(APPLICATION_NDJSON_TYPE);
+   }
+
+   /**
+    * Creates a response that converts and writes the entities one at a time as newline delimited JSON, so the whole result
+    * is never held in memory. The stream is closed once the response is written.
+    *
+    * @param entities
+    *       entities to write
+    * @param converter
+    *       converts the entities to their JSON representation
+    * @param type
+    *       type of the JSON representation
+    * @return the streaming response
+    */
+   protected <T, R> Response createNdJsonResponse(Stream<T> entities, Function<T, R> converter, Class<R> type) {
+      StreamingOutput output = outputStream -> {
+         MessageBodyWriter<R> writer = providers.getMessageBodyWriter(type, type, new Annotation[0], MediaType.APPLICATION_JSON_TYPE);
+         OutputStream nonClosingStream = new NonClosingOutputStream(outputStream);
+
+         try (Stream<T> stream = entities) {
+            Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+               writer.writeTo(converter.apply(iterator.next()), type, type, new Annotation[0], MediaType.APPLICATION_JSON_TYPE, new MultivaluedHashMap<>(), nonClosingStream);
+               outputStream.write('\n');
+            }
+         }
+         outputStream.flush();
+      };
+
+      return Response.ok(output, APPLICATION_NDJSON_TYPE).build();
+   }
+
+   protected void checkPageSize(Integer pageSize) {
+      if (pageSize == null || pageSize <= 0) {
+         throw new BadRequestException("pageSize must be a positive number");
+      }
+   }
+
+   /**
+    * Parses the attributes to be read from the fields query parameter. The attributes can be given in repeated
+    * parameters as well as separated by commas.
+    *
+    * @param fields
+    *       values of the fields query parameter
+    * @return names of the attributes, empty when all of them should be read
+    */
+   protected Set<String> parseFields(List<String> fields) {
+      if (fields == null) {
+         return Collections.emptySet();
+      }
+
+      return fields.stream()
+                   .flatMap(field -> Arrays.stream(field.split(",")))
+                   .map(String::trim)
+                   .filter(field -> !field.isEmpty())
+                   .collect(Collectors.toSet());
+   }
+
+   private static class NonClosingOutputStream extends FilterOutputStream {
+
+      NonClosingOutputStream(final OutputStream outputStream) {
+         super(outputStream);
+      }
+
+      @Override
+      public void write(final byte[] b, final int off, final int len) throws IOException {
+         out.write(b, off, len);
+      }
+
+      @Override
+      public void close() throws IOException {
+         flush();
+      }
+   }
 }
@@ -24,10 +24,12 @@ import io.lumeer.api.dto.JsonPermission;
 import io.lumeer.api.dto.JsonPermissions;
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.DataIndex;
 import io.lumeer.api.model.Pagination;
 import io.lumeer.api.model.Permission;
 import io.lumeer.api.model.Permissions;
 import io.lumeer.core.facade.CollectionFacade;
+import io.lumeer.core.model.IndexAdvice;
 
 import java.net.URI;
 import java.util.List;
@@ -140,6 +142,36 @@ public class CollectionService extends AbstractService {
       return Response.ok().link(getParentUri(attributeFullName), "parent").build();
    }
 
+   @GET
+   @Path("{collectionCode}/indexes")
+   public IndexAdvice getIndexes(@PathParam("collectionCode") String collectionCode) {
+      return collectionFacade.getIndexAdvice(collectionCode);
+   }
+
+   @POST
+   @Path("{collectionCode}/indexes")
+   public DataIndex createIndex(@PathParam("collectionCode") String collectionCode, DataIndex index) {
+      if (index == null) {
+         throw new BadRequestException("index");
+      }
+
+      return collectionFacade.createIndex(collectionCode, index);
+   }
+
+   @POST
+   @Path("{collectionCode}/indexes/advice")
+   public IndexAdvice applyIndexAdvice(@PathParam("collectionCode") String collectionCode) {
+      return collectionFacade.applyIndexAdvice(collectionCode);
+   }
+
+   @DELETE
+   @Path("{collectionCode}/indexes/{indexName}")
+   public Response dropIndex(@PathParam("collectionCode") String collectionCode, @PathParam("indexName") String indexName) {
+      collectionFacade.dropIndex(collectionCode, indexName);
+
+      return Response.ok().link(getParentUri(indexName), "parent").build();
+   }
+
    @GET
    @Path("{collectionCode}/permissions")
    public JsonPermissions getCollectionPermissions(@PathParam("collectionCode") String code) {
@@ -20,16 +20,22 @@ package io.lumeer.remote.rest;
 
 import io.lumeer.api.dto.JsonDocument;
 import io.lumeer.api.model.Document;
+import io.lumeer.api.model.DocumentOperation;
+import io.lumeer.api.model.DocumentOperationResult;
 import io.lumeer.api.model.Pagination;
 import io.lumeer.core.facade.DocumentFacade;
+import io.lumeer.core.model.ResultPage;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.remote.rest.annotation.PATCH;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -48,6 +54,11 @@ import javax.ws.rs.core.Response;
 @Path("organizations/{organizationCode}/projects/{projectCode}/collections/{collectionCode}/documents")
 public class DocumentService extends AbstractService {
 
+   /**
+    * Maximal number of operations in a bulk request.
+    */
+   private static final int MAX_BULK_SIZE = Integer.getInteger("lumeer.document.maxBulkSize", 10_000);
+
    @PathParam("organizationCode")
    private String organizationCode;
 
@@ -97,6 +108,19 @@ public class DocumentService extends AbstractService {
       return Response.ok().link(getParentUri(documentId), "parent").build();
    }
 
+   @POST
+   @Path("bulk")
+   public List<DocumentOperationResult> writeDocuments(List<DocumentOperation> operations) {
+      if (operations == null || operations.isEmpty()) {
+         throw new BadRequestException("No operations");
+      }
+      if (operations.size() > MAX_BULK_SIZE) {
+         throw new BadRequestException("At most " + MAX_BULK_SIZE + " operations are allowed in a request");
+      }
+
+      return documentFacade.writeDocuments(collectionCode, operations);
+   }
+
    @GET
    @Path("{documentId}")
    public JsonDocument getDocument(@PathParam("documentId") String documentId) {
@@ -105,11 +129,32 @@ public class DocumentService extends AbstractService {
    }
 
    @GET
-   public List<JsonDocument> getDocuments(@QueryParam("page") Integer page, @QueryParam("pageSize") Integer pageSize) {
+   @Produces({ MediaType.APPLICATION_JSON, APPLICATION_NDJSON })
+   public Response getDocuments(@QueryParam("page") Integer page, @QueryParam("pageSize") Integer pageSize, @QueryParam("continuation") String continuation,
+         @QueryParam("fields") List<String> fields) {
+      Set<String> attributes = parseFields(fields);
+      if (page == null && (pageSize != null || continuation != null)) {
+         return getDocumentsPage(pageSize, continuation, attributes);
+      }
+
       Pagination pagination = new Pagination(page, pageSize);
+      if (acceptsNdJson()) {
+         Stream<Document> documents = documentFacade.streamDocuments(collectionCode, pagination, attributes);
+         return createNdJsonResponse(documents, JsonDocument::convert, JsonDocument.class);
+      }
+
+      List<Document> documents = documentFacade.getDocuments(collectionCode, pagination, attributes);
+      return Response.ok(JsonDocument.convert(documents), MediaType.APPLICATION_JSON_TYPE).build();
+   }
 
-      List<Document> documents = documentFacade.getDocuments(collectionCode, pagination);
-      return JsonDocument.convert(documents);
+   private Response getDocumentsPage(Integer pageSize, String continuation, Set<String> fields) {
+      checkPageSize(pageSize);
+      try {
+         ResultPage<Document> documents = documentFacade.getDocuments(collectionCode, continuation, pageSize, fields);
+         return createPageResponse(documents, JsonDocument::convert);
+      } catch (IllegalArgumentException ex) {
+         throw new BadRequestException("Invalid continuation token");
+      }
    }
 
 }
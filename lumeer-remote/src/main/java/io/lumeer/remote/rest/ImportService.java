@@ -22,6 +22,7 @@ import io.lumeer.api.dto.JsonCollection;
 import io.lumeer.api.model.Collection;
 import io.lumeer.core.facade.ImportFacade;
 
+import java.io.InputStream;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
@@ -54,7 +55,7 @@ public class ImportService extends AbstractService {
 
    @POST
    @Consumes(MediaType.TEXT_PLAIN)
-   public JsonCollection importDocuments(@QueryParam("format") String format, @QueryParam("name") String name, String data) {
+   public JsonCollection importDocuments(@QueryParam("format") String format, @QueryParam("name") String name, InputStream data) {
       Collection collection = importFacade.importDocuments(format, name,  data);
       return JsonCollection.convert(collection);
    }
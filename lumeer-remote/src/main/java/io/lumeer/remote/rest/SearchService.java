@@ -23,11 +23,17 @@ import io.lumeer.api.dto.JsonDocument;
 import io.lumeer.api.dto.JsonQuery;
 import io.lumeer.api.dto.JsonSuggestions;
 import io.lumeer.api.dto.JsonView;
+import io.lumeer.api.model.Aggregation;
+import io.lumeer.api.model.Document;
 import io.lumeer.api.model.SuggestionType;
 import io.lumeer.core.facade.SearchFacade;
 import io.lumeer.core.facade.SuggestionFacade;
+import io.lumeer.core.model.ResultPage;
+import io.lumeer.engine.api.data.DataDocument;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
@@ -41,6 +47,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 @RequestScoped
 @Produces(MediaType.APPLICATION_JSON)
@@ -87,11 +94,53 @@ public class SearchService extends AbstractService {
 
    @POST
    @Path("documents")
-   public List<JsonDocument> searchDocuments(JsonQuery query) {
-      return searchFacade.searchDocuments(query).stream()
-                         .map(JsonDocument::convert)
-                         .collect(Collectors.toList());
+   @Produces({ MediaType.APPLICATION_JSON, APPLICATION_NDJSON })
+   public Response searchDocuments(JsonQuery query, @QueryParam("pageSize") Integer pageSize, @QueryParam("continuation") String continuation) {
+      if (pageSize != null || continuation != null) {
+         return searchDocumentsPage(query, pageSize, continuation);
+      }
 
+      if (acceptsNdJson()) {
+         return createNdJsonResponse(searchFacade.streamDocuments(query), JsonDocument::convert, JsonDocument.class);
+      }
+
+      List<JsonDocument> documents = searchFacade.searchDocuments(query).stream()
+                                                 .map(JsonDocument::convert)
+                                                 .collect(Collectors.toList());
+      return Response.ok(documents, MediaType.APPLICATION_JSON_TYPE).build();
+   }
+
+   private Response searchDocumentsPage(JsonQuery query, Integer pageSize, String continuation) {
+      checkPageSize(pageSize);
+      try {
+         ResultPage<Document> documents = searchFacade.searchDocuments(query, continuation, pageSize);
+         return createPageResponse(documents, JsonDocument::convert);
+      } catch (IllegalArgumentException ex) {
+         throw new BadRequestException("Invalid continuation token");
+      }
+   }
+
+   @POST
+   @Path("aggregations")
+   public Map<String, List<DataDocument>> aggregateDocuments(Aggregation aggregation) {
+      if (aggregation == null) {
+         throw new BadRequestException("Aggregation must be set");
+      }
+      return searchFacade.aggregateDocuments(aggregation);
+   }
+
+   /**
+    * Builds the embedded fulltext index of the project again, it is needed when the data was changed outside of the application.
+    *
+    * @return number of the indexed documents
+    */
+   @POST
+   @Path("fulltext/rebuild")
+   public Map<String, Integer> rebuildFulltextIndex() {
+      if (!searchFacade.isFulltextIndexEnabled()) {
+         throw new BadRequestException("The embedded fulltext engine is not enabled");
+      }
+      return Collections.singletonMap("documents", searchFacade.rebuildFulltextIndex());
    }
 
    @POST
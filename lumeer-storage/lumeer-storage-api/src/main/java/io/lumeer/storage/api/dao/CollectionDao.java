@@ -23,7 +23,9 @@ import io.lumeer.api.model.Project;
 import io.lumeer.storage.api.query.SearchQuery;
 import io.lumeer.storage.api.query.SuggestionQuery;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public interface CollectionDao {
@@ -40,10 +42,27 @@ public interface CollectionDao {
 
    void deleteCollection(String id);
 
+   /**
+    * Atomically adds the deltas to the statistics of the collection without rewriting the rest of it, so that concurrent
+    * updates are never lost. Attributes that are not in the collection yet are added to it.
+    *
+    * @param id
+    *       collection id
+    * @param documentsCountDelta
+    *       number of documents to add to the documents count
+    * @param attributesUsageDeltas
+    *       numbers to add to the usage counts of the attributes, mapped by the attribute full names
+    * @param lastTimeUsed
+    *       time of the last usage, it is stored only when it is later than the stored one
+    */
+   void updateCollectionStatistics(String id, int documentsCountDelta, Map<String, Integer> attributesUsageDeltas, LocalDateTime lastTimeUsed);
+
    Collection getCollectionByCode(String code);
 
    List<Collection> getCollectionsByIds(java.util.Collection<String> ids);
 
+   List<Collection> getAllCollections();
+
    List<Collection> getCollections(SearchQuery query);
 
    List<Collection> getCollections(SuggestionQuery query);
@@ -18,10 +18,16 @@
  */
 package io.lumeer.storage.api.dao;
 
+import io.lumeer.api.model.Aggregation;
+import io.lumeer.api.model.DataIndex;
+import io.lumeer.api.model.DocumentOperation;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.storage.api.query.SearchQuery;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface DataDao {
 
@@ -39,10 +45,101 @@ public interface DataDao {
 
    void deleteData(String collectionId, String documentId);
 
+   /**
+    * Writes the data of all the operations in a single unordered bulk write, a failed operation does not stop the others.
+    *
+    * @param collectionId
+    *       Collection to write to.
+    * @param operations
+    *       Operations to execute, the document id must be set in all of them.
+    * @return Error messages of the failed operations mapped by their index in the list.
+    */
+   Map<Integer, String> writeData(String collectionId, List<DocumentOperation> operations);
+
    DataDocument getData(String collectionId, String documentId);
 
    List<DataDocument> getData(String collectionId, SearchQuery query);
 
+   /**
+    * Reads data matching the query lazily, one document at a time, so that the whole result never has to be held in memory.
+    * The returned stream holds an open database cursor and must be closed.
+    *
+    * @param collectionId
+    *       Collection to read from.
+    * @param query
+    *       Query to run in the collection.
+    * @return Stream of the matching data.
+    */
+   Stream<DataDocument> streamData(String collectionId, SearchQuery query);
+
    long getDataCount(String collectionId, SearchQuery query);
 
+   /**
+    * Searches data of multiple collections in parallel. Collections that fail or do not respond until the timeout
+    * are left out of the result.
+    *
+    * @param collectionIds
+    *       Collections to search in.
+    * @param query
+    *       Query to run in every collection.
+    * @param timeout
+    *       Time limit of the whole search in milliseconds.
+    * @return Data of the collections that responded in time, mapped by the collection id.
+    */
+   Map<String, List<DataDocument>> getData(Set<String> collectionIds, SearchQuery query, long timeout);
+
+   /**
+    * Counts data matching the query in multiple collections in parallel. Collections that fail or do not respond until
+    * the timeout are left out of the result.
+    *
+    * @param collectionIds
+    *       Collections to search in.
+    * @param query
+    *       Query to run in every collection.
+    * @param timeout
+    *       Time limit of the whole search in milliseconds.
+    * @return Number of matching data of the collections that responded in time, mapped by the collection id.
+    */
+   Map<String, Long> getDataCount(Set<String> collectionIds, SearchQuery query, long timeout);
+
+   /**
+    * Aggregates data matching the query in multiple collections in parallel, only the aggregated rows are returned.
+    * Every row contains the values of the groups and the metrics under their names. The aggregation fails when any
+    * collection fails or does not respond until the timeout, partial totals are never returned.
+    *
+    * @param collectionIds
+    *       Collections to aggregate.
+    * @param query
+    *       Query selecting the data in every collection.
+    * @param aggregation
+    *       Groups and metrics to compute.
+    * @param timeout
+    *       Time limit of the whole aggregation in milliseconds.
+    * @return Aggregated rows of all the collections mapped by the collection id.
+    */
+   Map<String, List<DataDocument>> aggregateData(Set<String> collectionIds, SearchQuery query, Aggregation aggregation, long timeout);
+
+   /**
+    * Lists the secondary indexes of the data together with the number of operations that used them. Indexes with keys
+    * other than ascending or descending, like the fulltext index, are left out.
+    *
+    * @param collectionId
+    *       Collection to list the indexes of.
+    * @return The indexes of the data.
+    */
+   List<DataIndex> getIndexes(String collectionId);
+
+   /**
+    * Builds an index of the data in the background so that the collection stays available.
+    *
+    * @param collectionId
+    *       Collection to index.
+    * @param index
+    *       Index to create, the name is generated from the keys when it is not set.
+    * @return Name of the created index.
+    */
+   String createIndex(String collectionId, DataIndex index);
+
+   void dropIndex(String collectionId, String indexName);
+
 }
@@ -21,7 +21,9 @@ package io.lumeer.storage.api.dao;
 import io.lumeer.api.model.Document;
 import io.lumeer.api.model.Project;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 public interface DocumentDao {
 
@@ -39,6 +41,20 @@ public interface DocumentDao {
 
    void deleteDocuments(String collectionId);
 
+   void deleteDocumentsByIds(Set<String> ids);
+
+   /**
+    * Records an update of the data of the documents, i.e. sets who and when updated them and increments their data version.
+    *
+    * @param ids
+    *       ids of the updated documents
+    * @param updatedBy
+    *       user who updated the documents
+    * @param updateDate
+    *       time of the update
+    */
+   void updateDocumentsMetadata(Set<String> ids, String updatedBy, LocalDateTime updateDate);
+
    Document getDocumentById(String id);
 
    List<Document> getDocumentsByIds(String... ids);
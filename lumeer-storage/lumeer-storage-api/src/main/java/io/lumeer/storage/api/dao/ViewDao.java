@@ -40,6 +40,8 @@ public interface ViewDao {
 
    View getViewByCode(String code);
 
+   List<View> getAllViews();
+
    List<View> getViews(SearchQuery query);
 
    List<View> getViews(SuggestionQuery query);
@@ -0,0 +1,107 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.api.query;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Condition on a value of a data document attribute.
+ */
+@Immutable
+public class AttributeFilter {
+
+   public enum Operator {
+      EQUALS,
+      NOT_EQUALS,
+      LOWER_THAN,
+      LOWER_THAN_EQUALS,
+      GREATER_THAN,
+      GREATER_THAN_EQUALS,
+      IN,
+      EXISTS,
+      NOT_EXISTS,
+      PREFIX
+   }
+
+   private final String attribute;
+   private final Operator operator;
+   private final List<Object> values;
+
+   public AttributeFilter(final String attribute, final Operator operator, final List<Object> values) {
+      this.attribute = attribute;
+      this.operator = operator;
+      this.values = Collections.unmodifiableList(values);
+   }
+
+   /**
+    * Gets the full name of the attribute, nested attributes are separated by dots.
+    *
+    * @return the attribute name
+    */
+   public String getAttribute() {
+      return attribute;
+   }
+
+   public Operator getOperator() {
+      return operator;
+   }
+
+   /**
+    * Gets the values the attribute is compared to. There is no value for {@link Operator#EXISTS} and {@link Operator#NOT_EXISTS},
+    * any number of values for {@link Operator#IN} and exactly one value for the other operators.
+    *
+    * @return the values
+    */
+   public List<Object> getValues() {
+      return values;
+   }
+
+   public Object getValue() {
+      return values.isEmpty() ? null : values.get(0);
+   }
+
+   @Override
+   public boolean equals(final Object o) {
+      if (this == o) {
+         return true;
+      }
+      if (!(o instanceof AttributeFilter)) {
+         return false;
+      }
+      final AttributeFilter that = (AttributeFilter) o;
+      return Objects.equals(attribute, that.attribute) && operator == that.operator && Objects.equals(values, that.values);
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash(attribute, operator, values);
+   }
+
+   @Override
+   public String toString() {
+      return "AttributeFilter{" +
+            "attribute='" + attribute + '\'' +
+            ", operator=" + operator +
+            ", values=" + values +
+            '}';
+   }
+}
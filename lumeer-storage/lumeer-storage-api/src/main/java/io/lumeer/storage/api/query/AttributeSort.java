@@ -0,0 +1,70 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.api.query;
+
+import java.util.Objects;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Sort order by a data document attribute.
+ */
+@Immutable
+public class AttributeSort {
+
+   private final String attribute;
+   private final boolean ascending;
+
+   public AttributeSort(final String attribute, final boolean ascending) {
+      this.attribute = attribute;
+      this.ascending = ascending;
+   }
+
+   public String getAttribute() {
+      return attribute;
+   }
+
+   public boolean isAscending() {
+      return ascending;
+   }
+
+   @Override
+   public boolean equals(final Object o) {
+      if (this == o) {
+         return true;
+      }
+      if (!(o instanceof AttributeSort)) {
+         return false;
+      }
+      final AttributeSort that = (AttributeSort) o;
+      return ascending == that.ascending && Objects.equals(attribute, that.attribute);
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash(attribute, ascending);
+   }
+
+   @Override
+   public String toString() {
+      return "AttributeSort{" +
+            "attribute='" + attribute + '\'' +
+            ", ascending=" + ascending +
+            '}';
+   }
+}
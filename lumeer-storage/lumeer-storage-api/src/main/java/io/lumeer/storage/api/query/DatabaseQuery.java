@@ -30,12 +30,14 @@ public class DatabaseQuery {
    private final Set<String> groups;
    private final Integer page;
    private final Integer pageSize;
+   private final String afterId;
 
    protected DatabaseQuery(Builder builder) {
       this.user = builder.user;
       this.groups = builder.groups;
       this.page = builder.page;
       this.pageSize = builder.pageSize;
+      this.afterId = builder.afterId;
    }
 
    public String getUser() {
@@ -54,6 +56,16 @@ public class DatabaseQuery {
       return pageSize;
    }
 
+   /**
+    * Gets the id after which the results start. Queries with this id seek directly to the requested page using
+    * the index on ids instead of skipping the previous results, the results are sorted by their ids.
+    *
+    * @return The id of the last result of the previous page or null when the results should not be sought.
+    */
+   public String getAfterId() {
+      return afterId;
+   }
+
    public static Builder createBuilder(String user) {
       return new Builder(user);
    }
@@ -64,6 +76,7 @@ public class DatabaseQuery {
       private Set<String> groups = new HashSet<>();
       private Integer page;
       private Integer pageSize;
+      private String afterId;
 
       protected Builder(String user) {
          this.user = user;
@@ -84,6 +97,11 @@ public class DatabaseQuery {
          return (T) this;
       }
 
+      public T afterId(String afterId) {
+         this.afterId = afterId;
+         return (T) this;
+      }
+
       protected void validate() {
          if ((page != null && pageSize == null) || (page == null && pageSize != null)) {
             throw new IllegalArgumentException("both page and pageSize must be set");
@@ -94,6 +112,9 @@ public class DatabaseQuery {
          if (pageSize != null && pageSize < 0) {
             throw new IllegalArgumentException("pageSize must not be negative");
          }
+         if (afterId != null && page != null && page > 0) {
+            throw new IllegalArgumentException("page must not be set together with afterId");
+         }
       }
 
       public DatabaseQuery build() {
@@ -108,4 +129,8 @@ public class DatabaseQuery {
       return page != null && pageSize != null;
    }
 
+   public boolean hasAfterId() {
+      return afterId != null;
+   }
+
 }
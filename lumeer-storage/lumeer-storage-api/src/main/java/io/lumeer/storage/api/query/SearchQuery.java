@@ -20,6 +20,7 @@ package io.lumeer.storage.api.query;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import javax.annotation.concurrent.Immutable;
 
@@ -31,6 +32,9 @@ public class SearchQuery extends DatabaseQuery {
    private final Set<String> collectionIds;
    private final Set<String> linkTypeIds;
    private final Set<String> documentIds;
+   private final Set<String> fields;
+   private final List<AttributeFilter> attributeFilters;
+   private final List<AttributeSort> attributeSorts;
 
    private SearchQuery(Builder builder) {
       super(builder);
@@ -40,6 +44,9 @@ public class SearchQuery extends DatabaseQuery {
       this.collectionIds = builder.collectionIds;
       this.linkTypeIds = builder.linkTypeIds;
       this.documentIds = builder.documentIds;
+      this.fields = builder.fields;
+      this.attributeFilters = builder.attributeFilters;
+      this.attributeSorts = builder.attributeSorts;
    }
 
    public String getFulltext() {
@@ -62,6 +69,45 @@ public class SearchQuery extends DatabaseQuery {
       return collectionIds != null ? Collections.unmodifiableSet(collectionIds) : Collections.emptySet();
    }
 
+   /**
+    * Gets the attributes of the data documents to be read, all of them are read when empty.
+    *
+    * @return names of the attributes to be read
+    */
+   public Set<String> getFields() {
+      return fields != null ? Collections.unmodifiableSet(fields) : Collections.emptySet();
+   }
+
+   public boolean hasFields() {
+      return fields != null && !fields.isEmpty();
+   }
+
+   /**
+    * Gets the conditions the data documents must all meet.
+    *
+    * @return the conditions on the data attributes
+    */
+   public List<AttributeFilter> getAttributeFilters() {
+      return attributeFilters != null ? Collections.unmodifiableList(attributeFilters) : Collections.emptyList();
+   }
+
+   public boolean hasAttributeFilters() {
+      return attributeFilters != null && !attributeFilters.isEmpty();
+   }
+
+   /**
+    * Gets the order of the data documents, the first sort takes precedence.
+    *
+    * @return the sorts by the data attributes
+    */
+   public List<AttributeSort> getAttributeSorts() {
+      return attributeSorts != null ? Collections.unmodifiableList(attributeSorts) : Collections.emptyList();
+   }
+
+   public boolean hasAttributeSorts() {
+      return attributeSorts != null && !attributeSorts.isEmpty();
+   }
+
    public boolean isFulltextQuery() {
       return fulltext != null && !fulltext.isEmpty();
    }
@@ -97,6 +143,9 @@ public class SearchQuery extends DatabaseQuery {
       private Set<String> collectionIds;
       private Set<String> linkTypeIds;
       private Set<String> documentIds;
+      private Set<String> fields;
+      private List<AttributeFilter> attributeFilters;
+      private List<AttributeSort> attributeSorts;
 
       private Builder(final String user) {
          super(user);
@@ -127,6 +176,21 @@ public class SearchQuery extends DatabaseQuery {
          return this;
       }
 
+      public Builder fields(Set<String> fields) {
+         this.fields = fields;
+         return this;
+      }
+
+      public Builder attributeFilters(List<AttributeFilter> attributeFilters) {
+         this.attributeFilters = attributeFilters;
+         return this;
+      }
+
+      public Builder attributeSorts(List<AttributeSort> attributeSorts) {
+         this.attributeSorts = attributeSorts;
+         return this;
+      }
+
       public SearchQuery build() {
          validate();
 
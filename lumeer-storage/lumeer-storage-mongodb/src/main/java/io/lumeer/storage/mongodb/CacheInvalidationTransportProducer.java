@@ -0,0 +1,55 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb;
+
+import io.lumeer.engine.annotation.SystemDataStorage;
+import io.lumeer.engine.api.cache.CacheInvalidationTransport;
+import io.lumeer.engine.api.cache.LocalCacheInvalidationTransport;
+import io.lumeer.engine.api.data.DataStorage;
+
+import com.mongodb.client.MongoDatabase;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+
+/**
+ * Produces the transport of cache invalidations selected by the <code>lumeer.cache.invalidation</code> system property.
+ * The value <code>local</code> (default) keeps the messages within the JVM, <code>mongo</code> sends them to all the nodes
+ * through a capped collection in the system database.
+ */
+@ApplicationScoped
+public class CacheInvalidationTransportProducer {
+
+   static final String TRANSPORT_PROPERTY = "lumeer.cache.invalidation";
+   static final String MONGO_TRANSPORT = "mongo";
+
+   @Inject
+   @SystemDataStorage
+   private DataStorage systemDataStorage;
+
+   @Produces
+   @ApplicationScoped
+   public CacheInvalidationTransport getCacheInvalidationTransport() {
+      if (MONGO_TRANSPORT.equals(System.getProperty(TRANSPORT_PROPERTY))) {
+         return new MongoCacheInvalidationTransport((MongoDatabase) systemDataStorage.getDatabase());
+      }
+      return new LocalCacheInvalidationTransport();
+   }
+}
@@ -0,0 +1,196 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb;
+
+import io.lumeer.engine.api.cache.CacheInvalidation;
+import io.lumeer.engine.api.cache.CacheInvalidationTransport;
+
+import com.mongodb.CursorType;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers cache invalidation messages through a capped collection. Every node inserts its messages into the collection
+ * and tails it with a tailable cursor, so the messages reach the other nodes as soon as they are written. Unlike change
+ * streams, tailable cursors work with a standalone server as well.
+ */
+public class MongoCacheInvalidationTransport implements CacheInvalidationTransport {
+
+   private static final Logger log = Logger.getLogger(MongoCacheInvalidationTransport.class.getName());
+
+   public static final String COLLECTION_NAME = "_cacheInvalidations";
+
+   private static final long COLLECTION_SIZE = 1024 * 1024;
+   private static final long RETRY_DELAY = 1000;
+   private static final int NAMESPACE_EXISTS = 48;
+
+   private static final String ID = "_id";
+   private static final String NATURAL_ORDER = "$natural";
+   private static final String ORIGIN = "origin";
+   private static final String CACHE = "cache";
+   private static final String KEY = "key";
+
+   private final MongoCollection<Document> collection;
+
+   private volatile boolean running;
+   private volatile MongoCursor<Document> cursor;
+   private Thread tailer;
+
+   public MongoCacheInvalidationTransport(final MongoDatabase database) {
+      createCappedCollection(database);
+      this.collection = database.getCollection(COLLECTION_NAME);
+   }
+
+   private static void createCappedCollection(final MongoDatabase database) {
+      try {
+         database.createCollection(COLLECTION_NAME, new CreateCollectionOptions().capped(true).sizeInBytes(COLLECTION_SIZE));
+      } catch (MongoCommandException e) {
+         if (e.getErrorCode() != NAMESPACE_EXISTS) {
+            throw e;
+         }
+      }
+   }
+
+   @Override
+   public void publish(final CacheInvalidation invalidation) {
+      collection.insertOne(new Document(ORIGIN, invalidation.getOrigin())
+            .append(CACHE, invalidation.getCacheName())
+            .append(KEY, invalidation.getKey()));
+   }
+
+   @Override
+   public boolean isClusterWide() {
+      return true;
+   }
+
+   @Override
+   public synchronized void start(final Consumer<CacheInvalidation> listener) {
+      if (tailer != null) {
+         throw new IllegalStateException("Transport has already been started");
+      }
+
+      running = true;
+      tailer = new Thread(() -> tail(listener), "cache-invalidation-tailer");
+      tailer.setDaemon(true);
+      tailer.start();
+   }
+
+   private void tail(final Consumer<CacheInvalidation> listener) {
+      // messages written before the start are not interesting, caches are empty at that time
+      ObjectId lastId = getLastId();
+
+      while (running) {
+         // a tailable cursor with a filter dies when nothing matches, so the whole collection is read and the messages
+         // up to the last processed one are skipped; when it has already been overwritten, all messages are delivered again
+         // which is harmless for an eviction
+         boolean delivered = false;
+
+         try {
+            boolean skipping = lastId != null && collection.find(Filters.eq(ID, lastId)).first() != null;
+            cursor = collection.find().cursorType(CursorType.TailableAwait).maxAwaitTime(RETRY_DELAY, TimeUnit.MILLISECONDS).iterator();
+
+            while (running && cursor.hasNext()) {
+               Document document = cursor.next();
+               ObjectId id = document.getObjectId(ID);
+               if (skipping) {
+                  skipping = !id.equals(lastId);
+                  continue;
+               }
+
+               lastId = id;
+               delivered = true;
+               deliver(listener, document);
+            }
+         } catch (MongoException | IllegalStateException e) {
+            if (running) {
+               log.log(Level.FINE, "Tailing of cache invalidations interrupted, reopening", e);
+            }
+         } finally {
+            closeCursor();
+         }
+
+         // the cursor is dead immediately on an empty collection
+         if (running && !delivered) {
+            sleep();
+         }
+      }
+   }
+
+   private ObjectId getLastId() {
+      try {
+         Document last = collection.find().sort(Sorts.descending(NATURAL_ORDER)).limit(1).first();
+         return last != null ? last.getObjectId(ID) : null;
+      } catch (MongoException e) {
+         log.log(Level.WARNING, "Unable to read cache invalidations", e);
+         return null;
+      }
+   }
+
+   private void deliver(final Consumer<CacheInvalidation> listener, final Document document) {
+      try {
+         listener.accept(new CacheInvalidation(document.getString(ORIGIN), document.getString(CACHE), document.getString(KEY)));
+      } catch (RuntimeException e) {
+         log.log(Level.WARNING, "Unable to process cache invalidation " + document.toJson(), e);
+      }
+   }
+
+   private void sleep() {
+      try {
+         Thread.sleep(RETRY_DELAY);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         running = false;
+      }
+   }
+
+   private void closeCursor() {
+      MongoCursor<Document> currentCursor = cursor;
+      if (currentCursor != null) {
+         try {
+            currentCursor.close();
+         } catch (MongoException | IllegalStateException e) {
+            // the cursor is dead anyway
+         }
+         cursor = null;
+      }
+   }
+
+   @Override
+   public synchronized void close() {
+      running = false;
+      closeCursor();
+      if (tailer != null) {
+         tailer.interrupt();
+         tailer = null;
+      }
+   }
+}
@@ -0,0 +1,150 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoCredential;
+import com.mongodb.ServerAddress;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Shares MongoDB clients, and therefore their connection pools, among data storages connecting to the same hosts
+ * with the same credentials and SSL setting. A client is closed once the last storage using it is disconnected.
+ * The options of the client are taken from the first storage that connects.
+ */
+public class MongoClientPool {
+
+   private final Map<ClientKey, SharedClient> clients = new HashMap<>();
+
+   private final Map<MongoClient, SharedClient> clientsByInstance = new IdentityHashMap<>();
+
+   /**
+    * Obtains a client for the given hosts and credentials, creating a new one only when there is no such client yet.
+    * Every acquired client must be returned by {@link #release(MongoClient)}.
+    *
+    * @param addresses
+    *       Addresses of the database hosts.
+    * @param credentials
+    *       Credentials used to connect.
+    * @param useSsl
+    *       Whether the connections use SSL.
+    * @param options
+    *       Supplies client options in case a new client is created.
+    * @return The shared client.
+    */
+   public synchronized MongoClient acquire(final List<ServerAddress> addresses, final List<MongoCredential> credentials, final boolean useSsl, final Supplier<MongoClientOptions> options) {
+      final SharedClient sharedClient = clients.computeIfAbsent(new ClientKey(addresses, credentials, useSsl), key -> {
+         final SharedClient client = new SharedClient(key, new MongoClient(addresses, credentials, options.get()));
+         clientsByInstance.put(client.client, client);
+         return client;
+      });
+      sharedClient.references++;
+
+      return sharedClient.client;
+   }
+
+   /**
+    * Returns the client obtained by {@link #acquire(List, List, boolean, Supplier)}. The client is closed when it is not used anymore.
+    *
+    * @param client
+    *       The client to release.
+    */
+   public synchronized void release(final MongoClient client) {
+      final SharedClient sharedClient = clientsByInstance.get(client);
+      if (sharedClient == null) {
+         return;
+      }
+
+      if (--sharedClient.references <= 0) {
+         clientsByInstance.remove(client);
+         clients.remove(sharedClient.key);
+         client.close();
+      }
+   }
+
+   /**
+    * Gets the number of currently open clients.
+    *
+    * @return The number of open clients.
+    */
+   public synchronized int size() {
+      return clients.size();
+   }
+
+   /**
+    * Closes all the clients regardless of their usage.
+    */
+   public synchronized void close() {
+      clientsByInstance.keySet().forEach(MongoClient::close);
+      clientsByInstance.clear();
+      clients.clear();
+   }
+
+   private static class SharedClient {
+
+      private final ClientKey key;
+      private final MongoClient client;
+      private int references = 0;
+
+      private SharedClient(final ClientKey key, final MongoClient client) {
+         this.key = key;
+         this.client = client;
+      }
+   }
+
+   private static class ClientKey {
+
+      private final List<ServerAddress> addresses;
+      private final List<MongoCredential> credentials;
+      private final boolean useSsl;
+
+      private ClientKey(final List<ServerAddress> addresses, final List<MongoCredential> credentials, final boolean useSsl) {
+         this.addresses = new ArrayList<>(addresses);
+         this.credentials = new ArrayList<>(credentials);
+         this.useSsl = useSsl;
+      }
+
+      @Override
+      public boolean equals(final Object o) {
+         if (this == o) {
+            return true;
+         }
+         if (o == null || getClass() != o.getClass()) {
+            return false;
+         }
+
+         final ClientKey that = (ClientKey) o;
+
+         return useSsl == that.useSsl && addresses.equals(that.addresses) && credentials.equals(that.credentials);
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hash(addresses, credentials, useSsl);
+      }
+   }
+}
@@ -21,6 +21,7 @@ package io.lumeer.storage.mongodb;
 import static com.mongodb.client.model.Aggregates.*;
 import static com.mongodb.client.model.Filters.eq;
 import static com.mongodb.client.model.Filters.exists;
+import static com.mongodb.client.model.Sorts.ascending;
 import static com.mongodb.client.model.Sorts.descending;
 import static com.mongodb.client.model.Updates.*;
 
@@ -34,11 +35,13 @@ import io.lumeer.engine.api.data.DataStorage;
 import io.lumeer.engine.api.data.DataStorageStats;
 import io.lumeer.engine.api.data.Query;
 import io.lumeer.engine.api.data.StorageConnection;
+import io.lumeer.engine.api.data.StoragePoolSettings;
 import io.lumeer.engine.api.exception.UnsuccessfulOperationException;
 import io.lumeer.storage.mongodb.codecs.BigDecimalCodec;
 import io.lumeer.storage.mongodb.codecs.LinkTypeCodec;
 import io.lumeer.storage.mongodb.codecs.RoleCodec;
 import io.lumeer.storage.mongodb.codecs.providers.AttributeCodecProvider;
+import io.lumeer.storage.mongodb.codecs.providers.DataDocumentCodecProvider;
 import io.lumeer.storage.mongodb.codecs.providers.LinkInstanceCodecProvider;
 import io.lumeer.storage.mongodb.codecs.providers.LinkTypeCodecProvider;
 import io.lumeer.storage.mongodb.codecs.providers.PermissionCodecProvider;
@@ -50,20 +53,26 @@ import com.mongodb.BasicDBObject;
 import com.mongodb.ErrorCategory;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoBulkWriteException;
 import com.mongodb.MongoCredential;
+import com.mongodb.MongoException;
 import com.mongodb.MongoNamespace;
 import com.mongodb.MongoWriteException;
 import com.mongodb.ServerAddress;
 import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.InsertManyOptions;
 import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 import org.bson.BsonDocument;
 import org.bson.Document;
 import org.bson.codecs.configuration.CodecRegistries;
@@ -80,6 +89,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -92,18 +102,34 @@ public class MongoDbStorage implements DataStorage {
    private static final String CURSOR_KEY = "cursor";
    private static final String FIRST_BATCH_KEY = "firstBatch";
    private static final String COLLECTION_CACHE = "collections";
+   private static final int[] UPDATE_PIPELINES_VERSION = { 4, 2 };
 
    private MongoDatabase database;
    private MongoClient mongoClient = null;
 
    private final Morphia morphia;
+   private final MongoClientPool clientPool;
    private AdvancedDatastore datastore;
 
    private long cacheLastUpdated = 0L;
+   private Boolean updatePipelinesSupported;
    private Cache<List<String>> collectionsCache;
 
    public MongoDbStorage(Morphia morphia) {
+      this(morphia, null);
+   }
+
+   /**
+    * Creates a storage that shares its client with other storages connected to the same hosts.
+    *
+    * @param morphia
+    *       Morphia mapper.
+    * @param clientPool
+    *       Pool of shared clients, when null, the storage has its own client.
+    */
+   public MongoDbStorage(Morphia morphia, MongoClientPool clientPool) {
       this.morphia = morphia;
+      this.clientPool = clientPool;
    }
 
    @Override
@@ -121,6 +147,11 @@ public class MongoDbStorage implements DataStorage {
 
    @Override
    public void connect(final List<StorageConnection> connections, final String database, final Boolean useSsl) {
+      connect(connections, database, useSsl, StoragePoolSettings.DEFAULT);
+   }
+
+   @Override
+   public void connect(final List<StorageConnection> connections, final String database, final Boolean useSsl, final StoragePoolSettings poolSettings) {
       final List<ServerAddress> addresses = new ArrayList<>();
       final List<MongoCredential> credentials = new ArrayList<>();
 
@@ -131,7 +162,24 @@ public class MongoDbStorage implements DataStorage {
          }
       });
 
-      final MongoClientOptions.Builder optionsBuilder = (new MongoClientOptions.Builder()).connectTimeout(30000);
+      if (clientPool != null) {
+         this.mongoClient = clientPool.acquire(addresses, credentials, useSsl, () -> createClientOptions(useSsl, poolSettings));
+      } else {
+         this.mongoClient = new MongoClient(addresses, credentials, createClientOptions(useSsl, poolSettings));
+      }
+      this.database = mongoClient.getDatabase(database);
+      this.updatePipelinesSupported = null;
+      this.datastore = (AdvancedDatastore) morphia.createDatastore(this.mongoClient, database);
+   }
+
+   private static MongoClientOptions createClientOptions(final boolean useSsl, final StoragePoolSettings poolSettings) {
+      final MongoClientOptions.Builder optionsBuilder = (new MongoClientOptions.Builder())
+            .connectTimeout(30000)
+            .minConnectionsPerHost(poolSettings.getMinSize())
+            .connectionsPerHost(poolSettings.getMaxSize())
+            .threadsAllowedToBlockForConnectionMultiplier(Math.max(1, (poolSettings.getMaxWaitQueueSize() + poolSettings.getMaxSize() - 1) / poolSettings.getMaxSize()))
+            .maxWaitTime(poolSettings.getMaxWaitTime())
+            .maxConnectionIdleTime(poolSettings.getMaxIdleTime());
 
       if (useSsl) {
          optionsBuilder.sslEnabled(true).socketFactory(NaiveTrustManager.getSocketFactory()).sslInvalidHostNameAllowed(true);
@@ -141,19 +189,22 @@ public class MongoDbStorage implements DataStorage {
       final CodecRegistry codecRegistry = CodecRegistries.fromCodecs(new BigDecimalCodec(), new RoleCodec());
       final CodecRegistry providersRegistry = CodecRegistries.fromProviders(
             new PermissionsCodecProvider(), new PermissionCodecProvider(), new QueryCodecProvider(), new ViewCodecProvider(),
-            new AttributeCodecProvider(), new LinkInstanceCodecProvider(), new LinkTypeCodecProvider()
+            new AttributeCodecProvider(), new LinkInstanceCodecProvider(), new LinkTypeCodecProvider(), new DataDocumentCodecProvider()
       );
       final CodecRegistry registry = CodecRegistries.fromRegistries(defaultRegistry, codecRegistry, providersRegistry);
 
-      this.mongoClient = new MongoClient(addresses, credentials, optionsBuilder.codecRegistry(registry).build());
-      this.database = mongoClient.getDatabase(database);
-      this.datastore = (AdvancedDatastore) morphia.createDatastore(this.mongoClient, database);
+      return optionsBuilder.codecRegistry(registry).build();
    }
 
    @Override
    public void disconnect() {
       if (mongoClient != null) {
-         mongoClient.close();
+         if (clientPool != null) {
+            clientPool.release(mongoClient);
+         } else {
+            mongoClient.close();
+         }
+         mongoClient = null;
       }
    }
 
@@ -325,6 +376,30 @@ public class MongoDbStorage implements DataStorage {
       }
    }
 
+   @Override
+   public void createOldDocuments(final String collectionName, final List<DataDocument> documents) throws UnsuccessfulOperationException {
+      if (documents.isEmpty()) {
+         return;
+      }
+
+      final List<Document> oldDocuments = documents.stream().map(dataDocument -> {
+         Document doc = MongoUtils.dataDocumentToDocument(new DataDocument(dataDocument));
+         doc.put(LumeerConst.Document.ID, new BasicDBObject(LumeerConst.Document.ID, new ObjectId(dataDocument.getId()))
+               .append(LumeerConst.Document.METADATA_VERSION_KEY, dataDocument.getInteger(LumeerConst.Document.METADATA_VERSION_KEY, 0)));
+         return doc;
+      }).collect(Collectors.toList());
+
+      try {
+         database.getCollection(collectionName).insertMany(oldDocuments, new InsertManyOptions().ordered(false));
+      } catch (MongoBulkWriteException e) {
+         if (e.getWriteErrors().stream().anyMatch(error -> error.getCategory().equals(ErrorCategory.DUPLICATE_KEY))) {
+            throw new UnsuccessfulOperationException(e.getMessage(), e.getCause());
+         } else {
+            throw e;
+         }
+      }
+   }
+
    @Override
    public DataDocument readDocumentIncludeAttrs(final String collectionName, final DataFilter filter, final List<String> attributes) {
       Document document = database.getCollection(collectionName).find(filter.<Bson>get()).projection(Projections.include(attributes)).limit(1).first();
@@ -348,6 +423,38 @@ public class MongoDbStorage implements DataStorage {
       database.getCollection(collectionName).updateOne(filter.<Bson>get(), updateBson, new UpdateOptions().upsert(true));
    }
 
+   @Override
+   public DataDocument updateAndReadDocument(final String collectionName, final DataFilter filter, final DataSort sort, final DataDocument updatedDocument) {
+      return updateAndReadDocument(collectionName, filter, sort, updatedDocument, new DataDocument());
+   }
+
+   @Override
+   public DataDocument updateAndReadDocument(final String collectionName, final DataFilter filter, final DataSort sort, final DataDocument updatedDocument, final DataDocument incrementedAttributes) {
+      DataDocument toUpdate = new DataDocument(updatedDocument);
+      toUpdate.remove(LumeerConst.Document.ID);
+
+      FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
+      if (sort != null) {
+         options.sort(sort.<Bson>get());
+      }
+
+      BasicDBObject update = new BasicDBObject("$set", new BasicDBObject(toUpdate));
+      if (!incrementedAttributes.isEmpty()) {
+         update.append("$inc", new BasicDBObject(incrementedAttributes));
+      }
+
+      Document document = database.getCollection(collectionName).findOneAndUpdate(filter.<Bson>get(), update, options);
+      return document != null ? MongoUtils.convertDocument(document) : null;
+   }
+
+   @Override
+   public long updateManyDocuments(final String collectionName, final DataFilter filter, final DataDocument updatedDocument) {
+      DataDocument toUpdate = new DataDocument(updatedDocument);
+      toUpdate.remove(LumeerConst.Document.ID);
+
+      return database.getCollection(collectionName).updateMany(filter.<Bson>get(), new BasicDBObject("$set", new BasicDBObject(toUpdate))).getModifiedCount();
+   }
+
    @Override
    public void replaceDocument(final String collectionName, final DataDocument replaceDocument, final DataFilter filter) {
       DataDocument toReplace = new DataDocument(replaceDocument);
@@ -587,6 +694,77 @@ public class MongoDbStorage implements DataStorage {
       return result;
    }
 
+   @Override
+   public void processDocuments(final String collectionName, final DataFilter filter, final int batchSize, final Consumer<List<DataDocument>> consumer) {
+      final Bson query = filter != null ? filter.<Bson>get() : new Document();
+
+      try (MongoCursor<Document> cursor = database.getCollection(collectionName).find(query).sort(ascending(LumeerConst.Document.ID)).batchSize(batchSize).iterator()) {
+         List<DataDocument> batch = new ArrayList<>(batchSize);
+
+         while (cursor.hasNext()) {
+            batch.add(MongoUtils.convertDocument(cursor.next()));
+
+            if (batch.size() >= batchSize) {
+               consumer.accept(batch);
+               batch = new ArrayList<>(batchSize);
+            }
+         }
+
+         if (!batch.isEmpty()) {
+            consumer.accept(batch);
+         }
+      }
+   }
+
+   @Override
+   public void updateDocuments(final String collectionName, final List<DataDocument> updatedDocuments, final List<String> droppedAttributes) {
+      if (updatedDocuments.isEmpty()) {
+         return;
+      }
+
+      final List<WriteModel<Document>> updates = updatedDocuments.stream().map(document -> {
+         final List<Bson> changes = new ArrayList<>();
+         document.entrySet().stream()
+                 .filter(entry -> !LumeerConst.Document.ID.equals(entry.getKey()))
+                 .forEach(entry -> changes.add(set(entry.getKey(), entry.getValue())));
+         droppedAttributes.stream()
+                          .filter(attribute -> !document.containsKey(attribute))
+                          .forEach(attribute -> changes.add(unset(attribute)));
+
+         return new UpdateOneModel<Document>(eq(LumeerConst.Document.ID, new ObjectId(document.getId())), combine(changes));
+      }).collect(Collectors.toList());
+
+      database.getCollection(collectionName).bulkWrite(updates, new BulkWriteOptions().ordered(false));
+   }
+
+   @Override
+   public boolean supportsUpdatePipelines() {
+      if (updatePipelinesSupported == null) {
+         final List<Integer> version = (List<Integer>) database.runCommand(new Document("buildInfo", 1)).get("versionArray");
+         updatePipelinesSupported = version != null && version.size() >= 2
+               && (version.get(0) > UPDATE_PIPELINES_VERSION[0] || (version.get(0) == UPDATE_PIPELINES_VERSION[0] && version.get(1) >= UPDATE_PIPELINES_VERSION[1]));
+      }
+
+      return updatePipelinesSupported;
+   }
+
+   @Override
+   public long updateDocuments(final String collectionName, final DataFilter filter, final DataDocument... stages) {
+      final Bson query = filter != null ? filter.<Bson>get() : new Document();
+      final Document update = new Document("q", query.toBsonDocument(BsonDocument.class, database.getCodecRegistry()))
+            .append("u", Arrays.stream(stages).map(MongoUtils::dataDocumentToDocument).collect(Collectors.toList()))
+            .append("multi", true);
+
+      final Document result = database.runCommand(new Document("update", collectionName).append("updates", Collections.singletonList(update)));
+
+      final List<Document> writeErrors = (List<Document>) result.get("writeErrors");
+      if (writeErrors != null && !writeErrors.isEmpty()) {
+         throw new MongoException(writeErrors.get(0).getInteger("code", -1), writeErrors.get(0).getString("errmsg"));
+      }
+
+      return ((Number) result.get("nModified", 0)).longValue();
+   }
+
    @Override
    public void incrementAttributeValueBy(final String collectionName, final DataFilter filter, final String attributeName, final int incBy) {
       database.getCollection(collectionName).updateOne(filter.<Bson>get(), inc(attributeName, incBy));
@@ -21,6 +21,8 @@ package io.lumeer.storage.mongodb;
 import static com.mongodb.client.model.Filters.*;
 
 import io.lumeer.engine.api.LumeerConst;
+import io.lumeer.engine.api.batch.MergeBatch;
+import io.lumeer.engine.api.batch.SplitBatch;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.engine.api.data.DataFilter;
 import io.lumeer.engine.api.data.DataSort;
@@ -29,11 +31,14 @@ import io.lumeer.engine.api.data.DataStorageDialect;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.Sorts;
 import org.bson.BsonDocument;
+import org.bson.BsonType;
+import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +51,10 @@ import javax.enterprise.context.ApplicationScoped;
 @ApplicationScoped
 public class MongoDbStorageDialect implements DataStorageDialect {
 
+   private static final String BATCH_PARTS = LumeerConst.Document.METADATA_PREFIX + "batch-parts";
+
+   private static final List<String> TEXTUAL_TYPES = Arrays.asList("string", "int", "long", "bool", "null");
+
    @Override
    public DataDocument renameAttributeQuery(final String metadataCollection, final String collection, final String oldName, final String newName) {
       return new DataDocument()
@@ -78,6 +87,117 @@ public class MongoDbStorageDialect implements DataStorageDialect {
             new DataDocument("$project", new DataDocument(LumeerConst.UserGroup.ATTR_USERS_USER, concatFields("$" + LumeerConst.UserGroup.ATTR_USERS, LumeerConst.UserGroup.ATTR_USERS_USER))) };
    }
 
+   @Override
+   public DataDocument[] backUpDocumentsAggregate(final String shadowCollection) {
+      return new DataDocument[] {
+            new DataDocument("$addFields", new DataDocument(LumeerConst.Document.METADATA_VERSION_KEY, ifNull("$" + LumeerConst.Document.METADATA_VERSION_KEY, 0))),
+            new DataDocument("$addFields", new DataDocument()
+                  .append(LumeerConst.Document.ID, new DataDocument()
+                        .append(LumeerConst.Document.ID, "$" + LumeerConst.Document.ID)
+                        .append(LumeerConst.Document.METADATA_VERSION_KEY, "$" + LumeerConst.Document.METADATA_VERSION_KEY))
+                  .append(LumeerConst.Document.SHADOW_BACKUP_DATE_KEY, "$$NOW")),
+            new DataDocument("$merge", new DataDocument()
+                  .append("into", shadowCollection)
+                  .append("whenMatched", "fail")
+                  .append("whenNotMatched", "insert")) };
+   }
+
+   @Override
+   public DataDocument[] mergeBatchUpdate(final MergeBatch batch, final DataDocument updatedValues) {
+      final List<Object> values = batch.getAttributes().stream().map(attribute -> "$" + attribute).collect(Collectors.toList());
+      final Object result;
+
+      if (batch.getMergeType() == MergeBatch.MergeType.JOIN) {
+         result = new DataDocument("$reduce", new DataDocument()
+               .append("input", new DataDocument("$filter", new DataDocument()
+                     .append("input", values)
+                     .append("cond", new DataDocument("$ne", Arrays.asList("$$this", null)))))
+               .append("initialValue", "")
+               .append("in", new DataDocument("$concat", Arrays.asList(
+                     "$$value",
+                     new DataDocument("$cond", Arrays.asList(new DataDocument("$eq", Arrays.asList("$$value", "")), "", literal(String.valueOf(batch.getJoin())))),
+                     toStringValue("$$this")))));
+      } else if (batch.getMergeType() == MergeBatch.MergeType.SUM) {
+         result = new DataDocument("$sum", values);
+      } else {
+         final DataDocument subDocument = new DataDocument();
+         batch.getAttributes().forEach(attribute -> subDocument.append(attribute, ifNull("$" + attribute, "$$REMOVE")));
+         result = subDocument;
+      }
+
+      final List<String> droppedAttributes = batch.isKeepOriginal() ? Collections.emptyList() : batch.getAttributes().stream()
+                                                                                                      .filter(attribute -> !attribute.equals(batch.getResultAttribute()))
+                                                                                                      .collect(Collectors.toList());
+
+      return updateStages(new DataDocument(batch.getResultAttribute(), result), updatedValues, droppedAttributes);
+   }
+
+   @Override
+   public DataDocument[] splitBatchUpdate(final SplitBatch batch, final DataDocument updatedValues) {
+      final String parts = "$" + BATCH_PARTS;
+      final int limit = batch.getSplitAttributes().size();
+
+      final DataDocument splitValues = new DataDocument();
+      for (int i = 0; i < limit; i++) {
+         // the last attribute gets the rest of the value like String.split(regex, limit) does
+         final Object part = i < limit - 1 ? new DataDocument("$arrayElemAt", Arrays.asList(parts, i)) :
+               new DataDocument("$reduce", new DataDocument()
+                     .append("input", new DataDocument("$slice", Arrays.asList(parts, i, Integer.MAX_VALUE)))
+                     .append("initialValue", null)
+                     .append("in", new DataDocument("$cond", Arrays.asList(
+                           new DataDocument("$eq", Arrays.asList("$$value", null)),
+                           "$$this",
+                           new DataDocument("$concat", Arrays.asList("$$value", literal(batch.getDelimiter()), "$$this"))))));
+
+         splitValues.append(batch.getSplitAttributes().get(i), new DataDocument("$cond", Arrays.asList(
+               new DataDocument("$gt", Arrays.asList(new DataDocument("$size", parts), i)),
+               batch.isTrim() ? new DataDocument("$trim", new DataDocument("input", part)) : part,
+               "$$REMOVE")));
+      }
+
+      final List<String> droppedAttributes = new ArrayList<>(Collections.singletonList(BATCH_PARTS));
+      if (!batch.isKeepOriginal() && !batch.getSplitAttributes().contains(batch.getAttribute())) {
+         droppedAttributes.add(batch.getAttribute());
+      }
+
+      final DataDocument[] stages = updateStages(splitValues, updatedValues, droppedAttributes);
+      final DataDocument[] result = new DataDocument[stages.length + 1];
+      result[0] = new DataDocument("$set", new DataDocument(BATCH_PARTS, new DataDocument("$cond", Arrays.asList(
+            new DataDocument("$eq", Arrays.asList(ifNull("$" + batch.getAttribute(), null), null)),
+            Collections.emptyList(),
+            new DataDocument("$split", Arrays.asList(toStringValue("$" + batch.getAttribute()), literal(batch.getDelimiter())))))));
+      System.arraycopy(stages, 0, result, 1, stages.length);
+
+      return result;
+   }
+
+   private DataDocument[] updateStages(final DataDocument values, final DataDocument updatedValues, final List<String> droppedAttributes) {
+      final DataDocument set = new DataDocument(values);
+      updatedValues.forEach((key, value) -> set.append(key, literal(value)));
+      set.append(LumeerConst.Document.METADATA_VERSION_KEY, new DataDocument("$add", Arrays.asList(ifNull("$" + LumeerConst.Document.METADATA_VERSION_KEY, 0), 1)));
+
+      if (droppedAttributes.isEmpty()) {
+         return new DataDocument[] { new DataDocument("$set", set) };
+      }
+
+      return new DataDocument[] { new DataDocument("$set", set), new DataDocument("$unset", droppedAttributes) };
+   }
+
+   private static DataDocument ifNull(final Object value, final Object replacement) {
+      return new DataDocument("$ifNull", Arrays.asList(value, replacement));
+   }
+
+   private static DataDocument literal(final Object value) {
+      return new DataDocument("$literal", value);
+   }
+
+   private static DataDocument toStringValue(final Object value) {
+      return new DataDocument("$convert", new DataDocument()
+            .append("input", value)
+            .append("to", "string")
+            .append("onError", ""));
+   }
+
    private DataFilter createFilter(final Bson filter) {
       return new MongoDbDataFilter(filter);
    }
@@ -87,6 +207,23 @@ public class MongoDbStorageDialect implements DataStorageDialect {
       return createFilter(eq(fieldName, value));
    }
 
+   @Override
+   public DataFilter fieldExistsFilter(final String fieldName) {
+      return createFilter(exists(fieldName));
+   }
+
+   @Override
+   public DataFilter fieldNonTextualValueFilter(final String fieldName) {
+      // an array matches the types of its elements, so it is looked for separately
+      return createFilter(or(type(fieldName, BsonType.ARRAY),
+            new Document(fieldName, new Document("$exists", true).append("$not", new Document("$type", TEXTUAL_TYPES)))));
+   }
+
+   @Override
+   public DataFilter fieldValuesFilter(final String fieldName, final Collection<?> values) {
+      return createFilter(in(fieldName, values));
+   }
+
    @Override
    public DataFilter fieldValueWildcardFilter(final String fieldName, final Object valuePart) {
       return createFilter(regex(fieldName, ".*" + valuePart + ".*", "gi"));
@@ -117,6 +254,11 @@ public class MongoDbStorageDialect implements DataStorageDialect {
       return fieldValueFilter(LumeerConst.Document.ID, new ObjectId(documentId));
    }
 
+   @Override
+   public DataFilter documentIdsFilter(final Collection<String> documentIds) {
+      return fieldValuesFilter(LumeerConst.Document.ID, documentIds.stream().map(ObjectId::new).collect(Collectors.toList()));
+   }
+
    @Override
    public DataFilter multipleFieldsValueFilter(final Map<String, Object> fields) {
       List<Bson> bsons = new ArrayList<>();
@@ -22,31 +22,77 @@ import io.lumeer.engine.api.cache.CacheProvider;
 import io.lumeer.engine.api.data.DataStorage;
 import io.lumeer.engine.api.data.DataStorageFactory;
 import io.lumeer.engine.api.data.StorageConnection;
+import io.lumeer.engine.api.data.StoragePoolSettings;
 import io.lumeer.storage.mongodb.model.MorphiaView;
+import io.lumeer.storage.mongodb.util.PermissionsReadersMigration;
 
 import org.mongodb.morphia.Morphia;
 
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 
 @ApplicationScoped
 public class MongoDbStorageFactory implements DataStorageFactory {
 
+   private static final Logger log = Logger.getLogger(MongoDbStorageFactory.class.getName());
+
    private Morphia morphia;
 
+   private MongoClientPool clientPool = new MongoClientPool();
+
+   /**
+    * Databases already migrated by this node identified by their hosts and names.
+    */
+   private Set<String> migratedDatabases = ConcurrentHashMap.newKeySet();
+
    @PostConstruct
    public void init() {
       morphia = new Morphia().mapPackage(MorphiaView.class.getPackage().getName());
       morphia.getMapper().getOptions().setStoreEmpties(true);
    }
 
+   @PreDestroy
+   public void close() {
+      clientPool.close();
+   }
+
    @Override
    public DataStorage getStorage(final CacheProvider cacheProvider, final List<StorageConnection> connections, final String database, final Boolean useSsl) {
-      final DataStorage storage = new MongoDbStorage(morphia);
+      return getStorage(cacheProvider, connections, database, useSsl, StoragePoolSettings.DEFAULT);
+   }
+
+   @Override
+   public DataStorage getStorage(final CacheProvider cacheProvider, final List<StorageConnection> connections, final String database, final Boolean useSsl, final StoragePoolSettings poolSettings) {
+      final DataStorage storage = new MongoDbStorage(morphia, clientPool);
       storage.setCacheProvider(cacheProvider);
-      storage.connect(connections, database, useSsl);
+      storage.connect(connections, database, useSsl, poolSettings);
+      migrate((MongoDbStorage) storage, connections, database);
 
       return storage;
    }
+
+   // runs the data migrations once per database, the migrations skip the data already migrated by other nodes
+   private void migrate(final MongoDbStorage storage, final List<StorageConnection> connections, final String database) {
+      final String databaseKey = connections.stream().map(connection -> connection.getHost() + ":" + connection.getPort()).collect(Collectors.joining(",")) + "/" + database;
+      if (!migratedDatabases.add(databaseKey)) {
+         return;
+      }
+
+      try {
+         final long updated = PermissionsReadersMigration.migrate(storage.getDatabase());
+         if (updated > 0) {
+            log.info("Backfilled readers of " + updated + " resources in " + databaseKey);
+         }
+      } catch (RuntimeException e) {
+         migratedDatabases.remove(databaseKey);
+         log.log(Level.WARNING, "Unable to backfill readers of resources in " + databaseKey, e);
+      }
+   }
 }
@@ -49,7 +49,9 @@ public class MongoUtils {
 
    public static List<DataDocument> convertIterableToList(MongoIterable<Document> documents) {
       final List<DataDocument> result = new ArrayList<>();
-      documents.into(new ArrayList<>()).forEach(d -> result.add(MongoUtils.convertDocument(d)));
+      for (Document document : documents) {
+         result.add(MongoUtils.convertDocument(document));
+      }
 
       return result;
    }
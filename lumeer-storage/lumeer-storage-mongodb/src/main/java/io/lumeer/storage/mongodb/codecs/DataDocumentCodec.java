@@ -0,0 +1,246 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.codecs;
+
+import io.lumeer.engine.api.LumeerConst;
+import io.lumeer.engine.api.data.DataDocument;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinarySubType;
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonString;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonTypeClassMap;
+import org.bson.codecs.BsonTypeCodecMap;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.RawBsonDocumentCodec;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.io.BsonInput;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Decodes BSON straight into {@link DataDocument} without the intermediate {@link org.bson.Document}.
+ * Nested documents become {@link DataDocument}s and the document id is converted to its hex string, so the result
+ * is the same as of {@link io.lumeer.storage.mongodb.MongoUtils#convertDocument(org.bson.Document)}.
+ * Nested documents larger than the configured threshold are kept in their raw form and decoded on the first access.
+ */
+public class DataDocumentCodec implements CollectibleCodec<DataDocument> {
+
+   public static final String ID = LumeerConst.Document.ID;
+
+   private static final RawBsonDocumentCodec RAW_CODEC = new RawBsonDocumentCodec();
+
+   private final CodecRegistry registry;
+   private final BsonTypeCodecMap bsonTypeCodecMap;
+   private final int lazyDecodingThreshold;
+
+   public DataDocumentCodec(final CodecRegistry registry) {
+      this(registry, 0);
+   }
+
+   /**
+    * @param registry
+    *       Registry used for values other than documents and arrays.
+    * @param lazyDecodingThreshold
+    *       Size in bytes from which nested documents are decoded lazily, zero disables the lazy decoding.
+    */
+   public DataDocumentCodec(final CodecRegistry registry, final int lazyDecodingThreshold) {
+      this.registry = registry;
+      this.bsonTypeCodecMap = new BsonTypeCodecMap(new BsonTypeClassMap(), registry);
+      this.lazyDecodingThreshold = lazyDecodingThreshold;
+   }
+
+   @Override
+   public DataDocument decode(final BsonReader reader, final DecoderContext decoderContext) {
+      return readDocument(reader, decoderContext, true);
+   }
+
+   private DataDocument readDocument(final BsonReader reader, final DecoderContext decoderContext, final boolean convertId) {
+      final DataDocument document = new DataDocument();
+
+      reader.readStartDocument();
+      while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+         final String name = reader.readName();
+         if (convertId && ID.equals(name)) {
+            document.put(name, readId(reader, decoderContext));
+         } else {
+            document.put(name, readValue(reader, decoderContext));
+         }
+      }
+      reader.readEndDocument();
+
+      return document;
+   }
+
+   private Object readId(final BsonReader reader, final DecoderContext decoderContext) {
+      final BsonType bsonType = reader.getCurrentBsonType();
+      if (bsonType == BsonType.OBJECT_ID) { // classic document
+         return reader.readObjectId().toHexString();
+      } else if (bsonType == BsonType.DOCUMENT) { // shadow document
+         return readDocument(reader, decoderContext, true);
+      }
+      return readValue(reader, decoderContext);
+   }
+
+   private Object readValue(final BsonReader reader, final DecoderContext decoderContext) {
+      final BsonType bsonType = reader.getCurrentBsonType();
+      if (bsonType == BsonType.NULL) {
+         reader.readNull();
+         return null;
+      } else if (bsonType == BsonType.DOCUMENT) {
+         if (isLazilyDecoded(reader)) {
+            return new LazyDataDocument(RAW_CODEC.decode(reader, decoderContext), this);
+         }
+         return readDocument(reader, decoderContext, false);
+      } else if (bsonType == BsonType.ARRAY) {
+         return readList(reader, decoderContext);
+      } else if (bsonType == BsonType.BINARY && BsonBinarySubType.isUuid(reader.peekBinarySubType()) && reader.peekBinarySize() == 16) {
+         return registry.get(UUID.class).decode(reader, decoderContext);
+      }
+      return bsonTypeCodecMap.get(bsonType).decode(reader, decoderContext);
+   }
+
+   private List<Object> readList(final BsonReader reader, final DecoderContext decoderContext) {
+      final List<Object> list = new ArrayList<>();
+
+      reader.readStartArray();
+      while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+         list.add(readValue(reader, decoderContext));
+      }
+      reader.readEndArray();
+
+      return list;
+   }
+
+   private boolean isLazilyDecoded(final BsonReader reader) {
+      if (lazyDecodingThreshold <= 0 || !(reader instanceof BsonBinaryReader)) {
+         return false;
+      }
+
+      // the size of the embedded document is its first four bytes
+      final BsonInput input = ((BsonBinaryReader) reader).getBsonInput();
+      input.mark(4);
+      final int size = input.readInt32();
+      input.reset();
+
+      return size >= lazyDecodingThreshold;
+   }
+
+   /**
+    * Decodes the raw document kept by a {@link LazyDataDocument}.
+    *
+    * @param rawDocument
+    *       Raw document to decode.
+    * @return The decoded document.
+    */
+   DataDocument decodeRaw(final RawBsonDocument rawDocument) {
+      return rawDocument.decode((reader, decoderContext) -> readDocument(reader, decoderContext, false));
+   }
+
+   @Override
+   public void encode(final BsonWriter writer, final DataDocument value, final EncoderContext encoderContext) {
+      writer.writeStartDocument();
+
+      final Object id = value.get(ID);
+      if (id != null) {
+         writer.writeName(ID);
+         if (id instanceof String && ObjectId.isValid((String) id)) {
+            writer.writeObjectId(new ObjectId((String) id));
+         } else {
+            writeValue(writer, id, encoderContext);
+         }
+      }
+
+      for (final Map.Entry<String, Object> entry : value.entrySet()) {
+         if (!ID.equals(entry.getKey())) {
+            writer.writeName(entry.getKey());
+            writeValue(writer, entry.getValue(), encoderContext);
+         }
+      }
+
+      writer.writeEndDocument();
+   }
+
+   @SuppressWarnings("unchecked")
+   private void writeValue(final BsonWriter writer, final Object value, final EncoderContext encoderContext) {
+      if (value == null) {
+         writer.writeNull();
+      } else if (value instanceof LazyDataDocument && !((LazyDataDocument) value).isDecoded()) {
+         encoderContext.encodeWithChildContext(RAW_CODEC, writer, ((LazyDataDocument) value).getRawDocument());
+      } else if (value instanceof Map) {
+         writeMap(writer, (Map<String, Object>) value, encoderContext);
+      } else if (value instanceof Iterable) {
+         writer.writeStartArray();
+         for (final Object item : (Iterable<Object>) value) {
+            writeValue(writer, item, encoderContext);
+         }
+         writer.writeEndArray();
+      } else {
+         encoderContext.encodeWithChildContext(registry.get((Class<Object>) value.getClass()), writer, value);
+      }
+   }
+
+   private void writeMap(final BsonWriter writer, final Map<String, Object> map, final EncoderContext encoderContext) {
+      writer.writeStartDocument();
+      for (final Map.Entry<String, Object> entry : map.entrySet()) {
+         writer.writeName(entry.getKey());
+         writeValue(writer, entry.getValue(), encoderContext);
+      }
+      writer.writeEndDocument();
+   }
+
+   @Override
+   public Class<DataDocument> getEncoderClass() {
+      return DataDocument.class;
+   }
+
+   @Override
+   public DataDocument generateIdIfAbsentFromDocument(final DataDocument document) {
+      if (!documentHasId(document)) {
+         document.setId(new ObjectId().toHexString());
+      }
+      return document;
+   }
+
+   @Override
+   public boolean documentHasId(final DataDocument document) {
+      return document.containsKey(ID);
+   }
+
+   @Override
+   public BsonValue getDocumentId(final DataDocument document) {
+      if (!documentHasId(document)) {
+         throw new IllegalStateException("The document does not contain an id");
+      }
+
+      final Object id = document.get(ID);
+      return id instanceof String && ObjectId.isValid((String) id) ? new BsonObjectId(new ObjectId((String) id)) : new BsonString(String.valueOf(id));
+   }
+}
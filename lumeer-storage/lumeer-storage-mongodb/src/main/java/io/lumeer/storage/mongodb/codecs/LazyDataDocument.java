@@ -0,0 +1,223 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.codecs;
+
+import io.lumeer.engine.api.data.DataDocument;
+
+import org.bson.RawBsonDocument;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Nested {@link DataDocument} that keeps its raw BSON until any of its entries is accessed.
+ * When it is written back untouched, the raw BSON is copied as it is.
+ */
+class LazyDataDocument extends DataDocument {
+
+   private final transient DataDocumentCodec codec;
+   private transient RawBsonDocument rawDocument;
+
+   LazyDataDocument(final RawBsonDocument rawDocument, final DataDocumentCodec codec) {
+      this.rawDocument = rawDocument;
+      this.codec = codec;
+   }
+
+   boolean isDecoded() {
+      return rawDocument == null;
+   }
+
+   RawBsonDocument getRawDocument() {
+      return rawDocument;
+   }
+
+   private void decode() {
+      if (rawDocument != null) {
+         final RawBsonDocument raw = rawDocument;
+         rawDocument = null;
+         super.putAll(codec.decodeRaw(raw));
+      }
+   }
+
+   @Override
+   public int size() {
+      decode();
+      return super.size();
+   }
+
+   @Override
+   public boolean isEmpty() {
+      decode();
+      return super.isEmpty();
+   }
+
+   @Override
+   public boolean containsKey(final Object key) {
+      decode();
+      return super.containsKey(key);
+   }
+
+   @Override
+   public boolean containsValue(final Object value) {
+      decode();
+      return super.containsValue(value);
+   }
+
+   @Override
+   public Object get(final Object key) {
+      decode();
+      return super.get(key);
+   }
+
+   @Override
+   public Object getOrDefault(final Object key, final Object defaultValue) {
+      decode();
+      return super.getOrDefault(key, defaultValue);
+   }
+
+   @Override
+   public Object put(final String key, final Object value) {
+      decode();
+      return super.put(key, value);
+   }
+
+   @Override
+   public void putAll(final Map<? extends String, ?> map) {
+      decode();
+      super.putAll(map);
+   }
+
+   @Override
+   public Object putIfAbsent(final String key, final Object value) {
+      decode();
+      return super.putIfAbsent(key, value);
+   }
+
+   @Override
+   public Object remove(final Object key) {
+      decode();
+      return super.remove(key);
+   }
+
+   @Override
+   public boolean remove(final Object key, final Object value) {
+      decode();
+      return super.remove(key, value);
+   }
+
+   @Override
+   public Object replace(final String key, final Object value) {
+      decode();
+      return super.replace(key, value);
+   }
+
+   @Override
+   public boolean replace(final String key, final Object oldValue, final Object newValue) {
+      decode();
+      return super.replace(key, oldValue, newValue);
+   }
+
+   @Override
+   public void replaceAll(final BiFunction<? super String, ? super Object, ?> function) {
+      decode();
+      super.replaceAll(function);
+   }
+
+   @Override
+   public Object computeIfAbsent(final String key, final Function<? super String, ?> mappingFunction) {
+      decode();
+      return super.computeIfAbsent(key, mappingFunction);
+   }
+
+   @Override
+   public Object computeIfPresent(final String key, final BiFunction<? super String, ? super Object, ?> remappingFunction) {
+      decode();
+      return super.computeIfPresent(key, remappingFunction);
+   }
+
+   @Override
+   public Object compute(final String key, final BiFunction<? super String, ? super Object, ?> remappingFunction) {
+      decode();
+      return super.compute(key, remappingFunction);
+   }
+
+   @Override
+   public Object merge(final String key, final Object value, final BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+      decode();
+      return super.merge(key, value, remappingFunction);
+   }
+
+   @Override
+   public void clear() {
+      rawDocument = null;
+      super.clear();
+   }
+
+   @Override
+   public Set<String> keySet() {
+      decode();
+      return super.keySet();
+   }
+
+   @Override
+   public Collection<Object> values() {
+      decode();
+      return super.values();
+   }
+
+   @Override
+   public Set<Map.Entry<String, Object>> entrySet() {
+      decode();
+      return super.entrySet();
+   }
+
+   @Override
+   public void forEach(final BiConsumer<? super String, ? super Object> action) {
+      decode();
+      super.forEach(action);
+   }
+
+   @Override
+   public boolean equals(final Object compared) {
+      decode();
+      return super.equals(compared);
+   }
+
+   @Override
+   public int hashCode() {
+      decode();
+      return super.hashCode();
+   }
+
+   @Override
+   public String toString() {
+      decode();
+      return super.toString();
+   }
+
+   @Override
+   public Object clone() {
+      decode();
+      return super.clone();
+   }
+}
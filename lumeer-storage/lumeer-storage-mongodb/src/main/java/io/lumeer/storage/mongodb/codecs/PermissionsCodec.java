@@ -21,6 +21,7 @@ package io.lumeer.storage.mongodb.codecs;
 
 import io.lumeer.api.dto.JsonPermissions;
 import io.lumeer.api.model.Permission;
+import io.lumeer.storage.mongodb.util.PermissionsReaders;
 
 import org.bson.BsonReader;
 import org.bson.BsonWriter;
@@ -38,6 +39,7 @@ public class PermissionsCodec implements Codec<JsonPermissions> {
 
    public static final String USER_ROLES = "users";
    public static final String GROUP_ROLES = "groups";
+   public static final String READERS = PermissionsReaders.READERS;
 
    private final Codec<Document> documentCodec;
 
@@ -74,7 +76,8 @@ public class PermissionsCodec implements Codec<JsonPermissions> {
    public void encode(final BsonWriter writer, final JsonPermissions value, final EncoderContext encoderContext) {
       Set<Permission> userPermissions = value.getUserPermissions();
       Set<Permission> groupPermissions = value.getGroupPermissions();
-      Document bson = new Document(USER_ROLES, userPermissions).append(GROUP_ROLES, groupPermissions);
+      Document bson = new Document(USER_ROLES, userPermissions).append(GROUP_ROLES, groupPermissions)
+                                                              .append(READERS, PermissionsReaders.getReaders(value));
 
       documentCodec.encode(writer, bson, encoderContext);
    }
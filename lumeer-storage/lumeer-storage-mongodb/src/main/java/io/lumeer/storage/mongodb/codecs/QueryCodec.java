@@ -45,6 +45,7 @@ public class QueryCodec implements Codec<JsonQuery> {
    public static final String FULLTEXT = "fulltext";
    public static final String PAGE = "page";
    public static final String PAGE_SIZE = "pageSize";
+   public static final String FIELDS = "fields";
 
    private final Codec<Document> documentCodec;
 
@@ -72,8 +73,9 @@ public class QueryCodec implements Codec<JsonQuery> {
       String fulltext = bson.getString(FULLTEXT);
       Integer page = bson.getInteger(PAGE);
       Integer pageSize = bson.getInteger(PAGE_SIZE);
+      Set<String> fields = convertToSet(bson.get(FIELDS, List.class));
 
-      return new JsonQuery(collectionCodes, filters, collectionIds, linkTypeIds, documentIds, fulltext, page, pageSize);
+      return new JsonQuery(collectionCodes, filters, collectionIds, linkTypeIds, documentIds, fulltext, page, pageSize, fields);
    }
 
    private static Set<String> convertToSet(List list) {
@@ -90,7 +92,8 @@ public class QueryCodec implements Codec<JsonQuery> {
             .append(DOCUMENT_IDS, new ArrayList<>(value.getDocumentIds()))
             .append(FULLTEXT, value.getFulltext())
             .append(PAGE, value.getPage())
-            .append(PAGE_SIZE, value.getPageSize());
+            .append(PAGE_SIZE, value.getPageSize())
+            .append(FIELDS, new ArrayList<>(value.getFields()));
 
       documentCodec.encode(writer, document, encoderContext);
    }
@@ -18,12 +18,11 @@
  */
 package io.lumeer.storage.mongodb.dao;
 
-import io.lumeer.api.model.Role;
 import io.lumeer.storage.api.query.DatabaseQuery;
 import io.lumeer.storage.api.query.SuggestionQuery;
-import io.lumeer.storage.mongodb.model.MorphiaView;
-import io.lumeer.storage.mongodb.model.embedded.MorphiaPermission;
+import io.lumeer.storage.mongodb.model.common.MorphiaResource;
 import io.lumeer.storage.mongodb.model.embedded.MorphiaPermissions;
+import io.lumeer.storage.mongodb.util.PermissionsReaders;
 
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoDatabase;
@@ -32,10 +31,6 @@ import org.mongodb.morphia.query.Criteria;
 import org.mongodb.morphia.query.FindOptions;
 import org.mongodb.morphia.query.Query;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 public abstract class MongoDao {
 
    protected MongoDatabase database;
@@ -49,30 +44,24 @@ public abstract class MongoDao {
       this.datastore = datastore;
    }
 
-   protected <T> Criteria[] createPermissionsCriteria(Query<T> mongoQuery, DatabaseQuery databaseQuery) {
-      List<Criteria> criteria = new ArrayList<>();
-      criteria.add(createUserCriteria(mongoQuery, databaseQuery.getUser()));
-      databaseQuery.getGroups().forEach(group -> criteria.add(createGroupCriteria(mongoQuery, group)));
-      return criteria.toArray(new Criteria[] {});
-   }
-
-   private <T> Criteria createUserCriteria(Query<T> query, String user) {
-      return query.criteria(MorphiaView.PERMISSIONS + "." + MorphiaPermissions.USER_ROLES)
-                  .elemMatch(createPermissionQuery(user));
+   /**
+    * Creates criteria matching the resources readable by the user of the query, see {@link PermissionsReaders}.
+    */
+   protected <T> Criteria createPermissionsCriteria(Query<T> mongoQuery, DatabaseQuery databaseQuery) {
+      return mongoQuery.criteria(MorphiaResource.PERMISSIONS + "." + MorphiaPermissions.READERS).in(PermissionsReaders.getPrincipals(databaseQuery));
    }
 
-   private <T> Criteria createGroupCriteria(Query<T> query, String group) {
-      return query.criteria(MorphiaView.PERMISSIONS + "." + MorphiaPermissions.GROUP_ROLES)
-                  .elemMatch(createPermissionQuery(group));
-   }
+   public <T> void addPaginationToSuggestionQuery(FindIterable<T> findIterable, SuggestionQuery query) {
+      Integer page = query.getPage();
+      Integer pageSize = query.getPageSize();
 
-   private Query<MorphiaPermission> createPermissionQuery(String name) {
-      return datastore.createQuery(MorphiaPermission.class)
-                      .filter(MorphiaPermission.NAME, name)
-                      .field(MorphiaPermission.ROLES).in(Collections.singleton(Role.READ.toString()));
+      if (page != null && pageSize != null) {
+         findIterable.skip(page * pageSize)
+                     .limit(pageSize);
+      }
    }
 
-   public <T> void addPaginationToSuggestionQuery(FindIterable<T> findIterable, SuggestionQuery query) {
+   public <T> void addPaginationToQuery(FindIterable<T> findIterable, DatabaseQuery query) {
       Integer page = query.getPage();
       Integer pageSize = query.getPageSize();
 
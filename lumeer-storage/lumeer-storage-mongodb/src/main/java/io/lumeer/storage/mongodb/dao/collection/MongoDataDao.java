@@ -18,32 +18,66 @@
  */
 package io.lumeer.storage.mongodb.dao.collection;
 
+import static io.lumeer.storage.mongodb.util.MongoFilters.attributeFilter;
 import static io.lumeer.storage.mongodb.util.MongoFilters.idFilter;
 
+import io.lumeer.api.model.Aggregation;
+import io.lumeer.api.model.DataIndex;
+import io.lumeer.api.model.DocumentOperation;
 import io.lumeer.api.model.ResourceType;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.storage.api.dao.DataDao;
 import io.lumeer.storage.api.exception.ResourceNotFoundException;
 import io.lumeer.storage.api.exception.StorageException;
+import io.lumeer.storage.api.query.AttributeSort;
 import io.lumeer.storage.api.query.SearchQuery;
-import io.lumeer.storage.mongodb.MongoUtils;
+import io.lumeer.storage.mongodb.util.MongoAggregations;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
-import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.DeleteOneModel;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndReplaceOptions;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
 import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
 
 @RequestScoped
 public class MongoDataDao extends CollectionScopedDao implements DataDao {
@@ -51,10 +85,22 @@ public class MongoDataDao extends CollectionScopedDao implements DataDao {
    private static final String ID = "_id";
    private static final String PREFIX = "data_c-";
 
+   private static final int SEARCH_PARALLELISM = Integer.getInteger("lumeer.search.parallelism", 8);
+
+   /**
+    * The text index can be turned off when the fulltext is searched by another engine, then every write is cheaper.
+    */
+   private static final boolean TEXT_INDEX = Boolean.parseBoolean(System.getProperty("lumeer.data.textIndex", "true"));
+
+   @Inject
+   private ExecutorService executorService;
+
    @Override
    public void createDataRepository(final String collectionId) {
       database.createCollection(dataCollectionName(collectionId));
-      createFulltextIndexOnAllFields(collectionId);
+      if (TEXT_INDEX) {
+         createFulltextIndexOnAllFields(collectionId);
+      }
    }
 
    private void createFulltextIndexOnAllFields(final String collectionId) {
@@ -68,34 +114,32 @@ public class MongoDataDao extends CollectionScopedDao implements DataDao {
 
    @Override
    public DataDocument createData(final String collectionId, final String documentId, final DataDocument data) {
-      Document document = new Document(data).append(ID, new ObjectId(documentId));
-      dataCollection(collectionId).insertOne(document);
+      DataDocument document = new DataDocument(data);
+      document.setId(documentId);
+      dataDocumentCollection(collectionId).insertOne(document);
       return data;
    }
 
    @Override
    public List<DataDocument> createData(final String collectionId, final List<DataDocument> data) {
-      List<Document> documents = data.stream().map(dataDocument -> new Document(dataDocument).append(ID, new ObjectId(dataDocument.getId()))).collect(Collectors.toList());
-      dataCollection(collectionId).insertMany(documents);
+      List<DataDocument> documents = data.stream().map(DataDocument::new).collect(Collectors.toList());
+      dataDocumentCollection(collectionId).insertMany(documents, new InsertManyOptions().ordered(false));
 
       for (int i = 0; i < documents.size(); i++) {
-         Object idObj = documents.get(i).get(ID);
-         String id = idObj instanceof String ? (String) idObj : ((ObjectId) idObj).toHexString();
-         data.get(i).setId(id);
+         data.get(i).setId(documents.get(i).getId());
       }
       return data;
    }
 
    @Override
    public DataDocument updateData(final String collectionId, final String documentId, final DataDocument data) {
-      Document document = new Document(data);
       FindOneAndReplaceOptions options = new FindOneAndReplaceOptions().returnDocument(ReturnDocument.AFTER);
 
-      Document updatedDocument = dataCollection(collectionId).findOneAndReplace(idFilter(documentId), document, options);
+      DataDocument updatedDocument = dataDocumentCollection(collectionId).findOneAndReplace(idFilter(documentId), data, options);
       if (updatedDocument == null) {
          throw new StorageException("Document '" + documentId + "' has not been updated (replaced).");
       }
-      return MongoUtils.convertDocument(updatedDocument);
+      return updatedDocument;
    }
 
    @Override
@@ -104,11 +148,11 @@ public class MongoDataDao extends CollectionScopedDao implements DataDao {
       Document updateDocument = new Document("$set", new Document(data));
       FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
 
-      Document patchedDocument = dataCollection(collectionId).findOneAndUpdate(idFilter(documentId), updateDocument, options);
+      DataDocument patchedDocument = dataDocumentCollection(collectionId).findOneAndUpdate(idFilter(documentId), updateDocument, options);
       if (patchedDocument == null) {
          throw new StorageException("Document '" + documentId + "' has not been patched (partially updated).");
       }
-      return MongoUtils.convertDocument(patchedDocument);
+      return patchedDocument;
    }
 
    @Override
@@ -116,19 +160,81 @@ public class MongoDataDao extends CollectionScopedDao implements DataDao {
       dataCollection(collectionId).deleteOne(idFilter(documentId));
    }
 
+   @Override
+   public Map<Integer, String> writeData(final String collectionId, final List<DocumentOperation> operations) {
+      if (operations.isEmpty()) {
+         return Collections.emptyMap();
+      }
+
+      List<WriteModel<DataDocument>> writes = operations.stream().map(MongoDataDao::createWriteModel).collect(Collectors.toList());
+      try {
+         dataDocumentCollection(collectionId).bulkWrite(writes, new BulkWriteOptions().ordered(false));
+         return Collections.emptyMap();
+      } catch (MongoBulkWriteException e) {
+         return e.getWriteErrors().stream().collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage));
+      }
+   }
+
+   private static WriteModel<DataDocument> createWriteModel(DocumentOperation operation) {
+      switch (operation.getType()) {
+         case CREATE:
+            DataDocument document = new DataDocument(operation.getData());
+            document.setId(operation.getId());
+            return new InsertOneModel<>(document);
+         case UPDATE:
+            DataDocument replacement = new DataDocument(operation.getData());
+            replacement.remove(ID);
+            return new ReplaceOneModel<>(idFilter(operation.getId()), replacement);
+         case PATCH:
+            DataDocument patch = new DataDocument(operation.getData());
+            patch.remove(ID);
+            return new UpdateOneModel<>(idFilter(operation.getId()), new Document("$set", new Document(patch)));
+         default:
+            return new DeleteOneModel<>(idFilter(operation.getId()));
+      }
+   }
+
    @Override
    public DataDocument getData(final String collectionId, final String documentId) {
-      MongoCursor<Document> mongoCursor = dataCollection(collectionId).find(idFilter(documentId)).iterator();
-      if (!mongoCursor.hasNext()) {
+      DataDocument document = dataDocumentCollection(collectionId).find(idFilter(documentId)).first();
+      if (document == null) {
          throw new ResourceNotFoundException(ResourceType.DOCUMENT);
       }
-      return MongoUtils.convertDocument(mongoCursor.next());
+      return document;
    }
 
    @Override
    public List<DataDocument> getData(final String collectionId, final SearchQuery query) {
-      MongoIterable<Document> mongoIterable = dataCollection(collectionId).find(createFilter(query));
-      return MongoUtils.convertIterableToList(mongoIterable);
+      return findData(collectionId, query).into(new ArrayList<>());
+   }
+
+   @Override
+   public Stream<DataDocument> streamData(final String collectionId, final SearchQuery query) {
+      MongoCursor<DataDocument> cursor = findData(collectionId, query).iterator();
+      Spliterator<DataDocument> spliterator = Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL);
+
+      return StreamSupport.stream(spliterator, false)
+                          .onClose(cursor::close);
+   }
+
+   private FindIterable<DataDocument> findData(final String collectionId, final SearchQuery query) {
+      Bson filter = createFilter(query);
+      if (query.hasAfterId()) {
+         filter = Filters.and(filter, Filters.gt(ID, new ObjectId(query.getAfterId())));
+      }
+
+      FindIterable<DataDocument> findIterable = dataDocumentCollection(collectionId).find(filter);
+      addProjectionToQuery(findIterable, query);
+      if (query.hasAfterId()) {
+         // the keyset pagination needs the documents ordered just by their ids
+         findIterable.sort(Sorts.ascending(ID));
+      } else if (query.hasAttributeSorts() || query.hasPagination()) {
+         findIterable.sort(createSort(query));
+      }
+      if (query.hasPagination() || query.hasAfterId()) {
+         addPaginationToQuery(findIterable, query);
+      }
+      return findIterable;
    }
 
    @Override
@@ -136,6 +242,115 @@ public class MongoDataDao extends CollectionScopedDao implements DataDao {
       return dataCollection(collectionId).count(createFilter(query));
    }
 
+   @Override
+   public Map<String, List<DataDocument>> getData(final Set<String> collectionIds, final SearchQuery query, final long timeout) {
+      final Bson filter = createFilter(query);
+
+      return new ParallelCollectionSearch<List<DataDocument>>(executorService, SEARCH_PARALLELISM)
+            .execute(collectionIds, timeout, (collectionId, remaining) -> {
+               FindIterable<DataDocument> findIterable = dataDocumentCollection(collectionId).find(filter).maxTime(remaining, TimeUnit.MILLISECONDS);
+               addProjectionToQuery(findIterable, query);
+               if (query.hasAttributeSorts()) {
+                  findIterable.sort(createSort(query));
+               }
+               return findIterable.into(new ArrayList<>());
+            });
+   }
+
+   @Override
+   public Map<String, Long> getDataCount(final Set<String> collectionIds, final SearchQuery query, final long timeout) {
+      final Bson filter = createFilter(query);
+
+      return new ParallelCollectionSearch<Long>(executorService, SEARCH_PARALLELISM)
+            .execute(collectionIds, timeout, (collectionId, remaining) ->
+                  dataCollection(collectionId).count(filter, new CountOptions().maxTime(remaining, TimeUnit.MILLISECONDS)));
+   }
+
+   @Override
+   public Map<String, List<DataDocument>> aggregateData(final Set<String> collectionIds, final SearchQuery query, final Aggregation aggregation, final long timeout) {
+      final List<Bson> pipeline = MongoAggregations.createPipeline(createFilter(query), aggregation);
+
+      // partial totals would look valid, so the aggregation fails when any collection is missing
+      return new ParallelCollectionSearch<List<DataDocument>>(executorService, SEARCH_PARALLELISM, true)
+            .execute(collectionIds, timeout, (collectionId, remaining) ->
+                  dataDocumentCollection(collectionId).aggregate(pipeline)
+                                                      .allowDiskUse(true)
+                                                      .maxTime(remaining, TimeUnit.MILLISECONDS)
+                                                      .into(new ArrayList<>()));
+   }
+
+   @Override
+   public List<DataIndex> getIndexes(final String collectionId) {
+      Map<String, Document> accesses = new HashMap<>();
+      try {
+         for (Document stats : dataCollection(collectionId).aggregate(Collections.singletonList(new Document("$indexStats", new Document())))) {
+            accesses.put(stats.getString("name"), stats.get("accesses", Document.class));
+         }
+      } catch (MongoException e) {
+         // the server does not provide index statistics, the indexes are listed without them
+      }
+
+      List<DataIndex> indexes = new ArrayList<>();
+      for (Document index : dataCollection(collectionId).listIndexes()) {
+         Document indexKeys = index.get("key", Document.class);
+         Map<String, Integer> keys = new LinkedHashMap<>();
+         for (Map.Entry<String, Object> key : indexKeys.entrySet()) {
+            if (key.getValue() instanceof Number) {
+               keys.put(key.getKey(), ((Number) key.getValue()).intValue() < 0 ? -1 : 1);
+            }
+         }
+         if (keys.size() < indexKeys.size()) {
+            // fulltext or another special index
+            continue;
+         }
+
+         String name = index.getString("name");
+         Document indexAccesses = accesses.get(name);
+         if (indexAccesses != null) {
+            Date since = indexAccesses.getDate("since");
+            indexes.add(new DataIndex(name, keys, ((Number) indexAccesses.get("ops")).longValue(),
+                  since != null ? LocalDateTime.ofInstant(since.toInstant(), ZoneId.systemDefault()) : null));
+         } else {
+            indexes.add(new DataIndex(name, keys));
+         }
+      }
+      return indexes;
+   }
+
+   @Override
+   public String createIndex(final String collectionId, final DataIndex index) {
+      Document keys = new Document();
+      keys.putAll(index.getKeys());
+
+      IndexOptions options = new IndexOptions().background(true);
+      if (index.getName() != null) {
+         options.name(index.getName());
+      }
+      return dataCollection(collectionId).createIndex(keys, options);
+   }
+
+   @Override
+   public void dropIndex(final String collectionId, final String indexName) {
+      dataCollection(collectionId).dropIndex(indexName);
+   }
+
+   private static void addProjectionToQuery(FindIterable<DataDocument> findIterable, SearchQuery query) {
+      if (query.hasFields()) {
+         // the id is always returned, it is needed to join the data with the document metadata
+         findIterable.projection(Projections.include(new ArrayList<>(query.getFields())));
+      }
+   }
+
+   private static Bson createSort(SearchQuery query) {
+      List<Bson> sorts = new ArrayList<>();
+      for (AttributeSort sort : query.getAttributeSorts()) {
+         sorts.add(sort.isAscending() ? Sorts.ascending(sort.getAttribute()) : Sorts.descending(sort.getAttribute()));
+      }
+      // the id makes the order stable for pagination
+      sorts.add(Sorts.ascending(ID));
+      return Sorts.orderBy(sorts);
+   }
+
    private Bson createFilter(SearchQuery query) {
       List<Bson> filters = new ArrayList<>();
       if(query.isFulltextQuery()){
@@ -147,13 +362,25 @@ public class MongoDataDao extends CollectionScopedDao implements DataDao {
             filters.add(Filters.in(ID, ids));
          }
       }
+      query.getAttributeFilters().forEach(filter -> filters.add(attributeFilter(filter)));
       return filters.size() > 0 ? Filters.and(filters) : new Document();
    }
 
+   public void setExecutorService(final ExecutorService executorService) {
+      this.executorService = executorService;
+   }
+
    MongoCollection<Document> dataCollection(String collectionId) {
       return database.getCollection(dataCollectionName(collectionId));
    }
 
+   /**
+    * Gets the data collection decoded directly to {@link DataDocument} by {@link io.lumeer.storage.mongodb.codecs.DataDocumentCodec}.
+    */
+   MongoCollection<DataDocument> dataDocumentCollection(String collectionId) {
+      return database.getCollection(dataCollectionName(collectionId), DataDocument.class);
+   }
+
    String dataCollectionName(String collectionId) {
       return PREFIX + collectionId;
    }
@@ -0,0 +1,145 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.collection;
+
+import io.lumeer.storage.api.exception.StorageException;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the same query against multiple collections in parallel. At most <code>parallelism</code> collections are queried
+ * at the same time and the results are merged as they come back. Collections that fail or do not respond until
+ * the deadline are left out of the result so that one slow collection does not fail the whole search, unless
+ * the search is required to be complete. A complete search fails instead, like an aggregation whose totals would be
+ * wrong without some of the collections.
+ */
+class ParallelCollectionSearch<R> {
+
+   private static final Logger log = Logger.getLogger(ParallelCollectionSearch.class.getName());
+
+   private final ExecutorService executorService;
+   private final int parallelism;
+   private final boolean complete;
+
+   ParallelCollectionSearch(final ExecutorService executorService, final int parallelism) {
+      this(executorService, parallelism, false);
+   }
+
+   ParallelCollectionSearch(final ExecutorService executorService, final int parallelism, final boolean complete) {
+      this.executorService = executorService;
+      this.parallelism = Math.max(1, parallelism);
+      this.complete = complete;
+   }
+
+   /**
+    * Executes the query function for each collection.
+    *
+    * @param collectionIds
+    *       Collections to query.
+    * @param timeout
+    *       Deadline of the whole search in milliseconds.
+    * @param query
+    *       Queries a collection, gets the collection id and the remaining time in milliseconds.
+    * @return Results of the collections that responded in time mapped by the collection id.
+    * @throws StorageException
+    *       When the search is required to be complete and a collection failed or did not respond in time.
+    */
+   Map<String, R> execute(final Iterable<String> collectionIds, final long timeout, final BiFunction<String, Long, R> query) {
+      final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+      final CompletionService<Map.Entry<String, R>> completionService = new ExecutorCompletionService<>(executorService);
+      final Map<Future<Map.Entry<String, R>>, String> futures = new HashMap<>();
+      final Iterator<String> pending = collectionIds.iterator();
+      final Map<String, R> results = new HashMap<>();
+
+      int running = 0;
+      try {
+         while (running < parallelism && pending.hasNext()) {
+            submit(completionService, futures, pending.next(), deadline, query);
+            running++;
+         }
+
+         while (running > 0) {
+            final long remaining = deadline - System.nanoTime();
+            final Future<Map.Entry<String, R>> future = remaining > 0 ? completionService.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (future == null) {
+               final String message = String.format("Search did not finish in %d ms, skipped %d collection(s).", timeout, running + count(pending));
+               if (complete) {
+                  throw new StorageException(message);
+               }
+               log.warning(message);
+               break;
+            }
+            running--;
+
+            try {
+               final Map.Entry<String, R> result = future.get();
+               results.put(result.getKey(), result.getValue());
+            } catch (ExecutionException e) {
+               if (complete) {
+                  throw new StorageException("Search in collection " + futures.get(future) + " failed.", e.getCause());
+               }
+               log.log(Level.WARNING, "Search in collection " + futures.get(future) + " failed, skipping it.", e.getCause());
+            }
+
+            if (pending.hasNext()) {
+               submit(completionService, futures, pending.next(), deadline, query);
+               running++;
+            }
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         if (complete) {
+            throw new StorageException("Search was interrupted.", e);
+         }
+      } finally {
+         futures.keySet().forEach(future -> future.cancel(true));
+      }
+
+      return results;
+   }
+
+   private void submit(final CompletionService<Map.Entry<String, R>> completionService, final Map<Future<Map.Entry<String, R>>, String> futures,
+         final String collectionId, final long deadline, final BiFunction<String, Long, R> query) {
+      futures.put(completionService.submit(() -> {
+         final long remaining = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+         return new SimpleImmutableEntry<>(collectionId, query.apply(collectionId, remaining));
+      }), collectionId);
+   }
+
+   private static int count(final Iterator<String> iterator) {
+      int count = 0;
+      while (iterator.hasNext()) {
+         iterator.next();
+         count++;
+      }
+      return count;
+   }
+}
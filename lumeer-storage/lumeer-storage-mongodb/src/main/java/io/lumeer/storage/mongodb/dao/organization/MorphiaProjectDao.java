@@ -102,7 +102,7 @@ public class MorphiaProjectDao extends OrganizationScopedDao implements ProjectD
    private Query<MorphiaProject> createProjectQuery(DatabaseQuery query) {
       Query<MorphiaProject> projectQuery = datastore.createQuery(databaseCollection(), MorphiaProject.class);
 
-      projectQuery.or(createPermissionsCriteria(projectQuery, query));
+      projectQuery.and(createPermissionsCriteria(projectQuery, query));
 
       return projectQuery;
    }
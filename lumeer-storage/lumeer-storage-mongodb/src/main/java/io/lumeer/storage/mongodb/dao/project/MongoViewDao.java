@@ -31,6 +31,7 @@ import io.lumeer.storage.api.exception.ResourceNotFoundException;
 import io.lumeer.storage.api.exception.StorageException;
 import io.lumeer.storage.api.query.SearchQuery;
 import io.lumeer.storage.api.query.SuggestionQuery;
+import io.lumeer.storage.mongodb.codecs.PermissionsCodec;
 import io.lumeer.storage.mongodb.codecs.QueryCodec;
 import io.lumeer.storage.mongodb.codecs.ViewCodec;
 import io.lumeer.storage.mongodb.util.MongoFilters;
@@ -69,6 +70,7 @@ public class MongoViewDao extends ProjectScopedDao implements ViewDao {
       projectCollection.createIndex(Indexes.ascending(ViewCodec.CODE), new IndexOptions().unique(true));
       projectCollection.createIndex(Indexes.ascending(ViewCodec.NAME), new IndexOptions().unique(true));
       projectCollection.createIndex(Indexes.text(ViewCodec.NAME));
+      projectCollection.createIndex(Indexes.ascending(ViewCodec.PERMISSIONS + "." + PermissionsCodec.READERS));
    }
 
    @Override
@@ -116,6 +118,11 @@ public class MongoViewDao extends ProjectScopedDao implements ViewDao {
       return mongoCursor.next();
    }
 
+   @Override
+   public List<View> getAllViews() {
+      return databaseCollection().find().into(new ArrayList<>());
+   }
+
    public List<View> getViews(SearchQuery query) {
       FindIterable<JsonView> findIterable = databaseCollection().find(MongoViewDao.viewSearchFilter(query));
       if (query.hasPagination()) {
@@ -32,13 +32,25 @@ import io.lumeer.storage.mongodb.model.common.MorphiaResource;
 import io.lumeer.storage.mongodb.model.embedded.MorphiaAttribute;
 
 import com.mongodb.WriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import org.mongodb.morphia.query.FindOptions;
 import org.mongodb.morphia.query.Query;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.enterprise.context.RequestScoped;
@@ -82,6 +94,61 @@ public class MorphiaCollectionDao extends ProjectScopedDao implements Collection
       }
    }
 
+   @Override
+   public void updateCollectionStatistics(final String id, final int documentsCountDelta, final Map<String, Integer> attributesUsageDeltas, final LocalDateTime lastTimeUsed) {
+      MongoCollection<Document> collections = database.getCollection(databaseCollection());
+      Bson idFilter = Filters.eq(MorphiaCollection.ID, new ObjectId(id));
+
+      addMissingAttributes(collections, idFilter, attributesUsageDeltas.keySet());
+
+      List<Bson> updates = new ArrayList<>();
+      List<Bson> arrayFilters = new ArrayList<>();
+      if (documentsCountDelta != 0) {
+         updates.add(Updates.inc(MorphiaCollection.DOCUMENTS_COUNT, documentsCountDelta));
+      }
+      int i = 0;
+      for (Map.Entry<String, Integer> entry : attributesUsageDeltas.entrySet()) {
+         String identifier = "a" + i++;
+         updates.add(Updates.inc(MorphiaCollection.ATTRIBUTES + ".$[" + identifier + "]." + MorphiaAttribute.USAGE_COUNT, entry.getValue()));
+         arrayFilters.add(Filters.eq(identifier + "." + MorphiaAttribute.FULL_NAME, entry.getKey()));
+      }
+      if (lastTimeUsed != null) {
+         updates.add(Updates.max(MorphiaCollection.LAST_TIME_USED, Date.from(lastTimeUsed.atZone(ZoneId.systemDefault()).toInstant())));
+      }
+      if (updates.isEmpty()) {
+         return;
+      }
+
+      UpdateResult result = collections.updateOne(idFilter, Updates.combine(updates), new UpdateOptions().arrayFilters(arrayFilters));
+      if (result.getMatchedCount() != 1) {
+         throw new ResourceNotFoundException(ResourceType.COLLECTION);
+      }
+   }
+
+   private void addMissingAttributes(MongoCollection<Document> collections, Bson idFilter, Set<String> attributeNames) {
+      if (attributeNames.isEmpty()) {
+         return;
+      }
+
+      Document stored = collections.find(idFilter).projection(Projections.include(MorphiaCollection.ATTRIBUTES + "." + MorphiaAttribute.FULL_NAME)).first();
+      if (stored == null) {
+         throw new ResourceNotFoundException(ResourceType.COLLECTION);
+      }
+
+      List<Document> storedAttributes = stored.get(MorphiaCollection.ATTRIBUTES, List.class);
+      Set<String> storedNames = storedAttributes != null ? storedAttributes.stream().map(attribute -> attribute.getString(MorphiaAttribute.FULL_NAME)).collect(Collectors.toSet()) : Collections.emptySet();
+
+      attributeNames.stream().filter(name -> !storedNames.contains(name)).forEach(name -> {
+         // the condition prevents duplicates when the attribute is added concurrently
+         Document attribute = new Document(MorphiaAttribute.NAME, name)
+               .append(MorphiaAttribute.FULL_NAME, name)
+               .append(MorphiaAttribute.CONSTRAINTS, Collections.emptyList())
+               .append(MorphiaAttribute.USAGE_COUNT, 0);
+         collections.updateOne(Filters.and(idFilter, Filters.ne(MorphiaCollection.ATTRIBUTES + "." + MorphiaAttribute.FULL_NAME, name)),
+               Updates.push(MorphiaCollection.ATTRIBUTES, attribute));
+      });
+   }
+
    @Override
    public Collection getCollectionByCode(final String code) {
       Collection collection = datastore.createQuery(databaseCollection(), MorphiaCollection.class)
@@ -100,6 +167,11 @@ public class MorphiaCollectionDao extends ProjectScopedDao implements Collection
                                       .field(MorphiaCollection.ID).in(objectIds).asList());
    }
 
+   @Override
+   public List<Collection> getAllCollections() {
+      return new ArrayList<>(datastore.createQuery(databaseCollection(), MorphiaCollection.class).asList());
+   }
+
    @Override
    public List<Collection> getCollections(final SearchQuery query) {
       return getCollections(createCollectionSearchQuery(query), query);
@@ -141,7 +213,7 @@ public class MorphiaCollectionDao extends ProjectScopedDao implements Collection
    private Query<MorphiaCollection> createCollectionSearchQuery(SearchQuery searchQuery) {
       Query<MorphiaCollection> mongoQuery = datastore.createQuery(databaseCollection(), MorphiaCollection.class);
 
-      mongoQuery.or(createPermissionsCriteria(mongoQuery, searchQuery));
+      mongoQuery.and(createPermissionsCriteria(mongoQuery, searchQuery));
 
       return searchQuery.isBasicQuery() ? mongoQuery : createAdvancedQuery(mongoQuery, searchQuery);
    }
@@ -169,7 +241,7 @@ public class MorphiaCollectionDao extends ProjectScopedDao implements Collection
    private Query<MorphiaCollection> createCollectionSuggestionQuery(SuggestionQuery suggestionQuery) {
       Query<MorphiaCollection> mongoQuery = datastore.createQuery(databaseCollection(), MorphiaCollection.class);
 
-      mongoQuery.or(createPermissionsCriteria(mongoQuery, suggestionQuery));
+      mongoQuery.and(createPermissionsCriteria(mongoQuery, suggestionQuery));
       mongoQuery.field(MorphiaCollection.NAME).containsIgnoreCase(suggestionQuery.getText());
 
       return mongoQuery;
@@ -178,7 +250,7 @@ public class MorphiaCollectionDao extends ProjectScopedDao implements Collection
    private Query<MorphiaCollection> createAttributeSuggestionQuery(SuggestionQuery suggestionQuery) {
       Query<MorphiaCollection> mongoQuery = datastore.createQuery(databaseCollection(), MorphiaCollection.class);
 
-      mongoQuery.or(createPermissionsCriteria(mongoQuery, suggestionQuery));
+      mongoQuery.and(createPermissionsCriteria(mongoQuery, suggestionQuery));
       mongoQuery.field(MorphiaCollection.ATTRIBUTES + "." + MorphiaAttribute.NAME).containsIgnoreCase(suggestionQuery.getText());
 
       return mongoQuery;
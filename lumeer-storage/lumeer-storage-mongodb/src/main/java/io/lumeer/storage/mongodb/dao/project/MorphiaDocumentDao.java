@@ -25,18 +25,28 @@ import io.lumeer.api.model.Project;
 import io.lumeer.api.model.ResourceType;
 import io.lumeer.storage.api.dao.DocumentDao;
 import io.lumeer.storage.api.exception.ResourceNotFoundException;
+import io.lumeer.storage.api.exception.StorageException;
 import io.lumeer.storage.mongodb.exception.WriteFailedException;
 import io.lumeer.storage.mongodb.model.MorphiaCollection;
 import io.lumeer.storage.mongodb.model.MorphiaDocument;
 
+import com.mongodb.MongoException;
 import com.mongodb.WriteResult;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Updates;
 import org.bson.types.ObjectId;
 import org.mongodb.morphia.query.Query;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import javax.enterprise.context.RequestScoped;
 
@@ -65,8 +75,15 @@ public class MorphiaDocumentDao extends ProjectScopedDao implements DocumentDao
 
    @Override
    public List<Document> createDocuments(final List<Document> documents) {
-      List<org.bson.Document> bsonDocuments = documents.stream().map(doc -> new MorphiaDocument(doc).toBsonDocument()).collect(Collectors.toList());
-      database.getCollection(databaseCollection()).insertMany(bsonDocuments);
+      List<org.bson.Document> bsonDocuments = documents.stream().map(doc -> new MorphiaDocument(doc).toBsonDocument().append(ID, new ObjectId())).collect(Collectors.toList());
+      try {
+         database.getCollection(databaseCollection()).insertMany(bsonDocuments, new InsertManyOptions().ordered(false));
+      } catch (MongoException e) {
+         // an unordered insert keeps going after a failed document, so whatever got stored is removed again
+         List<ObjectId> ids = bsonDocuments.stream().map(doc -> doc.getObjectId(ID)).collect(Collectors.toList());
+         database.getCollection(databaseCollection()).deleteMany(Filters.in(ID, ids));
+         throw new StorageException("Could not create documents", e);
+      }
 
       for (int i = 0; i < documents.size(); i++) {
          documents.get(i).setId(bsonDocuments.get(i).getObjectId(ID).toHexString());
@@ -97,6 +114,25 @@ public class MorphiaDocumentDao extends ProjectScopedDao implements DocumentDao
       datastore.delete(query);
    }
 
+   @Override
+   public void deleteDocumentsByIds(final Set<String> ids) {
+      if (!ids.isEmpty()) {
+         database.getCollection(databaseCollection()).deleteMany(Filters.in(ID, toObjectIds(ids)));
+      }
+   }
+
+   @Override
+   public void updateDocumentsMetadata(final Set<String> ids, final String updatedBy, final LocalDateTime updateDate) {
+      if (ids.isEmpty()) {
+         return;
+      }
+
+      database.getCollection(databaseCollection()).updateMany(Filters.in(ID, toObjectIds(ids)),
+            Updates.combine(Updates.set(MorphiaDocument.UPDATED_BY, updatedBy),
+                  Updates.set(MorphiaDocument.UPDATE_DATE, Date.from(updateDate.atZone(ZoneId.systemDefault()).toInstant())),
+                  Updates.inc(MorphiaDocument.DATA_VERSION, 1)));
+   }
+
    @Override
    public Document getDocumentById(final String id) {
       Document document = datastore.createQuery(databaseCollection(), MorphiaDocument.class)
@@ -110,13 +146,16 @@ public class MorphiaDocumentDao extends ProjectScopedDao implements DocumentDao
 
    @Override
    public List<Document> getDocumentsByIds(final String... ids) {
-      List<ObjectId> objectIds = Arrays.stream(ids).map(ObjectId::new).collect(Collectors.toList());
       List<MorphiaDocument> documents = datastore.createQuery(databaseCollection(), MorphiaDocument.class)
-                                                 .field(ID).in(objectIds)
+                                                 .field(ID).in(toObjectIds(Arrays.asList(ids)))
                                                  .asList();
       return new ArrayList<>(documents);
    }
 
+   private static List<ObjectId> toObjectIds(Collection<String> ids) {
+      return ids.stream().filter(ObjectId::isValid).map(ObjectId::new).collect(Collectors.toList());
+   }
+
    private String databaseCollection(Project project) {
       return PREFIX + project.getId();
    }
@@ -87,6 +87,11 @@ public class MorphiaViewDao extends ProjectScopedDao implements ViewDao {
       return view;
    }
 
+   @Override
+   public List<View> getAllViews() {
+      return new ArrayList<>(datastore.createQuery(databaseCollection(), MorphiaView.class).asList());
+   }
+
    public List<View> getViews(SearchQuery query) {
       Query<MorphiaView> viewQuery = createViewSearchQuery(query);
       FindOptions findOptions = createFindOptions(query);
@@ -117,7 +122,7 @@ public class MorphiaViewDao extends ProjectScopedDao implements ViewDao {
       if (query.isFulltextQuery()) {
          viewQuery.search(query.getFulltext());
       }
-      viewQuery.or(createPermissionsCriteria(viewQuery, query));
+      viewQuery.and(createPermissionsCriteria(viewQuery, query));
 
       return viewQuery;
    }
@@ -126,7 +131,7 @@ public class MorphiaViewDao extends ProjectScopedDao implements ViewDao {
       Query<MorphiaView> viewQuery = datastore.createQuery(databaseCollection(), MorphiaView.class);
 
       viewQuery.field(MorphiaView.NAME).startsWithIgnoreCase(query.getText());
-      viewQuery.or(createPermissionsCriteria(viewQuery, query));
+      viewQuery.and(createPermissionsCriteria(viewQuery, query));
 
       return viewQuery;
    }
@@ -22,6 +22,7 @@ import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
 import io.lumeer.storage.mongodb.model.common.MorphiaResource;
 import io.lumeer.storage.mongodb.model.embedded.MorphiaAttribute;
+import io.lumeer.storage.mongodb.model.embedded.MorphiaPermissions;
 
 import org.mongodb.morphia.annotations.Embedded;
 import org.mongodb.morphia.annotations.Entity;
@@ -45,7 +46,8 @@ import java.util.Set;
             @Field(value = MorphiaCollection.CODE, type = IndexType.TEXT),
             @Field(value = MorphiaCollection.NAME, type = IndexType.TEXT),
             @Field(value = MorphiaCollection.ATTRIBUTES + "." + MorphiaAttribute.NAME, type = IndexType.TEXT)
-      })
+      }),
+      @Index(fields = { @Field(MorphiaCollection.PERMISSIONS + "." + MorphiaPermissions.READERS) })
 })
 public class MorphiaCollection extends MorphiaResource implements Collection {
 
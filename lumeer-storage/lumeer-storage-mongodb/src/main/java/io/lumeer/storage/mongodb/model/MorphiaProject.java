@@ -20,6 +20,7 @@ package io.lumeer.storage.mongodb.model;
 
 import io.lumeer.api.model.Project;
 import io.lumeer.storage.mongodb.model.common.MorphiaResource;
+import io.lumeer.storage.mongodb.model.embedded.MorphiaPermissions;
 
 import org.mongodb.morphia.annotations.Entity;
 import org.mongodb.morphia.annotations.Field;
@@ -29,7 +30,8 @@ import org.mongodb.morphia.annotations.Indexes;
 
 @Entity(noClassnameStored = true)
 @Indexes({
-      @Index(fields = { @Field(value = MorphiaProject.CODE) }, options = @IndexOptions(unique = true))
+      @Index(fields = { @Field(value = MorphiaProject.CODE) }, options = @IndexOptions(unique = true)),
+      @Index(fields = { @Field(MorphiaProject.PERMISSIONS + "." + MorphiaPermissions.READERS) })
 })
 public class MorphiaProject extends MorphiaResource implements Project {
 
@@ -21,6 +21,7 @@ package io.lumeer.storage.mongodb.model;
 import io.lumeer.api.model.Query;
 import io.lumeer.api.model.View;
 import io.lumeer.storage.mongodb.model.common.MorphiaResource;
+import io.lumeer.storage.mongodb.model.embedded.MorphiaPermissions;
 import io.lumeer.storage.mongodb.model.embedded.MorphiaQuery;
 
 import org.mongodb.morphia.annotations.Embedded;
@@ -39,7 +40,8 @@ import org.mongodb.morphia.utils.IndexType;
       @Index(fields = {
             @Field(value = MorphiaView.CODE, type = IndexType.TEXT),
             @Field(value = MorphiaView.NAME, type = IndexType.TEXT)
-      })
+      }),
+      @Index(fields = { @Field(MorphiaView.PERMISSIONS + "." + MorphiaPermissions.READERS) })
 })
 public class MorphiaView extends MorphiaResource implements View {
 
@@ -20,12 +20,17 @@ package io.lumeer.storage.mongodb.model.embedded;
 
 import io.lumeer.api.model.Permission;
 import io.lumeer.api.model.Permissions;
+import io.lumeer.storage.mongodb.util.PermissionsReaders;
 
 import org.mongodb.morphia.annotations.Embedded;
+import org.mongodb.morphia.annotations.PrePersist;
+import org.mongodb.morphia.annotations.Property;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -34,6 +39,7 @@ public class MorphiaPermissions implements Permissions {
 
    public static final String USER_ROLES = "users";
    public static final String GROUP_ROLES = "groups";
+   public static final String READERS = PermissionsReaders.READERS;
 
    @Embedded(USER_ROLES)
    private Set<MorphiaPermission> userPermissions = new HashSet<>();
@@ -41,6 +47,9 @@ public class MorphiaPermissions implements Permissions {
    @Embedded(GROUP_ROLES)
    private Set<MorphiaPermission> groupPermissions = new HashSet<>();
 
+   @Property(READERS)
+   private List<String> readers = new ArrayList<>();
+
    public MorphiaPermissions() {
    }
 
@@ -51,6 +60,7 @@ public class MorphiaPermissions implements Permissions {
       this.groupPermissions = permissions.getGroupPermissions().stream()
                                          .map(MorphiaPermission::new)
                                          .collect(Collectors.toSet());
+      updateReaders();
    }
 
    @Override
@@ -66,11 +76,13 @@ public class MorphiaPermissions implements Permissions {
                userPermissions.remove(userPermission);
                userPermissions.add(userPermission);
             });
+      updateReaders();
    }
 
    @Override
    public void removeUserPermission(final String user) {
       userPermissions.removeIf(userRoles -> userRoles.getName().equals(user));
+      updateReaders();
    }
 
    @Override
@@ -86,17 +98,25 @@ public class MorphiaPermissions implements Permissions {
                groupPermissions.remove(groupPermission);
                groupPermissions.add(groupPermission);
             });
+      updateReaders();
    }
 
    @Override
    public void removeGroupPermission(final String group) {
       groupPermissions.removeIf(groupRoles -> groupRoles.getName().equals(group));
+      updateReaders();
    }
 
    @Override
    public void clear() {
       userPermissions.clear();
       groupPermissions.clear();
+      updateReaders();
+   }
+
+   @PrePersist
+   private void updateReaders() {
+      readers = PermissionsReaders.getReaders(userPermissions, groupPermissions);
    }
 
    @Override
@@ -20,6 +20,7 @@ public class MorphiaQuery implements Query {
    public static final String FULLTEXT = "fulltext";
    public static final String PAGE = "page";
    public static final String PAGE_SIZE = "pageSize";
+   public static final String FIELDS = "fields";
 
    @Property(COLLECTION_CODES)
    private Set<String> collectionCodes = Collections.emptySet();
@@ -45,6 +46,9 @@ public class MorphiaQuery implements Query {
    @Property(PAGE_SIZE)
    private Integer pageSize;
 
+   @Property(FIELDS)
+   private Set<String> fields = Collections.emptySet();
+
    public MorphiaQuery() {
    }
 
@@ -57,6 +61,7 @@ public class MorphiaQuery implements Query {
       fulltext = query.getFulltext();
       page = query.getPage();
       pageSize = query.getPageSize();
+      fields = query.getFields() != null ? new HashSet<>(query.getFields()) : Collections.emptySet();
    }
 
    @Override
@@ -99,6 +104,11 @@ public class MorphiaQuery implements Query {
       return pageSize;
    }
 
+   @Override
+   public Set<String> getFields() {
+      return fields;
+   }
+
    public void setCollectionCodes(final Set<String> collectionCodes) {
       this.collectionCodes = collectionCodes;
    }
@@ -131,6 +141,10 @@ public class MorphiaQuery implements Query {
       this.pageSize = pageSize;
    }
 
+   public void setFields(final Set<String> fields) {
+      this.fields = fields;
+   }
+
    @Override
    public boolean equals(final Object o) {
       if (this == o) {
@@ -163,7 +177,10 @@ public class MorphiaQuery implements Query {
       if (getPage() != null ? !getPage().equals(that.getPage()) : that.getPage() != null) {
          return false;
       }
-      return getPageSize() != null ? getPageSize().equals(that.getPageSize()) : that.getPageSize() == null;
+      if (getPageSize() != null ? !getPageSize().equals(that.getPageSize()) : that.getPageSize() != null) {
+         return false;
+      }
+      return getFields() != null ? getFields().equals(that.getFields()) : that.getFields() == null;
    }
 
    @Override
@@ -176,6 +193,7 @@ public class MorphiaQuery implements Query {
       result = 31 * result + (getFulltext() != null ? getFulltext().hashCode() : 0);
       result = 31 * result + (getPage() != null ? getPage().hashCode() : 0);
       result = 31 * result + (getPageSize() != null ? getPageSize().hashCode() : 0);
+      result = 31 * result + (getFields() != null ? getFields().hashCode() : 0);
       return result;
    }
 
@@ -190,6 +208,7 @@ public class MorphiaQuery implements Query {
             ", fulltext='" + fulltext + '\'' +
             ", page=" + page +
             ", pageSize=" + pageSize +
+            ", fields=" + fields +
             '}';
    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.util;
+
+import io.lumeer.api.model.Aggregation;
+import io.lumeer.api.model.AggregationGroup;
+import io.lumeer.api.model.AggregationMetric;
+
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BsonField;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiles {@link Aggregation} to a <code>$match</code>, <code>$group</code>, <code>$sort</code> pipeline.
+ * Values that cannot be bucketed (for example a text in a date group) fall into the null group instead of failing
+ * the whole aggregation.
+ */
+public class MongoAggregations {
+
+   private static final String ID = "_id";
+   private static final List<String> NUMERIC_TYPES = Arrays.asList("double", "int", "long", "decimal");
+
+   private MongoAggregations() {
+      // no instance is allowed
+   }
+
+   /**
+    * Creates the aggregation pipeline.
+    *
+    * @param filter
+    *       Filter selecting the data to aggregate.
+    * @param aggregation
+    *       Groups and metrics to compute.
+    * @return The pipeline returning one flat row per group.
+    */
+   public static List<Bson> createPipeline(Bson filter, Aggregation aggregation) {
+      List<Bson> pipeline = new ArrayList<>();
+      pipeline.add(Aggregates.match(filter));
+      pipeline.add(Aggregates.group(createGroupId(aggregation.getGroups()), createAccumulators(aggregation.getMetrics())));
+      pipeline.add(Aggregates.sort(Sorts.ascending(ID)));
+      if (aggregation.getLimit() != null) {
+         pipeline.add(Aggregates.limit(aggregation.getLimit()));
+      }
+      pipeline.add(Aggregates.project(createProjection(aggregation)));
+      return pipeline;
+   }
+
+   private static Document createGroupId(List<AggregationGroup> groups) {
+      if (groups.isEmpty()) {
+         return null;
+      }
+
+      Document groupId = new Document();
+      groups.forEach(group -> groupId.append(group.getName(), createGroupExpression(group)));
+      return groupId;
+   }
+
+   private static Object createGroupExpression(AggregationGroup group) {
+      String field = "$" + group.getAttribute();
+
+      if (group.getDateUnit() != null) {
+         Document dateToString = new Document("$dateToString", new Document("format", dateFormat(group.getDateUnit())).append("date", field));
+         return ifType(new Document("$eq", Arrays.asList(typeOf(field), "date")), dateToString);
+      }
+
+      if (group.getInterval() != null) {
+         Document bucket = new Document("$multiply", Arrays.asList(
+               new Document("$floor", new Document("$divide", Arrays.asList(field, group.getInterval()))),
+               group.getInterval()));
+         return ifType(new Document("$in", Arrays.asList(typeOf(field), NUMERIC_TYPES)), bucket);
+      }
+
+      return field;
+   }
+
+   private static Document typeOf(String field) {
+      return new Document("$type", field);
+   }
+
+   private static Document ifType(Document condition, Document expression) {
+      return new Document("$cond", Arrays.asList(condition, expression, null));
+   }
+
+   private static String dateFormat(AggregationGroup.DateUnit dateUnit) {
+      switch (dateUnit) {
+         case YEAR:
+            return "%Y";
+         case MONTH:
+            return "%Y-%m";
+         case WEEK:
+            return "%G-W%V";
+         case DAY:
+            return "%Y-%m-%d";
+         default:
+            return "%Y-%m-%dT%H";
+      }
+   }
+
+   private static List<BsonField> createAccumulators(List<AggregationMetric> metrics) {
+      List<BsonField> accumulators = new ArrayList<>();
+      for (AggregationMetric metric : metrics) {
+         String field = "$" + metric.getAttribute();
+         switch (metric.getFunction()) {
+            case COUNT:
+               accumulators.add(Accumulators.sum(metric.getName(), 1));
+               break;
+            case SUM:
+               accumulators.add(Accumulators.sum(metric.getName(), field));
+               break;
+            case AVG:
+               accumulators.add(Accumulators.avg(metric.getName(), field));
+               break;
+            case MIN:
+               accumulators.add(Accumulators.min(metric.getName(), field));
+               break;
+            case MAX:
+               accumulators.add(Accumulators.max(metric.getName(), field));
+               break;
+         }
+      }
+      return accumulators;
+   }
+
+   private static Bson createProjection(Aggregation aggregation) {
+      List<Bson> projections = new ArrayList<>();
+      projections.add(Projections.excludeId());
+      aggregation.getGroups().forEach(group -> projections.add(Projections.computed(group.getName(), "$" + ID + "." + group.getName())));
+      aggregation.getMetrics().forEach(metric -> projections.add(Projections.include(metric.getName())));
+      return Projections.fields(projections);
+   }
+}
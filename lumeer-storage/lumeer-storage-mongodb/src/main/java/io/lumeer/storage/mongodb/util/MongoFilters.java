@@ -19,18 +19,16 @@
 
 package io.lumeer.storage.mongodb.util;
 
-import io.lumeer.api.model.Role;
+import io.lumeer.storage.api.query.AttributeFilter;
 import io.lumeer.storage.api.query.DatabaseQuery;
 import io.lumeer.storage.api.query.SuggestionQuery;
-import io.lumeer.storage.mongodb.codecs.PermissionCodec;
 import io.lumeer.storage.mongodb.codecs.PermissionsCodec;
 
 import com.mongodb.client.model.Filters;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.regex.Pattern;
 
 public class MongoFilters {
 
@@ -38,6 +36,8 @@ public class MongoFilters {
    private static final String CODE = "code";
    private static final String PERMISSIONS = "permissions";
 
+   private static final Pattern SPECIAL_REGEX_CHARACTERS = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+
    public static Bson idFilter(String id) {
       return Filters.eq(ID, new ObjectId(id));
    }
@@ -46,36 +46,56 @@ public class MongoFilters {
       return Filters.eq(CODE, code);
    }
 
+   /**
+    * Matches the resources readable by the user of the query, see {@link PermissionsReaders}.
+    *
+    * @param databaseQuery
+    *       the query with the user and the groups
+    * @return the filter
+    */
    public static Bson permissionsFilter(DatabaseQuery databaseQuery) {
-      List<Bson> filters = databaseQuery.getGroups().stream()
-                                        .map(MongoFilters::groupPermissionsFilter)
-                                        .collect(Collectors.toList());
-      filters.add(userPermissionsFilter(databaseQuery.getUser()));
-
-      return Filters.or(filters);
-   }
-
-   private static Bson userPermissionsFilter(String user) {
-      return entityPermissionsFilter(PermissionsCodec.USER_ROLES, user);
-   }
-
-   private static Bson groupPermissionsFilter(String group) {
-      return entityPermissionsFilter(PermissionsCodec.GROUP_ROLES, group);
-   }
-
-   private static Bson entityPermissionsFilter(String entityField, String entityName) {
-      return Filters.elemMatch(PERMISSIONS + "." + entityField, Filters.and(
-            entityNameFilter(entityName),
-            entityRolesFilter(Role.READ)
-      ));
+      return Filters.in(PERMISSIONS + "." + PermissionsCodec.READERS, PermissionsReaders.getPrincipals(databaseQuery));
    }
 
-   private static Bson entityNameFilter(String name) {
-      return Filters.eq(PermissionCodec.NAME, name);
+   /**
+    * Compiles the condition on a data attribute. Only the operators that can be answered by a range of an ascending index
+    * on the attribute are used, a prefix is matched by an anchored case sensitive regular expression.
+    *
+    * @param filter
+    *       the condition
+    * @return the filter
+    */
+   public static Bson attributeFilter(AttributeFilter filter) {
+      String attribute = filter.getAttribute();
+      switch (filter.getOperator()) {
+         case EQUALS:
+            return Filters.eq(attribute, filter.getValue());
+         case NOT_EQUALS:
+            return Filters.ne(attribute, filter.getValue());
+         case LOWER_THAN:
+            return Filters.lt(attribute, filter.getValue());
+         case LOWER_THAN_EQUALS:
+            return Filters.lte(attribute, filter.getValue());
+         case GREATER_THAN:
+            return Filters.gt(attribute, filter.getValue());
+         case GREATER_THAN_EQUALS:
+            return Filters.gte(attribute, filter.getValue());
+         case IN:
+            return Filters.in(attribute, filter.getValues());
+         case EXISTS:
+            return Filters.exists(attribute);
+         case NOT_EXISTS:
+            return Filters.exists(attribute, false);
+         case PREFIX:
+            return Filters.regex(attribute, "^" + escapeRegex(String.valueOf(filter.getValue())));
+         default:
+            throw new IllegalArgumentException("Unsupported operator " + filter.getOperator());
+      }
    }
 
-   private static Bson entityRolesFilter(Role role) {
-      return Filters.in(PermissionCodec.ROLES, role.toString());
+   private static String escapeRegex(String text) {
+      // escaping every special character separately keeps the prefix a plain string so that the index bounds stay tight
+      return SPECIAL_REGEX_CHARACTERS.matcher(text).replaceAll("\\\\$0");
    }
 
    public static Bson suggestionsFilter(SuggestionQuery query) {
@@ -0,0 +1,65 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.util;
+
+import io.lumeer.api.model.Permission;
+import io.lumeer.api.model.Permissions;
+import io.lumeer.api.model.Role;
+import io.lumeer.storage.api.query.DatabaseQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Denormalised list of principals allowed to read a resource. It is stored next to user and group permissions, so a
+ * permission filter is a single indexed {@code $in} instead of an {@code $elemMatch} per group of the user.
+ */
+public class PermissionsReaders {
+
+   public static final String READERS = "readers";
+
+   private static final String USER_PREFIX = "u:";
+   private static final String GROUP_PREFIX = "g:";
+
+   private PermissionsReaders() {
+   }
+
+   public static List<String> getReaders(Permissions permissions) {
+      return getReaders(permissions.getUserPermissions(), permissions.getGroupPermissions());
+   }
+
+   public static List<String> getReaders(Set<? extends Permission> userPermissions, Set<? extends Permission> groupPermissions) {
+      List<String> readers = new ArrayList<>();
+      userPermissions.stream()
+                     .filter(permission -> permission.getRoles().contains(Role.READ))
+                     .forEach(permission -> readers.add(USER_PREFIX + permission.getName()));
+      groupPermissions.stream()
+                      .filter(permission -> permission.getRoles().contains(Role.READ))
+                      .forEach(permission -> readers.add(GROUP_PREFIX + permission.getName()));
+      return readers;
+   }
+
+   public static List<String> getPrincipals(DatabaseQuery query) {
+      List<String> principals = new ArrayList<>();
+      principals.add(USER_PREFIX + query.getUser());
+      query.getGroups().forEach(group -> principals.add(GROUP_PREFIX + group));
+      return principals;
+   }
+}
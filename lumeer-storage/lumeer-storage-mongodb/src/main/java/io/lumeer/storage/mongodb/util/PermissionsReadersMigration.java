@@ -0,0 +1,125 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.util;
+
+import io.lumeer.api.model.Permission;
+import io.lumeer.storage.mongodb.codecs.PermissionCodec;
+import io.lumeer.storage.mongodb.codecs.PermissionsCodec;
+import io.lumeer.storage.mongodb.model.MorphiaOrganization;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Backfills the {@link PermissionsReaders readers} of the organizations, projects, collections and views stored before
+ * the array was introduced, so that the permission filters can match the readers only.
+ */
+public class PermissionsReadersMigration {
+
+   private static final String ID = "_id";
+   private static final String PERMISSIONS = "permissions";
+   private static final String READERS = PERMISSIONS + "." + PermissionsCodec.READERS;
+
+   private static final List<String> RESOURCE_COLLECTION_PREFIXES = Arrays.asList("projects_o-", "collections_p-", "views_p-");
+
+   private static final int BATCH_SIZE = 1000;
+
+   private PermissionsReadersMigration() {
+   }
+
+   /**
+    * Backfills the readers in all resource collections of the database.
+    *
+    * @param database
+    *       the database
+    * @return the number of updated resources
+    */
+   public static long migrate(MongoDatabase database) {
+      long updated = 0;
+
+      for (String collectionName : database.listCollectionNames()) {
+         if (isResourceCollection(collectionName)) {
+            updated += migrate(database.getCollection(collectionName));
+         }
+      }
+
+      return updated;
+   }
+
+   private static long migrate(MongoCollection<Document> collection) {
+      Bson withoutReaders = Filters.and(Filters.exists(READERS, false), Filters.type(PERMISSIONS, "object"));
+      List<WriteModel<Document>> updates = new ArrayList<>();
+      long updated = 0;
+
+      for (Document resource : collection.find(withoutReaders).projection(Projections.include(PERMISSIONS))) {
+         Document permissions = resource.get(PERMISSIONS, Document.class);
+         List<String> readers = PermissionsReaders.getReaders(getPermissions(permissions, PermissionsCodec.USER_ROLES), getPermissions(permissions, PermissionsCodec.GROUP_ROLES));
+
+         // the permissions could have been written since they were read, their writer stores the readers then
+         updates.add(new UpdateOneModel<>(Filters.and(Filters.eq(ID, resource.get(ID)), Filters.exists(READERS, false)), Updates.set(READERS, readers)));
+         if (updates.size() >= BATCH_SIZE) {
+            updated += write(collection, updates);
+         }
+      }
+
+      return updated + write(collection, updates);
+   }
+
+   private static long write(MongoCollection<Document> collection, List<WriteModel<Document>> updates) {
+      if (updates.isEmpty()) {
+         return 0;
+      }
+
+      long updated = collection.bulkWrite(updates, new BulkWriteOptions().ordered(false)).getModifiedCount();
+      updates.clear();
+      return updated;
+   }
+
+   @SuppressWarnings("unchecked")
+   private static Set<Permission> getPermissions(Document permissions, String rolesField) {
+      List<Document> roles = permissions.get(rolesField, List.class);
+      if (roles == null) {
+         return Collections.emptySet();
+      }
+
+      return roles.stream()
+                  .map(PermissionCodec::convertFromDocument)
+                  .collect(Collectors.toSet());
+   }
+
+   private static boolean isResourceCollection(String collectionName) {
+      return MorphiaOrganization.COLLECTION_NAME.equals(collectionName)
+            || RESOURCE_COLLECTION_PREFIXES.stream().anyMatch(collectionName::startsWith);
+   }
+}
@@ -0,0 +1,81 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoCredential;
+import com.mongodb.ServerAddress;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+public class MongoClientPoolTest {
+
+   private static final List<ServerAddress> ADDRESSES = Collections.singletonList(new ServerAddress("localhost", 27017));
+
+   private MongoClientPool pool = new MongoClientPool();
+
+   @After
+   public void closePool() {
+      pool.close();
+   }
+
+   @Test
+   public void testShareClientForSameHostsAndCredentials() {
+      MongoClient client1 = pool.acquire(ADDRESSES, credentials("user"), false, () -> MongoClientOptions.builder().build());
+      MongoClient client2 = pool.acquire(ADDRESSES, credentials("user"), false, () -> MongoClientOptions.builder().build());
+
+      assertThat(client2).isSameAs(client1);
+      assertThat(pool.size()).isEqualTo(1);
+   }
+
+   @Test
+   public void testSeparateClientsForDifferentCredentialsOrSsl() {
+      MongoClient client1 = pool.acquire(ADDRESSES, credentials("user"), false, () -> MongoClientOptions.builder().build());
+      MongoClient client2 = pool.acquire(ADDRESSES, credentials("other"), false, () -> MongoClientOptions.builder().build());
+      MongoClient client3 = pool.acquire(ADDRESSES, credentials("user"), true, () -> MongoClientOptions.builder().build());
+
+      assertThat(client1).isNotSameAs(client2).isNotSameAs(client3);
+      assertThat(pool.size()).isEqualTo(3);
+   }
+
+   @Test
+   public void testClientClosedAfterLastRelease() {
+      MongoClient client1 = pool.acquire(ADDRESSES, credentials("user"), false, () -> MongoClientOptions.builder().build());
+      MongoClient client2 = pool.acquire(ADDRESSES, credentials("user"), false, () -> MongoClientOptions.builder().build());
+
+      pool.release(client1);
+      assertThat(pool.size()).isEqualTo(1);
+
+      pool.release(client2);
+      assertThat(pool.size()).isZero();
+
+      MongoClient client3 = pool.acquire(ADDRESSES, credentials("user"), false, () -> MongoClientOptions.builder().build());
+      assertThat(client3).isNotSameAs(client1);
+   }
+
+   private static List<MongoCredential> credentials(final String user) {
+      return Collections.singletonList(MongoCredential.createScramSha1Credential(user, "lumeer", "secret".toCharArray()));
+   }
+}
@@ -0,0 +1,140 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.engine.api.LumeerConst;
+import io.lumeer.engine.api.batch.MergeBatch;
+import io.lumeer.engine.api.batch.SplitBatch;
+import io.lumeer.engine.api.data.DataDocument;
+
+import com.mongodb.MongoClient;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class MongoDbStorageDialectTest {
+
+   private static final String VERSION = LumeerConst.Document.METADATA_VERSION_KEY;
+   private static final String PARTS = LumeerConst.Document.METADATA_PREFIX + "batch-parts";
+
+   private final MongoDbStorageDialect dialect = new MongoDbStorageDialect();
+
+   private static List<BsonDocument> toBson(DataDocument[] stages) {
+      return Arrays.stream(stages)
+                   .map(stage -> new Document(stage).toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry()))
+                   .collect(Collectors.toList());
+   }
+
+   private static BsonDocument json(String json) {
+      return BsonDocument.parse(json.replace('\'', '"'));
+   }
+
+   @Test
+   public void testJoinMergeStages() {
+      MergeBatch batch = new MergeBatch("collection", Arrays.asList("a", "b"), "ab", " - ", MergeBatch.MergeType.JOIN, false);
+      List<BsonDocument> stages = toBson(dialect.mergeBatchUpdate(batch, new DataDocument("updatedBy", "user")));
+
+      assertThat(stages).extracting(BsonDocument::getFirstKey).containsExactly("$set", "$unset");
+      BsonDocument set = stages.get(0).getDocument("$set");
+      assertThat(set.keySet()).containsExactly("ab", "updatedBy", VERSION);
+      assertThat(set.get("ab")).isEqualTo(json("{$reduce: {"
+            + "input: {$filter: {input: ['$a', '$b'], cond: {$ne: ['$$this', null]}}}, "
+            + "initialValue: '', "
+            + "in: {$concat: ['$$value', {$cond: [{$eq: ['$$value', '']}, '', {$literal: ' - '}]}, "
+            + "{$convert: {input: '$$this', to: 'string', onError: ''}}]}}}"));
+      assertThat(set.get("updatedBy")).isEqualTo(json("{$literal: 'user'}"));
+      assertThat(set.get(VERSION)).isEqualTo(json("{$add: [{$ifNull: ['$" + VERSION + "', 0]}, 1]}"));
+      assertThat(stages.get(1).getArray("$unset")).isEqualTo(json("{a: ['a', 'b']}").getArray("a"));
+   }
+
+   @Test
+   public void testSumMergeKeepsOriginal() {
+      MergeBatch batch = new MergeBatch("collection", Arrays.asList("a", "b"), "total", null, MergeBatch.MergeType.SUM, true);
+      List<BsonDocument> stages = toBson(dialect.mergeBatchUpdate(batch, new DataDocument()));
+
+      assertThat(stages).extracting(BsonDocument::getFirstKey).containsExactly("$set");
+      assertThat(stages.get(0).getDocument("$set").get("total")).isEqualTo(json("{$sum: ['$a', '$b']}"));
+   }
+
+   @Test
+   public void testDocumentMergeKeepsResultAttribute() {
+      MergeBatch batch = new MergeBatch("collection", Arrays.asList("a", "b"), "a", null, MergeBatch.MergeType.DOCUMENT, false);
+      List<BsonDocument> stages = toBson(dialect.mergeBatchUpdate(batch, new DataDocument()));
+
+      assertThat(stages.get(0).getDocument("$set").get("a")).isEqualTo(json("{a: {$ifNull: ['$a', '$$REMOVE']}, b: {$ifNull: ['$b', '$$REMOVE']}}"));
+      assertThat(stages.get(1).getArray("$unset")).isEqualTo(json("{a: ['b']}").getArray("a"));
+   }
+
+   @Test
+   public void testSplitStages() {
+      SplitBatch batch = new SplitBatch("collection", "name", ",", true, Arrays.asList("first", "last"), false);
+      List<BsonDocument> stages = toBson(dialect.splitBatchUpdate(batch, new DataDocument()));
+
+      assertThat(stages).extracting(BsonDocument::getFirstKey).containsExactly("$set", "$set", "$unset");
+      assertThat(stages.get(0).getDocument("$set").get(PARTS)).isEqualTo(json("{$cond: ["
+            + "{$eq: [{$ifNull: ['$name', null]}, null]}, "
+            + "[], "
+            + "{$split: [{$convert: {input: '$name', to: 'string', onError: ''}}, {$literal: ','}]}]}"));
+
+      BsonDocument set = stages.get(1).getDocument("$set");
+      assertThat(set.keySet()).containsExactly("first", "last", VERSION);
+      assertThat(set.get("first")).isEqualTo(json("{$cond: ["
+            + "{$gt: [{$size: '$" + PARTS + "'}, 0]}, "
+            + "{$trim: {input: {$arrayElemAt: ['$" + PARTS + "', 0]}}}, "
+            + "'$$REMOVE']}"));
+      // the last attribute gets the rest of the value
+      assertThat(set.get("last")).isEqualTo(json("{$cond: ["
+            + "{$gt: [{$size: '$" + PARTS + "'}, 1]}, "
+            + "{$trim: {input: {$reduce: {"
+            + "input: {$slice: ['$" + PARTS + "', 1, " + Integer.MAX_VALUE + "]}, "
+            + "initialValue: null, "
+            + "in: {$cond: [{$eq: ['$$value', null]}, '$$this', {$concat: ['$$value', {$literal: ','}, '$$this']}]}}}}}, "
+            + "'$$REMOVE']}"));
+
+      assertThat(stages.get(2).getArray("$unset")).isEqualTo(json("{a: ['" + PARTS + "', 'name']}").getArray("a"));
+   }
+
+   @Test
+   public void testSplitIntoOriginalAttributeWithoutTrim() {
+      SplitBatch batch = new SplitBatch("collection", "name", " ", false, Arrays.asList("name", "rest"), false);
+      List<BsonDocument> stages = toBson(dialect.splitBatchUpdate(batch, new DataDocument()));
+
+      assertThat(stages.get(1).getDocument("$set").get("name")).isEqualTo(json("{$cond: ["
+            + "{$gt: [{$size: '$" + PARTS + "'}, 0]}, "
+            + "{$arrayElemAt: ['$" + PARTS + "', 0]}, "
+            + "'$$REMOVE']}"));
+      assertThat(stages.get(2).getArray("$unset")).isEqualTo(json("{a: ['" + PARTS + "']}").getArray("a"));
+   }
+
+   @Test
+   public void testNonTextualValueFilter() {
+      Bson filter = dialect.fieldNonTextualValueFilter("a").get();
+
+      assertThat(filter.toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry())).isEqualTo(json("{$or: ["
+            + "{a: {$type: 4}}, "
+            + "{a: {$exists: true, $not: {$type: ['string', 'int', 'long', 'bool', 'null']}}}]}"));
+   }
+}
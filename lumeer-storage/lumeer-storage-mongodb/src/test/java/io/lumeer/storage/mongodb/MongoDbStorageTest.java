@@ -26,13 +26,16 @@ import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.engine.api.data.DataFilter;
 import io.lumeer.engine.api.data.DataStorageStats;
 import io.lumeer.engine.api.data.Query;
+import io.lumeer.engine.api.exception.UnsuccessfulOperationException;
 
 import com.mongodb.MongoBulkWriteException;
 import com.mongodb.client.model.Filters;
 import org.assertj.core.api.SoftAssertions;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -60,7 +63,11 @@ public class MongoDbStorageTest extends MongoDbTestBase {
    private final String COLLECTION_CREATE_DOCUMENTS = "collectionCreateDocuments";
    private final String COLLECTION_CREATE_DOCUMENTS_EXCEPTION = "collectionCreateDocumentsWithException";
    private final String COLLECTION_CREATE_AND_READ_OLD_DOCUMENT = "collectionCreateAndReadOldDocument";
+   private final String COLLECTION_CREATE_OLD_DOCUMENTS = "collectionCreateOldDocuments";
    private final String COLLECTION_UPDATE_DOCUMENT = "collectionUpdateDocument";
+   private final String COLLECTION_UPDATE_DOCUMENTS = "collectionUpdateDocuments";
+   private final String COLLECTION_UPDATE_PIPELINE = "collectionUpdatePipeline";
+   private final String COLLECTION_UPDATE_AND_READ = "collectionUpdateAndRead";
    private final String COLLECTION_REPLACE_DOCUMENT = "collectionReplaceDocument";
    private final String COLLECTION_DROP_DOCUMENT = "collectionDropDocument";
    private final String COLLECTION_DROP_MANY = "collectionDropMany";
@@ -99,7 +106,11 @@ public class MongoDbStorageTest extends MongoDbTestBase {
       mongoDbStorage.dropCollection(COLLECTION_CREATE_DOCUMENTS);
       mongoDbStorage.dropCollection(COLLECTION_CREATE_DOCUMENTS_EXCEPTION);
       mongoDbStorage.dropCollection(COLLECTION_CREATE_AND_READ_OLD_DOCUMENT);
+      mongoDbStorage.dropCollection(COLLECTION_CREATE_OLD_DOCUMENTS);
       mongoDbStorage.dropCollection(COLLECTION_UPDATE_DOCUMENT);
+      mongoDbStorage.dropCollection(COLLECTION_UPDATE_DOCUMENTS);
+      mongoDbStorage.dropCollection(COLLECTION_UPDATE_PIPELINE);
+      mongoDbStorage.dropCollection(COLLECTION_UPDATE_AND_READ);
       mongoDbStorage.dropCollection(COLLECTION_DROP_DOCUMENT);
       mongoDbStorage.dropCollection(COLLECTION_DROP_MANY);
       mongoDbStorage.dropCollection(COLLECTION_DROP_ATTRIBUTE);
@@ -255,6 +266,104 @@ public class MongoDbStorageTest extends MongoDbTestBase {
       assertions.assertAll();
    }
 
+   @Test
+   public void testCreateOldDocuments() throws Exception {
+      mongoDbStorage.createCollection(COLLECTION_CREATE_OLD_DOCUMENTS);
+
+      String dummyKey = "507f191e810c19729de860ea";
+      List<DataDocument> documents = Arrays.asList(
+            createDummyDocument().append(LumeerConst.Document.ID, dummyKey).append(LumeerConst.Document.METADATA_VERSION_KEY, 1),
+            createDummyDocument().append(LumeerConst.Document.ID, dummyKey).append(LumeerConst.Document.METADATA_VERSION_KEY, 2));
+
+      mongoDbStorage.createOldDocuments(COLLECTION_CREATE_OLD_DOCUMENTS, documents);
+      assertThat(mongoDbStorage.readDocument(COLLECTION_CREATE_OLD_DOCUMENTS, mongoDbStorageDialect.documentNestedIdFilterWithVersion(dummyKey, 1))).isNotNull();
+      assertThat(mongoDbStorage.readDocument(COLLECTION_CREATE_OLD_DOCUMENTS, mongoDbStorageDialect.documentNestedIdFilterWithVersion(dummyKey, 2))).isNotNull();
+
+      assertThatThrownBy(() -> mongoDbStorage.createOldDocuments(COLLECTION_CREATE_OLD_DOCUMENTS, documents.subList(0, 1))).isInstanceOf(UnsuccessfulOperationException.class);
+   }
+
+   @Test
+   public void testProcessAndUpdateDocuments() throws Exception {
+      mongoDbStorage.createCollection(COLLECTION_UPDATE_DOCUMENTS);
+
+      for (int i = 0; i < 25; i++) {
+         mongoDbStorage.createDocument(COLLECTION_UPDATE_DOCUMENTS, new DataDocument("a", i).append("b", i));
+      }
+
+      List<Integer> batchSizes = new ArrayList<>();
+      mongoDbStorage.processDocuments(COLLECTION_UPDATE_DOCUMENTS, null, 10, documents -> {
+         batchSizes.add(documents.size());
+
+         List<DataDocument> updatedDocuments = new ArrayList<>();
+         documents.forEach(document -> updatedDocuments.add(new DataDocument(LumeerConst.Document.ID, document.getId()).append("c", document.getInteger("a") * 2)));
+         mongoDbStorage.updateDocuments(COLLECTION_UPDATE_DOCUMENTS, updatedDocuments, Collections.singletonList("b"));
+      });
+      assertThat(batchSizes).containsExactly(10, 10, 5);
+
+      List<DataDocument> documents = mongoDbStorage.search(COLLECTION_UPDATE_DOCUMENTS, null, null, 0, 0);
+      assertThat(documents).hasSize(25);
+      documents.forEach(document -> {
+         assertThat(document).doesNotContainKey("b");
+         assertThat(document.getInteger("c")).isEqualTo(document.getInteger("a") * 2);
+      });
+   }
+
+   @Test
+   public void testUpdateDocumentsByPipeline() throws Exception {
+      Assume.assumeTrue(mongoDbStorage.supportsUpdatePipelines());
+      mongoDbStorage.createCollection(COLLECTION_UPDATE_PIPELINE);
+
+      mongoDbStorage.createDocument(COLLECTION_UPDATE_PIPELINE, new DataDocument("a", 1).append("b", 2));
+      mongoDbStorage.createDocument(COLLECTION_UPDATE_PIPELINE, new DataDocument("a", 3));
+
+      long modified = mongoDbStorage.updateDocuments(COLLECTION_UPDATE_PIPELINE, mongoDbStorageDialect.fieldExistsFilter("b"),
+            new DataDocument("$set", new DataDocument("c", new DataDocument("$add", Arrays.asList("$a", "$b")))));
+      assertThat(modified).isEqualTo(1);
+      assertThat(mongoDbStorage.count(COLLECTION_UPDATE_PIPELINE, mongoDbStorageDialect.fieldValueFilter("c", 3))).isEqualTo(1);
+   }
+
+   @Test
+   public void testUpdateAndReadDocument() throws Exception {
+      mongoDbStorage.createCollection(COLLECTION_UPDATE_AND_READ);
+      mongoDbStorage.createDocument(COLLECTION_UPDATE_AND_READ, new DataDocument("a", 1).append("state", "new"));
+      mongoDbStorage.createDocument(COLLECTION_UPDATE_AND_READ, new DataDocument("a", 2).append("state", "new"));
+
+      DataFilter newFilter = mongoDbStorageDialect.fieldValueFilter("state", "new");
+      DataDocument updated = mongoDbStorage.updateAndReadDocument(COLLECTION_UPDATE_AND_READ, newFilter, mongoDbStorageDialect.documentFieldSort("a", LumeerConst.SORT_DESCENDING_ORDER), new DataDocument("state", "done"));
+      assertThat(updated.getInteger("a")).isEqualTo(2);
+      assertThat(updated.getString("state")).isEqualTo("done");
+
+      assertThat(mongoDbStorage.updateAndReadDocument(COLLECTION_UPDATE_AND_READ, newFilter, null, new DataDocument("state", "done"))).isNotNull();
+      assertThat(mongoDbStorage.updateAndReadDocument(COLLECTION_UPDATE_AND_READ, newFilter, null, new DataDocument("state", "done"))).isNull();
+      assertThat(mongoDbStorage.count(COLLECTION_UPDATE_AND_READ, null)).isEqualTo(2);
+   }
+
+   @Test
+   public void testUpdateAndReadDocumentIncrement() throws Exception {
+      mongoDbStorage.createCollection(COLLECTION_UPDATE_AND_READ);
+      mongoDbStorage.createDocument(COLLECTION_UPDATE_AND_READ, new DataDocument("a", 1).append("state", "new"));
+
+      DataFilter newFilter = mongoDbStorageDialect.fieldValueFilter("state", "new");
+      DataDocument updated = mongoDbStorage.updateAndReadDocument(COLLECTION_UPDATE_AND_READ, newFilter, null, new DataDocument("state", "done"),
+            new DataDocument("a", 2).append("b", 1));
+      assertThat(updated.getString("state")).isEqualTo("done");
+      assertThat(updated.getInteger("a")).isEqualTo(3);
+      assertThat(updated.getInteger("b")).isEqualTo(1);
+   }
+
+   @Test
+   public void testUpdateManyDocuments() throws Exception {
+      mongoDbStorage.createCollection(COLLECTION_UPDATE_AND_READ);
+      mongoDbStorage.createDocument(COLLECTION_UPDATE_AND_READ, new DataDocument("a", 1).append("state", "new"));
+      mongoDbStorage.createDocument(COLLECTION_UPDATE_AND_READ, new DataDocument("a", 2).append("state", "new"));
+      mongoDbStorage.createDocument(COLLECTION_UPDATE_AND_READ, new DataDocument("a", 3).append("state", "done"));
+
+      DataFilter newFilter = mongoDbStorageDialect.fieldValueFilter("state", "new");
+      assertThat(mongoDbStorage.updateManyDocuments(COLLECTION_UPDATE_AND_READ, newFilter, new DataDocument("state", "done"))).isEqualTo(2);
+      assertThat(mongoDbStorage.updateManyDocuments(COLLECTION_UPDATE_AND_READ, newFilter, new DataDocument("state", "done"))).isZero();
+      assertThat(mongoDbStorage.count(COLLECTION_UPDATE_AND_READ, mongoDbStorageDialect.fieldValueFilter("state", "done"))).isEqualTo(3);
+   }
+
    @Test
    public void testReplaceDocument() throws Exception {
       mongoDbStorage.createCollection(COLLECTION_REPLACE_DOCUMENT);
@@ -0,0 +1,102 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.codecs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.mongodb.MongoUtils;
+
+import com.mongodb.MongoClient;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+public class DataDocumentCodecTest {
+
+   private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec(MongoClient.getDefaultCodecRegistry());
+
+   private static Document createDocument(final ObjectId id) {
+      return new Document("_id", id)
+            .append("name", "Lumeer")
+            .append("count", 42)
+            .append("created", new Date(0))
+            .append("nested", new Document("a", 1).append("b", new Document("c", "d")))
+            .append("documents", Arrays.asList(new Document("x", 1), new Document("x", 2)))
+            .append("values", Arrays.asList(1, 2, 3))
+            .append("missing", null);
+   }
+
+   @Test
+   public void testDecodeAsConvertDocument() {
+      ObjectId id = new ObjectId();
+      RawBsonDocument raw = new RawBsonDocument(createDocument(id), DOCUMENT_CODEC);
+
+      DataDocument decoded = raw.decode(new DataDocumentCodec(MongoClient.getDefaultCodecRegistry()));
+
+      assertThat(decoded).isEqualTo(MongoUtils.convertDocument(createDocument(id)));
+      assertThat(decoded.getId()).isEqualTo(id.toHexString());
+      assertThat(decoded.getDataDocument("nested").getDataDocument("b")).isInstanceOf(DataDocument.class).containsEntry("c", "d");
+      assertThat((List<Object>) decoded.get("documents")).allMatch(o -> o instanceof DataDocument);
+   }
+
+   @Test
+   public void testEncodeIdAsObjectId() {
+      ObjectId id = new ObjectId();
+      DataDocument document = new DataDocument("name", "Lumeer").append("nested", new DataDocument("a", 1));
+      document.setId(id.toHexString());
+
+      BsonDocument bson = new BsonDocument();
+      new DataDocumentCodec(MongoClient.getDefaultCodecRegistry()).encode(new BsonDocumentWriter(bson), document, EncoderContext.builder().build());
+
+      assertThat(bson.get("_id").getBsonType()).isEqualTo(BsonType.OBJECT_ID);
+      assertThat(bson.getObjectId("_id").getValue()).isEqualTo(id);
+      assertThat(bson.getDocument("nested").getInt32("a").getValue()).isEqualTo(1);
+   }
+
+   @Test
+   public void testLazyDecoding() {
+      DataDocumentCodec codec = new DataDocumentCodec(MongoClient.getDefaultCodecRegistry(), 1);
+      RawBsonDocument raw = new RawBsonDocument(createDocument(new ObjectId()), DOCUMENT_CODEC);
+
+      DataDocument decoded = raw.decode(codec);
+      assertThat(decoded.get("nested")).isInstanceOf(LazyDataDocument.class);
+      LazyDataDocument nested = (LazyDataDocument) decoded.get("nested");
+      assertThat(nested.isDecoded()).isFalse();
+
+      // untouched nested document is written back from its raw form
+      RawBsonDocument encoded = new RawBsonDocument(decoded, codec);
+      assertThat(nested.isDecoded()).isFalse();
+      assertThat(encoded.getDocument("nested").getDocument("b").getString("c").getValue()).isEqualTo("d");
+
+      assertThat(nested.getInteger("a")).isEqualTo(1);
+      assertThat(nested.isDecoded()).isTrue();
+      assertThat(nested.getDataDocument("b")).containsEntry("c", "d");
+   }
+}
@@ -19,15 +19,23 @@
 package io.lumeer.storage.mongodb.dao.collection;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 
+import io.lumeer.api.model.Aggregation;
+import io.lumeer.api.model.AggregationGroup;
 import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.DataIndex;
+import io.lumeer.api.model.DocumentOperation;
 import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.api.query.AttributeFilter;
+import io.lumeer.storage.api.query.AttributeSort;
 import io.lumeer.storage.api.query.SearchQuery;
 import io.lumeer.storage.mongodb.MongoDbTestBase;
 
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import org.bson.Document;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -36,7 +44,12 @@ import org.mockito.Mockito;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MongoDataDaoTest extends MongoDbTestBase {
 
@@ -50,20 +63,33 @@ public class MongoDataDaoTest extends MongoDbTestBase {
    private static final String VALUE1 = "firstValue";
    private static final String VALUE2 = "secondValue";
 
+   private static final int COLLECTIONS_COUNT = 120;
+   private static final long SEARCH_TIMEOUT = 30_000;
+
    private MongoDataDao dataDao;
 
+   private ExecutorService executorService;
+
    @Before
    public void initDataDao() {
       Collection collection = Mockito.mock(Collection.class);
       Mockito.when(collection.getId()).thenReturn(COLLECTION_ID);
 
+      executorService = Executors.newFixedThreadPool(4);
+
       dataDao = new MongoDataDao();
       dataDao.setDatabase(database);
       dataDao.setDatastore(datastore);
+      dataDao.setExecutorService(executorService);
 
       dataDao.createDataRepository(COLLECTION_ID);
    }
 
+   @After
+   public void shutdownExecutorService() {
+      executorService.shutdownNow();
+   }
+
    private String createDocument() {
       Document document = new Document();
       document.append(KEY1, VALUE1);
@@ -155,6 +181,27 @@ public class MongoDataDaoTest extends MongoDbTestBase {
       assertThat(mongoCursor).isEmpty();
    }
 
+   @Test
+   public void testWriteData() {
+      String updatedId = createDocument();
+      String patchedId = createDocument();
+      String deletedId = createDocument();
+
+      List<DocumentOperation> operations = Arrays.asList(
+            new DocumentOperation(DocumentOperation.Type.CREATE, DOCUMENT_ID, new DataDocument(KEY1, VALUE2)),
+            new DocumentOperation(DocumentOperation.Type.UPDATE, updatedId, new DataDocument(KEY2, VALUE1)),
+            new DocumentOperation(DocumentOperation.Type.PATCH, patchedId, new DataDocument(KEY1, VALUE2)),
+            new DocumentOperation(DocumentOperation.Type.DELETE, deletedId, null),
+            new DocumentOperation(DocumentOperation.Type.CREATE, updatedId, new DataDocument(KEY1, VALUE1)));
+      Map<Integer, String> errors = dataDao.writeData(COLLECTION_ID, operations);
+      assertThat(errors).containsOnlyKeys(4);
+
+      assertThat(dataDao.getData(COLLECTION_ID, DOCUMENT_ID)).containsEntry(KEY1, VALUE2);
+      assertThat(dataDao.getData(COLLECTION_ID, updatedId)).containsEntry(KEY2, VALUE1).doesNotContainKey(KEY1);
+      assertThat(dataDao.getData(COLLECTION_ID, patchedId)).containsEntry(KEY1, VALUE2).containsEntry(KEY2, VALUE2);
+      assertThat(dataCollection().count()).isEqualTo(3);
+   }
+
    @Test
    public void testDeleteDataNotExistingDocument() {
 
@@ -179,6 +226,33 @@ public class MongoDataDaoTest extends MongoDbTestBase {
 
    }
 
+   @Test
+   public void testGetDataWithFields() {
+      String id = createDocument();
+
+      SearchQuery searchQuery = SearchQuery.createBuilder(USER)
+                                           .fields(Collections.singleton(KEY2))
+                                           .build();
+      List<DataDocument> data = dataDao.getData(COLLECTION_ID, searchQuery);
+      assertThat(data).hasSize(1);
+      assertThat(data.get(0).getId()).isEqualTo(id);
+      assertThat(data.get(0)).containsEntry(KEY2, VALUE2)
+                             .doesNotContainKey(KEY1);
+   }
+
+   @Test
+   public void testAggregateData() {
+      createDocument(KEY1, VALUE1);
+      createDocument(KEY1, VALUE1);
+      createDocument(KEY1, VALUE2);
+
+      Aggregation aggregation = new Aggregation(null, Collections.singletonList(new AggregationGroup(KEY1, null, null, null)), null, null);
+      Map<String, List<DataDocument>> rows = dataDao.aggregateData(Collections.singleton(COLLECTION_ID), SearchQuery.createBuilder(USER).build(), aggregation, SEARCH_TIMEOUT);
+      assertThat(rows).containsOnlyKeys(COLLECTION_ID);
+      assertThat(rows.get(COLLECTION_ID)).containsExactly(new DataDocument(KEY1, VALUE1).append("count", 2),
+            new DataDocument(KEY1, VALUE2).append("count", 1));
+   }
+
    @Test
    public void testGetDataByFulltextAttributeValue() {
       String id1 = createDocument(KEY1, VALUE1);
@@ -193,6 +267,48 @@ public class MongoDataDaoTest extends MongoDbTestBase {
       assertThat(data).extracting(DataDocument::getId).containsOnly(id2, id3);
    }
 
+   @Test
+   public void testGetDataByAttributeFilters() {
+      String id1 = createDocument(KEY1, "apple");
+      String id2 = createDocument(KEY1, "apricot");
+      String id3 = createDocument(KEY1, "banana");
+      String id4 = createDocument(KEY2, "a.pple");
+
+      SearchQuery searchQuery = SearchQuery.createBuilder(USER)
+                                           .attributeFilters(Arrays.asList(
+                                                 new AttributeFilter(KEY1, AttributeFilter.Operator.PREFIX, Collections.singletonList("ap")),
+                                                 new AttributeFilter(KEY1, AttributeFilter.Operator.NOT_EQUALS, Collections.singletonList("apple"))))
+                                           .build();
+      List<DataDocument> data = dataDao.getData(COLLECTION_ID, searchQuery);
+      assertThat(data).extracting(DataDocument::getId).containsOnly(id2);
+
+      searchQuery = SearchQuery.createBuilder(USER)
+                               .attributeFilters(Collections.singletonList(new AttributeFilter(KEY1, AttributeFilter.Operator.EXISTS, Collections.emptyList())))
+                               .attributeSorts(Collections.singletonList(new AttributeSort(KEY1, false)))
+                               .build();
+      data = dataDao.getData(COLLECTION_ID, searchQuery);
+      assertThat(data).extracting(DataDocument::getId).containsExactly(id3, id2, id1);
+   }
+
+   @Test
+   public void testIndexes() {
+      Map<String, Integer> keys = new LinkedHashMap<>();
+      keys.put(KEY1, 1);
+      keys.put(KEY2, -1);
+
+      String name = dataDao.createIndex(COLLECTION_ID, new DataIndex("lumeer_A_1_B_-1", keys));
+      assertThat(name).isEqualTo("lumeer_A_1_B_-1");
+      assertThat(dataDao.createIndex(COLLECTION_ID, new DataIndex(null, Collections.singletonMap(KEY2, 1)))).isEqualTo("B_1");
+
+      List<DataIndex> indexes = dataDao.getIndexes(COLLECTION_ID);
+      assertThat(indexes).extracting(DataIndex::getName).containsOnly("_id_", "lumeer_A_1_B_-1", "B_1");
+      assertThat(indexes.stream().filter(index -> index.getName().equals(name)).findFirst().get().getKeys()).containsExactly(
+            entry(KEY1, 1), entry(KEY2, -1));
+
+      dataDao.dropIndex(COLLECTION_ID, name);
+      assertThat(dataDao.getIndexes(COLLECTION_ID)).extracting(DataIndex::getName).containsOnly("_id_", "B_1");
+   }
+
    @Test
    public void testGetDataByDocumenstIds() {
       String id1 = createDocument(KEY1, VALUE1);
@@ -262,6 +378,43 @@ public class MongoDataDaoTest extends MongoDbTestBase {
       assertThat(count).isEqualTo(2);
    }
 
+   @Test
+   public void testGetDataFromMultipleCollections() {
+      Set<String> collectionIds = createCollectionsWithDocuments();
+
+      SearchQuery searchQuery = SearchQuery.createBuilder(USER)
+                                           .fulltext("fulltext")
+                                           .build();
+      Map<String, List<DataDocument>> data = dataDao.getData(collectionIds, searchQuery, SEARCH_TIMEOUT);
+      assertThat(data).hasSize(COLLECTIONS_COUNT);
+      data.values().forEach(documents -> assertThat(documents).hasSize(1));
+   }
+
+   @Test
+   public void testGetDataCountFromMultipleCollections() {
+      Set<String> collectionIds = createCollectionsWithDocuments();
+      collectionIds.add(COLLECTION_ID);
+
+      SearchQuery searchQuery = SearchQuery.createBuilder(USER)
+                                           .fulltext("fulltext")
+                                           .build();
+      Map<String, Long> counts = dataDao.getDataCount(collectionIds, searchQuery, SEARCH_TIMEOUT);
+      assertThat(counts).hasSize(COLLECTIONS_COUNT + 1)
+                        .containsEntry(COLLECTION_ID, 0L);
+   }
+
+   private Set<String> createCollectionsWithDocuments() {
+      Set<String> collectionIds = new HashSet<>();
+      for (int i = 0; i < COLLECTIONS_COUNT; i++) {
+         String collectionId = COLLECTION_ID + i;
+         dataDao.createDataRepository(collectionId);
+         dataDao.dataCollection(collectionId).insertOne(new Document(KEY1, "fulltext").append(KEY2, VALUE2));
+         dataDao.dataCollection(collectionId).insertOne(new Document(KEY1, VALUE1).append(KEY2, VALUE2));
+         collectionIds.add(collectionId);
+      }
+      return collectionIds;
+   }
+
    private MongoCollection<Document> dataCollection() {
       return dataDao.dataCollection(COLLECTION_ID);
    }
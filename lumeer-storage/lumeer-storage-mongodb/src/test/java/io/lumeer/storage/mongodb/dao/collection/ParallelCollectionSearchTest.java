@@ -0,0 +1,102 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.lumeer.storage.api.exception.StorageException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+public class ParallelCollectionSearchTest {
+
+   private static final List<String> COLLECTIONS = Arrays.asList("c1", "c2", "c3");
+
+   private ExecutorService executorService;
+
+   @Before
+   public void createExecutor() {
+      executorService = Executors.newFixedThreadPool(2);
+   }
+
+   @After
+   public void shutdownExecutor() {
+      executorService.shutdownNow();
+   }
+
+   @Test
+   public void testFailedCollectionIsSkipped() {
+      Map<String, String> results = new ParallelCollectionSearch<String>(executorService, 2).execute(COLLECTIONS, 5000, failing("c2"));
+
+      assertThat(results).containsOnlyKeys("c1", "c3");
+   }
+
+   @Test
+   public void testFailedCollectionFailsCompleteSearch() {
+      ParallelCollectionSearch<String> search = new ParallelCollectionSearch<>(executorService, 2, true);
+
+      assertThatThrownBy(() -> search.execute(COLLECTIONS, 5000, failing("c2")))
+            .isInstanceOf(StorageException.class)
+            .hasMessageContaining("c2");
+   }
+
+   @Test
+   public void testTimeoutFailsCompleteSearch() {
+      CountDownLatch never = new CountDownLatch(1);
+      ParallelCollectionSearch<String> search = new ParallelCollectionSearch<>(executorService, 2, true);
+
+      assertThatThrownBy(() -> search.execute(COLLECTIONS, 100, (collectionId, remaining) -> {
+         if ("c3".equals(collectionId)) {
+            try {
+               never.await();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         }
+         return collectionId;
+      })).isInstanceOf(StorageException.class);
+   }
+
+   @Test
+   public void testCompleteSearch() {
+      Map<String, String> results = new ParallelCollectionSearch<String>(executorService, 2, true).execute(COLLECTIONS, 5000, (collectionId, remaining) -> collectionId);
+
+      assertThat(results).containsOnlyKeys("c1", "c2", "c3");
+   }
+
+   private static BiFunction<String, Long, String> failing(String failedCollectionId) {
+      return (collectionId, remaining) -> {
+         if (failedCollectionId.equals(collectionId)) {
+            throw new IllegalStateException("failed");
+         }
+         return collectionId;
+      };
+   }
+}
@@ -32,10 +32,15 @@ import io.lumeer.storage.api.exception.StorageException;
 import io.lumeer.storage.api.query.SearchQuery;
 import io.lumeer.storage.api.query.SuggestionQuery;
 import io.lumeer.storage.mongodb.MongoDbTestBase;
+import io.lumeer.storage.mongodb.codecs.PermissionsCodec;
+import io.lumeer.storage.mongodb.codecs.ViewCodec;
 import io.lumeer.storage.mongodb.model.embedded.MorphiaPermission;
 import io.lumeer.storage.mongodb.model.embedded.MorphiaPermissions;
 import io.lumeer.storage.mongodb.util.MongoFilters;
+import io.lumeer.storage.mongodb.util.PermissionsReadersMigration;
 
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -307,6 +312,23 @@ public class MongoViewDaoTest extends MongoDbTestBase {
       assertThat(views).isEmpty();
    }
 
+   @Test
+   public void testGetViewsWithBackfilledReaders() {
+      createView(CODE, NAME);
+      database.getCollection(viewDao.databaseCollectionName())
+              .updateMany(new Document(), Updates.unset(ViewCodec.PERMISSIONS + "." + PermissionsCodec.READERS));
+      assertThat(PermissionsReadersMigration.migrate(database)).isEqualTo(1);
+
+      SearchQuery userQuery = SearchQuery.createBuilder(USER).build();
+      assertThat(viewDao.getViews(userQuery)).extracting(View::getCode).containsOnly(CODE);
+
+      SearchQuery groupQuery = SearchQuery.createBuilder(USER2).groups(Collections.singleton(GROUP)).build();
+      assertThat(viewDao.getViews(groupQuery)).extracting(View::getCode).containsOnly(CODE);
+
+      SearchQuery otherQuery = SearchQuery.createBuilder(USER2).groups(Collections.singleton(GROUP2)).build();
+      assertThat(viewDao.getViews(otherQuery)).isEmpty();
+   }
+
    @Test
    public void testGetViewsGroupRole() {
       JsonView view = prepareView();
@@ -20,7 +20,9 @@ package io.lumeer.storage.mongodb.dao.project;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
+import io.lumeer.api.dto.JsonAttribute;
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
 import io.lumeer.api.model.Permission;
@@ -36,8 +38,11 @@ import io.lumeer.storage.mongodb.model.MorphiaCollection;
 import io.lumeer.storage.mongodb.model.embedded.MorphiaAttribute;
 import io.lumeer.storage.mongodb.model.embedded.MorphiaPermission;
 import io.lumeer.storage.mongodb.model.embedded.MorphiaPermissions;
+import io.lumeer.storage.mongodb.util.PermissionsReadersMigration;
 
 import com.mongodb.DuplicateKeyException;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -47,8 +52,10 @@ import org.mockito.Mockito;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -203,6 +210,31 @@ public class MorphiaCollectionDaoTest extends MongoDbTestBase {
       assertThat(updatedCollection).isEqualTo(storedCollection);
    }
 
+   @Test
+   public void testUpdateCollectionStatistics() {
+      Attribute attribute = new JsonAttribute(ATTRIBUTE1_NAME, ATTRIBUTE1_NAME, Collections.emptySet(), 1);
+      String id = createCollection(CODE, NAME, Collections.singleton(new MorphiaAttribute(attribute))).getId();
+
+      Map<String, Integer> attributesUsage = new HashMap<>();
+      attributesUsage.put(ATTRIBUTE1_NAME, 2);
+      attributesUsage.put(ATTRIBUTE2_NAME, 3);
+      LocalDateTime lastTimeUsed = LAST_TIME_USED.plusHours(1);
+      collectionDao.updateCollectionStatistics(id, 3, attributesUsage, lastTimeUsed);
+      collectionDao.updateCollectionStatistics(id, 1, Collections.singletonMap(ATTRIBUTE2_NAME, 1), LAST_TIME_USED);
+
+      Collection storedCollection = datastore.get(collectionDao.databaseCollection(), MorphiaCollection.class, new ObjectId(id));
+      assertThat(storedCollection.getDocumentsCount()).isEqualTo(DOCUMENTS_COUNT + 4);
+      assertThat(storedCollection.getLastTimeUsed()).isEqualTo(lastTimeUsed);
+      assertThat(storedCollection.getAttributes()).extracting(Attribute::getFullName, Attribute::getUsageCount)
+                                                  .containsOnly(tuple(ATTRIBUTE1_NAME, 3), tuple(ATTRIBUTE2_NAME, 4));
+   }
+
+   @Test
+   public void testUpdateCollectionStatisticsNotExisting() {
+      assertThatThrownBy(() -> collectionDao.updateCollectionStatistics(COLLECTION_ID, 1, Collections.emptyMap(), LAST_TIME_USED))
+            .isInstanceOf(ResourceNotFoundException.class);
+   }
+
    @Test
    @Ignore("Stored anyway with the current implementation")
    public void testUpdateCollectionNotExisting() {
@@ -293,6 +325,23 @@ public class MorphiaCollectionDaoTest extends MongoDbTestBase {
       assertThat(collections).isEmpty();
    }
 
+   @Test
+   public void testGetCollectionsWithBackfilledReaders() {
+      createCollection(CODE, NAME);
+      database.getCollection(collectionDao.databaseCollection())
+              .updateMany(new Document(), Updates.unset(MorphiaCollection.PERMISSIONS + "." + MorphiaPermissions.READERS));
+      assertThat(PermissionsReadersMigration.migrate(database)).isEqualTo(1);
+
+      SearchQuery userQuery = SearchQuery.createBuilder(USER).build();
+      assertThat(collectionDao.getCollections(userQuery)).extracting(Collection::getCode).containsOnly(CODE);
+
+      SearchQuery groupQuery = SearchQuery.createBuilder(USER2).groups(Collections.singleton(GROUP)).build();
+      assertThat(collectionDao.getCollections(groupQuery)).extracting(Collection::getCode).containsOnly(CODE);
+
+      SearchQuery otherQuery = SearchQuery.createBuilder(USER2).groups(Collections.singleton(GROUP2)).build();
+      assertThat(collectionDao.getCollections(otherQuery)).isEmpty();
+   }
+
    @Test
    public void testGetCollectionsGroupsRole() {
       MorphiaCollection collection = prepareCollection(CODE, NAME);
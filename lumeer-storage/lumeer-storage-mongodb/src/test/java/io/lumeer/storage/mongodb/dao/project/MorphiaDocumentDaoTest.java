@@ -26,11 +26,14 @@ import io.lumeer.api.model.Project;
 import io.lumeer.api.model.ResourceType;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.storage.api.exception.ResourceNotFoundException;
+import io.lumeer.storage.api.exception.StorageException;
 import io.lumeer.storage.mongodb.MongoDbTestBase;
 import io.lumeer.storage.mongodb.exception.WriteFailedException;
 import io.lumeer.storage.mongodb.model.MorphiaDocument;
 
 import com.mongodb.DuplicateKeyException;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
 import org.assertj.core.api.SoftAssertions;
 import org.bson.types.ObjectId;
 import org.junit.Before;
@@ -39,6 +42,9 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 public class MorphiaDocumentDaoTest extends MongoDbTestBase {
@@ -121,6 +127,16 @@ public class MorphiaDocumentDaoTest extends MongoDbTestBase {
             .isInstanceOf(DuplicateKeyException.class); // TODO change this to our own exception
    }
 
+   @Test
+   public void testCreateDocumentsPartialFailure() {
+      database.getCollection(documentDao.databaseCollection()).createIndex(Indexes.ascending(MorphiaDocument.CREATED_BY), new IndexOptions().unique(true));
+
+      List<Document> documents = Arrays.asList(prepareDocument(), prepareDocument());
+      assertThatThrownBy(() -> documentDao.createDocuments(documents))
+            .isInstanceOf(StorageException.class);
+      assertThat(database.getCollection(documentDao.databaseCollection()).count()).isZero();
+   }
+
    @Test
    public void testCreateDocumentMultiple() {
       Document document = prepareDocument();
@@ -209,6 +225,32 @@ public class MorphiaDocumentDaoTest extends MongoDbTestBase {
       assertThat(documents).isEmpty();
    }
 
+   @Test
+   public void testDeleteDocumentsByIds() {
+      String id = createDocument().getId();
+      String id2 = createDocument().getId();
+
+      documentDao.deleteDocumentsByIds(new HashSet<>(Arrays.asList(id, "invalid")));
+
+      List<MorphiaDocument> documents = datastore.find(documentDao.databaseCollection(), MorphiaDocument.class).asList();
+      assertThat(documents).extracting(Document::getId).containsOnly(id2);
+   }
+
+   @Test
+   public void testUpdateDocumentsMetadata() {
+      String id = createDocument().getId();
+      String id2 = createDocument().getId();
+
+      LocalDateTime updateDate = LocalDateTime.now().withNano(0);
+      documentDao.updateDocumentsMetadata(Collections.singleton(id), UPDATED_BY, updateDate);
+
+      Document updatedDocument = documentDao.getDocumentById(id);
+      assertThat(updatedDocument.getUpdatedBy()).isEqualTo(UPDATED_BY);
+      assertThat(updatedDocument.getUpdateDate()).isEqualTo(updateDate);
+      assertThat(updatedDocument.getDataVersion()).isEqualTo(DATA_VERSION2);
+      assertThat(documentDao.getDocumentById(id2).getDataVersion()).isEqualTo(DATA_VERSION);
+   }
+
    @Test
    public void testGetDocumentById() {
       String id = createDocument().getId();
@@ -32,7 +32,9 @@ import io.lumeer.storage.mongodb.exception.WriteFailedException;
 import io.lumeer.storage.mongodb.model.MorphiaOrganization;
 import io.lumeer.storage.mongodb.model.embedded.MorphiaPermission;
 import io.lumeer.storage.mongodb.model.embedded.MorphiaPermissions;
+import io.lumeer.storage.mongodb.util.PermissionsReadersMigration;
 
+import com.mongodb.BasicDBObject;
 import com.mongodb.DuplicateKeyException;
 import org.assertj.core.api.SoftAssertions;
 import org.bson.types.ObjectId;
@@ -177,6 +179,24 @@ public class MorphiaOrganizationDaoTest extends MongoDbTestBase {
       assertThat(organizations).isEmpty();
    }
 
+   @Test
+   public void testGetOrganizationsWithBackfilledReaders() {
+      Organization organization = prepareOrganization(CODE1);
+      datastore.save(organization);
+      datastore.getCollection(MorphiaOrganization.class)
+               .updateMulti(new BasicDBObject(), new BasicDBObject("$unset", new BasicDBObject(MorphiaOrganization.PERMISSIONS + "." + MorphiaPermissions.READERS, "")));
+      assertThat(PermissionsReadersMigration.migrate(database)).isEqualTo(1);
+
+      DatabaseQuery userQuery = DatabaseQuery.createBuilder(USER).build();
+      assertThat(organizationDao.getOrganizations(userQuery)).extracting(Organization::getCode).containsOnly(CODE1);
+
+      DatabaseQuery groupQuery = DatabaseQuery.createBuilder(USER2).groups(Collections.singleton(GROUP)).build();
+      assertThat(organizationDao.getOrganizations(groupQuery)).extracting(Organization::getCode).containsOnly(CODE1);
+
+      DatabaseQuery otherQuery = DatabaseQuery.createBuilder(USER2).groups(Collections.singleton(GROUP2)).build();
+      assertThat(organizationDao.getOrganizations(otherQuery)).isEmpty();
+   }
+
    @Test
    public void testGetOrganizationsGroupRole() {
       Organization organization = prepareOrganization(CODE1);
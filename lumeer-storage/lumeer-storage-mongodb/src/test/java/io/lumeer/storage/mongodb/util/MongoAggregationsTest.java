@@ -0,0 +1,86 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.Aggregation;
+import io.lumeer.api.model.AggregationGroup;
+import io.lumeer.api.model.AggregationMetric;
+
+import com.mongodb.MongoClient;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class MongoAggregationsTest {
+
+   private static List<BsonDocument> toBson(List<Bson> pipeline) {
+      return pipeline.stream()
+                     .map(stage -> stage.toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry()))
+                     .collect(Collectors.toList());
+   }
+
+   @Test
+   public void testGroupsAndMetrics() {
+      Aggregation aggregation = new Aggregation(null,
+            Arrays.asList(new AggregationGroup("address.country", null, null, null), new AggregationGroup("created", "month", "month", null)),
+            Arrays.asList(new AggregationMetric("count", null, null), new AggregationMetric("sum", "price", null)),
+            10);
+
+      List<BsonDocument> pipeline = toBson(MongoAggregations.createPipeline(new Document("a", 1), aggregation));
+
+      assertThat(pipeline).extracting(stage -> stage.getFirstKey()).containsExactly("$match", "$group", "$sort", "$limit", "$project");
+      BsonDocument group = pipeline.get(1).getDocument("$group");
+      assertThat(group.getDocument("_id").getString("address_country").getValue()).isEqualTo("$address.country");
+      assertThat(group.getDocument("_id").getDocument("month").getArray("$cond").get(1).asDocument()
+                      .getDocument("$dateToString").getString("format").getValue()).isEqualTo("%Y-%m");
+      assertThat(group.getDocument("count").getInt32("$sum").getValue()).isEqualTo(1);
+      assertThat(group.getDocument("sum_price").getString("$sum").getValue()).isEqualTo("$price");
+
+      BsonDocument project = pipeline.get(4).getDocument("$project");
+      assertThat(project.keySet()).containsExactly("_id", "address_country", "month", "count", "sum_price");
+      assertThat(project.getString("month").getValue()).isEqualTo("$_id.month");
+   }
+
+   @Test
+   public void testHistogramWithoutGroupsCountsByDefault() {
+      Aggregation histogram = new Aggregation(null, Collections.singletonList(new AggregationGroup("age", null, null, 10.0)), null, null);
+      BsonDocument group = toBson(MongoAggregations.createPipeline(new Document(), histogram)).get(1).getDocument("$group");
+      assertThat(group.getDocument("_id").getDocument("age").containsKey("$cond")).isTrue();
+      assertThat(group.containsKey("count")).isTrue();
+
+      Aggregation total = new Aggregation(null, null, Collections.singletonList(new AggregationMetric("max", "age", "oldest")), null);
+      List<BsonDocument> pipeline = toBson(MongoAggregations.createPipeline(new Document(), total));
+      assertThat(pipeline).extracting(stage -> stage.getFirstKey()).containsExactly("$match", "$group", "$sort", "$project");
+      assertThat(pipeline.get(1).getDocument("$group").isNull("_id")).isTrue();
+      assertThat(pipeline.get(1).getDocument("$group").getDocument("oldest").getString("$max").getValue()).isEqualTo("$age");
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testInvalidMetricName() {
+      new AggregationMetric("sum", "price", "total.price");
+   }
+}
@@ -0,0 +1,65 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.storage.api.query.AttributeFilter;
+import io.lumeer.storage.api.query.AttributeFilter.Operator;
+
+import com.mongodb.MongoClient;
+import org.bson.BsonDocument;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class MongoFiltersTest {
+
+   private static BsonDocument toBson(String attribute, Operator operator, Object... values) {
+      return MongoFilters.attributeFilter(new AttributeFilter(attribute, operator, Arrays.asList(values)))
+                         .toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry());
+   }
+
+   @Test
+   public void testComparisonFilters() {
+      assertThat(toBson("age", Operator.EQUALS, 18L).getInt64("age").getValue()).isEqualTo(18L);
+      assertThat(toBson("age", Operator.NOT_EQUALS, 18L).getDocument("age").getInt64("$ne").getValue()).isEqualTo(18L);
+      assertThat(toBson("age", Operator.LOWER_THAN, 1.5).getDocument("age").getDouble("$lt").getValue()).isEqualTo(1.5);
+      assertThat(toBson("age", Operator.LOWER_THAN_EQUALS, 1L).getDocument("age").containsKey("$lte")).isTrue();
+      assertThat(toBson("age", Operator.GREATER_THAN, 1L).getDocument("age").containsKey("$gt")).isTrue();
+      assertThat(toBson("a.b", Operator.GREATER_THAN_EQUALS, "x").getDocument("a.b").getString("$gte").getValue()).isEqualTo("x");
+   }
+
+   @Test
+   public void testSetAndExistenceFilters() {
+      assertThat(toBson("city", Operator.IN, "Brno", "Praha").getDocument("city").getArray("$in")).hasSize(2);
+      assertThat(toBson("email", Operator.EXISTS).getDocument("email").getBoolean("$exists").getValue()).isTrue();
+      assertThat(toBson("email", Operator.NOT_EXISTS).getDocument("email").getBoolean("$exists").getValue()).isFalse();
+      assertThat(MongoFilters.attributeFilter(new AttributeFilter("a", Operator.IN, Collections.emptyList()))
+                             .toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry())
+                             .getDocument("a").getArray("$in")).isEmpty();
+   }
+
+   @Test
+   public void testPrefixFilterEscapesRegex() {
+      BsonDocument prefix = toBson("name", Operator.PREFIX, "Jo.(a)*\\");
+      assertThat(prefix.getRegularExpression("name").getPattern()).isEqualTo("^Jo\\.\\(a\\)\\*\\\\");
+   }
+}
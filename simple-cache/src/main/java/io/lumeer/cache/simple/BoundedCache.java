@@ -0,0 +1,436 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.cache.simple;
+
+import io.lumeer.engine.api.cache.Cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cache with a limited number of entries (or total weight) and optional write and access time to live.
+ * The entries are split into segments by key hash, each segment is guarded by its own lock and evicts
+ * its least recently used entries once it gets over its share of the maximum size. Expired entries are removed
+ * lazily when they are read or pushed out by newer entries, or explicitly by {@link #cleanUp()}.
+ *
+ * Entry locks obtained by {@link #lock(String)} are striped, i.e. a fixed set of locks is shared by all keys,
+ * so that the locks do not pile up for keys that are no longer cached.
+ */
+public class BoundedCache<T> implements Cache<T> {
+
+   private static final int LOCK_STRIPES_PER_SEGMENT = 4;
+
+   private final Segment<T>[] segments;
+   private final ReentrantLock[] entryLocks;
+   private final ConcurrentMap<String, CompletableFuture<T>> loads = new ConcurrentHashMap<>();
+
+   private final long expireAfterWriteNanos;
+   private final long expireAfterAccessNanos;
+
+   private final ToIntFunction<? super T> weigher;
+   private final LongSupplier ticker;
+
+   private final LongAdder hitCount = new LongAdder();
+   private final LongAdder missCount = new LongAdder();
+   private final LongAdder evictionCount = new LongAdder();
+   private final LongAdder expirationCount = new LongAdder();
+
+   public BoundedCache(final BoundedCacheConfiguration configuration) {
+      this(configuration, null);
+   }
+
+   /**
+    * Creates a cache where {@link BoundedCacheConfiguration#getMaximumSize()} limits the total weight of entries.
+    *
+    * @param configuration
+    *       Cache limits.
+    * @param weigher
+    *       Computes a non-negative weight of a value, null means that each entry weighs one.
+    */
+   public BoundedCache(final BoundedCacheConfiguration configuration, final ToIntFunction<? super T> weigher) {
+      this(configuration, weigher, System::nanoTime);
+   }
+
+   @SuppressWarnings("unchecked")
+   BoundedCache(final BoundedCacheConfiguration configuration, final ToIntFunction<? super T> weigher, final LongSupplier ticker) {
+      this.weigher = weigher;
+      this.ticker = ticker;
+      this.expireAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getExpireAfterWrite());
+      this.expireAfterAccessNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getExpireAfterAccess());
+
+      final long maximumSize = configuration.getMaximumSize();
+      int segmentCount = Integer.highestOneBit(configuration.getConcurrencyLevel());
+      while (maximumSize > 0 && segmentCount > 1 && segmentCount > maximumSize) {
+         segmentCount >>= 1;
+      }
+
+      // split the maximum size so that the segment limits add up exactly to it
+      segments = new Segment[segmentCount];
+      for (int i = 0; i < segmentCount; i++) {
+         segments[i] = new Segment<>(maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0));
+      }
+
+      entryLocks = new ReentrantLock[segmentCount * LOCK_STRIPES_PER_SEGMENT];
+      for (int i = 0; i < entryLocks.length; i++) {
+         entryLocks[i] = new ReentrantLock();
+      }
+   }
+
+   @Override
+   public T get(final String key) {
+      final Segment<T> segment = segmentFor(key);
+
+      segment.lock.lock();
+      try {
+         return recordRead(getLiveValue(segment, key, ticker.getAsLong()));
+      } finally {
+         segment.lock.unlock();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    *
+    * The function is evaluated outside of the segment lock so that a slow computation does not block other keys.
+    * The value of a key is computed only once at a time, concurrent callers of the same key wait for its result.
+    */
+   @Override
+   public T computeIfAbsent(final String key, final Function<String, T> fce) {
+      final T cached = get(key);
+      if (cached != null) {
+         return cached;
+      }
+
+      final CompletableFuture<T> load = new CompletableFuture<>();
+      final CompletableFuture<T> runningLoad = loads.putIfAbsent(key, load);
+      if (runningLoad != null) {
+         return awaitLoad(runningLoad);
+      }
+
+      try {
+         // the previous load of the key could have finished since the first lookup
+         T value = getIfPresent(key);
+         if (value == null) {
+            value = fce.apply(key);
+            if (value != null) {
+               value = putIfAbsent(key, value);
+            }
+         }
+
+         load.complete(value);
+         return value;
+      } catch (RuntimeException | Error e) {
+         load.completeExceptionally(e);
+         throw e;
+      } finally {
+         loads.remove(key, load);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    *
+    * Setting a null value removes the entry.
+    */
+   @Override
+   public void set(final String key, final T t) {
+      if (t == null) {
+         remove(key);
+         return;
+      }
+
+      final Segment<T> segment = segmentFor(key);
+      segment.lock.lock();
+      try {
+         put(segment, key, t, ticker.getAsLong());
+      } finally {
+         segment.lock.unlock();
+      }
+   }
+
+   @Override
+   public T remove(final String key) {
+      final Segment<T> segment = segmentFor(key);
+
+      segment.lock.lock();
+      try {
+         final Entry<T> entry = segment.entries.remove(key);
+         if (entry == null) {
+            return null;
+         }
+
+         segment.weight -= entry.weight;
+         return isExpired(entry, ticker.getAsLong()) ? null : entry.value;
+      } finally {
+         segment.lock.unlock();
+      }
+   }
+
+   @Override
+   public void lock(final String key) {
+      lockFor(key).lock();
+   }
+
+   @Override
+   public void unlock(final String key) {
+      final ReentrantLock lock = lockFor(key);
+
+      if (lock.isHeldByCurrentThread()) {
+         lock.unlock();
+      }
+   }
+
+   @Override
+   public boolean tryLock(final String key) {
+      return lockFor(key).tryLock();
+   }
+
+   /**
+    * {@inheritDoc}
+    *
+    * The striped entry locks are kept because they can be held by other threads.
+    */
+   @Override
+   public void clear() {
+      for (final Segment<T> segment : segments) {
+         segment.lock.lock();
+         try {
+            segment.entries.clear();
+            segment.weight = 0;
+         } finally {
+            segment.lock.unlock();
+         }
+      }
+   }
+
+   /**
+    * Removes all expired entries.
+    */
+   public void cleanUp() {
+      final long now = ticker.getAsLong();
+
+      for (final Segment<T> segment : segments) {
+         segment.lock.lock();
+         try {
+            final Iterator<Entry<T>> iterator = segment.entries.values().iterator();
+            while (iterator.hasNext()) {
+               final Entry<T> entry = iterator.next();
+               if (isExpired(entry, now)) {
+                  iterator.remove();
+                  segment.weight -= entry.weight;
+                  expirationCount.increment();
+               }
+            }
+         } finally {
+            segment.lock.unlock();
+         }
+      }
+   }
+
+   /**
+    * Gets the number of entries in the cache including the expired entries that were not removed yet.
+    *
+    * @return The number of entries.
+    */
+   public long size() {
+      long size = 0;
+
+      for (final Segment<T> segment : segments) {
+         segment.lock.lock();
+         try {
+            size += segment.entries.size();
+         } finally {
+            segment.lock.unlock();
+         }
+      }
+
+      return size;
+   }
+
+   /**
+    * Gets the current values of the cache counters.
+    *
+    * @return The cache statistics.
+    */
+   public CacheStatistics getStatistics() {
+      return new CacheStatistics(hitCount.sum(), missCount.sum(), evictionCount.sum(), expirationCount.sum(), size());
+   }
+
+   private T getLiveValue(final Segment<T> segment, final String key, final long now) {
+      final Entry<T> entry = segment.entries.get(key);
+      if (entry == null) {
+         return null;
+      }
+
+      if (isExpired(entry, now)) {
+         segment.entries.remove(key);
+         segment.weight -= entry.weight;
+         expirationCount.increment();
+         return null;
+      }
+
+      entry.accessTime = now;
+      return entry.value;
+   }
+
+   private T getIfPresent(final String key) {
+      final Segment<T> segment = segmentFor(key);
+
+      segment.lock.lock();
+      try {
+         return getLiveValue(segment, key, ticker.getAsLong());
+      } finally {
+         segment.lock.unlock();
+      }
+   }
+
+   private T putIfAbsent(final String key, final T value) {
+      final Segment<T> segment = segmentFor(key);
+
+      segment.lock.lock();
+      try {
+         final long now = ticker.getAsLong();
+         final T existing = getLiveValue(segment, key, now);
+         if (existing != null) {
+            return existing;
+         }
+
+         put(segment, key, value, now);
+         return value;
+      } finally {
+         segment.lock.unlock();
+      }
+   }
+
+   private static <V> V awaitLoad(final CompletableFuture<V> load) {
+      try {
+         return load.join();
+      } catch (CompletionException e) {
+         if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+         }
+         if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+         }
+         throw e;
+      }
+   }
+
+   private T recordRead(final T value) {
+      if (value != null) {
+         hitCount.increment();
+      } else {
+         missCount.increment();
+      }
+
+      return value;
+   }
+
+   private void put(final Segment<T> segment, final String key, final T value, final long now) {
+      final int weight = weigher != null ? weigher.applyAsInt(value) : 1;
+      if (weight < 0) {
+         throw new IllegalArgumentException("Weight of a cache entry must not be negative: " + weight);
+      }
+
+      final Entry<T> previous = segment.entries.put(key, new Entry<>(value, weight, now));
+      if (previous != null) {
+         segment.weight -= previous.weight;
+      }
+      segment.weight += weight;
+
+      evictOverflow(segment, key);
+   }
+
+   private void evictOverflow(final Segment<T> segment, final String writtenKey) {
+      if (segment.maximumSize == 0) {
+         return;
+      }
+
+      // entries are in access order, the least recently used come first
+      final Iterator<Map.Entry<String, Entry<T>>> iterator = segment.entries.entrySet().iterator();
+      while (segment.weight > segment.maximumSize && iterator.hasNext()) {
+         final Map.Entry<String, Entry<T>> eldest = iterator.next();
+         if (eldest.getKey().equals(writtenKey)) {
+            continue;
+         }
+
+         iterator.remove();
+         segment.weight -= eldest.getValue().weight;
+         evictionCount.increment();
+      }
+   }
+
+   private boolean isExpired(final Entry<T> entry, final long now) {
+      return (expireAfterWriteNanos > 0 && now - entry.writeTime >= expireAfterWriteNanos)
+            || (expireAfterAccessNanos > 0 && now - entry.accessTime >= expireAfterAccessNanos);
+   }
+
+   private Segment<T> segmentFor(final String key) {
+      return segments[spread(key.hashCode()) & (segments.length - 1)];
+   }
+
+   private ReentrantLock lockFor(final String key) {
+      return entryLocks[spread(key.hashCode()) & (entryLocks.length - 1)];
+   }
+
+   private static int spread(final int hash) {
+      return hash ^ (hash >>> 16);
+   }
+
+   private static final class Segment<V> {
+
+      private final ReentrantLock lock = new ReentrantLock();
+
+      private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+      private final long maximumSize;
+
+      private long weight;
+
+      private Segment(final long maximumSize) {
+         this.maximumSize = maximumSize;
+      }
+   }
+
+   private static final class Entry<V> {
+
+      private final V value;
+      private final int weight;
+      private final long writeTime;
+      private long accessTime;
+
+      private Entry(final V value, final int weight, final long now) {
+         this.value = value;
+         this.weight = weight;
+         this.writeTime = now;
+         this.accessTime = now;
+      }
+   }
+}
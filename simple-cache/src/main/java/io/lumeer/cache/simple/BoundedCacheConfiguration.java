@@ -0,0 +1,118 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.cache.simple;
+
+import io.lumeer.engine.api.cache.CacheLimits;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Limits of a {@link BoundedCache}. The limits can be configured per cache name using system properties
+ * <code>lumeer.cache.&lt;cacheName&gt;.&lt;setting&gt;</code>, otherwise the {@link CacheLimits} requested by the owner
+ * of the cache are used. Caches keep all their entries unless they opt in to limits this way.
+ * Sizes are counted in entries (or weight units when a weigher is used), times are in milliseconds. Zero means no limit.
+ */
+public class BoundedCacheConfiguration implements Serializable {
+
+   public static final String PROPERTY_PREFIX = "lumeer.cache.";
+   public static final String DEFAULT_CACHE_NAME = "default";
+
+   public static final String MAXIMUM_SIZE = "maximumSize";
+   public static final String EXPIRE_AFTER_WRITE = "expireAfterWrite";
+   public static final String EXPIRE_AFTER_ACCESS = "expireAfterAccess";
+   public static final String CONCURRENCY_LEVEL = "concurrencyLevel";
+
+   public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+   private final long maximumSize;
+   private final long expireAfterWrite;
+   private final long expireAfterAccess;
+   private final int concurrencyLevel;
+
+   public BoundedCacheConfiguration(final long maximumSize, final long expireAfterWrite, final long expireAfterAccess, final int concurrencyLevel) {
+      if (maximumSize < 0 || expireAfterWrite < 0 || expireAfterAccess < 0 || concurrencyLevel < 1) {
+         throw new IllegalArgumentException("Cache limits must not be negative and the concurrency level must be positive.");
+      }
+
+      this.maximumSize = maximumSize;
+      this.expireAfterWrite = expireAfterWrite;
+      this.expireAfterAccess = expireAfterAccess;
+      this.concurrencyLevel = concurrencyLevel;
+   }
+
+   /**
+    * Reads the configuration of the given cache from properties.
+    *
+    * @param cacheName
+    *       Name of the cache.
+    * @param limits
+    *       Limits requested by the owner of the cache, used for the settings missing in the properties.
+    * @param properties
+    *       Properties to read the settings from, usually the system properties.
+    * @return Configuration of the given cache.
+    */
+   public static BoundedCacheConfiguration forCache(final String cacheName, final CacheLimits limits, final Properties properties) {
+      return new BoundedCacheConfiguration(
+            getLong(properties, cacheName, MAXIMUM_SIZE, limits.getMaximumSize()),
+            getLong(properties, cacheName, EXPIRE_AFTER_WRITE, limits.getExpireAfterWrite()),
+            getLong(properties, cacheName, EXPIRE_AFTER_ACCESS, limits.getExpireAfterAccess()),
+            (int) getLong(properties, cacheName, CONCURRENCY_LEVEL, DEFAULT_CONCURRENCY_LEVEL));
+   }
+
+   private static long getLong(final Properties properties, final String cacheName, final String setting, final long defaultValue) {
+      final String value = properties.getProperty(PROPERTY_PREFIX + cacheName + "." + setting);
+
+      if (value == null) {
+         return defaultValue;
+      }
+
+      try {
+         return Long.parseLong(value.trim());
+      } catch (NumberFormatException e) {
+         throw new IllegalArgumentException("Invalid value of cache setting " + PROPERTY_PREFIX + cacheName + "." + setting + ": " + value, e);
+      }
+   }
+
+   public long getMaximumSize() {
+      return maximumSize;
+   }
+
+   public long getExpireAfterWrite() {
+      return expireAfterWrite;
+   }
+
+   public long getExpireAfterAccess() {
+      return expireAfterAccess;
+   }
+
+   public int getConcurrencyLevel() {
+      return concurrencyLevel;
+   }
+
+   @Override
+   public String toString() {
+      return "BoundedCacheConfiguration{" +
+            "maximumSize=" + maximumSize +
+            ", expireAfterWrite=" + expireAfterWrite +
+            ", expireAfterAccess=" + expireAfterAccess +
+            ", concurrencyLevel=" + concurrencyLevel +
+            '}';
+   }
+}
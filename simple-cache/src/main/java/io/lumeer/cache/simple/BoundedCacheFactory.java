@@ -0,0 +1,77 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.cache.simple;
+
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheFactory;
+import io.lumeer.engine.api.cache.CacheLimits;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Creates {@link BoundedCache bounded caches} configured by system properties, see {@link BoundedCacheConfiguration}.
+ * Caches without any configured or requested limits keep all their entries.
+ */
+@ApplicationScoped
+public class BoundedCacheFactory implements CacheFactory, Serializable {
+
+   private final transient Map<String, BoundedCache<?>> caches = new ConcurrentHashMap<>();
+
+   @Override
+   public <T> Cache<T> getCache() {
+      return getCache(BoundedCacheConfiguration.DEFAULT_CACHE_NAME);
+   }
+
+   @Override
+   public <T> Cache<T> getCache(final String cacheName, final CacheLimits limits) {
+      return register(cacheName, new BoundedCache<>(getConfiguration(cacheName, limits)));
+   }
+
+   @Override
+   public <T> Cache<T> getCache(final String cacheName, final CacheLimits limits, final ToIntFunction<? super T> weigher) {
+      return register(cacheName, new BoundedCache<>(getConfiguration(cacheName, limits), weigher));
+   }
+
+   /**
+    * Gets the statistics of the caches created by this factory, a cache requested repeatedly under the same name
+    * is reported by its latest instance.
+    *
+    * @return Map of cache names to their statistics, ordered by the names.
+    */
+   public Map<String, CacheStatistics> getStatistics() {
+      final Map<String, CacheStatistics> statistics = new TreeMap<>();
+      caches.forEach((name, cache) -> statistics.put(name, cache.getStatistics()));
+
+      return statistics;
+   }
+
+   private <T> BoundedCache<T> register(final String cacheName, final BoundedCache<T> cache) {
+      caches.put(cacheName, cache);
+      return cache;
+   }
+
+   private BoundedCacheConfiguration getConfiguration(final String cacheName, final CacheLimits limits) {
+      return BoundedCacheConfiguration.forCache(cacheName, limits, System.getProperties());
+   }
+}
@@ -23,10 +23,15 @@ import io.lumeer.engine.api.cache.CacheFactory;
 
 import java.io.Serializable;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Alternative;
 
 /**
+ * Unbounded caches that never evict their entries. The factory needs to be enabled as an alternative in beans.xml
+ * to replace the default {@link BoundedCacheFactory}.
+ *
  * @author <a href="mailto:marvenec@gmail.com">Martin Večeřa</a>
  */
+@Alternative
 @ApplicationScoped
 public class SimpleCacheFactory implements CacheFactory, Serializable {
 
@@ -0,0 +1,289 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.cache.simple;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheLimits;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BoundedCacheTest {
+
+   private static final String KEY = "key";
+   private static final String VALUE = "value";
+
+   private AtomicLong time;
+
+   @Before
+   public void resetTime() {
+      time = new AtomicLong();
+   }
+
+   @Test
+   public void testEvictLeastRecentlyUsed() {
+      BoundedCache<String> cache = createCache(new BoundedCacheConfiguration(3, 0, 0, 1));
+      cache.set("a", VALUE);
+      cache.set("b", VALUE);
+      cache.set("c", VALUE);
+      cache.get("a");
+      cache.set("d", VALUE);
+
+      assertThat(cache.get("b")).isNull();
+      assertThat(cache.get("a")).isEqualTo(VALUE);
+      assertThat(cache.get("c")).isEqualTo(VALUE);
+      assertThat(cache.get("d")).isEqualTo(VALUE);
+      assertThat(cache.size()).isEqualTo(3);
+      assertThat(cache.getStatistics().getEvictionCount()).isEqualTo(1);
+   }
+
+   @Test
+   public void testMaximumSizeAcrossSegments() {
+      BoundedCache<Integer> cache = createCache(new BoundedCacheConfiguration(100, 0, 0, 16));
+      for (int i = 0; i < 10_000; i++) {
+         cache.set(String.valueOf(i), i);
+      }
+
+      // every segment gets an equal share of the maximum size
+      assertThat(cache.size()).isLessThanOrEqualTo(100);
+      assertThat(cache.getStatistics().getEvictionCount()).isEqualTo(10_000 - cache.size());
+   }
+
+   @Test
+   public void testWeigher() {
+      BoundedCache<String> cache = new BoundedCache<>(new BoundedCacheConfiguration(10, 0, 0, 1), String::length, time::get);
+      cache.set("a", "12345");
+      cache.set("b", "1234");
+      cache.set("c", "123");
+
+      assertThat(cache.get("a")).isNull();
+      assertThat(cache.get("b")).isEqualTo("1234");
+      assertThat(cache.get("c")).isEqualTo("123");
+   }
+
+   @Test
+   public void testExpireAfterWrite() {
+      BoundedCache<String> cache = createCache(new BoundedCacheConfiguration(0, 1000, 0, 1));
+      cache.set(KEY, VALUE);
+
+      advance(999);
+      assertThat(cache.get(KEY)).isEqualTo(VALUE);
+
+      advance(1);
+      assertThat(cache.get(KEY)).isNull();
+      assertThat(cache.getStatistics().getExpirationCount()).isEqualTo(1);
+   }
+
+   @Test
+   public void testExpireAfterAccess() {
+      BoundedCache<String> cache = createCache(new BoundedCacheConfiguration(0, 0, 1000, 1));
+      cache.set(KEY, VALUE);
+
+      advance(600);
+      assertThat(cache.get(KEY)).isEqualTo(VALUE);
+      advance(600);
+      assertThat(cache.get(KEY)).isEqualTo(VALUE);
+      advance(1000);
+      assertThat(cache.get(KEY)).isNull();
+   }
+
+   @Test
+   public void testCleanUp() {
+      BoundedCache<String> cache = createCache(new BoundedCacheConfiguration(0, 1000, 0, 4));
+      cache.set("a", VALUE);
+      cache.set("b", VALUE);
+      advance(1000);
+
+      cache.cleanUp();
+      assertThat(cache.size()).isZero();
+   }
+
+   @Test
+   public void testComputeIfAbsent() {
+      BoundedCache<String> cache = createCache(new BoundedCacheConfiguration(10, 0, 0, 1));
+      AtomicInteger computations = new AtomicInteger();
+
+      assertThat(cache.computeIfAbsent(KEY, k -> VALUE + computations.incrementAndGet())).isEqualTo(VALUE + 1);
+      assertThat(cache.computeIfAbsent(KEY, k -> VALUE + computations.incrementAndGet())).isEqualTo(VALUE + 1);
+      assertThat(cache.computeIfAbsent("other", k -> null)).isNull();
+      assertThat(cache.get("other")).isNull();
+
+      CacheStatistics statistics = cache.getStatistics();
+      assertThat(statistics.getHitCount()).isEqualTo(1);
+      assertThat(statistics.getMissCount()).isEqualTo(3);
+   }
+
+   @Test
+   public void testComputeIfAbsentConcurrently() throws Exception {
+      BoundedCache<String> cache = createCache(new BoundedCacheConfiguration(10, 0, 0, 1));
+      AtomicInteger computations = new AtomicInteger();
+      CountDownLatch computing = new CountDownLatch(1);
+      CountDownLatch waiting = new CountDownLatch(1);
+
+      ExecutorService executor = Executors.newFixedThreadPool(2);
+      try {
+         Future<String> first = executor.submit(() -> cache.computeIfAbsent(KEY, k -> {
+            computing.countDown();
+            await(waiting);
+            return VALUE + computations.incrementAndGet();
+         }));
+         await(computing);
+
+         Future<String> second = executor.submit(() -> cache.computeIfAbsent(KEY, k -> VALUE + computations.incrementAndGet()));
+         waiting.countDown();
+
+         assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(VALUE + 1);
+         assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(VALUE + 1);
+         assertThat(computations.get()).isEqualTo(1);
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   public void testComputeIfAbsentFailure() {
+      BoundedCache<String> cache = createCache(new BoundedCacheConfiguration(10, 0, 0, 1));
+
+      assertThatThrownBy(() -> cache.computeIfAbsent(KEY, k -> {
+         throw new IllegalStateException();
+      })).isInstanceOf(IllegalStateException.class);
+      assertThat(cache.computeIfAbsent(KEY, k -> VALUE)).isEqualTo(VALUE);
+   }
+
+   @Test
+   public void testRemoveAndClear() {
+      BoundedCache<String> cache = createCache(new BoundedCacheConfiguration(10, 0, 0, 1));
+      cache.set(KEY, VALUE);
+      cache.set("other", VALUE);
+
+      assertThat(cache.remove(KEY)).isEqualTo(VALUE);
+      assertThat(cache.get(KEY)).isNull();
+
+      cache.set(KEY, null);
+      cache.clear();
+      assertThat(cache.size()).isZero();
+   }
+
+   @Test
+   public void testLocks() throws Exception {
+      BoundedCache<String> cache = createCache(new BoundedCacheConfiguration(10, 0, 0, 1));
+      cache.lock(KEY);
+
+      AtomicInteger locked = new AtomicInteger();
+      Thread thread = new Thread(() -> {
+         if (cache.tryLock(KEY)) {
+            locked.incrementAndGet();
+            cache.unlock(KEY);
+         }
+      });
+      thread.start();
+      thread.join();
+      assertThat(locked.get()).isZero();
+
+      cache.unlock(KEY);
+      assertThat(cache.tryLock(KEY)).isTrue();
+      cache.unlock(KEY);
+   }
+
+   @Test
+   public void testConfigurationFromProperties() {
+      Properties properties = new Properties();
+      properties.setProperty("lumeer.cache.default.maximumSize", "500");
+      properties.setProperty("lumeer.cache.users.maximumSize", "50");
+      properties.setProperty("lumeer.cache.users.expireAfterAccess", "60000");
+
+      BoundedCacheConfiguration users = BoundedCacheConfiguration.forCache("users", CacheLimits.UNLIMITED, properties);
+      assertThat(users.getMaximumSize()).isEqualTo(50);
+      assertThat(users.getExpireAfterAccess()).isEqualTo(60000);
+      assertThat(users.getExpireAfterWrite()).isZero();
+
+      BoundedCacheConfiguration projects = BoundedCacheConfiguration.forCache("projects", CacheLimits.UNLIMITED, properties);
+      assertThat(projects.getMaximumSize()).isZero();
+      assertThat(projects.getExpireAfterWrite()).isZero();
+      assertThat(projects.getConcurrencyLevel()).isEqualTo(BoundedCacheConfiguration.DEFAULT_CONCURRENCY_LEVEL);
+   }
+
+   @Test
+   public void testRequestedLimits() {
+      Properties properties = new Properties();
+      properties.setProperty("lumeer.cache.results.expireAfterWrite", "0");
+
+      BoundedCacheConfiguration results = BoundedCacheConfiguration.forCache("results", new CacheLimits(100, 60000, 1000), properties);
+      assertThat(results.getMaximumSize()).isEqualTo(100);
+      assertThat(results.getExpireAfterWrite()).isZero();
+      assertThat(results.getExpireAfterAccess()).isEqualTo(1000);
+   }
+
+   @Test
+   public void testUnlimitedByDefault() {
+      Cache<String> cache = new BoundedCacheFactory().getCache("unlimited");
+      for (int i = 0; i < 20_000; i++) {
+         cache.set(String.valueOf(i), VALUE);
+      }
+
+      assertThat(cache.get("0")).isEqualTo(VALUE);
+      assertThat(cache.get("19999")).isEqualTo(VALUE);
+   }
+
+   @Test
+   public void testFactoryStatistics() {
+      BoundedCacheFactory factory = new BoundedCacheFactory();
+      Cache<String> users = factory.getCache("users");
+      factory.getCache("projects");
+      users.set(KEY, VALUE);
+      users.get(KEY);
+      users.get("other");
+
+      Map<String, CacheStatistics> statistics = factory.getStatistics();
+      assertThat(statistics).containsOnlyKeys("projects", "users");
+      assertThat(statistics.get("users").getHitCount()).isEqualTo(1);
+      assertThat(statistics.get("users").getMissCount()).isEqualTo(1);
+      assertThat(statistics.get("users").getSize()).isEqualTo(1);
+      assertThat(statistics.get("projects").getSize()).isZero();
+   }
+
+   private <T> BoundedCache<T> createCache(BoundedCacheConfiguration configuration) {
+      return new BoundedCache<>(configuration, null, time::get);
+   }
+
+   private static void await(CountDownLatch latch) {
+      try {
+         assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+      } catch (InterruptedException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private void advance(long millis) {
+      time.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+   }
+}
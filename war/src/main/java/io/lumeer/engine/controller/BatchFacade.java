@@ -19,23 +19,35 @@
 package io.lumeer.engine.controller;
 
 import io.lumeer.engine.annotation.UserDataStorage;
+import io.lumeer.engine.api.LumeerConst;
 import io.lumeer.engine.api.batch.Batch;
 import io.lumeer.engine.api.batch.MergeBatch;
 import io.lumeer.engine.api.batch.SplitBatch;
-import io.lumeer.engine.api.constraint.InvalidConstraintException;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.engine.api.data.DataStorage;
+import io.lumeer.engine.api.data.DataStorageDialect;
 import io.lumeer.engine.api.exception.DbException;
+import io.lumeer.engine.api.exception.InvalidDocumentKeyException;
+import io.lumeer.engine.util.ErrorMessageBuilder;
+import io.lumeer.engine.util.Utils;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import javax.enterprise.context.SessionScoped;
 import javax.inject.Inject;
 
 /**
- * Runs various types of batches.
+ * Runs various types of batches. The batches are evaluated by the data storage itself when it supports update pipelines,
+ * otherwise the documents are streamed through the application and updated in bulks of limited size.
  *
  * @author <a href="mailto:marvenec@gmail.com">Martin Večeřa</a>
  */
@@ -44,22 +56,33 @@ public class BatchFacade implements Serializable {
 
    private static final long serialVersionUID = -6509744496908392550L;
 
+   /**
+    * Maximal number of documents read and updated at once when the batch runs in the application.
+    */
+   static final int BULK_SIZE = Integer.getInteger("lumeer.batch.bulkSize", 1000);
+
+   private static final Pattern REGEX_METACHARACTERS = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+
    @Inject
    @UserDataStorage
    private DataStorage dataStorage;
 
    @Inject
-   private DocumentFacade documentFacade;
+   private DataStorageDialect dataStorageDialect;
 
    @Inject
-   private CollectionMetadataFacade collectionMetadataFacade;
+   private VersionFacade versionFacade;
 
-   public void executeBatch(final Batch batch) throws DbException, InvalidConstraintException {
-      // first check collection size
-      if (dataStorage.count(batch.getCollectionCode(), null) > 10000) {
-         throw new UnsupportedOperationException("Cannot run a batch process on collections with more than 10000 documents.");
-      }
+   @Inject
+   private DocumentMetadataFacade documentMetadataFacade;
+
+   @Inject
+   private UserFacade userFacade;
+
+   @Inject
+   private CollectionMetadataFacade collectionMetadataFacade;
 
+   public void executeBatch(final Batch batch) throws DbException {
       if (batch instanceof MergeBatch) {
          internalExecuteBatch((MergeBatch) batch);
       } else if (batch instanceof SplitBatch) {
@@ -67,131 +90,226 @@ public class BatchFacade implements Serializable {
       }
    }
 
-   private void internalExecuteBatch(final MergeBatch batch) throws DbException, InvalidConstraintException {
-      List<DataDocument> documents = dataStorage.search(batch.getCollectionCode(), null, null, 0, 0);
+   private void internalExecuteBatch(final MergeBatch batch) throws DbException {
+      checkAttributeNames(Collections.singletonList(batch.getResultAttribute()));
+      final List<String> droppedAttributes = batch.isKeepOriginal() ? Collections.emptyList() : batch.getAttributes();
 
-      for (final DataDocument doc : documents) {
-         if (batch.getMergeType() == MergeBatch.MergeType.JOIN) {
-            final StringBuilder sb = new StringBuilder();
+      if (isStorageBatchSupported(batch.getAttributes())
+            && (batch.getMergeType() != MergeBatch.MergeType.JOIN || isStorageConversionSupported(batch.getCollectionCode(), batch.getAttributes()))) {
+         versionFacade.backUpAllDocuments(batch.getCollectionCode());
+         dataStorage.updateDocuments(batch.getCollectionCode(), null, dataStorageDialect.mergeBatchUpdate(batch, createUpdateMetadata()));
+      } else {
+         updateDocuments(batch.getCollectionCode(), doc -> new DataDocument(batch.getResultAttribute(), mergeValues(batch, doc)), droppedAttributes);
+      }
 
-            batch.getAttributes().forEach(attr -> {
-               final Object value = doc.get(attr);
+      updateAttributesMetadata(batch.getCollectionCode(), Collections.singletonList(batch.getResultAttribute()), droppedAttributes);
+   }
 
-               if (value != null) {
-                  if (sb.length() > 0) {
-                     sb.append(batch.getJoin());
-                  }
+   private void internalExecuteBatch(final SplitBatch batch) throws DbException {
+      checkAttributeNames(batch.getSplitAttributes());
+      final List<String> droppedAttributes = batch.isKeepOriginal() ? Collections.emptyList() : Collections.singletonList(batch.getAttribute());
 
-                  sb.append(value);
-               }
-            });
-
-            doc.put(batch.getResultAttribute(), sb.toString());
-         } else if (batch.getMergeType() == MergeBatch.MergeType.SUM) {
-            double sum = 0d;
-            long longSum = 0l;
-            BigDecimal bigDecimal = new BigDecimal("0");
-            BigInteger bigInteger = new BigInteger("0");
-            boolean wasFloating = false;
-            boolean onlyBigDecimal = true;
-            boolean onlyBigInteger = true;
-
-            for (final String attr : batch.getAttributes()) {
-               final Object value = doc.get(attr);
-
-               if (value != null) {
-                  if (value instanceof Double) {
-                     sum = sum + (double) value;
-                     wasFloating = true;
-                     onlyBigDecimal = false;
-                  } else if (value instanceof Integer) {
-                     sum = sum + (int) value;
-                     longSum = longSum + (int) value;
-                     onlyBigDecimal = false;
-                  } else if (value instanceof Long) {
-                     sum = sum + (long) value;
-                     longSum = longSum + (long) value;
-                     onlyBigDecimal = false;
-                  } else if (value instanceof Float) {
-                     sum = sum + (float) value;
-                     wasFloating = true;
-                     onlyBigDecimal = false;
-                  } else if (value instanceof Byte) {
-                     sum = sum + (byte) value;
-                     longSum = longSum + (byte) value;
-                     onlyBigDecimal = false;
-                  } else if (value instanceof BigDecimal) {
-                     bigDecimal = bigDecimal.add((BigDecimal) value);
-                     sum = sum + ((BigDecimal) value).doubleValue();
-                     onlyBigInteger = false;
-                  } else if (value instanceof BigInteger) {
-                     bigDecimal = bigDecimal.add(new BigDecimal((BigInteger) value));
-                     bigInteger = bigInteger.add((BigInteger) value);
-                     sum = sum + ((BigInteger) value).longValue();
-                  }
-               }
-            }
+      // the storage splits by literal delimiters only
+      if (!batch.getSplitAttributes().isEmpty() && !batch.getDelimiter().isEmpty() && !REGEX_METACHARACTERS.matcher(batch.getDelimiter()).find()
+            && isStorageBatchSupported(Collections.singletonList(batch.getAttribute()))
+            && isStorageConversionSupported(batch.getCollectionCode(), Collections.singletonList(batch.getAttribute()))) {
+         versionFacade.backUpAllDocuments(batch.getCollectionCode());
+         dataStorage.updateDocuments(batch.getCollectionCode(), null, dataStorageDialect.splitBatchUpdate(batch, createUpdateMetadata()));
+      } else {
+         updateDocuments(batch.getCollectionCode(), doc -> splitValues(batch, doc), droppedAttributes);
+      }
 
-            // now see what types we had and try to be as restrictive as possible
-            if (onlyBigInteger) {
-               doc.put(batch.getResultAttribute(), bigInteger);
-            } else if (onlyBigDecimal) {
-               doc.put(batch.getResultAttribute(), bigDecimal);
-            } else if (!wasFloating) {
-               doc.put(batch.getResultAttribute(), longSum);
-            } else {
-               doc.put(batch.getResultAttribute(), sum);
-            }
-         } else {
-            final DataDocument subDoc = new DataDocument();
+      updateAttributesMetadata(batch.getCollectionCode(), batch.getSplitAttributes(), droppedAttributes);
+   }
 
-            batch.getAttributes().forEach(attr -> {
-               final Object value = doc.get(attr);
+   private boolean isStorageBatchSupported(final List<String> attributes) {
+      return attributes.stream().allMatch(BatchFacade::isPlainAttribute) && versionFacade.isStorageBackUpSupported();
+   }
 
-               if (value != null) {
-                  subDoc.put(attr, doc.get(attr));
-               }
-            });
+   private boolean isStorageConversionSupported(final String collectionCode, final List<String> attributes) {
+      // the storage converts the other values to strings differently, e.g. 1.0 to "1" and sub-documents to ""
+      return attributes.stream().noneMatch(attribute -> dataStorage.count(collectionCode, dataStorageDialect.fieldNonTextualValueFilter(attribute)) > 0);
+   }
 
-            doc.put(batch.getResultAttribute(), subDoc);
-         }
+   private static boolean isPlainAttribute(final String attributeName) {
+      return Utils.isAttributeNameValid(attributeName) && !LumeerConst.Document.ID.equals(attributeName);
+   }
 
-         if (!batch.isKeepOriginal()) {
-            batch.getAttributes().forEach(a -> {
-               try {
-                  documentFacade.dropAttribute(batch.getCollectionCode(), doc.getId(), a);
-               } catch (DbException e) {
-                  // nps, we cannot do m ore
-               }
-               doc.remove(a); // TODO check - for future compatibility but has no effect now
-            });
+   private void checkAttributeNames(final List<String> attributeNames) throws InvalidDocumentKeyException {
+      for (final String attributeName : attributeNames) {
+         if (!isPlainAttribute(attributeName)) {
+            throw new InvalidDocumentKeyException(ErrorMessageBuilder.invalidDocumentKeyString(attributeName));
          }
+      }
+   }
+
+   private DataDocument createUpdateMetadata() {
+      final DataDocument metadata = new DataDocument();
+      documentMetadataFacade.putUpdateDocumentMetadataInternally(metadata, userFacade.getUserEmail());
+
+      return metadata;
+   }
+
+   /**
+    * Streams all documents of the collection, backs them up and updates them in bulks.
+    *
+    * @param collectionCode
+    *       code of the collection
+    * @param changes
+    *       computes the attributes to set in the document
+    * @param droppedAttributes
+    *       attributes to remove from the documents unless they are set again
+    * @throws DbException
+    *       When there was an error working with the data storage.
+    */
+   private void updateDocuments(final String collectionCode, final Function<DataDocument, DataDocument> changes, final List<String> droppedAttributes) throws DbException {
+      final DataDocument metadata = createUpdateMetadata();
 
-         documentFacade.updateDocument(batch.getCollectionCode(), doc);
+      try {
+         dataStorage.processDocuments(collectionCode, null, BULK_SIZE, documents -> {
+            try {
+               versionFacade.backUpDocuments(collectionCode, documents);
+            } catch (DbException e) {
+               throw new BatchException(e);
+            }
+
+            final List<DataDocument> updatedDocuments = documents.stream().map(doc -> {
+               final DataDocument updatedDocument = changes.apply(doc);
+               updatedDocument.putAll(metadata);
+               updatedDocument.put(LumeerConst.Document.ID, doc.getId());
+               updatedDocument.put(LumeerConst.Document.METADATA_VERSION_KEY, versionFacade.getDocumentVersion(doc) + 1);
+
+               return updatedDocument;
+            }).collect(Collectors.toList());
+
+            dataStorage.updateDocuments(collectionCode, updatedDocuments, droppedAttributes);
+         });
+      } catch (BatchException e) {
+         throw e.getCause();
       }
    }
 
-   private void internalExecuteBatch(final SplitBatch batch) throws DbException, InvalidConstraintException {
-      List<DataDocument> documents = dataStorage.search(batch.getCollectionCode(), null, null, 0, 0);
+   private void updateAttributesMetadata(final String collectionCode, final Collection<String> changedAttributes, final Collection<String> droppedAttributes) {
+      final Set<String> attributes = new LinkedHashSet<>(changedAttributes);
+      attributes.addAll(droppedAttributes);
+
+      attributes.forEach(attribute ->
+            collectionMetadataFacade.setAttributeCount(collectionCode, attribute, (int) dataStorage.count(collectionCode, dataStorageDialect.fieldExistsFilter(attribute))));
+      collectionMetadataFacade.setLastTimeUsedNow(collectionCode);
+   }
+
+   static Object mergeValues(final MergeBatch batch, final DataDocument doc) {
+      if (batch.getMergeType() == MergeBatch.MergeType.JOIN) {
+         final StringBuilder sb = new StringBuilder();
+
+         batch.getAttributes().forEach(attr -> {
+            final Object value = doc.get(attr);
 
-      for (final DataDocument doc : documents) {
-         final Object value = doc.get(batch.getAttribute());
+            if (value != null) {
+               if (sb.length() > 0) {
+                  sb.append(batch.getJoin());
+               }
+
+               sb.append(value);
+            }
+         });
+
+         return sb.toString();
+      } else if (batch.getMergeType() == MergeBatch.MergeType.SUM) {
+         double sum = 0d;
+         long longSum = 0l;
+         BigDecimal bigDecimal = new BigDecimal("0");
+         BigInteger bigInteger = new BigInteger("0");
+         boolean wasNumber = false;
+         boolean wasFloating = false;
+         boolean onlyBigDecimal = true;
+         boolean onlyBigInteger = true;
 
-         if (value != null) {
-            final String original = value instanceof String ? (String) value : value.toString();
-            final String[] parts = original.split(batch.getDelimiter(), batch.getSplitAttributes().size());
+         for (final String attr : batch.getAttributes()) {
+            final Object value = doc.get(attr);
 
-            for (int i = 0; i < parts.length; i++) {
-               doc.put(batch.getSplitAttributes().get(i), batch.isTrim() ? parts[i].trim() : parts[i]);
+            if (value instanceof Double || value instanceof Float) {
+               sum = sum + ((Number) value).doubleValue();
+               wasFloating = true;
+               onlyBigDecimal = false;
+               onlyBigInteger = false;
+            } else if (value instanceof Integer || value instanceof Long || value instanceof Byte) {
+               sum = sum + ((Number) value).longValue();
+               longSum = longSum + ((Number) value).longValue();
+               onlyBigDecimal = false;
+               onlyBigInteger = false;
+            } else if (value instanceof BigDecimal) {
+               bigDecimal = bigDecimal.add((BigDecimal) value);
+               sum = sum + ((BigDecimal) value).doubleValue();
+               onlyBigInteger = false;
+            } else if (value instanceof BigInteger) {
+               bigDecimal = bigDecimal.add(new BigDecimal((BigInteger) value));
+               bigInteger = bigInteger.add((BigInteger) value);
+               sum = sum + ((BigInteger) value).longValue();
+            } else {
+               continue;
             }
+
+            wasNumber = true;
          }
-         if (!batch.isKeepOriginal()) {
-            documentFacade.dropAttribute(batch.getCollectionCode(), doc.getId(), batch.getAttribute());
-            doc.remove(batch.getAttribute()); // TODO check - for future compatibility
+
+         // now see what types we had and try to be as restrictive as possible
+         if (!wasNumber) {
+            return longSum;
+         } else if (onlyBigInteger) {
+            return bigInteger;
+         } else if (onlyBigDecimal) {
+            return bigDecimal;
+         } else if (!wasFloating) {
+            return longSum;
+         } else {
+            return sum;
          }
+      } else {
+         final DataDocument subDoc = new DataDocument();
 
-         documentFacade.updateDocument(batch.getCollectionCode(), doc);
+         batch.getAttributes().forEach(attr -> {
+            final Object value = doc.get(attr);
+
+            if (value != null) {
+               subDoc.put(attr, value);
+            }
+         });
+
+         return subDoc;
+      }
+   }
+
+   static DataDocument splitValues(final SplitBatch batch, final DataDocument doc) {
+      final DataDocument values = new DataDocument();
+      final Object value = doc.get(batch.getAttribute());
+
+      if (value != null) {
+         final String original = value instanceof String ? (String) value : value.toString();
+         final String[] parts = original.split(batch.getDelimiter(), batch.getSplitAttributes().size());
+
+         for (int i = 0; i < parts.length && i < batch.getSplitAttributes().size(); i++) {
+            values.put(batch.getSplitAttributes().get(i), batch.isTrim() ? parts[i].trim() : parts[i]);
+         }
       }
+
+      return values;
    }
 
+   /**
+    * Carries checked exceptions out of the document stream.
+    */
+   private static class BatchException extends RuntimeException {
+
+      private static final long serialVersionUID = 4284471387542953375L;
+
+      private BatchException(final DbException cause) {
+         super(cause);
+      }
+
+      @Override
+      public synchronized DbException getCause() {
+         return (DbException) super.getCause();
+      }
+   }
 }
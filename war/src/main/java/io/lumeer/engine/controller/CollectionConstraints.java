@@ -0,0 +1,93 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.controller;
+
+import io.lumeer.engine.api.constraint.ConstraintManager;
+import io.lumeer.engine.api.constraint.InvalidConstraintException;
+import io.lumeer.engine.api.dto.Attribute;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Constraints of all attributes of a single collection compiled into ready to use constraint managers.
+ * Compiling the constraints once per collection saves re-registering of all constraint types and re-parsing
+ * of constraint configurations for every encoded or decoded value.
+ */
+class CollectionConstraints {
+
+   private final Map<String, Attribute> attributes = new HashMap<>();
+
+   private final Map<String, ConstraintManager> constraintManagers = new HashMap<>();
+
+   /**
+    * Compiles constraints of the given attributes.
+    *
+    * @param attributes
+    *       All attributes of the collection.
+    * @param locale
+    *       The user locale used for encoding the values.
+    * @throws InvalidConstraintException
+    *       When the constraint configuration of any attribute was wrong.
+    */
+   CollectionConstraints(final List<Attribute> attributes, final Locale locale) throws InvalidConstraintException {
+      for (final Attribute attribute : attributes) {
+         final ConstraintManager constraintManager = new ConstraintManager(attribute.getConstraints());
+         constraintManager.setLocale(locale);
+
+         this.attributes.put(attribute.getFullName(), attribute);
+         this.constraintManagers.put(attribute.getFullName(), constraintManager);
+      }
+   }
+
+   /**
+    * Checks whether the collection has the given attribute.
+    *
+    * @param attributeName
+    *       Full name of the attribute.
+    * @return True iff the attribute exists in the collection.
+    */
+   boolean hasAttribute(final String attributeName) {
+      return attributes.containsKey(attributeName);
+   }
+
+   /**
+    * Gets the attribute meta-data.
+    *
+    * @param attributeName
+    *       Full name of the attribute.
+    * @return The attribute meta-data, null when the attribute does not exist.
+    */
+   Attribute getAttribute(final String attributeName) {
+      return attributes.get(attributeName);
+   }
+
+   /**
+    * Gets the constraint manager configured with constraints of the given attribute.
+    *
+    * @param attributeName
+    *       Full name of the attribute.
+    * @return The constraint manager, null when the attribute does not exist.
+    */
+   ConstraintManager getConstraintManager(final String attributeName) {
+      return constraintManagers.get(attributeName);
+   }
+}
@@ -83,6 +83,9 @@ public class CollectionMetadataFacade implements Serializable {
    @Inject
    private OrganizationFacade organizationFacade;
 
+   @Inject
+   private ConstraintsCache constraintsCache;
+
    private ConstraintManager constraintManager;
 
    /**
@@ -277,6 +280,7 @@ public class CollectionMetadataFacade implements Serializable {
     */
    public void dropMetadata(String collectionCode) {
       dataStorage.dropDocument(metadataCollection(), collectionCodeFilter(collectionCode));
+      invalidateCollectionConstraints(collectionCode);
    }
 
    public boolean hasRole(String projectCode, String collectionCode, String role) {
@@ -420,6 +424,7 @@ public class CollectionMetadataFacade implements Serializable {
             .append(nameKey, attributeName(newFullName));
 
       dataStorage.updateDocument(metadataCollection(), renameDocument, attributeFilter(collectionCode, oldFullName));
+      invalidateCollectionConstraints(collectionCode);
    }
 
    /**
@@ -450,6 +455,7 @@ public class CollectionMetadataFacade implements Serializable {
                                                          .collect(Collectors.toList());
 
       dataStorage.removeItemsFromArray(metadataCollection(), filter, LumeerConst.Collection.ATTRIBUTES, attributesToRemove);
+      invalidateCollectionConstraints(collectionCode);
    }
 
    /**
@@ -503,17 +509,48 @@ public class CollectionMetadataFacade implements Serializable {
          DataDocument renameDocument = new DataDocument(updateKey, attribute.getCount() + 1);
          dataStorage.updateDocument(metadataCollection(), renameDocument, attributeFilter(collectionCode, attributeName));
       } else {
-         dataStorage.addItemToArray(metadataCollection(),
-               collectionCodeFilter(collectionCode),
-               LumeerConst.Collection.ATTRIBUTES,
-               new DataDocument()
-                     .append(LumeerConst.Collection.ATTRIBUTE_FULL_NAME, attributeName)
-                     .append(LumeerConst.Collection.ATTRIBUTE_NAME, attributeName(attributeName))
-                     .append(LumeerConst.Collection.ATTRIBUTE_CONSTRAINTS, new ArrayList<String>())
-                     .append(LumeerConst.Collection.ATTRIBUTE_COUNT, 1));
+         addAttribute(collectionCode, attributeName, 1);
+      }
+   }
+
+   /**
+    * Sets the number of documents having the attribute. The attribute is added to metadata collection, if it isn't there,
+    * or dropped when the count is zero.
+    * This should be called only after bulk changes of the documents, when the count was computed again.
+    *
+    * @param collectionCode
+    *       collection code
+    * @param attributeName
+    *       attribute's name
+    * @param count
+    *       number of documents having the attribute
+    */
+   public void setAttributeCount(String collectionCode, String attributeName, int count) {
+      if (count <= 0) {
+         dropAttribute(collectionCode, attributeName);
+         return;
+      }
+
+      if (getAttributeInfo(collectionCode, attributeName) != null) {
+         String updateKey = dialect.concatFields(LumeerConst.Collection.ATTRIBUTES, "$", LumeerConst.Collection.ATTRIBUTE_COUNT);
+         dataStorage.updateDocument(metadataCollection(), new DataDocument(updateKey, count), attributeFilter(collectionCode, attributeName));
+      } else {
+         addAttribute(collectionCode, attributeName, count);
       }
    }
 
+   private void addAttribute(String collectionCode, String attributeName, int count) {
+      dataStorage.addItemToArray(metadataCollection(),
+            collectionCodeFilter(collectionCode),
+            LumeerConst.Collection.ATTRIBUTES,
+            new DataDocument()
+                  .append(LumeerConst.Collection.ATTRIBUTE_FULL_NAME, attributeName)
+                  .append(LumeerConst.Collection.ATTRIBUTE_NAME, attributeName(attributeName))
+                  .append(LumeerConst.Collection.ATTRIBUTE_CONSTRAINTS, new ArrayList<String>())
+                  .append(LumeerConst.Collection.ATTRIBUTE_COUNT, count));
+      invalidateCollectionConstraints(collectionCode);
+   }
+
    /**
     * Drops attribute if there is no other document with that attribute in the collection (count is 1),
     * otherwise just decrements count.
@@ -635,32 +672,28 @@ public class CollectionMetadataFacade implements Serializable {
    /**
     * Checks whether value satisfies all constraints (and tries to fix it when possible).
     *
-    * @param attribute
+    * @param attributeName
     *       attribute name
     * @param value
     *       attribute value
-    * @param collectionCode
-    *       collection code
+    * @param constraints
+    *       compiled constraints of the collection
     * @return null when the value is not valid, fixed value when the value is fixable, original value when the value is valid
-    * @throws InvalidConstraintException
-    *       When the constraint configuration was wrong.
     * @throws InvalidValueException
     *       When it was not possible to properly encode the value.
     */
-   private Object checkAndConvertAttributeValue(final Attribute attribute, final Object value, final String collectionCode) throws InvalidConstraintException, InvalidValueException {
+   private Object checkAndConvertAttributeValue(final String attributeName, final Object value, final CollectionConstraints constraints) throws InvalidValueException {
       // if the value is DataDocument, we check it recursively
       if (value instanceof DataDocument) {
 
          final DataDocument beforeCheck = (DataDocument) value;
          final DataDocument afterCheck = new DataDocument();
 
-         Set<String> names = getAttributesNames(collectionCode);
-
          for (String key : beforeCheck.keySet()) {
-            if (!names.contains(key)) { // attribute does not exist - no need to check anything
+            if (!constraints.hasAttribute(key)) { // attribute does not exist - no need to check anything
                afterCheck.put(key, beforeCheck.get(key));
             } else {
-               Object newValue = checkAndConvertAttributeValue(getAttributeInfo(collectionCode, key), beforeCheck.get(key), collectionCode);
+               Object newValue = checkAndConvertAttributeValue(key, beforeCheck.get(key), constraints);
                afterCheck.put(key, newValue);
             }
          }
@@ -674,11 +707,8 @@ public class CollectionMetadataFacade implements Serializable {
       }
 
       // other types
-      final List<String> constraintConfigurations = attribute.getConstraints();
-
-      final ConstraintManager constraintManager = new ConstraintManager(constraintConfigurations);
-      constraintManager.setLocale(Locale.forLanguageTag(configurationFacade.getConfigurationString(LumeerConst.USER_LOCALE_PROPERTY)
-                                                                           .orElse("en-US")));
+      final Attribute attribute = constraints.getAttribute(attributeName);
+      final ConstraintManager constraintManager = constraints.getConstraintManager(attributeName);
 
       Constraint.ConstraintResult result = constraintManager.isValid(value.toString());
 
@@ -715,14 +745,14 @@ public class CollectionMetadataFacade implements Serializable {
     */
    public DataDocument checkAndConvertAttributesValues(final String collectionCode, final DataDocument document) throws InvalidValueException, InvalidConstraintException {
       final DataDocument results = new DataDocument();
-      Set<String> names = getAttributesNames(collectionCode);
+      final CollectionConstraints constraints = getCollectionConstraints(collectionCode);
 
       for (Map.Entry<String, Object> entry : document.entrySet()) {
          String key = entry.getKey();
-         if (!names.contains(key)) { // attribute does not exist - no need to check anything
+         if (!constraints.hasAttribute(key)) { // attribute does not exist - no need to check anything
             results.append(key, entry.getValue());
          } else {
-            results.append(key, checkAndConvertAttributeValue(getAttributeInfo(collectionCode, key), entry.getValue(), collectionCode));
+            results.append(key, checkAndConvertAttributeValue(key, entry.getValue(), constraints));
          }
       }
 
@@ -744,14 +774,14 @@ public class CollectionMetadataFacade implements Serializable {
     */
    public DataDocument decodeAttributeValues(final String collectionCode, final DataDocument document) throws InvalidConstraintException, InvalidValueException {
       final DataDocument results = new DataDocument();
-      Set<String> names = getAttributesNames(collectionCode);
+      final CollectionConstraints constraints = getCollectionConstraints(collectionCode);
 
       for (Map.Entry<String, Object> entry : document.entrySet()) {
          String key = entry.getKey();
-         if (!names.contains(key)) { // attribute does not exist - no need to check anything
+         if (!constraints.hasAttribute(key)) { // attribute does not exist - no need to check anything
             results.append(key, entry.getValue());
          } else {
-            results.append(key, decodeDocumentValue(getAttributeInfo(collectionCode, key), entry.getValue(), collectionCode));
+            results.append(key, decodeDocumentValue(key, entry.getValue(), constraints));
          }
       }
       return results;
@@ -761,32 +791,28 @@ public class CollectionMetadataFacade implements Serializable {
     * Decodes a value type or the value itself from database representation to the user representation
     * based on the information in constraints.
     *
-    * @param attribute
-    *       The attribute meta-data.
+    * @param attributeName
+    *       The attribute name.
     * @param value
     *       The attribute value.
-    * @param collectionCode
-    *       collection code
+    * @param constraints
+    *       Compiled constraints of the collection.
     * @return Decoded value.
-    * @throws InvalidConstraintException
-    *       When the constraint configuration was wrong.
     * @throws InvalidValueException
     *       When it was not possible to properly decode the value.
     */
-   private Object decodeDocumentValue(final Attribute attribute, final Object value, final String collectionCode) throws InvalidConstraintException, InvalidValueException {
+   private Object decodeDocumentValue(final String attributeName, final Object value, final CollectionConstraints constraints) throws InvalidValueException {
       // if the value is DataDocument, we check it recursively
       if (value instanceof DataDocument) {
 
          final DataDocument beforeCheck = (DataDocument) value;
          final DataDocument afterCheck = new DataDocument();
 
-         Set<String> names = getAttributesNames(collectionCode);
-
          for (String key : beforeCheck.keySet()) {
-            if (!names.contains(key)) { // attribute does not exist - no need to check anything
+            if (!constraints.hasAttribute(key)) { // attribute does not exist - no need to check anything
                afterCheck.put(key, beforeCheck.get(key));
             } else {
-               Object newValue = decodeDocumentValue(getAttributeInfo(collectionCode, key), beforeCheck.get(key), collectionCode);
+               Object newValue = decodeDocumentValue(key, beforeCheck.get(key), constraints);
                afterCheck.put(key, newValue);
             }
          }
@@ -794,15 +820,44 @@ public class CollectionMetadataFacade implements Serializable {
          return afterCheck;
       }
 
-      final List<String> constraintConfigurations = attribute.getConstraints();
-      final ConstraintManager constraintManager = new ConstraintManager(constraintConfigurations);
+      final ConstraintManager constraintManager = constraints.getConstraintManager(attributeName);
       final Object decoded = constraintManager.decode(value);
 
       if (value != null && decoded == null) {
          throw new InvalidValueException("Unable to decode value from database: " + value.toString());
       }
 
-      return constraintManager.decode(value);
+      return decoded;
+   }
+
+   /**
+    * Gets compiled constraints of all attributes of the given collection for the locale of the current user. The constraints
+    * and the user locale are cached until the attributes, their constraints or the locale configuration change, so that
+    * encoding and decoding of the documents does not need to read the collection metadata or the configuration again.
+    *
+    * @param collectionCode
+    *       collection code
+    * @return compiled constraints of the collection
+    * @throws InvalidConstraintException
+    *       When the constraint configuration was wrong.
+    */
+   private CollectionConstraints getCollectionConstraints(final String collectionCode) throws InvalidConstraintException {
+      final String workspace = organizationFacade.getOrganizationCode() + "/" + projectFacade.getCurrentProjectCode();
+      final Locale locale = constraintsCache.getLocale(workspace + "/" + userFacade.getUserEmail(), () ->
+            Locale.forLanguageTag(configurationFacade.getConfigurationString(LumeerConst.USER_LOCALE_PROPERTY).orElse("en-US")));
+      CollectionConstraints constraints = constraintsCache.getConstraints(workspace + "/" + collectionCode, locale);
+
+      if (constraints == null) {
+         constraints = new CollectionConstraints(getAttributesInfo(collectionCode), locale);
+         constraintsCache.setConstraints(workspace + "/" + collectionCode, locale, constraints);
+      }
+
+      return constraints;
+   }
+
+   // drops compiled constraints of the collection in all locales, must be called whenever attributes or their constraints change
+   private void invalidateCollectionConstraints(final String collectionCode) {
+      constraintsCache.invalidateConstraints(organizationFacade.getOrganizationCode() + "/" + projectFacade.getCurrentProjectCode() + "/" + collectionCode);
    }
 
    /**
@@ -846,6 +901,7 @@ public class CollectionMetadataFacade implements Serializable {
 
       String attrParam = dialect.concatFields(LumeerConst.Collection.ATTRIBUTES, "$", LumeerConst.Collection.ATTRIBUTE_CONSTRAINTS);
       dataStorage.addItemToArray(metadataCollection(), attributeFilter(collectionCode, attributeName), attrParam, constraintConfiguration);
+      invalidateCollectionConstraints(collectionCode);
 
       setLastTimeUsedNow(collectionCode);
    }
@@ -863,6 +919,7 @@ public class CollectionMetadataFacade implements Serializable {
    public void dropAttributeConstraint(String collectionCode, String attributeName, String constraintConfiguration) {
       String attrParam = dialect.concatFields(LumeerConst.Collection.ATTRIBUTES, "$", LumeerConst.Collection.ATTRIBUTE_CONSTRAINTS);
       dataStorage.removeItemFromArray(metadataCollection(), attributeFilter(collectionCode, attributeName), attrParam, constraintConfiguration);
+      invalidateCollectionConstraints(collectionCode);
 
       setLastTimeUsedNow(collectionCode);
    }
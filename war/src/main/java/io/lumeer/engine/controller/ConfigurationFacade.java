@@ -21,6 +21,7 @@ package io.lumeer.engine.controller;
 import io.lumeer.engine.api.LumeerConst;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.engine.api.data.StorageConnection;
+import io.lumeer.engine.api.data.StoragePoolSettings;
 import io.lumeer.engine.api.dto.Config;
 import io.lumeer.engine.controller.configuration.ConfigurationManipulator;
 import io.lumeer.engine.controller.configuration.DefaultConfigurationProducer;
@@ -67,6 +68,9 @@ public class ConfigurationFacade implements Serializable {
    @Inject
    private OrganizationFacade organizationFacade;
 
+   @Inject
+   private ConstraintsCache constraintsCache;
+
    /**
     * Never ever replace the way of getting data storage here. Data storage configuration depends on this bean and this bean cannot inject it directly.
     *
@@ -88,6 +92,17 @@ public class ConfigurationFacade implements Serializable {
       return Boolean.valueOf(getConfigurationString(LumeerConst.DB_USE_SSL).orElse("false"));
    }
 
+   public StoragePoolSettings getDataStoragePoolSettings() {
+      final StoragePoolSettings defaults = StoragePoolSettings.DEFAULT;
+
+      return new StoragePoolSettings(
+            getConfigurationInteger(LumeerConst.DB_POOL_MIN_SIZE).orElse(defaults.getMinSize()),
+            getConfigurationInteger(LumeerConst.DB_POOL_MAX_SIZE).orElse(defaults.getMaxSize()),
+            getConfigurationInteger(LumeerConst.DB_POOL_MAX_WAIT_QUEUE_SIZE).orElse(defaults.getMaxWaitQueueSize()),
+            getConfigurationInteger(LumeerConst.DB_POOL_MAX_WAIT_TIME).orElse(defaults.getMaxWaitTime()),
+            getConfigurationInteger(LumeerConst.DB_POOL_MAX_IDLE_TIME).orElse(defaults.getMaxIdleTime()));
+   }
+
    /**
     * Never ever replace the way of getting data storage here. Data storage configuration depends on this bean and this bean cannot inject it directly.
     *
@@ -128,6 +143,30 @@ public class ConfigurationFacade implements Serializable {
       return Boolean.valueOf(defaultConfigurationProducer.get(LumeerConst.SYSTEM_DB_USE_SSL));
    }
 
+   public StoragePoolSettings getSystemDataStoragePoolSettings() {
+      final StoragePoolSettings defaults = StoragePoolSettings.DEFAULT;
+
+      return new StoragePoolSettings(
+            getDefaultConfigurationInteger(LumeerConst.SYSTEM_DB_POOL_MIN_SIZE, defaults.getMinSize()),
+            getDefaultConfigurationInteger(LumeerConst.SYSTEM_DB_POOL_MAX_SIZE, defaults.getMaxSize()),
+            getDefaultConfigurationInteger(LumeerConst.SYSTEM_DB_POOL_MAX_WAIT_QUEUE_SIZE, defaults.getMaxWaitQueueSize()),
+            getDefaultConfigurationInteger(LumeerConst.SYSTEM_DB_POOL_MAX_WAIT_TIME, defaults.getMaxWaitTime()),
+            getDefaultConfigurationInteger(LumeerConst.SYSTEM_DB_POOL_MAX_IDLE_TIME, defaults.getMaxIdleTime()));
+   }
+
+   private int getDefaultConfigurationInteger(final String key, final int defaultValue) {
+      final String value = defaultConfigurationProducer.get(key);
+      if (value == null || value.isEmpty()) {
+         return defaultValue;
+      }
+
+      try {
+         return Integer.parseInt(value.trim());
+      } catch (NumberFormatException nfe) {
+         return defaultValue;
+      }
+   }
+
    /**
     * Returns an Optional String value of the given key.
     *
@@ -491,6 +530,8 @@ public class ConfigurationFacade implements Serializable {
             configurationManipulator.resetConfiguration(ORGANIZATION_CONFIG_COLLECTION, organization);
             break;
       }
+
+      constraintsCache.invalidateLocales();
    }
 
    /**
@@ -527,6 +568,10 @@ public class ConfigurationFacade implements Serializable {
             break;
       }
 
+      if (LumeerConst.USER_LOCALE_PROPERTY.equals(attributeName)) {
+         constraintsCache.invalidateLocales();
+      }
+
    }
 
    /**
@@ -602,6 +647,10 @@ public class ConfigurationFacade implements Serializable {
             break;
       }
 
+      if (LumeerConst.USER_LOCALE_PROPERTY.equals(config.getKey())) {
+         constraintsCache.invalidateLocales();
+      }
+
    }
 
    private void setConfigurations(final ConfigurationLevel level, final List<Config> configs, final boolean reset) {
@@ -630,6 +679,10 @@ public class ConfigurationFacade implements Serializable {
             break;
       }
 
+      if (reset || configs.stream().anyMatch(config -> LumeerConst.USER_LOCALE_PROPERTY.equals(config.getKey()))) {
+         constraintsCache.invalidateLocales();
+      }
+
    }
 
    private String userConfigName(ConfigurationLevel level, String organization, String project, String user) {
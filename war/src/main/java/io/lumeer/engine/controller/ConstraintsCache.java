@@ -0,0 +1,123 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.controller;
+
+import io.lumeer.core.cache.CacheInvalidationBus;
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheFactory;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Keeps the compiled {@link CollectionConstraints} and the locales of the users they were compiled for.
+ * The collections are identified by their workspace and code, the locales by the workspace and the user.
+ * Both caches are invalidated on all nodes of the cluster through the {@link CacheInvalidationBus}.
+ */
+@ApplicationScoped
+public class ConstraintsCache {
+
+   static final String CONSTRAINTS_CACHE = "collectionConstraints";
+   static final String LOCALES_CACHE = "userLocales";
+
+   @Inject
+   private CacheFactory cacheFactory;
+
+   @Inject
+   private CacheInvalidationBus cacheInvalidationBus;
+
+   private Cache<Map<Locale, CollectionConstraints>> constraintsCache;
+
+   private Cache<Locale> localesCache;
+
+   @PostConstruct
+   public void init() {
+      constraintsCache = cacheFactory.getCache(CONSTRAINTS_CACHE);
+      localesCache = cacheFactory.getCache(LOCALES_CACHE);
+
+      cacheInvalidationBus.subscribe(CONSTRAINTS_CACHE, constraintsCache);
+      cacheInvalidationBus.subscribe(LOCALES_CACHE, localesCache);
+   }
+
+   /**
+    * Gets the locale of the user, the locale is resolved only when it is not cached yet.
+    *
+    * @param userKey
+    *       Workspace and email of the user.
+    * @param locale
+    *       Resolves the locale from the configuration.
+    * @return The user locale.
+    */
+   Locale getLocale(final String userKey, final Supplier<Locale> locale) {
+      return localesCache.computeIfAbsent(userKey, key -> locale.get());
+   }
+
+   /**
+    * Gets the constraints of the collection compiled for the locale.
+    *
+    * @param collectionKey
+    *       Workspace and code of the collection.
+    * @param locale
+    *       Locale of the constraints.
+    * @return The compiled constraints or null when they are not cached.
+    */
+   CollectionConstraints getConstraints(final String collectionKey, final Locale locale) {
+      final Map<Locale, CollectionConstraints> localizedConstraints = constraintsCache.get(collectionKey);
+      return localizedConstraints != null ? localizedConstraints.get(locale) : null;
+   }
+
+   /**
+    * Stores the constraints of the collection compiled for the locale.
+    *
+    * @param collectionKey
+    *       Workspace and code of the collection.
+    * @param locale
+    *       Locale of the constraints.
+    * @param constraints
+    *       The compiled constraints.
+    */
+   void setConstraints(final String collectionKey, final Locale locale, final CollectionConstraints constraints) {
+      constraintsCache.computeIfAbsent(collectionKey, key -> new ConcurrentHashMap<>()).put(locale, constraints);
+   }
+
+   /**
+    * Drops the compiled constraints of the collection in all locales, on this and all the other nodes.
+    *
+    * @param collectionKey
+    *       Workspace and code of the collection.
+    */
+   void invalidateConstraints(final String collectionKey) {
+      constraintsCache.remove(collectionKey);
+      cacheInvalidationBus.invalidate(CONSTRAINTS_CACHE, collectionKey);
+   }
+
+   /**
+    * Drops all cached locales, on this and all the other nodes. The locale can be configured on several levels
+    * shared by many users, so any change of the locale configuration drops all of them.
+    */
+   void invalidateLocales() {
+      localesCache.clear();
+      cacheInvalidationBus.invalidateAll(LOCALES_CACHE);
+   }
+}
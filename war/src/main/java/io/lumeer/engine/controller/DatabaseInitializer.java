@@ -24,6 +24,7 @@ import io.lumeer.engine.api.LumeerConst.Collection;
 import io.lumeer.engine.api.LumeerConst.Configuration;
 import io.lumeer.engine.api.LumeerConst.Group;
 import io.lumeer.engine.api.LumeerConst.Index;
+import io.lumeer.engine.api.LumeerConst.Job;
 import io.lumeer.engine.api.LumeerConst.Organization;
 import io.lumeer.engine.api.LumeerConst.Project;
 import io.lumeer.engine.api.LumeerConst.Security;
@@ -80,6 +81,19 @@ public class DatabaseInitializer {
       initUserGroupCollection();
       initUserSettingsCollection();
       initConfigurationCollections();
+      initJobCollection();
+   }
+
+   private void initJobCollection() {
+      if (!dataStorage.hasCollection(Job.COLLECTION_NAME)) {
+         dataStorage.createCollection(Job.COLLECTION_NAME);
+         dataStorage.createIndex(Job.COLLECTION_NAME, new DataDocument(Job.ATTR_STATE, Index.ASCENDING)
+               .append(Job.ATTR_PRIORITY, Index.DESCENDING)
+               .append(Job.ATTR_CREATE_DATE, Index.ASCENDING), false);
+         dataStorage.createIndex(Job.COLLECTION_NAME, new DataDocument(Job.ATTR_ORGANIZATION, Index.ASCENDING)
+               .append(Job.ATTR_PROJECT, Index.ASCENDING)
+               .append(Job.ATTR_USER, Index.ASCENDING), false);
+      }
    }
 
    private void initConfigurationCollections() {
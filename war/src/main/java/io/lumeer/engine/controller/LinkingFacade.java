@@ -34,10 +34,14 @@ import io.lumeer.engine.util.ErrorMessageBuilder;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.SessionScoped;
@@ -116,14 +120,13 @@ public class LinkingFacade implements Serializable {
       String collectionId = getCollectionId(collectionCode);
 
       List<DataDocument> linkingDocs = readLinkingTypesForCollection(collectionId, role, linkDirection);
+      Map<String, List<DataDocument>> linkingInstances = readLinkingInstancesByType(linkingDocs, dataStorageDialect.fieldValuesFilter(Linking.Instance.ATTR_TYPE_ID, linkingTypeIds(linkingDocs)));
 
       List<LinkInstance> linkInstances = new ArrayList<>();
-      String linkingCollectionName = buildCollectionName();
       for (DataDocument lt : linkingDocs) {
          LinkType linkType = convertLinkTypeToRealNames(lt);
 
-         List<DataDocument> ls = dataStorage.search(linkingCollectionName, dataStorageDialect.fieldValueFilter(Linking.Instance.ATTR_TYPE_ID, lt.getId()), null, 0, 0);
-         for (DataDocument doc : ls) {
+         for (DataDocument doc : linkingInstances.get(lt.getId())) {
             String fromDocumentId = linkDirection == Linking.LinkDirection.FROM ? doc.getString(Linking.Instance.ATTR_FROM_ID) : doc.getString(Linking.Instance.ATTR_TO_ID);
             String toDocumentId = linkDirection == Linking.LinkDirection.FROM ? doc.getString(Linking.Instance.ATTR_TO_ID) : doc.getString(Linking.Instance.ATTR_FROM_ID);
             linkInstances.add(new LinkInstance(linkType, fromDocumentId, toDocumentId, doc.getDataDocument(Linking.Instance.ATTR_ATTRIBUTES)));
@@ -188,7 +191,7 @@ public class LinkingFacade implements Serializable {
       String collectionId = getCollectionId(collectionCode);
 
       List<DataDocument> linkingDocs = readLinkingTypesForCollection(collectionId, role, linkDirection);
-      return readDocumentsFromLinkInstances(linkingDocs, documentId, linkDirection);
+      return readDocumentsFromLinkInstances(linkingDocs, Collections.singleton(documentId), linkDirection).getOrDefault(documentId, new ArrayList<>());
    }
 
    /**
@@ -211,7 +214,7 @@ public class LinkingFacade implements Serializable {
       String secondCollectionId = getCollectionId(secondCollectionCode);
 
       List<DataDocument> linkingDocs = readLinkingTypesBetweenCollections(firstCollectionId, secondCollectionId, role, linkDirection);
-      return readDocumentsFromLinkInstances(linkingDocs, firstDocumentId, linkDirection);
+      return readDocumentsFromLinkInstances(linkingDocs, Collections.singleton(firstDocumentId), linkDirection).getOrDefault(firstDocumentId, new ArrayList<>());
    }
 
    /**
@@ -374,25 +377,63 @@ public class LinkingFacade implements Serializable {
       dataStorage.createDocuments(buildCollectionName(), dataDocuments);
    }
 
-   private List<DataDocument> readDocumentsFromLinkInstances(final List<DataDocument> linkingDocs, final String documentId, final Linking.LinkDirection linkDirection) {
-      List<DataDocument> links = new ArrayList<>();
-      String collectionName = buildCollectionName();
+   private Map<String, List<DataDocument>> readDocumentsFromLinkInstances(final List<DataDocument> linkingDocs, final Set<String> documentIds, final Linking.LinkDirection linkDirection) {
+      Map<String, List<DataDocument>> links = new HashMap<>();
+      if (linkingDocs.isEmpty() || documentIds.isEmpty()) {
+         return links;
+      }
+
+      String sourceParam = linkDirection == Linking.LinkDirection.FROM ? Linking.Instance.ATTR_FROM_ID : Linking.Instance.ATTR_TO_ID;
+      String targetParam = linkDirection == Linking.LinkDirection.FROM ? Linking.Instance.ATTR_TO_ID : Linking.Instance.ATTR_FROM_ID;
+      String targetCollectionParam = linkDirection == Linking.LinkDirection.FROM ? Linking.Type.ATTR_TO_COLLECTION_ID : Linking.Type.ATTR_FROM_COLLECTION_ID;
+
+      DataFilter instancesFilter = dataStorageDialect.combineFilters(
+            dataStorageDialect.fieldValuesFilter(Linking.Instance.ATTR_TYPE_ID, linkingTypeIds(linkingDocs)),
+            dataStorageDialect.fieldValuesFilter(sourceParam, documentIds));
+      Map<String, List<DataDocument>> linkingInstances = readLinkingInstancesByType(linkingDocs, instancesFilter);
+
+      // group linked document ids by their collection so that each collection is read just once
+      Map<String, Set<String>> targetIds = new HashMap<>();
+      for (DataDocument lt : linkingDocs) {
+         Set<String> ids = targetIds.computeIfAbsent(lt.getString(targetCollectionParam), k -> new HashSet<>());
+         linkingInstances.get(lt.getId()).forEach(dc -> ids.add(dc.getString(targetParam)));
+      }
+
+      Map<String, Map<String, DataDocument>> targetDocuments = new HashMap<>();
+      targetIds.forEach((targetCollectionId, ids) -> {
+         String targetCollectionCode = collectionMetadataFacade.getCollectionCode(targetCollectionId);
+         if (targetCollectionCode != null && !ids.isEmpty()) {
+            targetDocuments.put(targetCollectionId, dataStorage.search(targetCollectionCode, dataStorageDialect.documentIdsFilter(ids), null, 0, 0)
+                                                               .stream()
+                                                               .collect(Collectors.toMap(DataDocument::getId, Function.identity())));
+         }
+      });
+
       for (DataDocument lt : linkingDocs) {
-         String readCollectionNameId = linkDirection == Linking.LinkDirection.FROM ? lt.getString(Linking.Type.ATTR_TO_COLLECTION_ID) : lt.getString(Linking.Type.ATTR_FROM_COLLECTION_ID);
-         String readCollectionName = collectionMetadataFacade.getCollectionCode(readCollectionNameId);
-         String param = linkDirection == Linking.LinkDirection.FROM ? Linking.Instance.ATTR_TO_ID : Linking.Instance.ATTR_FROM_ID;
-         List<DataDocument> docs = dataStorage.search(collectionName, filterLinkingInstanceForDocument(lt.getId(), documentId, linkDirection), null, 0, 0);
-         for (DataDocument dc : docs) {
-            String id = dc.getString(param);
-            DataDocument doc = dataStorage.readDocument(readCollectionName, dataStorageDialect.documentIdFilter(id));
+         Map<String, DataDocument> documents = targetDocuments.getOrDefault(lt.getString(targetCollectionParam), Collections.emptyMap());
+         for (DataDocument dc : linkingInstances.get(lt.getId())) {
+            DataDocument doc = documents.get(dc.getString(targetParam));
             if (doc != null) {
-               links.add(doc);
+               links.computeIfAbsent(dc.getString(sourceParam), k -> new ArrayList<>()).add(doc);
             }
          }
       }
       return links;
    }
 
+   private Map<String, List<DataDocument>> readLinkingInstancesByType(final List<DataDocument> linkingDocs, final DataFilter filter) {
+      Map<String, List<DataDocument>> linkingInstances = linkingDocs.stream().collect(Collectors.toMap(DataDocument::getId, lt -> new ArrayList<>(), (a, b) -> a));
+      if (!linkingDocs.isEmpty()) {
+         dataStorage.search(buildCollectionName(), filter, null, 0, 0)
+                    .forEach(dc -> linkingInstances.get(dc.getString(Linking.Instance.ATTR_TYPE_ID)).add(dc));
+      }
+      return linkingInstances;
+   }
+
+   private static Set<String> linkingTypeIds(final List<DataDocument> linkingDocs) {
+      return linkingDocs.stream().map(DataDocument::getId).collect(Collectors.toSet());
+   }
+
    private void dropLinksForDocument(final List<DataDocument> linkingDocs, final String documentId, final Linking.LinkDirection linkDirection) {
       String collectionName = buildCollectionName();
       for (DataDocument lt : linkingDocs) {
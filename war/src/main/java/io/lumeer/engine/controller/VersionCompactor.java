@@ -0,0 +1,199 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.controller;
+
+import io.lumeer.engine.api.LumeerConst;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.data.DataFilter;
+import io.lumeer.engine.api.data.DataStorage;
+import io.lumeer.engine.api.data.DataStorageDialect;
+import io.lumeer.engine.util.DocumentDelta;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Enforces the retention of old document versions. The number of versions is checked whenever a document is backed
+ * up, versions older than the maximal age are removed from a shadow collection at most once per compaction interval.
+ * A snapshot is never removed while a kept delta version is based on it. Versions stored without the backup date are
+ * dated by the first compaction that finds them, so they are removed the maximal age later.
+ */
+@ApplicationScoped
+public class VersionCompactor {
+
+   /**
+    * Maximal number of old versions kept for a document, 0 keeps all of them.
+    */
+   private static final int MAX_VERSIONS = Integer.getInteger("lumeer.versions.maxCount", 0);
+
+   /**
+    * Maximal age of old versions in milliseconds, 0 keeps all of them.
+    */
+   private static final long MAX_AGE = Long.getLong("lumeer.versions.maxAge", 0L);
+
+   private static final long COMPACTION_INTERVAL = Long.getLong("lumeer.versions.compactionInterval", 3_600_000L);
+
+   private static final int COMPACTION_BATCH_SIZE = 1000;
+
+   private static final String VERSION_FIELD = LumeerConst.Document.ID + "." + LumeerConst.Document.METADATA_VERSION_KEY;
+   private static final String DOCUMENT_ID_FIELD = LumeerConst.Document.ID + "." + LumeerConst.Document.ID;
+   private static final String BASE_VERSION_FIELD = LumeerConst.Document.SHADOW_DELTA_KEY + "." + DocumentDelta.BASE_VERSION_KEY;
+
+   private int maxVersions = MAX_VERSIONS;
+   private long maxAge = MAX_AGE;
+   private long compactionInterval = COMPACTION_INTERVAL;
+   private LongSupplier clock = System::currentTimeMillis;
+
+   private final ConcurrentMap<String, Long> lastCompactions = new ConcurrentHashMap<>();
+
+   public VersionCompactor() {
+   }
+
+   VersionCompactor(int maxVersions, long maxAge, long compactionInterval, LongSupplier clock) {
+      this.maxVersions = maxVersions;
+      this.maxAge = maxAge;
+      this.compactionInterval = compactionInterval;
+      this.clock = clock;
+   }
+
+   /**
+    * Whether the number of old versions kept for a document is limited.
+    *
+    * @return true if and only if old versions are removed when a document has too many of them
+    */
+   public boolean isVersionCountLimited() {
+      return maxVersions > 0;
+   }
+
+   /**
+    * Applies the retention policies after a new old version of the document was stored.
+    *
+    * @param dataStorage
+    *       storage of the shadow collection
+    * @param dialect
+    *       dialect of the storage
+    * @param shadowCollection
+    *       name of the shadow collection
+    * @param documentId
+    *       id of the backed up document
+    * @param version
+    *       the stored version
+    */
+   public void versionCreated(final DataStorage dataStorage, final DataStorageDialect dialect, final String shadowCollection, final String documentId, final int version) {
+      versionsCreated(dataStorage, dialect, shadowCollection, Collections.singletonMap(documentId, version));
+   }
+
+   /**
+    * Applies the retention policies after new old versions of documents were stored by a single bulk operation. The
+    * versions over the limit are removed for all the documents at once.
+    *
+    * @param dataStorage
+    *       storage of the shadow collection
+    * @param dialect
+    *       dialect of the storage
+    * @param shadowCollection
+    *       name of the shadow collection
+    * @param versions
+    *       the stored versions mapped by the ids of the backed up documents
+    */
+   public void versionsCreated(final DataStorage dataStorage, final DataStorageDialect dialect, final String shadowCollection, final Map<String, Integer> versions) {
+      if (maxVersions > 0) {
+         Map<String, Integer> removedVersions = new HashMap<>();
+         versions.forEach((documentId, version) -> {
+            if (version >= maxVersions) {
+               removedVersions.put(documentId, version - maxVersions + 1);
+            }
+         });
+         removeVersionsBefore(dataStorage, dialect, shadowCollection, removedVersions);
+      }
+
+      if (maxAge > 0 && isCompactionDue(shadowCollection)) {
+         long now = clock.getAsLong();
+         dateUndatedVersions(dataStorage, dialect, shadowCollection, now);
+         removeExpiredVersions(dataStorage, dialect, shadowCollection, now - maxAge);
+      }
+   }
+
+   private boolean isCompactionDue(final String shadowCollection) {
+      long now = clock.getAsLong();
+      Long lastCompaction = lastCompactions.putIfAbsent(shadowCollection, now);
+
+      // only one request takes the compaction over
+      return lastCompaction == null || (now - lastCompaction >= compactionInterval && lastCompactions.replace(shadowCollection, lastCompaction, now));
+   }
+
+   private void dateUndatedVersions(final DataStorage dataStorage, final DataStorageDialect dialect, final String shadowCollection, final long now) {
+      DataFilter undatedFilter = dialect.documentFilter("{\"" + LumeerConst.Document.SHADOW_BACKUP_DATE_KEY + "\": {\"$exists\": false}}");
+      DataDocument backupDate = new DataDocument(LumeerConst.Document.SHADOW_BACKUP_DATE_KEY, new Date(now));
+
+      dataStorage.updateManyDocuments(shadowCollection, undatedFilter, backupDate);
+   }
+
+   private void removeExpiredVersions(final DataStorage dataStorage, final DataStorageDialect dialect, final String shadowCollection, final long threshold) {
+      DataFilter expiredFilter = dialect.documentFilter("{\"" + LumeerConst.Document.SHADOW_BACKUP_DATE_KEY + "\": {\"$lt\": {\"$date\": " + threshold + "}}}");
+      List<DataDocument> expired = dataStorage.search(shadowCollection, expiredFilter, null, Collections.singletonList(LumeerConst.Document.ID), 0, COMPACTION_BATCH_SIZE);
+
+      Map<String, Integer> lastExpiredVersions = new HashMap<>();
+      for (DataDocument record : expired) {
+         DataDocument id = record.getDataDocument(LumeerConst.Document.ID);
+         lastExpiredVersions.merge(id.getString(LumeerConst.Document.ID), id.getInteger(LumeerConst.Document.METADATA_VERSION_KEY), Math::max);
+      }
+
+      lastExpiredVersions.replaceAll((documentId, version) -> version + 1);
+      removeVersionsBefore(dataStorage, dialect, shadowCollection, lastExpiredVersions);
+   }
+
+   /**
+    * Removes the versions of the documents older than the given ones by a single operation. The snapshots the kept delta
+    * versions are based on are kept as well.
+    */
+   private void removeVersionsBefore(final DataStorage dataStorage, final DataStorageDialect dialect, final String shadowCollection, final Map<String, Integer> versions) {
+      if (versions.isEmpty()) {
+         return;
+      }
+
+      DataFilter keptDeltasFilter = dialect.combineFilters(versionsFilter(dialect, "$gte", versions), dialect.fieldExistsFilter(LumeerConst.Document.SHADOW_DELTA_KEY));
+      List<DataDocument> keptDeltas = dataStorage.search(shadowCollection, keptDeltasFilter, Arrays.asList(LumeerConst.Document.ID, BASE_VERSION_FIELD));
+
+      Map<String, Integer> removedBefore = new HashMap<>(versions);
+      for (DataDocument delta : keptDeltas) {
+         String documentId = delta.getDataDocument(LumeerConst.Document.ID).getString(LumeerConst.Document.ID);
+         removedBefore.merge(documentId, delta.getDataDocument(LumeerConst.Document.SHADOW_DELTA_KEY).getInteger(DocumentDelta.BASE_VERSION_KEY), Math::min);
+      }
+
+      dataStorage.dropManyDocuments(shadowCollection, versionsFilter(dialect, "$lt", removedBefore));
+   }
+
+   private static DataFilter versionsFilter(final DataStorageDialect dialect, final String operator, final Map<String, Integer> versions) {
+      String documentFilters = versions.entrySet().stream()
+                                       .map(version -> "{\"" + DOCUMENT_ID_FIELD + "\": {\"$oid\": \"" + version.getKey() + "\"}, \""
+                                             + VERSION_FIELD + "\": {\"" + operator + "\": " + version.getValue() + "}}")
+                                       .collect(Collectors.joining(", "));
+      return dialect.documentFilter("{\"$or\": [" + documentFilters + "]}");
+   }
+}
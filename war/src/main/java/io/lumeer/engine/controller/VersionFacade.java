@@ -28,19 +28,35 @@ import io.lumeer.engine.api.exception.AttributeNotFoundException;
 import io.lumeer.engine.api.exception.CollectionNotFoundException;
 import io.lumeer.engine.api.exception.DocumentNotFoundException;
 import io.lumeer.engine.api.exception.VersionUpdateConflictException;
+import io.lumeer.engine.util.DocumentDelta;
 import io.lumeer.engine.util.ErrorMessageBuilder;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.enterprise.context.SessionScoped;
 import javax.inject.Inject;
 
 /**
- * Provides document versioning capabilities.
+ * Provides document versioning capabilities. Old versions are stored in a shadow collection either as full copies
+ * or, in the delta mode, as field level differences from the last full snapshot of the document.
  */
 @SessionScoped
 public class VersionFacade implements Serializable {
 
+   /**
+    * Stores old versions as differences from snapshots when set to {@code delta}, otherwise as full copies.
+    */
+   private static final boolean DELTA_VERSIONS = "delta".equals(System.getProperty("lumeer.versions.mode", "full"));
+
+   /**
+    * Number of versions after which a full snapshot is stored again in the delta mode.
+    */
+   private static final int SNAPSHOT_INTERVAL = Integer.getInteger("lumeer.versions.snapshotInterval", 10);
+
    @Inject
    @UserDataStorage
    private DataStorage dataStorage;
@@ -48,6 +64,23 @@ public class VersionFacade implements Serializable {
    @Inject
    private DataStorageDialect dataStorageDialect;
 
+   @Inject
+   private VersionCompactor versionCompactor;
+
+   private boolean deltaVersions = DELTA_VERSIONS;
+   private int snapshotInterval = SNAPSHOT_INTERVAL;
+
+   public VersionFacade() {
+   }
+
+   VersionFacade(DataStorage dataStorage, DataStorageDialect dataStorageDialect, VersionCompactor versionCompactor, boolean deltaVersions, int snapshotInterval) {
+      this.dataStorage = dataStorage;
+      this.dataStorageDialect = dataStorageDialect;
+      this.versionCompactor = versionCompactor;
+      this.deltaVersions = deltaVersions;
+      this.snapshotInterval = snapshotInterval;
+   }
+
    /**
     * Return document version.
     *
@@ -225,13 +258,160 @@ public class VersionFacade implements Serializable {
       createMetadata(document);
       createShadowCollection(collectionCode);
 
+      String shadowCollectionName = buildShadowCollectionName(collectionCode);
+      int version = getDocumentVersion(document);
+      DataDocument versionRecord = createVersionRecord(shadowCollectionName, document, version);
+      versionRecord.put(LumeerConst.Document.SHADOW_BACKUP_DATE_KEY, new Date());
+
       try {
-         dataStorage.createOldDocument(buildShadowCollectionName(collectionCode), document, document.getId(), getDocumentVersion(document));
+         dataStorage.createOldDocument(shadowCollectionName, versionRecord, document.getId(), version);
       } catch (Exception e) {
          throw new VersionUpdateConflictException(e.getMessage(), e.getCause());
       }
 
-      return getDocumentVersion(document);
+      versionCompactor.versionCreated(dataStorage, dataStorageDialect, shadowCollectionName, document.getId(), version);
+
+      return version;
+   }
+
+   /**
+    * Whether all documents of a collection can be backed up by {@link #backUpAllDocuments(String)} inside the data storage.
+    * It is possible only when the old versions are stored as full copies and their count is not limited.
+    *
+    * @return true if and only if the backup can run in the data storage
+    */
+   public boolean isStorageBackUpSupported() {
+      return !deltaVersions && !versionCompactor.isVersionCountLimited() && dataStorage.supportsUpdatePipelines();
+   }
+
+   /**
+    * Creates in shadow collection backups of all documents in the collection, no document is read to the application.
+    * The caller is responsible for incrementing the versions of the documents afterwards.
+    *
+    * @param collectionCode
+    *       collection where documents are stored
+    * @throws VersionUpdateConflictException
+    *       throws if some document is already in shadow collection
+    * @see #isStorageBackUpSupported()
+    */
+   public void backUpAllDocuments(String collectionCode) throws VersionUpdateConflictException {
+      createShadowCollection(collectionCode);
+
+      try {
+         dataStorage.aggregate(collectionCode, dataStorageDialect.backUpDocumentsAggregate(buildShadowCollectionName(collectionCode)));
+      } catch (Exception e) {
+         throw new VersionUpdateConflictException(e.getMessage(), e.getCause());
+      }
+   }
+
+   /**
+    * Create in shadow collection backups of documents from input in a single bulk operation.
+    *
+    * @param collectionCode
+    *       collection where documents are stored
+    * @param documents
+    *       documents to back up
+    * @throws VersionUpdateConflictException
+    *       throws if some document is already in shadow collection
+    */
+   public void backUpDocuments(String collectionCode, List<DataDocument> documents) throws VersionUpdateConflictException {
+      createShadowCollection(collectionCode);
+
+      String shadowCollectionName = buildShadowCollectionName(collectionCode);
+      List<DataDocument> versionRecords = new ArrayList<>(documents.size());
+      for (DataDocument document : documents) {
+         createMetadata(document);
+         DataDocument versionRecord = createVersionRecord(shadowCollectionName, document, getDocumentVersion(document));
+         versionRecord.put(LumeerConst.Document.ID, document.getId());
+         versionRecord.put(LumeerConst.Document.SHADOW_BACKUP_DATE_KEY, new Date());
+         versionRecords.add(versionRecord);
+      }
+
+      try {
+         dataStorage.createOldDocuments(shadowCollectionName, versionRecords);
+      } catch (Exception e) {
+         throw new VersionUpdateConflictException(e.getMessage(), e.getCause());
+      }
+
+      Map<String, Integer> versions = new HashMap<>();
+      documents.forEach(document -> versions.put(document.getId(), getDocumentVersion(document)));
+      versionCompactor.versionsCreated(dataStorage, dataStorageDialect, shadowCollectionName, versions);
+   }
+
+   /**
+    * Creates the record of the old document version stored in the shadow collection. It is a full copy of the document,
+    * unless the delta mode is enabled and the last snapshot of the document is less than the snapshot interval
+    * versions old.
+    *
+    * @param shadowCollectionName
+    *       name of the shadow collection
+    * @param document
+    *       document to back up
+    * @param version
+    *       version of the document
+    * @return the record to store
+    */
+   private DataDocument createVersionRecord(String shadowCollectionName, DataDocument document, int version) {
+      if (!deltaVersions) {
+         return new DataDocument(document);
+      }
+
+      List<DataDocument> latestRecords = dataStorage.search(shadowCollectionName, dataStorageDialect.documentNestedIdFilter(document.getId()),
+            dataStorageDialect.documentFieldSort(dataStorageDialect.concatFields(LumeerConst.Document.ID, LumeerConst.Document.METADATA_VERSION_KEY), LumeerConst.SORT_DESCENDING_ORDER), 0, 1);
+      if (latestRecords.isEmpty()) {
+         return new DataDocument(document);
+      }
+
+      DataDocument latestRecord = latestRecords.get(0);
+      DataDocument snapshot = latestRecord;
+      int snapshotVersion = getDocumentVersion(latestRecord);
+      if (latestRecord.containsKey(LumeerConst.Document.SHADOW_DELTA_KEY)) {
+         snapshotVersion = latestRecord.getDataDocument(LumeerConst.Document.SHADOW_DELTA_KEY).getInteger(DocumentDelta.BASE_VERSION_KEY);
+         snapshot = version - snapshotVersion < snapshotInterval ? readVersionRecord(shadowCollectionName, document.getId(), snapshotVersion) : null;
+      }
+
+      if (snapshot == null || snapshot.containsKey(LumeerConst.Document.SHADOW_DELTA_KEY) || version - snapshotVersion >= snapshotInterval) {
+         return new DataDocument(document);
+      }
+
+      snapshot.remove(LumeerConst.Document.SHADOW_BACKUP_DATE_KEY);
+      return new DataDocument(LumeerConst.Document.METADATA_VERSION_KEY, version)
+            .append(LumeerConst.Document.SHADOW_DELTA_KEY, DocumentDelta.diff(snapshot, snapshotVersion, document));
+   }
+
+   private DataDocument readVersionRecord(String shadowCollectionName, String documentId, int version) {
+      return dataStorage.readDocument(shadowCollectionName, dataStorageDialect.documentNestedIdFilterWithVersion(documentId, version));
+   }
+
+   /**
+    * Rebuilds the old document version from its record in the shadow collection.
+    *
+    * @param shadowCollectionName
+    *       name of the shadow collection
+    * @param versionRecord
+    *       the stored record
+    * @param snapshots
+    *       already read records by their version
+    * @return the old document version, or null when the snapshot it is based on does not exist
+    */
+   private DataDocument rebuildDocumentVersion(String shadowCollectionName, DataDocument versionRecord, Map<Integer, DataDocument> snapshots) {
+      DataDocument document = versionRecord;
+      if (versionRecord.containsKey(LumeerConst.Document.SHADOW_DELTA_KEY)) {
+         DataDocument delta = versionRecord.getDataDocument(LumeerConst.Document.SHADOW_DELTA_KEY);
+         int snapshotVersion = delta.getInteger(DocumentDelta.BASE_VERSION_KEY);
+         DataDocument snapshot = snapshots.computeIfAbsent(snapshotVersion,
+               v -> readVersionRecord(shadowCollectionName, versionRecord.getDataDocument(LumeerConst.Document.ID).getString(LumeerConst.Document.ID), v));
+         if (snapshot == null) {
+            return null;
+         }
+
+         document = DocumentDelta.apply(snapshot, delta);
+         document.put(LumeerConst.Document.ID, versionRecord.get(LumeerConst.Document.ID));
+      }
+
+      document.remove(LumeerConst.Document.SHADOW_DELTA_KEY);
+      document.remove(LumeerConst.Document.SHADOW_BACKUP_DATE_KEY);
+      return document;
    }
 
    /**
@@ -302,7 +482,9 @@ public class VersionFacade implements Serializable {
     *       if document cannot be found
     */
    public DataDocument readOldDocumentVersion(String collectionCode, String documentId, int version) throws DocumentNotFoundException {
-      final DataDocument data = dataStorage.readDocument(buildShadowCollectionName(collectionCode), dataStorageDialect.documentNestedIdFilterWithVersion(documentId, version));
+      final String shadowCollectionName = buildShadowCollectionName(collectionCode);
+      final DataDocument versionRecord = readVersionRecord(shadowCollectionName, documentId, version);
+      final DataDocument data = versionRecord != null ? rebuildDocumentVersion(shadowCollectionName, versionRecord, new HashMap<>()) : null;
       if (data == null) {
          throw new DocumentNotFoundException(ErrorMessageBuilder.documentNotFoundString());
       }
@@ -322,8 +504,22 @@ public class VersionFacade implements Serializable {
     *       if collection does not exists
     */
    public List<DataDocument> getDocumentVersions(String collectionCode, String documentId) throws CollectionNotFoundException {
+      final String shadowCollectionName = buildShadowCollectionName(collectionCode);
       final DataFilter filter = dataStorageDialect.documentNestedIdFilter(documentId);
-      List<DataDocument> dataDocuments = dataStorage.search(buildShadowCollectionName(collectionCode), filter, null, 0, 100);
+      List<DataDocument> versionRecords = dataStorage.search(shadowCollectionName, filter, null, 0, 100);
+
+      Map<Integer, DataDocument> snapshots = new HashMap<>();
+      versionRecords.stream()
+                    .filter(versionRecord -> !versionRecord.containsKey(LumeerConst.Document.SHADOW_DELTA_KEY))
+                    .forEach(versionRecord -> snapshots.put(getDocumentVersion(versionRecord), new DataDocument(versionRecord)));
+
+      List<DataDocument> dataDocuments = new ArrayList<>();
+      for (DataDocument versionRecord : versionRecords) {
+         DataDocument dataDocument = rebuildDocumentVersion(shadowCollectionName, versionRecord, snapshots);
+         if (dataDocument != null) {
+            dataDocuments.add(dataDocument);
+         }
+      }
 
       DataDocument main = dataStorage.readDocument(collectionCode, dataStorageDialect.documentIdFilter(documentId));
       dataDocuments.add(main);
@@ -26,11 +26,20 @@ import io.lumeer.engine.controller.OrganizationFacade;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 /**
+ * Provides data storages of organizations and the system data storage. The storages share connection pools to the same hosts
+ * and the storages of organizations that were not used for {@code lumeer.storage.idleTimeout} milliseconds are disconnected.
+ * A storage of an organization is in use from {@link #getUserStorage()} until the matching {@link #releaseUserStorage(DataStorage)},
+ * storages in use are never disconnected.
+ *
  * @author <a href="mailto:marvenec@gmail.com">Martin Večeřa</a>
  */
 @ApplicationScoped
@@ -38,7 +47,17 @@ public class DataStorageProvider {
 
    private static final String SYSTEM_CONNECTION = "/SYSTEM/"; // organisation cannot have / in its name
 
-   private Map<String, DataStorage> connections = new ConcurrentHashMap<>();
+   private static final long IDLE_TIMEOUT = Long.getLong("lumeer.storage.idleTimeout", TimeUnit.MINUTES.toMillis(30));
+
+   private static final long EVICTION_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+   private final Map<String, StorageHolder> connections = new ConcurrentHashMap<>();
+
+   private final long idleTimeout;
+
+   private final LongSupplier clock;
+
+   private final AtomicLong lastEviction;
 
    @Inject
    private DataStorageFactory dataStorageFactory;
@@ -52,18 +71,123 @@ public class DataStorageProvider {
    @Inject
    private CacheManager cacheManager;
 
+   public DataStorageProvider() {
+      this(IDLE_TIMEOUT, System::currentTimeMillis);
+   }
+
+   DataStorageProvider(final DataStorageFactory dataStorageFactory, final ConfigurationFacade configurationFacade, final OrganizationFacade organizationFacade, final CacheManager cacheManager, final long idleTimeout, final LongSupplier clock) {
+      this(idleTimeout, clock);
+      this.dataStorageFactory = dataStorageFactory;
+      this.configurationFacade = configurationFacade;
+      this.organizationFacade = organizationFacade;
+      this.cacheManager = cacheManager;
+   }
+
+   private DataStorageProvider(final long idleTimeout, final LongSupplier clock) {
+      this.idleTimeout = idleTimeout;
+      this.clock = clock;
+      this.lastEviction = new AtomicLong(clock.getAsLong());
+   }
+
+   /**
+    * Gets the data storage of the current organization and marks it as used until it is released.
+    *
+    * @return The data storage of the current organization.
+    */
    public DataStorage getUserStorage() {
-      return connections.computeIfAbsent(organizationFacade.getOrganizationCode(),
-            k -> dataStorageFactory.getStorage(cacheManager.getCacheProvider("userDataStorage"), configurationFacade.getDataStorage(), configurationFacade.getDataStorageDatabase(), configurationFacade.getDataStorageUseSsl()));
+      evictIdleStorages();
+
+      return getStorage(organizationFacade.getOrganizationCode(),
+            () -> dataStorageFactory.getStorage(cacheManager.getCacheProvider("userDataStorage"), configurationFacade.getDataStorage(), configurationFacade.getDataStorageDatabase(), configurationFacade.getDataStorageUseSsl(), configurationFacade.getDataStoragePoolSettings()));
+   }
+
+   /**
+    * Marks the data storage obtained by {@link #getUserStorage()} as no longer used by the caller.
+    *
+    * @param storage
+    *       The released data storage.
+    */
+   public void releaseUserStorage(final DataStorage storage) {
+      connections.values().stream()
+                 .filter(holder -> holder.storage == storage)
+                 .findFirst()
+                 .ifPresent(this::release);
    }
 
    public DataStorage getSystemStorage() {
-      return connections.computeIfAbsent(SYSTEM_CONNECTION,
-            k -> dataStorageFactory.getStorage(cacheManager.getCacheProvider("systemDataStorage"), configurationFacade.getSystemDataStorage(), configurationFacade.getSystemDataStorageDatabase(), configurationFacade.getSystemDataStorageUseSsl()));
+      return getStorage(SYSTEM_CONNECTION,
+            () -> dataStorageFactory.getStorage(cacheManager.getCacheProvider("systemDataStorage"), configurationFacade.getSystemDataStorage(), configurationFacade.getSystemDataStorageDatabase(), configurationFacade.getSystemDataStorageUseSsl(), configurationFacade.getSystemDataStoragePoolSettings()));
    }
 
    @PreDestroy
    public void closeConnections() {
-      connections.forEach((k, v) -> v.disconnect());
+      connections.forEach((k, v) -> v.storage.disconnect());
+   }
+
+   private DataStorage getStorage(final String key, final Supplier<DataStorage> storageSupplier) {
+      while (true) {
+         final StorageHolder holder = connections.computeIfAbsent(key, k -> new StorageHolder(storageSupplier.get(), clock.getAsLong()));
+
+         synchronized (holder) {
+            // the holder might have been evicted right after we obtained it, a new one is created then
+            if (!holder.disconnected) {
+               holder.users++;
+               holder.lastUsed = clock.getAsLong();
+
+               return holder.storage;
+            }
+         }
+      }
+   }
+
+   private void release(final StorageHolder holder) {
+      synchronized (holder) {
+         holder.users = Math.max(0, holder.users - 1);
+         holder.lastUsed = clock.getAsLong();
+      }
+   }
+
+   void evictIdleStorages() {
+      final long now = clock.getAsLong();
+      final long last = lastEviction.get();
+
+      if (now - last < EVICTION_INTERVAL || !lastEviction.compareAndSet(last, now)) {
+         return;
+      }
+
+      connections.forEach((key, holder) -> {
+         if (!SYSTEM_CONNECTION.equals(key) && markDisconnected(holder, now)) {
+            connections.remove(key, holder);
+            holder.storage.disconnect();
+         }
+      });
+   }
+
+   // re-checks the usage under the lock so that a storage is never handed out and disconnected at the same time
+   private boolean markDisconnected(final StorageHolder holder, final long now) {
+      synchronized (holder) {
+         if (holder.users > 0 || holder.disconnected || now - holder.lastUsed <= idleTimeout) {
+            return false;
+         }
+
+         holder.disconnected = true;
+         return true;
+      }
+   }
+
+   private static class StorageHolder {
+
+      private final DataStorage storage;
+
+      private int users = 0;
+
+      private long lastUsed;
+
+      private boolean disconnected = false;
+
+      private StorageHolder(final DataStorage storage, final long lastUsed) {
+         this.storage = storage;
+         this.lastUsed = lastUsed;
+      }
    }
 }
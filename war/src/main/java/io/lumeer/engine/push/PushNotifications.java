@@ -48,9 +48,7 @@ public class PushNotifications {
          if (message.startsWith("auth ")) {
             final String token = message.substring(5);
 
-            if (pushService.getTokens().containsKey(token)) {
-               session.getUserProperties().put(PushService.LUMEER_AUTH_HEADER, token);
-
+            if (pushService.authenticateSession(session, token)) {
                return "authenticated";
             }
          }
@@ -81,7 +79,7 @@ public class PushNotifications {
 
    @OnOpen
    public void open(final Session session) {
-      pushService.getSessions().add(session);
+      pushService.registerSession(session);
    }
 
    @OnClose
@@ -96,6 +94,6 @@ public class PushNotifications {
       pushService.getObservedObjects().forEach((k, v) -> v.remove(session));
 
       // delete the session
-      pushService.getSessions().remove(session);
+      pushService.unregisterSession(session);
    }
 }
\ No newline at end of file
@@ -22,21 +22,21 @@ import io.lumeer.engine.api.event.DocumentEvent;
 import io.lumeer.engine.api.push.PushMessage;
 import io.lumeer.engine.controller.UserFacade;
 
-import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.enterprise.event.Reception;
 import javax.inject.Inject;
-import javax.websocket.EncodeException;
 import javax.websocket.Session;
 
 /**
  * Sends message to clients using web sockets.
+ * Messages are queued per client and sent asynchronously, see {@link SessionQueue}.
  *
  * @author <a href="mailto:marvenec@gmail.com">Martin Večeřa</a>
  */
@@ -48,32 +48,101 @@ public class PushService {
     */
    public static final String LUMEER_AUTH_HEADER = "lumeer.auth";
 
-   @Inject
-   private PushNotifications pushNotifications;
+   /**
+    * WebSocket path parameter with the channel name.
+    */
+   public static final String CHANNEL_PARAMETER = "channel";
 
-   @Inject
-   private Logger log;
+   /**
+    * Maximal number of messages waiting to be sent to a single client.
+    */
+   private static final int QUEUE_CAPACITY = Integer.getInteger("lumeer.push.queueCapacity", 256);
 
    @Inject
    private UserFacade userFacade;
 
    /**
-    * Currently opened sessions with clients.
+    * Currently opened sessions with clients mapped by session id.
+    */
+   private Map<String, SessionQueue> sessions = new ConcurrentHashMap<>();
+
+   /**
+    * Currently opened sessions with clients mapped by their channel.
     */
-   private Set<Session> sessions = ConcurrentHashMap.newKeySet();
+   private Map<String, Set<SessionQueue>> channels = new ConcurrentHashMap<>();
 
    /**
     * Authentication tokens of clients authenticated via HTTP.
     */
    private Map<String, Long> tokens = new ConcurrentHashMap<>();
 
+   /**
+    * Authenticated sessions with clients mapped by the id of the HTTP session that obtained their token,
+    * see {@link PushAuthenticator}.
+    */
+   private Map<String, Set<SessionQueue>> httpSessions = new ConcurrentHashMap<>();
+
    /**
     * Clients registered to observe given objects.
     */
    private Map<String, Set<Session>> observedObjects = new ConcurrentHashMap<>();
 
+   private final PushStatistics statistics = new PushStatistics();
+
+   /**
+    * Registers a newly opened client session.
+    *
+    * @param session
+    *       The opened session.
+    */
+   public void registerSession(final Session session) {
+      final SessionQueue queue = new SessionQueue(session, QUEUE_CAPACITY, statistics);
+      sessions.put(session.getId(), queue);
+      channels.computeIfAbsent(getChannel(session), k -> ConcurrentHashMap.newKeySet()).add(queue);
+   }
+
+   /**
+    * Unregisters a closed client session, its waiting messages are discarded.
+    *
+    * @param session
+    *       The closed session.
+    */
+   public void unregisterSession(final Session session) {
+      final SessionQueue queue = sessions.remove(session.getId());
+      if (queue != null) {
+         channels.computeIfPresent(getChannel(session), (k, queues) -> remove(queues, queue));
+         removeHttpSession(queue);
+      }
+   }
+
+   /**
+    * Authenticates a client session by a token obtained from {@link PushAuthenticator}.
+    *
+    * @param session
+    *       The client session.
+    * @param token
+    *       The authentication token.
+    * @return True if and only if the token was valid.
+    */
+   public boolean authenticateSession(final Session session, final String token) {
+      if (!tokens.containsKey(token)) {
+         return false;
+      }
+
+      final SessionQueue queue = sessions.get(session.getId());
+      if (queue != null) {
+         removeHttpSession(queue);
+      }
+      session.getUserProperties().put(LUMEER_AUTH_HEADER, token);
+      if (queue != null) {
+         httpSessions.computeIfAbsent(getHttpSessionId(token), k -> ConcurrentHashMap.newKeySet()).add(queue);
+      }
+
+      return true;
+   }
+
    public Set<Session> getSessions() {
-      return sessions;
+      return sessions.values().stream().map(SessionQueue::getSession).collect(Collectors.toSet());
    }
 
    public Map<String, Long> getTokens() {
@@ -84,73 +153,65 @@ public class PushService {
       return observedObjects;
    }
 
+   /**
+    * Gets the delivery statistics of all the messages sent so far.
+    *
+    * @return The delivery statistics.
+    */
+   public PushStatistics getStatistics() {
+      return statistics;
+   }
+
+   /**
+    * Gets the number of messages waiting to be sent to all the clients.
+    *
+    * @return The number of waiting messages.
+    */
+   public int getQueuedCount() {
+      return sessions.values().stream().mapToInt(SessionQueue::size).sum();
+   }
+
    /**
     * Sends push-notification message to WebSocket clients listening on the given channel.
     *
     * @param channel
-    *       Channel suffix to send to or empty to send to all channels.
+    *       Channel to send to or empty to send to all channels.
     * @param message
     *       The message to be sent.
     */
    public void publishMessage(final String channel, final String message) {
-      sessions.forEach(session -> {
-         try {
-            log.info(session.getRequestURI().toString());
-            if (channel == null || channel.isEmpty() || session.getRequestURI().toString().endsWith(channel)) {
-               if (session.getUserProperties().containsKey(LUMEER_AUTH_HEADER)) {
-                  session.getBasicRemote().sendText(message);
-               }
-            }
-         } catch (IOException e) {
-            log.log(Level.FINE, "Unable to send push notification: ", e);
-         }
-      });
+      publish(channel, message);
    }
 
    /**
     * Sends push-notification message to WebSocket clients listening on the given channel.
     *
     * @param channel
-    *       Channel suffix to send to or empty to send to all channels.
+    *       Channel to send to or empty to send to all channels.
     * @param message
     *       The message to be sent.
     */
    public void publishMessage(final String channel, final Object message) {
-      sessions.forEach(session -> {
-         try {
-            if (channel == null || channel.isEmpty() || session.getRequestURI().toString().endsWith(channel)) {
-               if (session.getUserProperties().containsKey(LUMEER_AUTH_HEADER)) {
-                  session.getBasicRemote().sendObject(message);
-               }
-            }
-         } catch (IOException | EncodeException e) {
-            log.log(Level.FINE, "Unable to send push notification: ", e);
-         }
-      });
+      publish(channel, message);
    }
 
    /**
-    * Sends push-notification message to a single WebSocket client listening on the given channel.
+    * Sends push-notification message to the WebSocket clients of a single HTTP session listening on the given channel.
     *
     * @param clientSession
-    *       Session ID of the client to send the message to.
+    *       Id of the HTTP session whose clients the message is sent to, the clients are authenticated by the tokens
+    *       it obtained from {@link PushAuthenticator}.
     * @param channel
-    *       Channel suffix to send to or empty to send to all channels.
+    *       Channel to send to or empty to send to all channels.
     * @param message
     *       The message to be sent.
     */
    public void publishMessage(final String clientSession, final String channel, final PushMessage message) {
-      sessions.forEach(session -> {
-         if (session.getId() != null && session.getId().equals(clientSession)) {
-            try {
-               if (channel == null || channel.isEmpty() || session.getRequestURI().toString().endsWith(channel)) {
-                  if (session.getUserProperties().containsKey(LUMEER_AUTH_HEADER)) {
-                     session.getBasicRemote().sendText(message.toString());
-                  }
-               }
-            } catch (IOException e) {
-               log.log(Level.FINE, "Unable to send push notification: ", e);
-            }
+      final Set<SessionQueue> queues = clientSession != null ? httpSessions.getOrDefault(clientSession, Collections.emptySet()) : Collections.emptySet();
+
+      queues.forEach(queue -> {
+         if (isOnChannel(queue.getSession(), channel)) {
+            queue.offer(message.toString());
          }
       });
    }
@@ -159,7 +220,7 @@ public class PushService {
     * Sends push-notification message to the current WebSocket client listening on the given channel.
     *
     * @param channel
-    *       Channel suffix to send to or empty to send to all channels.
+    *       Channel to send to or empty to send to all channels.
     * @param message
     *       The message to be sent.
     */
@@ -178,12 +239,54 @@ public class PushService {
 
       if (objectId != null && !objectId.isEmpty() && observedObjects.containsKey(objectId)) {
          observedObjects.get(objectId).forEach(session -> {
-            try {
-               session.getBasicRemote().sendObject(event);
-            } catch (IOException | EncodeException e) {
-               log.log(Level.SEVERE, "Unable to notify WebSocket client: ", e);
+            final SessionQueue queue = sessions.get(session.getId());
+            if (queue != null) {
+               queue.offer(event);
             }
          });
       }
    }
+
+   private void publish(final String channel, final Object message) {
+      final Collection<SessionQueue> queues = channel == null || channel.isEmpty() ? sessions.values() : channels.getOrDefault(channel, Collections.emptySet());
+
+      queues.forEach(queue -> {
+         if (isAuthenticated(queue.getSession())) {
+            queue.offer(message);
+         }
+      });
+   }
+
+   private void removeHttpSession(final SessionQueue queue) {
+      final String token = (String) queue.getSession().getUserProperties().get(LUMEER_AUTH_HEADER);
+      if (token != null) {
+         httpSessions.computeIfPresent(getHttpSessionId(token), (k, queues) -> remove(queues, queue));
+      }
+   }
+
+   private static Set<SessionQueue> remove(final Set<SessionQueue> queues, final SessionQueue queue) {
+      queues.remove(queue);
+      return queues.isEmpty() ? null : queues;
+   }
+
+   /**
+    * Gets the id of the HTTP session from the token, the token is the session id followed by a colon and a random UUID.
+    */
+   private static String getHttpSessionId(final String token) {
+      final int separator = token.lastIndexOf(':');
+      return separator >= 0 ? token.substring(0, separator) : token;
+   }
+
+   private static String getChannel(final Session session) {
+      final String channel = session.getPathParameters().get(CHANNEL_PARAMETER);
+      return channel != null ? channel : "";
+   }
+
+   private static boolean isOnChannel(final Session session, final String channel) {
+      return channel == null || channel.isEmpty() || channel.equals(getChannel(session));
+   }
+
+   private static boolean isAuthenticated(final Session session) {
+      return session.getUserProperties().containsKey(LUMEER_AUTH_HEADER);
+   }
 }
@@ -0,0 +1,121 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.push;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivery statistics of push notifications.
+ */
+public class PushStatistics {
+
+   private final LongAdder sent = new LongAdder();
+   private final LongAdder failed = new LongAdder();
+   private final LongAdder dropped = new LongAdder();
+   private final LongAdder coalesced = new LongAdder();
+   private final LongAdder totalLag = new LongAdder();
+   private final LongAccumulator maxLag = new LongAccumulator(Math::max, 0);
+
+   void recordSent(final long lagNanos) {
+      sent.increment();
+      totalLag.add(lagNanos);
+      maxLag.accumulate(lagNanos);
+   }
+
+   void recordFailed() {
+      failed.increment();
+   }
+
+   void recordDropped() {
+      dropped.increment();
+   }
+
+   void recordCoalesced() {
+      coalesced.increment();
+   }
+
+   /**
+    * Gets the number of messages delivered to clients.
+    *
+    * @return The number of delivered messages.
+    */
+   public long getSentCount() {
+      return sent.sum();
+   }
+
+   /**
+    * Gets the number of messages that could not be delivered because of an error.
+    *
+    * @return The number of failed messages.
+    */
+   public long getFailedCount() {
+      return failed.sum();
+   }
+
+   /**
+    * Gets the number of messages dropped because the client was not able to keep up with the messages.
+    *
+    * @return The number of dropped messages.
+    */
+   public long getDroppedCount() {
+      return dropped.sum();
+   }
+
+   /**
+    * Gets the number of messages not sent because the very same message was already waiting for the client.
+    *
+    * @return The number of coalesced messages.
+    */
+   public long getCoalescedCount() {
+      return coalesced.sum();
+   }
+
+   /**
+    * Gets the average time between publishing and delivering of a message.
+    *
+    * @return The average delivery lag in milliseconds.
+    */
+   public long getAverageLag() {
+      final long count = sent.sum();
+      return count > 0 ? TimeUnit.NANOSECONDS.toMillis(totalLag.sum() / count) : 0;
+   }
+
+   /**
+    * Gets the longest time between publishing and delivering of a message.
+    *
+    * @return The maximal delivery lag in milliseconds.
+    */
+   public long getMaxLag() {
+      return TimeUnit.NANOSECONDS.toMillis(maxLag.get());
+   }
+
+   @Override
+   public String toString() {
+      return "PushStatistics{"
+            + "sent=" + getSentCount()
+            + ", failed=" + getFailedCount()
+            + ", dropped=" + getDroppedCount()
+            + ", coalesced=" + getCoalescedCount()
+            + ", averageLag=" + getAverageLag()
+            + ", maxLag=" + getMaxLag()
+            + '}';
+   }
+}
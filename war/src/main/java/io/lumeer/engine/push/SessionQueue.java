@@ -0,0 +1,139 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.push;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+/**
+ * Bounded queue of messages waiting to be sent to a single WebSocket client. The messages are sent asynchronously
+ * one by one, so that a slow client never blocks the publisher nor the other clients. When the client is not able
+ * to keep up, the oldest waiting messages are dropped and messages equal to an already waiting message are coalesced.
+ */
+class SessionQueue implements SendHandler {
+
+   private static final Logger log = Logger.getLogger(SessionQueue.class.getName());
+
+   private final Session session;
+
+   private final int capacity;
+
+   private final PushStatistics statistics;
+
+   private final Deque<PendingMessage> queue = new ArrayDeque<>();
+
+   private PendingMessage sending;
+
+   SessionQueue(final Session session, final int capacity, final PushStatistics statistics) {
+      this.session = session;
+      this.capacity = capacity;
+      this.statistics = statistics;
+   }
+
+   Session getSession() {
+      return session;
+   }
+
+   /**
+    * Gets the number of messages waiting to be sent.
+    *
+    * @return The number of waiting messages.
+    */
+   synchronized int size() {
+      return queue.size();
+   }
+
+   /**
+    * Enqueues the message to be sent to the client. Either a String or an object that can be encoded by the session encoders.
+    *
+    * @param message
+    *       The message to be sent.
+    */
+   void offer(final Object message) {
+      final PendingMessage next;
+
+      synchronized (this) {
+         if (queue.stream().anyMatch(pending -> pending.message.equals(message))) {
+            statistics.recordCoalesced();
+            return;
+         }
+
+         if (queue.size() >= capacity) {
+            queue.pollFirst();
+            statistics.recordDropped();
+         }
+         queue.addLast(new PendingMessage(message));
+
+         if (sending != null) {
+            return;
+         }
+         next = sending = queue.pollFirst();
+      }
+
+      send(next);
+   }
+
+   @Override
+   public void onResult(final SendResult result) {
+      final PendingMessage next;
+
+      synchronized (this) {
+         if (result.isOK()) {
+            statistics.recordSent(System.nanoTime() - sending.published);
+         } else {
+            statistics.recordFailed();
+            log.log(Level.FINE, "Unable to send push notification: ", result.getException());
+         }
+
+         next = sending = queue.pollFirst();
+      }
+
+      if (next != null) {
+         send(next);
+      }
+   }
+
+   private void send(final PendingMessage pending) {
+      try {
+         if (pending.message instanceof String) {
+            session.getAsyncRemote().sendText((String) pending.message, this);
+         } else {
+            session.getAsyncRemote().sendObject(pending.message, this);
+         }
+      } catch (RuntimeException e) { // closed session or a container refusing the message
+         onResult(new SendResult(e));
+      }
+   }
+
+   private static class PendingMessage {
+
+      private final Object message;
+
+      private final long published = System.nanoTime();
+
+      private PendingMessage(final Object message) {
+         this.message = message;
+      }
+   }
+}
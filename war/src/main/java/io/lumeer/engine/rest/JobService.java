@@ -0,0 +1,171 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.rest;
+
+import io.lumeer.core.AuthenticatedUser;
+import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.engine.api.task.Task;
+import io.lumeer.engine.task.DeleteCollectionTask;
+import io.lumeer.engine.task.ImportTask;
+import io.lumeer.engine.task.Job;
+import io.lumeer.engine.task.JobQueue;
+import io.lumeer.engine.task.RebuildFulltextTask;
+import io.lumeer.engine.util.JmsService;
+
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Runs long operations as background jobs and reports their progress. The operations return immediately with
+ * the queued job, its progress is also pushed to the client session which submitted it.
+ */
+@Path("/organizations/{organization}/projects/{project}/jobs/")
+@RequestScoped
+@Produces(MediaType.APPLICATION_JSON)
+public class JobService {
+
+   @PathParam("organization")
+   private String organizationCode;
+
+   @PathParam("project")
+   private String projectCode;
+
+   @Inject
+   private WorkspaceKeeper workspaceKeeper;
+
+   @Inject
+   private AuthenticatedUser authenticatedUser;
+
+   @Inject
+   private JobQueue jobQueue;
+
+   @Inject
+   private JmsService jmsService;
+
+   @PostConstruct
+   public void init() {
+      workspaceKeeper.setWorkspace(organizationCode, projectCode);
+   }
+
+   /**
+    * Gets the recent jobs of the current user in the project.
+    *
+    * @return The jobs ordered from the newest.
+    */
+   @GET
+   @Path("/")
+   public List<Job> getJobs() {
+      return jobQueue.getJobs(organizationCode, projectCode, authenticatedUser.getUserEmail());
+   }
+
+   /**
+    * Gets the job with its progress.
+    *
+    * @param jobId
+    *       Id of the job.
+    * @return The job.
+    */
+   @GET
+   @Path("/{jobId}")
+   public Job getJob(@PathParam("jobId") final String jobId) {
+      return checkJob(jobQueue.getJob(jobId));
+   }
+
+   /**
+    * Cancels the job. A queued job is cancelled immediately, a running job stops at its next progress report.
+    *
+    * @param jobId
+    *       Id of the job.
+    * @return The cancelled job.
+    */
+   @DELETE
+   @Path("/{jobId}")
+   public Job cancelJob(@PathParam("jobId") final String jobId) {
+      checkJob(jobQueue.getJob(jobId));
+      return jobQueue.cancel(jobId);
+   }
+
+   /**
+    * Imports documents into a new collection.
+    *
+    * @param format
+    *       Format of the data.
+    * @param name
+    *       Name of the new collection.
+    * @param data
+    *       The imported data in UTF-8.
+    * @return Response with the queued job.
+    */
+   @POST
+   @Path("/import")
+   @Consumes(MediaType.TEXT_PLAIN)
+   public Response importDocuments(@QueryParam("format") final String format, @QueryParam("name") final String name, final byte[] data) {
+      return enqueue(new ImportTask(format, name, data));
+   }
+
+   /**
+    * Deletes the collection with all its documents.
+    *
+    * @param collectionCode
+    *       Code of the collection.
+    * @return Response with the queued job.
+    */
+   @POST
+   @Path("/collections/{collectionCode}/delete")
+   public Response deleteCollection(@PathParam("collectionCode") final String collectionCode) {
+      return enqueue(new DeleteCollectionTask(collectionCode));
+   }
+
+   /**
+    * Rebuilds the fulltext index of the project.
+    *
+    * @return Response with the queued job.
+    */
+   @POST
+   @Path("/fulltext/rebuild")
+   public Response rebuildFulltextIndex() {
+      return enqueue(new RebuildFulltextTask());
+   }
+
+   private Response enqueue(final Task task) {
+      return Response.accepted(jmsService.enqueueTask(task)).build();
+   }
+
+   private Job checkJob(final Job job) {
+      if (job == null || !organizationCode.equals(job.getOrganizationCode()) || !projectCode.equals(job.getProjectCode())
+            || !authenticatedUser.getUserEmail().equals(job.getUserEmail())) {
+         throw new NotFoundException();
+      }
+
+      return job;
+   }
+}
@@ -0,0 +1,96 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.rest;
+
+import io.lumeer.cache.simple.BoundedCacheFactory;
+import io.lumeer.cache.simple.CacheStatistics;
+import io.lumeer.core.cache.SearchCacheStatistics;
+import io.lumeer.core.cache.SearchResultCache;
+import io.lumeer.engine.push.PushService;
+import io.lumeer.engine.push.PushStatistics;
+
+import java.util.Map;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Reports runtime statistics of this node.
+ */
+@Path("/statistics")
+@RequestScoped
+@Produces(MediaType.APPLICATION_JSON)
+public class StatisticsService {
+
+   @Inject
+   private BoundedCacheFactory cacheFactory;
+
+   @Inject
+   private SearchResultCache searchResultCache;
+
+   @Inject
+   private PushService pushService;
+
+   /**
+    * Gets the hit, miss, eviction and expiration counters of the bounded caches.
+    *
+    * @return Map of cache names to their statistics.
+    */
+   @GET
+   @Path("/caches")
+   public Map<String, CacheStatistics> getCacheStatistics() {
+      return cacheFactory.getStatistics();
+   }
+
+   /**
+    * Gets the hit, miss, stale and oversized counters of the search result cache.
+    *
+    * @return The search result cache statistics.
+    */
+   @GET
+   @Path("/search")
+   public SearchCacheStatistics getSearchCacheStatistics() {
+      return searchResultCache.getStatistics();
+   }
+
+   /**
+    * Gets the delivery statistics of the push notifications sent by this node.
+    *
+    * @return The push notification statistics.
+    */
+   @GET
+   @Path("/push")
+   public PushStatistics getPushStatistics() {
+      return pushService.getStatistics();
+   }
+
+   /**
+    * Gets the number of push notifications waiting to be sent to the clients of this node.
+    *
+    * @return The number of waiting messages.
+    */
+   @GET
+   @Path("/push/queued")
+   public int getQueuedPushCount() {
+      return pushService.getQueuedCount();
+   }
+}
@@ -0,0 +1,50 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.task;
+
+import io.lumeer.core.CollectionStatisticsAggregator;
+import io.lumeer.core.WorkspaceKeeper;
+
+import java.util.concurrent.Future;
+import javax.ejb.AsyncResult;
+import javax.ejb.Asynchronous;
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+
+/**
+ * Writes the pending collection statistics of a project asynchronously in its own request context, because the
+ * collection DAO is bound to the workspace of the request.
+ */
+@Stateless
+public class CollectionStatisticsFlushBean {
+
+   @Inject
+   private CollectionStatisticsAggregator collectionStatisticsAggregator;
+
+   @Inject
+   private WorkspaceKeeper workspaceKeeper;
+
+   @Asynchronous
+   public Future<Void> flush(final String organizationCode, final String projectCode) {
+      workspaceKeeper.setWorkspace(organizationCode, projectCode);
+      collectionStatisticsAggregator.flush();
+
+      return new AsyncResult<>(null);
+   }
+}
@@ -0,0 +1,111 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.task;
+
+import io.lumeer.core.CollectionStatisticsAggregator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.inject.Inject;
+
+/**
+ * Regularly writes the collection statistics coalesced by the {@link CollectionStatisticsAggregator}, so that
+ * the statistics of idle projects do not stay behind, and writes the rest of them when the application stops.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class CollectionStatisticsFlusher {
+
+   /**
+    * Maximal time of waiting for the statistics to be written when the application stops, in milliseconds.
+    */
+   static final long SHUTDOWN_TIMEOUT = Long.getLong("lumeer.collection.statisticsShutdownTimeout", 10_000L);
+
+   @Resource
+   private TimerService timerService;
+
+   @Inject
+   private CollectionStatisticsAggregator collectionStatisticsAggregator;
+
+   @Inject
+   private CollectionStatisticsFlushBean flushBean;
+
+   @Inject
+   private Logger log;
+
+   @PostConstruct
+   public void init() {
+      final long flushInterval = collectionStatisticsAggregator.getFlushInterval();
+      if (flushInterval > 0) {
+         timerService.createIntervalTimer(flushInterval, flushInterval, new TimerConfig(null, false));
+      }
+   }
+
+   @Timeout
+   public synchronized void flush() {
+      try {
+         flushPendingWorkspaces();
+      } catch (RuntimeException e) {
+         log.log(Level.WARNING, "Unable to write collection statistics", e);
+      }
+   }
+
+   @PreDestroy
+   public synchronized void destroy() {
+      final long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT;
+
+      for (final Future<Void> future : flushPendingWorkspaces()) {
+         try {
+            future.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+         } catch (ExecutionException | TimeoutException e) {
+            log.log(Level.WARNING, "Unable to write collection statistics before shutdown", e);
+         }
+      }
+   }
+
+   private List<Future<Void>> flushPendingWorkspaces() {
+      final List<Future<Void>> futures = new ArrayList<>();
+
+      for (final CollectionStatisticsAggregator.Workspace workspace : collectionStatisticsAggregator.getPendingWorkspaces()) {
+         futures.add(flushBean.flush(workspace.getOrganizationCode(), workspace.getProjectCode()));
+      }
+
+      return futures;
+   }
+}
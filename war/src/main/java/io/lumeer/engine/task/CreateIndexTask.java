@@ -0,0 +1,59 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.task;
+
+import io.lumeer.core.IndexAdvisor;
+import io.lumeer.engine.api.task.Task;
+import io.lumeer.engine.api.task.TaskContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.enterprise.inject.spi.CDI;
+
+/**
+ * Creates an index of the collection data recommended by the {@link IndexAdvisor} unless the collection has it already.
+ */
+public class CreateIndexTask implements Task {
+
+   private static final long serialVersionUID = 1L;
+
+   private final String collectionId;
+   private final LinkedHashMap<String, Integer> keys;
+
+   public CreateIndexTask(final String collectionId, final Map<String, Integer> keys) {
+      this.collectionId = collectionId;
+      this.keys = new LinkedHashMap<>(keys);
+   }
+
+   @Override
+   public void process(final TaskContext context) {
+      final IndexAdvisor indexAdvisor = CDI.current().select(IndexAdvisor.class).get();
+
+      indexAdvisor.createIndexIfMissing(collectionId, keys);
+      context.setProgress(1, 1);
+   }
+
+   @Override
+   public String toString() {
+      return "CreateIndexTask{" +
+            "collectionId='" + collectionId + '\'' +
+            ", keys=" + keys +
+            '}';
+   }
+}
@@ -0,0 +1,64 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.task;
+
+import io.lumeer.core.AuthenticatedUser;
+import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.core.cache.FulltextCache;
+import io.lumeer.core.cache.FulltextIndexRequest;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.ejb.Asynchronous;
+import javax.ejb.Stateless;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+/**
+ * Loads the fulltext index of a project requested by the {@link FulltextCache} asynchronously in its own request
+ * context on this node, because the index is kept in the memory of the node whose search requested it.
+ */
+@Stateless
+public class FulltextIndexLoader {
+
+   @Inject
+   private FulltextCache fulltextCache;
+
+   @Inject
+   private WorkspaceKeeper workspaceKeeper;
+
+   @Inject
+   private AuthenticatedUser authenticatedUser;
+
+   @Inject
+   private Logger log;
+
+   @Asynchronous
+   public void load(@Observes final FulltextIndexRequest request) {
+      try {
+         workspaceKeeper.setWorkspace(request.getOrganizationCode(), request.getProjectCode());
+         authenticatedUser.runAs(request.getUserEmail());
+
+         final int count = fulltextCache.load();
+         log.log(Level.FINE, "Loaded {0} documents of project {1} into the fulltext index.", new Object[] { count, request.getProjectCode() });
+      } catch (RuntimeException e) {
+         log.log(Level.WARNING, "Unable to load the fulltext index of project " + request.getProjectCode(), e);
+      }
+   }
+}
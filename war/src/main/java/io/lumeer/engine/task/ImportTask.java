@@ -0,0 +1,67 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.task;
+
+import io.lumeer.core.facade.ImportFacade;
+import io.lumeer.engine.api.task.Task;
+import io.lumeer.engine.api.task.TaskContext;
+
+import java.io.ByteArrayInputStream;
+import javax.enterprise.inject.spi.CDI;
+
+/**
+ * Imports documents into a new collection. The imported data are stored with the task, so they are limited by the
+ * maximal size of a document in the job queue.
+ */
+public class ImportTask implements Task {
+
+   private static final long serialVersionUID = 1L;
+
+   private final String format;
+   private final String name;
+   private final byte[] data;
+
+   public ImportTask(final String format, final String name, final byte[] data) {
+      this.format = format;
+      this.name = name;
+      this.data = data;
+   }
+
+   @Override
+   public void process(final TaskContext context) {
+      final ImportFacade importFacade = CDI.current().select(ImportFacade.class).get();
+
+      importFacade.importDocuments(format, name, new ByteArrayInputStream(data), count -> context.setProgress(count, -1));
+   }
+
+   /**
+    * The collection created by a failed import is left behind, so the import is not repeated.
+    *
+    * @return Always false.
+    */
+   @Override
+   public boolean isRetryable() {
+      return false;
+   }
+
+   @Override
+   public String toString() {
+      return "ImportTask{format='" + format + "', name='" + name + "', size=" + data.length + "}";
+   }
+}
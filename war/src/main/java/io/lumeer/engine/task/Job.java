@@ -0,0 +1,242 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.task;
+
+import io.lumeer.engine.api.LumeerConst;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.task.Task;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A task stored in the persistent job queue together with the state of its processing.
+ */
+public class Job {
+
+   public enum State {
+      QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+      public boolean isFinished() {
+         return this == COMPLETED || this == FAILED || this == CANCELLED;
+      }
+   }
+
+   /**
+    * Attributes of the job without the serialized task, which is only needed to process the job.
+    */
+   static final List<String> LISTED_ATTRIBUTES = Collections.unmodifiableList(Arrays.asList(
+         LumeerConst.Job.ATTR_TYPE, LumeerConst.Job.ATTR_ORGANIZATION, LumeerConst.Job.ATTR_PROJECT, LumeerConst.Job.ATTR_USER,
+         LumeerConst.Job.ATTR_SESSION, LumeerConst.Job.ATTR_PRIORITY, LumeerConst.Job.ATTR_STATE, LumeerConst.Job.ATTR_ATTEMPTS,
+         LumeerConst.Job.ATTR_PROGRESS, LumeerConst.Job.ATTR_TOTAL, LumeerConst.Job.ATTR_ERROR, LumeerConst.Job.ATTR_CANCEL_REQUESTED,
+         LumeerConst.Job.ATTR_CREATE_DATE, LumeerConst.Job.ATTR_START_DATE, LumeerConst.Job.ATTR_FINISH_DATE));
+
+   private final String id;
+   private final String type;
+   private final String organizationCode;
+   private final String projectCode;
+   private final String userEmail;
+   private final String sessionId;
+   private final String serializedTask;
+   private final int priority;
+   private final State state;
+   private final int attempts;
+   private final long progress;
+   private final long total;
+   private final String error;
+   private final boolean cancelRequested;
+   private final Date createDate;
+   private final Date startDate;
+   private final Date finishDate;
+
+   private Job(final DataDocument document) {
+      this.id = document.getId();
+      this.type = document.getString(LumeerConst.Job.ATTR_TYPE);
+      this.organizationCode = document.getString(LumeerConst.Job.ATTR_ORGANIZATION);
+      this.projectCode = document.getString(LumeerConst.Job.ATTR_PROJECT);
+      this.userEmail = document.getString(LumeerConst.Job.ATTR_USER);
+      this.sessionId = document.getString(LumeerConst.Job.ATTR_SESSION);
+      this.serializedTask = document.getString(LumeerConst.Job.ATTR_TASK);
+      this.priority = document.getInteger(LumeerConst.Job.ATTR_PRIORITY, 0);
+      this.state = State.valueOf(document.getString(LumeerConst.Job.ATTR_STATE));
+      this.attempts = document.getInteger(LumeerConst.Job.ATTR_ATTEMPTS, 0);
+      this.progress = document.getLong(LumeerConst.Job.ATTR_PROGRESS, 0L);
+      this.total = document.getLong(LumeerConst.Job.ATTR_TOTAL, -1L);
+      this.error = document.getString(LumeerConst.Job.ATTR_ERROR);
+      this.cancelRequested = Boolean.TRUE.equals(document.getBoolean(LumeerConst.Job.ATTR_CANCEL_REQUESTED));
+      this.createDate = document.getDate(LumeerConst.Job.ATTR_CREATE_DATE);
+      this.startDate = document.getDate(LumeerConst.Job.ATTR_START_DATE);
+      this.finishDate = document.getDate(LumeerConst.Job.ATTR_FINISH_DATE);
+   }
+
+   /**
+    * Reads the job from its document in the job queue.
+    *
+    * @param document
+    *       The stored document.
+    * @return The job, null when the document is null.
+    */
+   public static Job fromDocument(final DataDocument document) {
+      return document != null ? new Job(document) : null;
+   }
+
+   /**
+    * Creates the document of a new job in the job queue.
+    *
+    * @param task
+    *       The task to process.
+    * @param organizationCode
+    *       Code of the organization the task works with.
+    * @param projectCode
+    *       Code of the project the task works with.
+    * @param userEmail
+    *       The user on whose behalf the task runs.
+    * @param sessionId
+    *       Session of the user that is notified about the progress, may be null.
+    * @param priority
+    *       Jobs with higher priority are processed first.
+    * @return The document of the job.
+    */
+   public static DataDocument createDocument(final Task task, final String organizationCode, final String projectCode, final String userEmail, final String sessionId, final int priority) {
+      return new DataDocument()
+            .append(LumeerConst.Job.ATTR_TYPE, task.getClass().getSimpleName())
+            .append(LumeerConst.Job.ATTR_TASK, serializeTask(task))
+            .append(LumeerConst.Job.ATTR_ORGANIZATION, organizationCode)
+            .append(LumeerConst.Job.ATTR_PROJECT, projectCode)
+            .append(LumeerConst.Job.ATTR_USER, userEmail)
+            .append(LumeerConst.Job.ATTR_SESSION, sessionId)
+            .append(LumeerConst.Job.ATTR_PRIORITY, priority)
+            .append(LumeerConst.Job.ATTR_STATE, State.QUEUED.name())
+            .append(LumeerConst.Job.ATTR_ATTEMPTS, 0)
+            .append(LumeerConst.Job.ATTR_PROGRESS, 0L)
+            .append(LumeerConst.Job.ATTR_TOTAL, -1L)
+            .append(LumeerConst.Job.ATTR_CANCEL_REQUESTED, false)
+            .append(LumeerConst.Job.ATTR_CREATE_DATE, new Date())
+            .append(LumeerConst.Job.ATTR_NOT_BEFORE, new Date());
+   }
+
+   static String serializeTask(final Task task) {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+         output.writeObject(task);
+      } catch (IOException e) {
+         throw new IllegalArgumentException("Unable to serialize task " + task.getClass().getName(), e);
+      }
+
+      return Base64.getEncoder().encodeToString(bytes.toByteArray());
+   }
+
+   static Task deserializeTask(final String serializedTask) throws IOException, ClassNotFoundException {
+      try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(serializedTask)))) {
+         return (Task) input.readObject();
+      }
+   }
+
+   Task getTask() throws IOException, ClassNotFoundException {
+      if (serializedTask == null) {
+         throw new IOException("The task is not stored with the job");
+      }
+      return deserializeTask(serializedTask);
+   }
+
+   String getSessionId() {
+      return sessionId;
+   }
+
+   public String getId() {
+      return id;
+   }
+
+   public String getType() {
+      return type;
+   }
+
+   public String getOrganizationCode() {
+      return organizationCode;
+   }
+
+   public String getProjectCode() {
+      return projectCode;
+   }
+
+   public String getUserEmail() {
+      return userEmail;
+   }
+
+   public int getPriority() {
+      return priority;
+   }
+
+   public State getState() {
+      return state;
+   }
+
+   public int getAttempts() {
+      return attempts;
+   }
+
+   public long getProgress() {
+      return progress;
+   }
+
+   public long getTotal() {
+      return total;
+   }
+
+   public String getError() {
+      return error;
+   }
+
+   public boolean isCancelRequested() {
+      return cancelRequested;
+   }
+
+   public Date getCreateDate() {
+      return createDate;
+   }
+
+   public Date getStartDate() {
+      return startDate;
+   }
+
+   public Date getFinishDate() {
+      return finishDate;
+   }
+
+   @Override
+   public String toString() {
+      return "Job{" +
+            "id='" + id + '\'' +
+            ", type='" + type + '\'' +
+            ", organizationCode='" + organizationCode + '\'' +
+            ", projectCode='" + projectCode + '\'' +
+            ", state=" + state +
+            ", attempts=" + attempts +
+            ", progress=" + progress + "/" + total +
+            '}';
+   }
+}
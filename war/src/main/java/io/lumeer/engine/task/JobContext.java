@@ -0,0 +1,89 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.task;
+
+import io.lumeer.engine.api.task.TaskContext;
+
+import java.util.function.Consumer;
+
+/**
+ * Context of a leased job. The progress is stored and the cancellation is checked at most once per {@link #UPDATE_INTERVAL}
+ * milliseconds, each such update also renews the lease of the job.
+ */
+class JobContext implements TaskContext {
+
+   static final long UPDATE_INTERVAL = Long.getLong("lumeer.jobs.updateInterval", 1000L);
+
+   private final JobQueue jobQueue;
+   private final String owner;
+   private final Consumer<Job> progressListener;
+
+   private Job job;
+   private long progress;
+   private long total;
+   private boolean cancelled;
+   private long lastUpdate;
+
+   JobContext(final JobQueue jobQueue, final Job job, final String owner, final Consumer<Job> progressListener) {
+      this.jobQueue = jobQueue;
+      this.job = job;
+      this.owner = owner;
+      this.progressListener = progressListener;
+      this.progress = job.getProgress();
+      this.total = job.getTotal();
+      this.cancelled = job.isCancelRequested();
+      this.lastUpdate = System.currentTimeMillis();
+   }
+
+   @Override
+   public void setProgress(final long done, final long total) {
+      this.progress = done;
+      this.total = total;
+      update();
+   }
+
+   @Override
+   public boolean isCancelled() {
+      update();
+      return cancelled;
+   }
+
+   Job getJob() {
+      return job;
+   }
+
+   private void update() {
+      final long now = System.currentTimeMillis();
+      if (cancelled || now - lastUpdate < UPDATE_INTERVAL) {
+         return;
+      }
+      lastUpdate = now;
+
+      final Job updated = jobQueue.updateProgress(job, owner, progress, total);
+      if (updated == null) {
+         // the lease was lost, another node processes the job now
+         cancelled = true;
+         return;
+      }
+
+      job = updated;
+      cancelled = updated.isCancelRequested();
+      progressListener.accept(updated);
+   }
+}
@@ -0,0 +1,316 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.task;
+
+import io.lumeer.engine.annotation.SystemDataStorage;
+import io.lumeer.engine.api.LumeerConst;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.data.DataFilter;
+import io.lumeer.engine.api.data.DataStorage;
+import io.lumeer.engine.api.data.DataStorageDialect;
+import io.lumeer.engine.api.task.Task;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Persistent queue of jobs stored in the system data storage. A job is processed by a single node at a time, the node
+ * holds a lease of the job that it must renew. Jobs of nodes that went down are processed again when their leases expire.
+ * Jobs with higher priority are leased first, but no organization can have more than {@link #MAX_PER_ORGANIZATION}
+ * jobs processed at the same time, so that a single organization cannot block the others.
+ */
+@ApplicationScoped
+public class JobQueue {
+
+   /**
+    * Maximal number of attempts to process a job.
+    */
+   static final int MAX_ATTEMPTS = Integer.getInteger("lumeer.jobs.maxAttempts", 3);
+
+   /**
+    * Duration of a lease in milliseconds.
+    */
+   static final long LEASE_DURATION = Long.getLong("lumeer.jobs.leaseDuration", TimeUnit.MINUTES.toMillis(1));
+
+   /**
+    * Delay before the first retry of a failed job in milliseconds, it doubles with each next attempt.
+    */
+   static final long RETRY_DELAY = Long.getLong("lumeer.jobs.retryDelay", TimeUnit.SECONDS.toMillis(10));
+
+   /**
+    * Maximal number of jobs of a single organization processed at the same time by all nodes.
+    */
+   static final int MAX_PER_ORGANIZATION = Integer.getInteger("lumeer.jobs.maxPerOrganization", 2);
+
+   /**
+    * How long the finished jobs are kept in milliseconds.
+    */
+   static final long RETENTION = Long.getLong("lumeer.jobs.retention", TimeUnit.DAYS.toMillis(7));
+
+   private static final int MAX_LISTED_JOBS = 100;
+
+   @Inject
+   @SystemDataStorage
+   private DataStorage dataStorage;
+
+   @Inject
+   private DataStorageDialect dataStorageDialect;
+
+   public JobQueue() {
+   }
+
+   JobQueue(final DataStorage dataStorage, final DataStorageDialect dataStorageDialect) {
+      this.dataStorage = dataStorage;
+      this.dataStorageDialect = dataStorageDialect;
+   }
+
+   /**
+    * Adds a new job to the queue.
+    *
+    * @param task
+    *       The task to process.
+    * @param organizationCode
+    *       Code of the organization the task works with.
+    * @param projectCode
+    *       Code of the project the task works with.
+    * @param userEmail
+    *       The user on whose behalf the task runs.
+    * @param sessionId
+    *       Session of the user that is notified about the progress, may be null.
+    * @param priority
+    *       Jobs with higher priority are processed first.
+    * @return The queued job.
+    */
+   public Job enqueue(final Task task, final String organizationCode, final String projectCode, final String userEmail, final String sessionId, final int priority) {
+      final String id = dataStorage.createDocument(LumeerConst.Job.COLLECTION_NAME, Job.createDocument(task, organizationCode, projectCode, userEmail, sessionId, priority));
+      return getJob(id);
+   }
+
+   public Job getJob(final String jobId) {
+      return Job.fromDocument(dataStorage.readDocumentIncludeAttrs(LumeerConst.Job.COLLECTION_NAME, dataStorageDialect.documentIdFilter(jobId), Job.LISTED_ATTRIBUTES));
+   }
+
+   /**
+    * Gets the latest jobs the user submitted in the project.
+    *
+    * @param organizationCode
+    *       Code of the organization.
+    * @param projectCode
+    *       Code of the project.
+    * @param userEmail
+    *       The user who submitted the jobs.
+    * @return The latest jobs.
+    */
+   public List<Job> getJobs(final String organizationCode, final String projectCode, final String userEmail) {
+      final DataFilter filter = dataStorageDialect.combineFilters(
+            dataStorageDialect.fieldValueFilter(LumeerConst.Job.ATTR_ORGANIZATION, organizationCode),
+            dataStorageDialect.fieldValueFilter(LumeerConst.Job.ATTR_PROJECT, projectCode),
+            dataStorageDialect.fieldValueFilter(LumeerConst.Job.ATTR_USER, userEmail));
+
+      return dataStorage.search(LumeerConst.Job.COLLECTION_NAME, filter, dataStorageDialect.documentFieldSort(LumeerConst.Job.ATTR_CREATE_DATE, LumeerConst.SORT_DESCENDING_ORDER),
+            Job.LISTED_ATTRIBUTES, 0, MAX_LISTED_JOBS)
+                        .stream()
+                        .map(Job::fromDocument)
+                        .collect(Collectors.toList());
+   }
+
+   /**
+    * Leases the next job to process. It is either a queued job whose time has come, or a job whose lease expired.
+    *
+    * @param owner
+    *       The node leasing the job.
+    * @return The leased job, null when there is no job to process.
+    */
+   public Job lease(final String owner) {
+      final Date now = new Date();
+      final DataFilter filter = dataStorageDialect.documentFilter(leaseFilter(now.getTime(), getBusyOrganizations(now)));
+      final DataDocument lease = new DataDocument(LumeerConst.Job.ATTR_STATE, Job.State.RUNNING.name())
+            .append(LumeerConst.Job.ATTR_LEASE_OWNER, owner)
+            .append(LumeerConst.Job.ATTR_LEASE_UNTIL, new Date(now.getTime() + LEASE_DURATION))
+            .append(LumeerConst.Job.ATTR_START_DATE, now);
+
+      // the attempt is counted in the same update, so that a node going down right after leasing cannot get the job processed again for free
+      return Job.fromDocument(dataStorage.updateAndReadDocument(LumeerConst.Job.COLLECTION_NAME, filter,
+            dataStorageDialect.documentSort("{\"" + LumeerConst.Job.ATTR_PRIORITY + "\": -1, \"" + LumeerConst.Job.ATTR_CREATE_DATE + "\": 1}"), lease,
+            new DataDocument(LumeerConst.Job.ATTR_ATTEMPTS, 1)));
+   }
+
+   /**
+    * Extends the lease of the job.
+    *
+    * @param jobId
+    *       Id of the leased job.
+    * @param owner
+    *       The node holding the lease.
+    * @return The job, null when the node does not hold the lease anymore.
+    */
+   public Job renew(final String jobId, final String owner) {
+      return Job.fromDocument(dataStorage.updateAndReadDocument(LumeerConst.Job.COLLECTION_NAME, leasedFilter(jobId, owner), null, renewal()));
+   }
+
+   /**
+    * Stores the progress of the job and extends its lease.
+    *
+    * @param job
+    *       The leased job.
+    * @param owner
+    *       The node holding the lease.
+    * @param progress
+    *       Amount of the work already done.
+    * @param total
+    *       Total amount of the work, negative when unknown.
+    * @return The job, null when the node does not hold the lease anymore.
+    */
+   public Job updateProgress(final Job job, final String owner, final long progress, final long total) {
+      return updateLeased(job, owner, renewal()
+            .append(LumeerConst.Job.ATTR_PROGRESS, progress)
+            .append(LumeerConst.Job.ATTR_TOTAL, total));
+   }
+
+   public Job complete(final Job job, final String owner) {
+      return finish(job, owner, Job.State.COMPLETED, new DataDocument());
+   }
+
+   public Job cancelled(final Job job, final String owner) {
+      return finish(job, owner, Job.State.CANCELLED, new DataDocument());
+   }
+
+   /**
+    * Records the failure of the job. The job is queued again with a delay unless it is not retryable or it ran out of attempts.
+    *
+    * @param job
+    *       The leased job.
+    * @param owner
+    *       The node holding the lease.
+    * @param error
+    *       Description of the failure.
+    * @param retryable
+    *       Whether the job can be processed again.
+    * @return The job, null when the node does not hold the lease anymore.
+    */
+   public Job fail(final Job job, final String owner, final String error, final boolean retryable) {
+      if (!retryable || job.getAttempts() >= MAX_ATTEMPTS) {
+         return finish(job, owner, Job.State.FAILED, new DataDocument(LumeerConst.Job.ATTR_ERROR, error));
+      }
+
+      return updateLeased(job, owner, new DataDocument(LumeerConst.Job.ATTR_STATE, Job.State.QUEUED.name())
+            .append(LumeerConst.Job.ATTR_ERROR, error)
+            .append(LumeerConst.Job.ATTR_LEASE_OWNER, null)
+            .append(LumeerConst.Job.ATTR_NOT_BEFORE, new Date(System.currentTimeMillis() + retryDelay(job.getAttempts()))));
+   }
+
+   /**
+    * Cancels the job. A queued job is cancelled immediately, a running job is only asked to stop.
+    *
+    * @param jobId
+    *       Id of the job.
+    * @return The job after the cancellation, null when it does not exist.
+    */
+   public Job cancel(final String jobId) {
+      final DataDocument cancelled = dataStorage.updateAndReadDocument(LumeerConst.Job.COLLECTION_NAME, stateFilter(jobId, Job.State.QUEUED), null,
+            new DataDocument(LumeerConst.Job.ATTR_STATE, Job.State.CANCELLED.name())
+                  .append(LumeerConst.Job.ATTR_TASK, null)
+                  .append(LumeerConst.Job.ATTR_CANCEL_REQUESTED, true)
+                  .append(LumeerConst.Job.ATTR_FINISH_DATE, new Date()));
+      if (cancelled != null) {
+         return Job.fromDocument(cancelled);
+      }
+
+      final DataDocument cancelRequested = dataStorage.updateAndReadDocument(LumeerConst.Job.COLLECTION_NAME, stateFilter(jobId, Job.State.RUNNING), null,
+            new DataDocument(LumeerConst.Job.ATTR_CANCEL_REQUESTED, true));
+      return cancelRequested != null ? Job.fromDocument(cancelRequested) : getJob(jobId);
+   }
+
+   /**
+    * Removes the jobs that finished before the retention period.
+    */
+   public void removeFinishedJobs() {
+      final long threshold = System.currentTimeMillis() - RETENTION;
+      dataStorage.dropManyDocuments(LumeerConst.Job.COLLECTION_NAME, dataStorageDialect.documentFilter(
+            "{\"" + LumeerConst.Job.ATTR_FINISH_DATE + "\": {\"$lt\": {\"$date\": " + threshold + "}}}"));
+   }
+
+   static long retryDelay(final int attempts) {
+      return RETRY_DELAY << Math.max(0, Math.min(attempts - 1, 16));
+   }
+
+   static String leaseFilter(final long now, final Set<String> busyOrganizations) {
+      final String available = "{\"$or\": ["
+            + "{\"" + LumeerConst.Job.ATTR_STATE + "\": \"" + Job.State.QUEUED.name() + "\", \"" + LumeerConst.Job.ATTR_NOT_BEFORE + "\": {\"$lte\": {\"$date\": " + now + "}}}, "
+            + "{\"" + LumeerConst.Job.ATTR_STATE + "\": \"" + Job.State.RUNNING.name() + "\", \"" + LumeerConst.Job.ATTR_LEASE_UNTIL + "\": {\"$lt\": {\"$date\": " + now + "}}}]}";
+
+      if (busyOrganizations.isEmpty()) {
+         return available;
+      }
+
+      final String organizations = busyOrganizations.stream().map(JobQueue::quote).collect(Collectors.joining(", "));
+      return "{\"$and\": [" + available + ", {\"" + LumeerConst.Job.ATTR_ORGANIZATION + "\": {\"$nin\": [" + organizations + "]}}]}";
+   }
+
+   private static String quote(final String value) {
+      return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+   }
+
+   private Set<String> getBusyOrganizations(final Date now) {
+      final List<DataDocument> running = dataStorage.aggregate(LumeerConst.Job.COLLECTION_NAME,
+            new DataDocument("$match", new DataDocument(LumeerConst.Job.ATTR_STATE, Job.State.RUNNING.name())
+                  .append(LumeerConst.Job.ATTR_LEASE_UNTIL, new DataDocument("$gte", now))),
+            new DataDocument("$group", new DataDocument(LumeerConst.Job.ATTR_JOB_ID, "$" + LumeerConst.Job.ATTR_ORGANIZATION)
+                  .append("count", new DataDocument("$sum", 1))));
+
+      return running.stream()
+                    .filter(group -> group.get(LumeerConst.Job.ATTR_JOB_ID) != null && group.getInteger("count") >= MAX_PER_ORGANIZATION)
+                    .map(group -> group.getString(LumeerConst.Job.ATTR_JOB_ID))
+                    .collect(Collectors.toSet());
+   }
+
+   private Job finish(final Job job, final String owner, final Job.State state, final DataDocument update) {
+      // the task is not needed anymore and it can be large, e.g. the data of an import
+      return updateLeased(job, owner, update
+            .append(LumeerConst.Job.ATTR_TASK, null)
+            .append(LumeerConst.Job.ATTR_STATE, state.name())
+            .append(LumeerConst.Job.ATTR_LEASE_OWNER, null)
+            .append(LumeerConst.Job.ATTR_FINISH_DATE, new Date()));
+   }
+
+   private Job updateLeased(final Job job, final String owner, final DataDocument update) {
+      return Job.fromDocument(dataStorage.updateAndReadDocument(LumeerConst.Job.COLLECTION_NAME, leasedFilter(job.getId(), owner), null, update));
+   }
+
+   private DataDocument renewal() {
+      return new DataDocument(LumeerConst.Job.ATTR_LEASE_UNTIL, new Date(System.currentTimeMillis() + LEASE_DURATION));
+   }
+
+   private DataFilter leasedFilter(final String jobId, final String owner) {
+      return dataStorageDialect.combineFilters(
+            stateFilter(jobId, Job.State.RUNNING),
+            dataStorageDialect.fieldValueFilter(LumeerConst.Job.ATTR_LEASE_OWNER, owner));
+   }
+
+   private DataFilter stateFilter(final String jobId, final Job.State state) {
+      return dataStorageDialect.combineFilters(
+            dataStorageDialect.documentIdFilter(jobId),
+            dataStorageDialect.fieldValueFilter(LumeerConst.Job.ATTR_STATE, state.name()));
+   }
+}
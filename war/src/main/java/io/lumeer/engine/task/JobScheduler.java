@@ -0,0 +1,141 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.task;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.inject.Inject;
+
+/**
+ * Regularly leases jobs from the {@link JobQueue} and hands them over to the {@link TaskProcessorBean}. At most
+ * {@link #WORKERS} jobs are processed by this node at the same time, their leases are renewed until they finish.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class JobScheduler {
+
+   /**
+    * Maximal number of jobs processed by this node at the same time.
+    */
+   static final int WORKERS = Integer.getInteger("lumeer.jobs.workers", 4);
+
+   /**
+    * Interval of polling the job queue in milliseconds.
+    */
+   static final long POLL_INTERVAL = Long.getLong("lumeer.jobs.pollInterval", 1000L);
+
+   private static final long CLEANUP_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+   private final String nodeId = UUID.randomUUID().toString();
+
+   /**
+    * Jobs processed by this node mapped to the time of their last lease renewal.
+    */
+   private final Map<String, Long> runningJobs = new ConcurrentHashMap<>();
+
+   private long lastCleanup = 0L;
+
+   @Resource
+   private TimerService timerService;
+
+   @Inject
+   private JobQueue jobQueue;
+
+   @Inject
+   private TaskProcessorBean taskProcessor;
+
+   @Inject
+   private Logger log;
+
+   @PostConstruct
+   public void init() {
+      timerService.createIntervalTimer(POLL_INTERVAL, POLL_INTERVAL, new TimerConfig(null, false));
+   }
+
+   @Timeout
+   public synchronized void poll() {
+      try {
+         renewLeases();
+         dispatch();
+         removeFinishedJobs();
+      } catch (RuntimeException e) {
+         log.log(Level.WARNING, "Unable to poll the job queue", e);
+      }
+   }
+
+   /**
+    * Called by the {@link TaskProcessorBean} when it stopped processing the job.
+    *
+    * @param jobId
+    *       Id of the job.
+    */
+   public void jobFinished(final String jobId) {
+      runningJobs.remove(jobId);
+   }
+
+   private void dispatch() {
+      while (runningJobs.size() < WORKERS) {
+         final Job job = jobQueue.lease(nodeId);
+         if (job == null) {
+            return;
+         }
+
+         runningJobs.put(job.getId(), System.currentTimeMillis());
+         try {
+            taskProcessor.process(job, nodeId);
+         } catch (RuntimeException e) {
+            runningJobs.remove(job.getId());
+            throw e;
+         }
+      }
+   }
+
+   private void renewLeases() {
+      final long now = System.currentTimeMillis();
+
+      runningJobs.forEach((jobId, lastRenewal) -> {
+         if (now - lastRenewal >= JobQueue.LEASE_DURATION / 3 && runningJobs.replace(jobId, lastRenewal, now) && jobQueue.renew(jobId, nodeId) == null) {
+            log.warning("Lost the lease of job " + jobId);
+         }
+      });
+   }
+
+   private void removeFinishedJobs() {
+      final long now = System.currentTimeMillis();
+
+      if (now - lastCleanup >= CLEANUP_INTERVAL) {
+         lastCleanup = now;
+         jobQueue.removeFinishedJobs();
+      }
+   }
+}
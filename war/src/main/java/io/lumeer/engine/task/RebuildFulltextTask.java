@@ -0,0 +1,48 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.task;
+
+import io.lumeer.core.facade.SearchFacade;
+import io.lumeer.engine.api.task.Task;
+import io.lumeer.engine.api.task.TaskContext;
+
+import javax.enterprise.inject.spi.CDI;
+
+/**
+ * Rebuilds the fulltext index of the current project.
+ */
+public class RebuildFulltextTask implements Task {
+
+   private static final long serialVersionUID = 1L;
+
+   @Override
+   public void process(final TaskContext context) {
+      final SearchFacade searchFacade = CDI.current().select(SearchFacade.class).get();
+
+      if (searchFacade.isFulltextIndexEnabled()) {
+         final int count = searchFacade.rebuildFulltextIndex();
+         context.setProgress(count, count);
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "RebuildFulltextTask{}";
+   }
+}
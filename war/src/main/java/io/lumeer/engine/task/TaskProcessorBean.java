@@ -18,23 +18,102 @@
  */
 package io.lumeer.engine.task;
 
+import io.lumeer.core.AuthenticatedUser;
+import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.engine.api.push.PushMessage;
+import io.lumeer.engine.api.task.Task;
+import io.lumeer.engine.push.PushService;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.ejb.Asynchronous;
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+
 /**
+ * Processes the jobs leased by the {@link JobScheduler}. Each job runs asynchronously in its own request context
+ * with the workspace and the user of the job, and its progress is pushed to the user who submitted it.
+ *
  * @author <a href="mailto:marvenec@gmail.com">Martin Večeřa</a>
  */
-/*@MessageDriven(mappedName = "TaskProcessor", activationConfig = {
-      @ActivationConfigProperty(propertyName = "acknowledgeMode", propertyValue = "Auto-acknowledge"),
-      @ActivationConfigProperty(propertyName = "destinationType", propertyValue = "javax.jms.Queue"),
-      @ActivationConfigProperty(propertyName = "destination", propertyValue = "java:/jms/queue/TaskQueue") })*/
+@Stateless
 public class TaskProcessorBean {
-//public class TaskProcessorBean implements MessageListener {
 
-   /*@Resource
-   private MessageDrivenContext mdc;
+   /**
+    * Type of the push messages about progress of jobs.
+    */
+   public static final String JOB_MESSAGE_TYPE = "job";
+
+   @Inject
+   private JobQueue jobQueue;
+
+   @Inject
+   private JobScheduler jobScheduler;
+
+   @Inject
+   private WorkspaceKeeper workspaceKeeper;
+
+   @Inject
+   private AuthenticatedUser authenticatedUser;
+
+   @Inject
+   private PushService pushService;
+
+   @Inject
+   private Logger log;
+
+   @Asynchronous
+   public void process(final Job job, final String owner) {
+      try {
+         publishProgress(processJob(job, owner));
+      } catch (RuntimeException e) {
+         log.log(Level.WARNING, "Unable to process job " + job.getId(), e);
+      } finally {
+         jobScheduler.jobFinished(job.getId());
+      }
+   }
+
+   private Job processJob(final Job job, final String owner) {
+      if (job.isCancelRequested()) {
+         return jobQueue.cancelled(job, owner);
+      }
+
+      if (job.getAttempts() > JobQueue.MAX_ATTEMPTS) {
+         return jobQueue.fail(job, owner, "The job was interrupted too many times.", false);
+      }
+
+      final Task task;
+      try {
+         task = job.getTask();
+      } catch (IOException | ClassNotFoundException e) {
+         return jobQueue.fail(job, owner, "Unable to read the task: " + e.getMessage(), false);
+      }
+
+      // the previous attempt was interrupted and the task might have done a part of its work already
+      if (job.getAttempts() > 1 && !task.isRetryable()) {
+         return jobQueue.fail(job, owner, "The job was interrupted and it cannot be processed again.", false);
+      }
+
+      workspaceKeeper.setWorkspace(job.getOrganizationCode(), job.getProjectCode());
+      authenticatedUser.runAs(job.getUserEmail());
+      publishProgress(job);
+
+      final JobContext context = new JobContext(jobQueue, job, owner, this::publishProgress);
+      try {
+         task.process(context);
+      } catch (Exception e) {
+         log.log(Level.WARNING, "Job " + job.getId() + " failed", e);
+         return jobQueue.fail(context.getJob(), owner, e.getMessage() != null ? e.getMessage() : e.getClass().getName(), task.isRetryable());
+      }
+
+      return context.isCancelled() ? jobQueue.cancelled(context.getJob(), owner) : jobQueue.complete(context.getJob(), owner);
+   }
 
-   @Override
-   public void onMessage(final Message message) {
-      if (message instanceof TextMessage) {
-         System.out.println("Processing incoming message: " + message.toString());
+   private void publishProgress(final Job job) {
+      if (job != null && job.getSessionId() != null) {
+         pushService.publishMessage(job.getSessionId(), "", new PushMessage(JOB_MESSAGE_TYPE, "job:" + job.getId(),
+               "{\"state\": \"" + job.getState() + "\", \"progress\": " + job.getProgress() + ", \"total\": " + job.getTotal() + "}"));
       }
-   }*/
+   }
 }
@@ -0,0 +1,110 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.util;
+
+import io.lumeer.engine.api.LumeerConst;
+import io.lumeer.engine.api.data.DataDocument;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Field level difference between two versions of a document. A delta stores the top level fields that were set
+ * or changed and the names of the fields that were removed, so a version is rebuilt from its base by {@link #apply}.
+ */
+public class DocumentDelta {
+
+   public static final String BASE_VERSION_KEY = "base";
+   public static final String SET_KEY = "set";
+   public static final String UNSET_KEY = "unset";
+
+   private DocumentDelta() {
+      // to prevent initialization
+   }
+
+   /**
+    * Computes the delta turning the base document into the given document. Document ids are ignored.
+    *
+    * @param base
+    *       the document the delta is based on
+    * @param baseVersion
+    *       version of the base document
+    * @param document
+    *       the document to describe
+    * @return the delta document
+    */
+   public static DataDocument diff(final DataDocument base, final int baseVersion, final DataDocument document) {
+      DataDocument set = new DataDocument();
+      document.forEach((key, value) -> {
+         if (!LumeerConst.Document.ID.equals(key) && (!base.containsKey(key) || !sameValue(base.get(key), value))) {
+            set.put(key, value);
+         }
+      });
+
+      List<String> unset = new ArrayList<>();
+      base.keySet().stream()
+          .filter(key -> !LumeerConst.Document.ID.equals(key) && !document.containsKey(key))
+          .forEach(unset::add);
+
+      return new DataDocument(BASE_VERSION_KEY, baseVersion)
+            .append(SET_KEY, set)
+            .append(UNSET_KEY, unset);
+   }
+
+   /**
+    * Rebuilds a document from its base and a delta computed by {@link #diff}.
+    *
+    * @param base
+    *       the base document, it is not modified
+    * @param delta
+    *       the delta document
+    * @return new document with the delta applied, its id is the id of the base document
+    */
+   public static DataDocument apply(final DataDocument base, final DataDocument delta) {
+      DataDocument document = new DataDocument(base);
+      delta.getArrayList(UNSET_KEY, String.class).forEach(document::remove);
+      DataDocument set = delta.getDataDocument(SET_KEY);
+      if (set != null) {
+         document.putAll(set);
+      }
+      return document;
+   }
+
+   private static boolean sameValue(final Object value, final Object otherValue) {
+      if (value instanceof Map && otherValue instanceof Map) {
+         Map<?, ?> map = (Map<?, ?>) value;
+         Map<?, ?> otherMap = (Map<?, ?>) otherValue;
+         return map.size() == otherMap.size() && map.entrySet().stream().allMatch(entry ->
+               otherMap.containsKey(entry.getKey()) && sameValue(entry.getValue(), otherMap.get(entry.getKey())));
+      }
+      if (value instanceof List && otherValue instanceof List) {
+         List<?> list = (List<?>) value;
+         List<?> otherList = (List<?>) otherValue;
+         if (list.size() != otherList.size()) {
+            return false;
+         }
+         Iterator<?> otherIterator = otherList.iterator();
+         return list.stream().allMatch(item -> sameValue(item, otherIterator.next()));
+      }
+      return Objects.equals(value, otherValue);
+   }
+}
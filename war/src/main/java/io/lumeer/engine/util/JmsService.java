@@ -18,28 +18,92 @@
  */
 package io.lumeer.engine.util;
 
+import io.lumeer.api.model.Organization;
+import io.lumeer.api.model.Project;
+import io.lumeer.core.AuthenticatedUser;
+import io.lumeer.core.IndexRequest;
+import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.engine.api.task.Task;
+import io.lumeer.engine.task.CreateIndexTask;
+import io.lumeer.engine.task.Job;
+import io.lumeer.engine.task.JobQueue;
+
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.enterprise.context.RequestScoped;
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
 /**
- * TODO JMS is disabled at the moment
+ * Submits tasks to the persistent job queue in the current workspace on behalf of the current user.
+ * The queue is stored in the system database instead of a JMS queue, so the jobs survive restarts of the server.
  *
  * @author <a href="mailto:marvenec@gmail.com">Martin Večeřa</a>
  */
 @RequestScoped
 public class JmsService {
 
-   //@Resource(mappedName = "java:/jms/queue/TaskQueue")
-   //private Queue taskQueue;
+   /**
+    * Default priority of submitted tasks, tasks with higher priority are processed first.
+    */
+   public static final int DEFAULT_PRIORITY = 0;
 
-   //@Inject
-   //private JMSContext context;
+   @Inject
+   private JobQueue jobQueue;
+
+   @Inject
+   private WorkspaceKeeper workspaceKeeper;
+
+   @Inject
+   private AuthenticatedUser authenticatedUser;
 
    @Inject
    private Logger log;
 
-   /*public void enqueueTask(final Task task) {
-      context.createProducer().send(taskQueue, task);
-   }*/
+   /**
+    * Submits the task with the default priority.
+    *
+    * @param task
+    *       The task to process.
+    * @return The queued job.
+    */
+   public Job enqueueTask(final Task task) {
+      return enqueueTask(task, DEFAULT_PRIORITY);
+   }
+
+   /**
+    * Submits the task.
+    *
+    * @param task
+    *       The task to process.
+    * @param priority
+    *       Priority of the task.
+    * @return The queued job.
+    */
+   public Job enqueueTask(final Task task, final int priority) {
+      return jobQueue.enqueue(task,
+            workspaceKeeper.getOrganization().map(Organization::getCode).orElse(null),
+            workspaceKeeper.getProject().map(Project::getCode).orElse(null),
+            authenticatedUser.getUserEmail(), getSessionId(), priority);
+   }
+
+   /**
+    * Submits the creation of an index requested by the index advisor, so that the search requesting it does not wait
+    * for the index to be built.
+    *
+    * @param request
+    *       The requested index.
+    */
+   public void onIndexRequest(@Observes final IndexRequest request) {
+      enqueueTask(new CreateIndexTask(request.getCollectionId(), request.getKeys()));
+   }
+
+   private String getSessionId() {
+      try {
+         return authenticatedUser.getUserSessionId();
+      } catch (RuntimeException e) {
+         log.log(Level.FINE, "No session to report the job progress to", e);
+         return null;
+      }
+   }
 }
@@ -31,6 +31,7 @@ import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.context.Dependent;
 import javax.enterprise.context.RequestScoped;
+import javax.enterprise.inject.Disposes;
 import javax.enterprise.inject.Produces;
 import javax.enterprise.inject.spi.InjectionPoint;
 import javax.inject.Inject;
@@ -79,4 +80,8 @@ public class Resources {
       return dataStorageProvider.getUserStorage();
    }
 
+   public void releaseDataStorage(@Disposes @UserDataStorage final DataStorage dataStorage) {
+      dataStorageProvider.releaseUserStorage(dataStorage);
+   }
+
 }
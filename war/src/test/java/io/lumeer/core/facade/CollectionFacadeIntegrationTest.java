@@ -30,6 +30,7 @@ import io.lumeer.api.dto.JsonPermissions;
 import io.lumeer.api.dto.JsonProject;
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.DataIndex;
 import io.lumeer.api.model.Organization;
 import io.lumeer.api.model.Pagination;
 import io.lumeer.api.model.Permission;
@@ -39,10 +40,12 @@ import io.lumeer.api.model.Resource;
 import io.lumeer.api.model.Role;
 import io.lumeer.api.model.View;
 import io.lumeer.core.AuthenticatedUser;
+import io.lumeer.core.IndexAdvisor;
 import io.lumeer.core.WorkspaceKeeper;
 import io.lumeer.core.model.SimplePermission;
 import io.lumeer.core.model.SimpleUser;
 import io.lumeer.engine.IntegrationTestBase;
+import io.lumeer.engine.api.exception.InvalidValueException;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.OrganizationDao;
 import io.lumeer.storage.api.dao.ProjectDao;
@@ -355,4 +358,36 @@ public class CollectionFacadeIntegrationTest extends IntegrationTestBase {
       assertPermissions(permissions.getUserPermissions(), USER_PERMISSION);
       assertThat(permissions.getGroupPermissions()).isEmpty();
    }
+
+   @Test
+   public void testCreateAndDropIndex() {
+      createCollection(CODE);
+
+      DataIndex index = collectionFacade.createIndex(CODE, new DataIndex(null, Collections.singletonMap("a", 1)));
+      assertThat(index.getName()).isEqualTo(IndexAdvisor.MANAGED_INDEX_PREFIX + "a_1");
+      assertThat(collectionFacade.getIndexAdvice(CODE).getIndexes()).extracting(DataIndex::getName).contains(index.getName());
+
+      collectionFacade.dropIndex(CODE, index.getName());
+      assertThat(collectionFacade.getIndexAdvice(CODE).getIndexes()).extracting(DataIndex::getName).doesNotContain(index.getName());
+   }
+
+   @Test
+   public void testCreateIndexInvalid() {
+      createCollection(CODE);
+
+      assertThatThrownBy(() -> collectionFacade.createIndex(CODE, new DataIndex("index", Collections.singletonMap("a", 1))))
+            .isInstanceOf(InvalidValueException.class);
+      assertThatThrownBy(() -> collectionFacade.createIndex(CODE, new DataIndex(null, Collections.singletonMap("a..b", 1))))
+            .isInstanceOf(InvalidValueException.class);
+   }
+
+   @Test
+   public void testDropUnmanagedIndex() {
+      createCollection(CODE);
+
+      assertThatThrownBy(() -> collectionFacade.dropIndex(CODE, "_id_"))
+            .isInstanceOf(InvalidValueException.class);
+      assertThatThrownBy(() -> collectionFacade.dropIndex(CODE, "$**_text"))
+            .isInstanceOf(InvalidValueException.class);
+   }
 }
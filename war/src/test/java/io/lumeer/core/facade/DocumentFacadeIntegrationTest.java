@@ -29,11 +29,14 @@ import io.lumeer.api.dto.JsonPermissions;
 import io.lumeer.api.dto.JsonProject;
 import io.lumeer.api.model.Collection;
 import io.lumeer.api.model.Document;
+import io.lumeer.api.model.DocumentOperation;
+import io.lumeer.api.model.DocumentOperationResult;
 import io.lumeer.api.model.Pagination;
 import io.lumeer.api.model.Project;
 import io.lumeer.api.model.Role;
 import io.lumeer.core.AuthenticatedUser;
 import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.core.model.ResultPage;
 import io.lumeer.core.model.SimpleUser;
 import io.lumeer.engine.IntegrationTestBase;
 import io.lumeer.engine.api.data.DataDocument;
@@ -52,6 +55,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
@@ -255,6 +259,50 @@ public class DocumentFacadeIntegrationTest extends IntegrationTestBase {
             .isInstanceOf(ResourceNotFoundException.class);
    }
 
+   @Test
+   public void testWriteDocuments() {
+      String updatedId = createDocument().getId();
+      String deletedId = createDocument().getId();
+
+      List<DocumentOperationResult> results = documentFacade.writeDocuments(collection.getCode(), Arrays.asList(
+            new DocumentOperation(DocumentOperation.Type.CREATE, null, new DataDocument(KEY1, VALUE2)),
+            new DocumentOperation(DocumentOperation.Type.PATCH, updatedId, new DataDocument(KEY1, VALUE2)),
+            new DocumentOperation(DocumentOperation.Type.DELETE, deletedId, null),
+            new DocumentOperation(DocumentOperation.Type.UPDATE, "5a0ef3c1d412bc6ae2ab4f9f", new DataDocument(KEY1, VALUE2))));
+      assertThat(results).hasSize(4);
+      assertThat(results.subList(0, 3)).allMatch(DocumentOperationResult::isSuccessful);
+      assertThat(results.get(3).isSuccessful()).isFalse();
+
+      String createdId = results.get(0).getId();
+      assertThat(documentDao.getDocumentById(createdId).getCreatedBy()).isEqualTo(USER);
+      assertThat(dataDao.getData(collection.getId(), createdId)).containsEntry(KEY1, VALUE2);
+
+      Document updatedDocument = documentDao.getDocumentById(updatedId);
+      assertThat(updatedDocument.getUpdatedBy()).isEqualTo(USER);
+      assertThat(updatedDocument.getDataVersion()).isEqualTo(DocumentFacade.INITIAL_VERSION + 1);
+      assertThat(dataDao.getData(collection.getId(), updatedId)).containsEntry(KEY1, VALUE2).containsEntry(KEY2, VALUE2);
+
+      assertThatThrownBy(() -> documentDao.getDocumentById(deletedId))
+            .isInstanceOf(ResourceNotFoundException.class);
+      assertThatThrownBy(() -> dataDao.getData(collection.getId(), deletedId))
+            .isInstanceOf(ResourceNotFoundException.class);
+   }
+
+   @Test
+   public void testWriteDocumentsDuplicateIds() {
+      String id = createDocument().getId();
+
+      List<DocumentOperationResult> results = documentFacade.writeDocuments(collection.getCode(), Arrays.asList(
+            new DocumentOperation(DocumentOperation.Type.PATCH, id, new DataDocument(KEY1, VALUE2)),
+            new DocumentOperation(DocumentOperation.Type.DELETE, id, null)));
+      assertThat(results).hasSize(2);
+      assertThat(results.get(0).isSuccessful()).isTrue();
+      assertThat(results.get(1).isSuccessful()).isFalse();
+      assertThat(results.get(1).getId()).isEqualTo(id);
+
+      assertThat(dataDao.getData(collection.getId(), id)).containsEntry(KEY1, VALUE2);
+   }
+
    @Test
    public void testGetDocument() {
       String id = createDocument().getId();
@@ -288,4 +336,19 @@ public class DocumentFacadeIntegrationTest extends IntegrationTestBase {
       List<Document> documents = documentFacade.getDocuments(collection.getCode(), pagination);
       assertThat(documents).extracting(Document::getId).containsOnly(id1, id2);
    }
+
+   @Test
+   public void testGetDocumentsWithContinuationToken() {
+      String id1 = createDocument().getId();
+      String id2 = createDocument().getId();
+      String id3 = createDocument().getId();
+
+      ResultPage<Document> firstPage = documentFacade.getDocuments(collection.getCode(), null, 2);
+      assertThat(firstPage.getResults()).extracting(Document::getId).containsExactly(id1, id2);
+      assertThat(firstPage.hasNextPage()).isTrue();
+
+      ResultPage<Document> secondPage = documentFacade.getDocuments(collection.getCode(), firstPage.getContinuationToken(), 2);
+      assertThat(secondPage.getResults()).extracting(Document::getId).containsExactly(id3);
+      assertThat(secondPage.hasNextPage()).isFalse();
+   }
 }
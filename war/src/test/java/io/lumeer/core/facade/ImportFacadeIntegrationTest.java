@@ -45,6 +45,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
@@ -236,6 +240,23 @@ public class ImportFacadeIntegrationTest extends IntegrationTestBase {
       assertThat(h3Num).isEqualTo(2);
    }
 
+   @Test
+   public void testImportCSVInMultipleChunks() throws Exception {
+      final int rows = ImportFacade.IMPORT_CHUNK_SIZE * 2 + 1;
+      StringBuilder csv = new StringBuilder("h1;h2\n");
+      for (int i = 0; i < rows; i++) {
+         csv.append("a").append(i).append(";b").append(i).append("\n");
+      }
+
+      List<Long> progress = new ArrayList<>();
+      InputStream stream = new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+      Collection collection = importFacade.importDocuments(ImportFacade.FORMAT_CSV, null, stream, progress::add);
+      assertThat(collection).isNotNull();
+
+      assertThat(dataDao.getDataCount(collection.getId(), query())).isEqualTo(rows);
+      assertThat(progress).containsExactly((long) ImportFacade.IMPORT_CHUNK_SIZE, (long) ImportFacade.IMPORT_CHUNK_SIZE * 2, (long) rows);
+   }
+
    private SearchQuery query() {
       return SearchQuery.createBuilder(USER).build();
    }
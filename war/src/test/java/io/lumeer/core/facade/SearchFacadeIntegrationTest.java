@@ -19,6 +19,7 @@
 package io.lumeer.core.facade;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import io.lumeer.api.dto.JsonCollection;
 import io.lumeer.api.dto.JsonDocument;
@@ -37,6 +38,7 @@ import io.lumeer.core.WorkspaceKeeper;
 import io.lumeer.core.model.SimpleUser;
 import io.lumeer.engine.IntegrationTestBase;
 import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.exception.InvalidQueryException;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DataDao;
 import io.lumeer.storage.api.dao.DocumentDao;
@@ -288,6 +290,29 @@ public class SearchFacadeIntegrationTest extends IntegrationTestBase {
 
    }
 
+   @Test
+   public void testSearchDocumentsWithSort() {
+      String id1 = createDocument(collectionIds.get(0), "b").getId();
+      String id2 = createDocument(collectionIds.get(0), "c").getId();
+      String id3 = createDocument(collectionIds.get(0), "a").getId();
+      createDocument(collectionIds.get(1), "d");
+
+      JsonQuery query = new JsonQuery(null, Collections.singleton(DOCUMENT_KEY + ":sort desc"), Collections.singleton(collectionIds.get(0)), null, null, null, null, null);
+      assertThat(searchFacade.searchDocuments(query)).extracting(Document::getId).containsExactly(id2, id1, id3);
+
+      JsonQuery allCollectionsQuery = new JsonQuery(null, Collections.singleton(DOCUMENT_KEY + ":sort asc"), null, null, null, null, null, null);
+      assertThatThrownBy(() -> searchFacade.searchDocuments(allCollectionsQuery))
+            .isInstanceOf(InvalidQueryException.class);
+   }
+
+   @Test
+   public void testSearchDocumentsPageWithSort() {
+      JsonQuery query = new JsonQuery(null, Collections.singleton(DOCUMENT_KEY + ":sort desc"), null, null, null, null, null, null);
+
+      assertThatThrownBy(() -> searchFacade.searchDocuments(query, null, 10))
+            .isInstanceOf(InvalidQueryException.class);
+   }
+
 
    private Document createDocument(String collectionId, String value) {
       Document document = new JsonDocument(new DataDocument(DOCUMENT_KEY, value));
@@ -18,6 +18,7 @@
  */
 package io.lumeer.engine;
 
+import io.lumeer.core.cache.SearchResultCache;
 import io.lumeer.core.cache.UserCache;
 import io.lumeer.core.cache.WorkspaceCache;
 import io.lumeer.engine.annotation.SystemDataStorage;
@@ -55,6 +56,9 @@ public abstract class IntegrationTestBase {
    @Inject
    public WorkspaceCache workspaceCache;
 
+   @Inject
+   public SearchResultCache searchResultCache;
+
    @Deployment
    public static Archive<?> createTestArchive() {
       return ShrinkWrap.create(WebArchive.class, ARCHIVE_NAME)
@@ -95,5 +99,6 @@ public abstract class IntegrationTestBase {
    public void clearCaches() {
       userCache.clear();
       workspaceCache.clear();
+      searchResultCache.clear();
    }
 }
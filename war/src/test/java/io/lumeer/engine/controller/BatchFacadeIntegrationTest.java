@@ -0,0 +1,190 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.engine.IntegrationTestBase;
+import io.lumeer.engine.annotation.SystemDataStorage;
+import io.lumeer.engine.annotation.UserDataStorage;
+import io.lumeer.engine.api.LumeerConst;
+import io.lumeer.engine.api.batch.MergeBatch;
+import io.lumeer.engine.api.batch.SplitBatch;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.data.DataFilter;
+import io.lumeer.engine.api.data.DataStorage;
+import io.lumeer.engine.api.data.DataStorageDialect;
+import io.lumeer.engine.api.dto.Collection;
+import io.lumeer.engine.api.dto.Organization;
+import io.lumeer.engine.api.dto.Project;
+
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.inject.Inject;
+
+/**
+ * Runs the batches in the storage and compares the results with the values the application computes when it streams the
+ * documents.
+ */
+@RunWith(Arquillian.class)
+public class BatchFacadeIntegrationTest extends IntegrationTestBase {
+
+   private static final String ORGANIZATION_CODE = "LMR";
+   private static final String PROJECT_CODE = "PR";
+
+   @Inject
+   private BatchFacade batchFacade;
+
+   @Inject
+   private CollectionFacade collectionFacade;
+
+   @Inject
+   private CollectionMetadataFacade collectionMetadataFacade;
+
+   @Inject
+   private OrganizationFacade organizationFacade;
+
+   @Inject
+   private ProjectFacade projectFacade;
+
+   @Inject
+   private VersionFacade versionFacade;
+
+   @Inject
+   @UserDataStorage
+   private DataStorage dataStorage;
+
+   @Inject
+   @SystemDataStorage
+   private DataStorage systemDataStorage;
+
+   @Inject
+   private DataStorageDialect dataStorageDialect;
+
+   // id -> the document as it was stored before the batch
+   private final Map<String, DataDocument> originals = new LinkedHashMap<>();
+
+   @Before
+   public void setUp() throws Exception {
+      Assume.assumeTrue(versionFacade.isStorageBackUpSupported());
+
+      DataFilter filter = dataStorageDialect.documentFilter("{}");
+      systemDataStorage.dropManyDocuments(LumeerConst.Organization.COLLECTION_NAME, filter);
+      systemDataStorage.dropManyDocuments(LumeerConst.Project.COLLECTION_NAME, filter);
+
+      organizationFacade.createOrganization(new Organization(ORGANIZATION_CODE, "LMR"));
+      organizationFacade.setOrganizationCode(ORGANIZATION_CODE);
+
+      projectFacade.createProject(new Project(PROJECT_CODE, "PR"));
+      projectFacade.setCurrentProjectCode(PROJECT_CODE);
+   }
+
+   @Test
+   public void testJoinMatchesStreaming() throws Exception {
+      String code = createCollection("BatchFacadeJoin",
+            new DataDocument("a", "John").append("b", "Smith"),
+            new DataDocument("a", 42).append("b", 7L),
+            new DataDocument("a", true).append("b", null),
+            new DataDocument("b", ""),
+            new DataDocument());
+
+      MergeBatch batch = new MergeBatch(code, Arrays.asList("a", "b"), "ab", " ", MergeBatch.MergeType.JOIN, false);
+      batchFacade.executeBatch(batch);
+
+      originals.forEach((id, original) -> assertThat(readDocument(code, id).get("ab")).isEqualTo(BatchFacade.mergeValues(batch, original)));
+   }
+
+   @Test
+   public void testJoinOfNonTextualValuesMatchesStreaming() throws Exception {
+      String code = createCollection("BatchFacadeJoinNonTextual",
+            new DataDocument("a", 1.0).append("b", "x"),
+            new DataDocument("a", new DataDocument("c", 1)).append("b", "y"),
+            new DataDocument("a", Arrays.asList("d", "e")).append("b", "z"));
+
+      MergeBatch batch = new MergeBatch(code, Arrays.asList("a", "b"), "ab", "-", MergeBatch.MergeType.JOIN, true);
+      batchFacade.executeBatch(batch);
+
+      originals.forEach((id, original) -> assertThat(readDocument(code, id).get("ab")).isEqualTo(BatchFacade.mergeValues(batch, original)));
+      assertThat(originals.keySet()).extracting(id -> readDocument(code, id).get("ab")).contains("1.0-x");
+   }
+
+   @Test
+   public void testSumMatchesStreaming() throws Exception {
+      String code = createCollection("BatchFacadeSum",
+            new DataDocument("a", 1).append("b", 2),
+            new DataDocument("a", 1.5).append("b", 2L),
+            new DataDocument("a", "x").append("b", 3),
+            new DataDocument());
+
+      MergeBatch batch = new MergeBatch(code, Arrays.asList("a", "b"), "sum", null, MergeBatch.MergeType.SUM, true);
+      batchFacade.executeBatch(batch);
+
+      originals.forEach((id, original) -> assertThat(((Number) readDocument(code, id).get("sum")).doubleValue())
+            .isEqualTo(((Number) BatchFacade.mergeValues(batch, original)).doubleValue()));
+   }
+
+   @Test
+   public void testSplitMatchesStreaming() throws Exception {
+      String code = createCollection("BatchFacadeSplit",
+            new DataDocument("name", "John, Smith, Jr."),
+            new DataDocument("name", "Single"),
+            new DataDocument("name", " Lead,,Trail "),
+            new DataDocument("name", ""),
+            new DataDocument("name", 42),
+            new DataDocument("name", null),
+            new DataDocument());
+
+      SplitBatch batch = new SplitBatch(code, "name", ",", true, Arrays.asList("first", "last"), false);
+      batchFacade.executeBatch(batch);
+
+      originals.forEach((id, original) -> {
+         DataDocument expected = BatchFacade.splitValues(batch, original);
+         DataDocument actual = readDocument(code, id);
+         assertThat(actual.get("first")).isEqualTo(expected.get("first"));
+         assertThat(actual.get("last")).isEqualTo(expected.get("last"));
+         assertThat(actual.containsKey("name")).isFalse();
+      });
+   }
+
+   private String createCollection(String collectionName, DataDocument... documents) throws Exception {
+      String existingCode = collectionMetadataFacade.getCollectionCodeFromName(collectionName);
+      if (existingCode != null) {
+         collectionFacade.dropCollection(existingCode);
+      }
+      String code = collectionFacade.createCollection(new Collection(collectionName));
+
+      originals.clear();
+      for (DataDocument document : documents) {
+         String id = dataStorage.createDocument(code, document);
+         originals.put(id, readDocument(code, id));
+      }
+      return code;
+   }
+
+   private DataDocument readDocument(String collectionCode, String id) {
+      return dataStorage.readDocument(collectionCode, dataStorageDialect.documentIdFilter(id));
+   }
+}
@@ -33,6 +33,7 @@ import io.lumeer.engine.api.data.DataStorageDialect;
 import io.lumeer.engine.api.dto.Attribute;
 import io.lumeer.engine.api.dto.Collection;
 import io.lumeer.engine.api.dto.CollectionMetadata;
+import io.lumeer.engine.api.dto.Config;
 import io.lumeer.engine.api.dto.Organization;
 import io.lumeer.engine.api.dto.Permission;
 import io.lumeer.engine.api.dto.Project;
@@ -662,6 +663,51 @@ public class CollectionMetadataFacadeIntegrationTest extends IntegrationTestBase
             .isEqualTo(valueValid3);
    }
 
+   @Test
+   public void testCheckAndConvertAttributesValuesAfterConstraintChange() throws Exception {
+      final String collectionName = "CollectionMetadataFacadeCollectionCheckAfterConstraintChange";
+      setUpCollection(collectionName);
+
+      String collection = collectionFacade.createCollection(new Collection(collectionName));
+
+      String attribute = "attribute";
+      String constraint = "greaterThan:3";
+      DataDocument document = new DataDocument(attribute, 2);
+
+      // not an attribute yet, the value is not checked at all
+      assertThat(collectionMetadataFacade.checkAndConvertAttributesValues(collection, document).getInteger(attribute)).isEqualTo(2);
+
+      collectionMetadataFacade.addOrIncrementAttribute(collection, attribute);
+      collectionMetadataFacade.addAttributeConstraint(collection, attribute, constraint);
+      assertThatThrownBy(() -> collectionMetadataFacade.checkAndConvertAttributesValues(collection, document)).isInstanceOf(InvalidValueException.class);
+
+      collectionMetadataFacade.dropAttributeConstraint(collection, attribute, constraint);
+      assertThat(collectionMetadataFacade.checkAndConvertAttributesValues(collection, document).getInteger(attribute)).isEqualTo(2);
+   }
+
+   @Test
+   public void testCheckAndConvertAttributesValuesInUserLocale() throws Exception {
+      final String collectionName = "CollectionMetadataFacadeCollectionCheckInUserLocale";
+      setUpCollection(collectionName);
+
+      String collection = collectionFacade.createCollection(new Collection(collectionName));
+
+      String attribute = "attribute";
+      collectionMetadataFacade.addOrIncrementAttribute(collection, attribute);
+      DataDocument document = new DataDocument(attribute, "1,5");
+
+      try {
+         configurationFacade.setUserConfiguration(ConfigurationFacade.ConfigurationLevel.USER_PROJECT, new Config(LumeerConst.USER_LOCALE_PROPERTY, "cs-CZ"));
+         assertThat(collectionMetadataFacade.checkAndConvertAttributesValues(collection, document).get(attribute)).isEqualTo(1.5);
+
+         // the constraints compiled for the previous locale must not be reused
+         configurationFacade.setUserConfiguration(ConfigurationFacade.ConfigurationLevel.USER_PROJECT, new Config(LumeerConst.USER_LOCALE_PROPERTY, "en-US"));
+         assertThat(collectionMetadataFacade.checkAndConvertAttributesValues(collection, document).get(attribute)).isEqualTo(15L);
+      } finally {
+         configurationFacade.resetUserConfigurationAttribute(ConfigurationFacade.ConfigurationLevel.USER_PROJECT, LumeerConst.USER_LOCALE_PROPERTY);
+      }
+   }
+
    @Test
    public void testGetSetLastTimeUsed() throws Exception {
       final String collectionName = "CollectionMetadataFacadeCollectionLastTimeUsed";
@@ -25,6 +25,7 @@ import io.lumeer.engine.annotation.UserDataStorage;
 import io.lumeer.engine.api.LumeerConst;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.engine.api.data.DataStorage;
+import io.lumeer.engine.api.data.DataStorageDialect;
 import io.lumeer.engine.api.dto.Collection;
 import io.lumeer.engine.api.dto.LinkInstance;
 import io.lumeer.engine.api.dto.LinkType;
@@ -64,6 +65,9 @@ public class LinkingFacadeIntegrationTest extends IntegrationTestBase {
    @UserDataStorage
    private DataStorage dataStorage;
 
+   @Inject
+   private DataStorageDialect dataStorageDialect;
+
    @Test
    public void testReadLinkTypesForCollection() throws Exception {
       final String col1 = collectionFacade.createCollection(new Collection("collection1"));
@@ -239,6 +243,56 @@ public class LinkingFacadeIntegrationTest extends IntegrationTestBase {
 
    }
 
+   @Test
+   public void testReadLinkedDocumentsForDocument() throws Exception {
+      final String col1 = collectionFacade.createCollection(new Collection("collection81"));
+      final String col2 = collectionFacade.createCollection(new Collection("collection82"));
+      final String col3 = collectionFacade.createCollection(new Collection("collection83"));
+      Map<String, List<String>> ids = createTestData(Arrays.asList(col1, col2, col3), 3);
+
+      String col1Id1 = ids.get(col1).get(0);
+      String col1Id2 = ids.get(col1).get(1);
+      List<String> col2Ids = ids.get(col2);
+      List<String> col3Ids = ids.get(col3);
+
+      String role1 = "role1";
+      String role2 = "role2";
+
+      dataStorage.dropCollection(buildProjectLinkingCollectionName());
+
+      linkingFacade.createLinkInstanceBetweenDocuments(col1, col1Id1, col2, col2Ids.get(0), new DataDocument(), role1, LumeerConst.Linking.LinkDirection.FROM);
+      linkingFacade.createLinkInstanceBetweenDocuments(col1, col1Id1, col2, col2Ids.get(1), new DataDocument(), role1, LumeerConst.Linking.LinkDirection.FROM);
+      linkingFacade.createLinkInstanceBetweenDocuments(col1, col1Id1, col2, col2Ids.get(0), new DataDocument(), role2, LumeerConst.Linking.LinkDirection.FROM);
+      linkingFacade.createLinkInstanceBetweenDocuments(col1, col1Id1, col3, col3Ids.get(0), new DataDocument(), role1, LumeerConst.Linking.LinkDirection.FROM);
+      linkingFacade.createLinkInstanceBetweenDocuments(col1, col1Id1, col3, col3Ids.get(1), new DataDocument(), role2, LumeerConst.Linking.LinkDirection.FROM);
+      linkingFacade.createLinkInstanceBetweenDocuments(col1, col1Id2, col3, col3Ids.get(2), new DataDocument(), role1, LumeerConst.Linking.LinkDirection.FROM);
+      linkingFacade.createLinkInstanceBetweenDocuments(col1, col1Id1, col2, col2Ids.get(2), new DataDocument(), role1, LumeerConst.Linking.LinkDirection.TO);
+
+      // documents linked by all link types of all target collections
+      List<DataDocument> linked = linkingFacade.readLinkedDocumentsForDocument(col1, col1Id1, null, LumeerConst.Linking.LinkDirection.FROM);
+      assertThat(linked).extracting(DataDocument::getId)
+                        .containsOnly(col2Ids.get(0), col2Ids.get(1), col3Ids.get(0), col3Ids.get(1))
+                        .hasSize(5);
+
+      linked = linkingFacade.readLinkedDocumentsForDocument(col1, col1Id1, role1, LumeerConst.Linking.LinkDirection.FROM);
+      assertThat(linked).extracting(DataDocument::getId).containsOnly(col2Ids.get(0), col2Ids.get(1), col3Ids.get(0));
+
+      linked = linkingFacade.readLinkedDocumentsForDocument(col1, col1Id2, null, LumeerConst.Linking.LinkDirection.FROM);
+      assertThat(linked).extracting(DataDocument::getId).containsExactly(col3Ids.get(2));
+
+      linked = linkingFacade.readLinkedDocumentsForDocument(col1, col1Id1, null, LumeerConst.Linking.LinkDirection.TO);
+      assertThat(linked).extracting(DataDocument::getId).containsExactly(col2Ids.get(2));
+
+      // documents of a single target collection
+      linked = linkingFacade.readLinkedDocumentsBetweenDocumentAndCollection(col1, col1Id1, col3, null, LumeerConst.Linking.LinkDirection.FROM);
+      assertThat(linked).extracting(DataDocument::getId).containsOnly(col3Ids.get(0), col3Ids.get(1));
+
+      // links to removed documents are skipped
+      dataStorage.dropDocument(col3, dataStorageDialect.documentIdFilter(col3Ids.get(0)));
+      linked = linkingFacade.readLinkedDocumentsBetweenDocumentAndCollection(col1, col1Id1, col3, null, LumeerConst.Linking.LinkDirection.FROM);
+      assertThat(linked).extracting(DataDocument::getId).containsExactly(col3Ids.get(1));
+   }
+
    @Test
    public void testCreateDropCollectionLinks() throws Exception {
       final String col1 = collectionFacade.createCollection(new Collection("collection41"));
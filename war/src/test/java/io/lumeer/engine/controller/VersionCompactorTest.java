@@ -0,0 +1,169 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+
+import io.lumeer.engine.api.LumeerConst;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.data.DataFilter;
+import io.lumeer.engine.api.data.DataStorage;
+import io.lumeer.engine.api.data.DataStorageDialect;
+import io.lumeer.engine.util.DocumentDelta;
+import io.lumeer.storage.mongodb.MongoDbStorageDialect;
+
+import com.mongodb.MongoClient;
+import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class VersionCompactorTest {
+
+   private static final String SHADOW = "shadow_collection";
+   private static final String DOCUMENT_ID = "5a0c1c6b2f1e4b3f8c7d9e01";
+   private static final String OTHER_DOCUMENT_ID = "5a0c1c6b2f1e4b3f8c7d9e02";
+
+   private static final long MAX_AGE = 10_000;
+   private static final long COMPACTION_INTERVAL = 1_000;
+
+   private final DataStorageDialect dialect = new MongoDbStorageDialect();
+
+   private DataStorage dataStorage;
+   private AtomicLong time;
+
+   @Before
+   public void prepareStorage() {
+      dataStorage = Mockito.mock(DataStorage.class);
+      time = new AtomicLong(100_000);
+   }
+
+   @Test
+   public void testMaxVersions() {
+      VersionCompactor compactor = new VersionCompactor(3, 0, COMPACTION_INTERVAL, time::get);
+      assertThat(compactor.isVersionCountLimited()).isTrue();
+
+      compactor.versionCreated(dataStorage, dialect, SHADOW, DOCUMENT_ID, 1);
+      Mockito.verify(dataStorage, Mockito.never()).dropManyDocuments(any(), any());
+
+      compactor.versionCreated(dataStorage, dialect, SHADOW, DOCUMENT_ID, 5);
+      assertThat(droppedFilter()).isEqualTo(removedBefore(3));
+   }
+
+   @Test
+   public void testSnapshotOfKeptDeltaIsKept() {
+      VersionCompactor compactor = new VersionCompactor(3, 0, COMPACTION_INTERVAL, time::get);
+      DataDocument delta = new DataDocument(LumeerConst.Document.ID, new DataDocument(LumeerConst.Document.ID, DOCUMENT_ID)
+            .append(LumeerConst.Document.METADATA_VERSION_KEY, 3))
+            .append(LumeerConst.Document.SHADOW_DELTA_KEY, new DataDocument(DocumentDelta.BASE_VERSION_KEY, 1));
+      Mockito.when(dataStorage.search(eq(SHADOW), any(DataFilter.class), anyList())).thenReturn(Collections.singletonList(delta));
+
+      compactor.versionCreated(dataStorage, dialect, SHADOW, DOCUMENT_ID, 5);
+
+      assertThat(droppedFilter()).isEqualTo(removedBefore(1));
+   }
+
+   @Test
+   public void testMaxVersionsOfBulk() {
+      VersionCompactor compactor = new VersionCompactor(3, 0, COMPACTION_INTERVAL, time::get);
+      Map<String, Integer> versions = new LinkedHashMap<>();
+      versions.put(DOCUMENT_ID, 5);
+      versions.put(OTHER_DOCUMENT_ID, 4);
+      versions.put("5a0c1c6b2f1e4b3f8c7d9e03", 1);
+
+      compactor.versionsCreated(dataStorage, dialect, SHADOW, versions);
+
+      // the kept deltas are read and the old versions of all the documents are removed at once
+      Mockito.verify(dataStorage, Mockito.times(1)).search(eq(SHADOW), any(DataFilter.class), anyList());
+      assertThat(droppedFilter()).isEqualTo(toJson(dialect.documentFilter("{\"$or\": [" + versionBefore(DOCUMENT_ID, 3) + ", " + versionBefore(OTHER_DOCUMENT_ID, 2) + "]}")));
+   }
+
+   @Test
+   public void testExpiredVersions() {
+      VersionCompactor compactor = new VersionCompactor(0, MAX_AGE, COMPACTION_INTERVAL, time::get);
+      assertThat(compactor.isVersionCountLimited()).isFalse();
+      DataDocument expired = new DataDocument(LumeerConst.Document.ID, new DataDocument(LumeerConst.Document.ID, DOCUMENT_ID)
+            .append(LumeerConst.Document.METADATA_VERSION_KEY, 2));
+      Mockito.when(dataStorage.search(eq(SHADOW), any(DataFilter.class), isNull(), anyList(), anyInt(), anyInt())).thenReturn(Collections.singletonList(expired));
+
+      compactor.versionCreated(dataStorage, dialect, SHADOW, DOCUMENT_ID, 5);
+
+      ArgumentCaptor<DataFilter> expiredFilter = ArgumentCaptor.forClass(DataFilter.class);
+      Mockito.verify(dataStorage).search(eq(SHADOW), expiredFilter.capture(), isNull(), anyList(), anyInt(), anyInt());
+      assertThat(toJson(expiredFilter.getValue())).isEqualTo(toJson(dialect.documentFilter("{\"" + LumeerConst.Document.SHADOW_BACKUP_DATE_KEY + "\": {\"$lt\": {\"$date\": " + (time.get() - MAX_AGE) + "}}}")));
+      assertThat(droppedFilter()).isEqualTo(removedBefore(3));
+   }
+
+   @Test
+   public void testUndatedVersionsAreDated() {
+      VersionCompactor compactor = new VersionCompactor(0, MAX_AGE, COMPACTION_INTERVAL, time::get);
+      compactor.versionCreated(dataStorage, dialect, SHADOW, DOCUMENT_ID, 5);
+
+      ArgumentCaptor<DataFilter> undatedFilter = ArgumentCaptor.forClass(DataFilter.class);
+      ArgumentCaptor<DataDocument> backupDate = ArgumentCaptor.forClass(DataDocument.class);
+      Mockito.verify(dataStorage).updateManyDocuments(eq(SHADOW), undatedFilter.capture(), backupDate.capture());
+      assertThat(toJson(undatedFilter.getValue())).isEqualTo(toJson(dialect.documentFilter("{\"" + LumeerConst.Document.SHADOW_BACKUP_DATE_KEY + "\": {\"$exists\": false}}")));
+      assertThat(backupDate.getValue().getDate(LumeerConst.Document.SHADOW_BACKUP_DATE_KEY)).isEqualTo(new Date(time.get()));
+   }
+
+   @Test
+   public void testCompactionInterval() {
+      VersionCompactor compactor = new VersionCompactor(0, MAX_AGE, COMPACTION_INTERVAL, time::get);
+
+      compactor.versionCreated(dataStorage, dialect, SHADOW, DOCUMENT_ID, 1);
+      compactor.versionCreated(dataStorage, dialect, SHADOW, DOCUMENT_ID, 2);
+      Mockito.verify(dataStorage, Mockito.times(1)).search(eq(SHADOW), any(DataFilter.class), isNull(), anyList(), anyInt(), anyInt());
+
+      time.addAndGet(COMPACTION_INTERVAL);
+      compactor.versionCreated(dataStorage, dialect, SHADOW, DOCUMENT_ID, 3);
+      Mockito.verify(dataStorage, Mockito.times(2)).search(eq(SHADOW), any(DataFilter.class), isNull(), anyList(), anyInt(), anyInt());
+   }
+
+   private String droppedFilter() {
+      ArgumentCaptor<DataFilter> filter = ArgumentCaptor.forClass(DataFilter.class);
+      Mockito.verify(dataStorage).dropManyDocuments(eq(SHADOW), filter.capture());
+      return toJson(filter.getValue());
+   }
+
+   private String removedBefore(int version) {
+      return toJson(dialect.documentFilter("{\"$or\": [" + versionBefore(DOCUMENT_ID, version) + "]}"));
+   }
+
+   private static String versionBefore(String documentId, int version) {
+      return "{\"" + LumeerConst.Document.ID + "." + LumeerConst.Document.ID + "\": {\"$oid\": \"" + documentId + "\"}, \""
+            + LumeerConst.Document.ID + "." + LumeerConst.Document.METADATA_VERSION_KEY + "\": {\"$lt\": " + version + "}}";
+   }
+
+   private static String toJson(DataFilter filter) {
+      return filter.<Bson>get().toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry()).toJson();
+   }
+}
@@ -19,6 +19,7 @@
 package io.lumeer.engine.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import io.lumeer.engine.IntegrationTestBase;
 import io.lumeer.engine.annotation.UserDataStorage;
@@ -26,6 +27,7 @@ import io.lumeer.engine.api.LumeerConst;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.engine.api.data.DataStorage;
 import io.lumeer.engine.api.data.DataStorageDialect;
+import io.lumeer.engine.api.exception.DocumentNotFoundException;
 import io.lumeer.engine.api.exception.VersionUpdateConflictException;
 
 import org.jboss.arquillian.junit.Arquillian;
@@ -49,6 +51,10 @@ public class VersionFacadeIntegrationTest extends IntegrationTestBase {
    private final String TEST_GET_OLD_DOC = "versionTestGetOldDocuments";
    private final String TEST_REVERT = "versionTestRevert";
    private final String TEST_EXCEPTION = "versionTestException";
+   private final String TEST_DELTA = "versionTestDelta";
+   private final String TEST_COMPACT = "versionTestCompact";
+
+   private final int SNAPSHOT_INTERVAL = 3;
 
    @Inject
    private VersionFacade versionFacade;
@@ -181,6 +187,43 @@ public class VersionFacadeIntegrationTest extends IntegrationTestBase {
       versionFacade.backUpDocument(TEST_EXCEPTION, dataDocument);
    }
 
+   @Test
+   public void testDeltaVersionsAcrossSnapshots() throws Exception {
+      VersionFacade deltaVersionFacade = new VersionFacade(dataStorage, dataStorageDialect, new VersionCompactor(), true, SNAPSHOT_INTERVAL);
+      String shadow = createCollection(TEST_DELTA);
+      String documentId = createVersions(deltaVersionFacade, TEST_DELTA, 7);
+
+      assertThat(dataStorage.readDocument(shadow, dataStorageDialect.documentNestedIdFilterWithVersion(documentId, 1))).doesNotContainKey(LumeerConst.Document.SHADOW_DELTA_KEY);
+      assertThat(dataStorage.readDocument(shadow, dataStorageDialect.documentNestedIdFilterWithVersion(documentId, 3))).containsKey(LumeerConst.Document.SHADOW_DELTA_KEY);
+      assertThat(dataStorage.readDocument(shadow, dataStorageDialect.documentNestedIdFilterWithVersion(documentId, 4))).doesNotContainKey(LumeerConst.Document.SHADOW_DELTA_KEY);
+      assertThat(dataStorage.readDocument(shadow, dataStorageDialect.documentNestedIdFilterWithVersion(documentId, 6))).containsKey(LumeerConst.Document.SHADOW_DELTA_KEY);
+
+      assertThat(deltaVersionFacade.readOldDocumentVersion(TEST_DELTA, documentId, 1).containsKey("count")).isFalse();
+      for (int version = 2; version <= 7; version++) {
+         DataDocument oldDocument = deltaVersionFacade.readOldDocumentVersion(TEST_DELTA, documentId, version);
+         assertThat(oldDocument.getInteger("count")).isEqualTo(version - 1);
+         assertThat(oldDocument.getString("dog")).isEqualTo("cat");
+         assertThat(versionFacade.getDocumentVersion(oldDocument)).isEqualTo(version);
+      }
+
+      assertThat(deltaVersionFacade.getDocumentVersions(TEST_DELTA, documentId))
+            .extracting(document -> document.getInteger(VERSION_STRING))
+            .containsExactlyInAnyOrder(1, 2, 3, 4, 5, 6, 7, 8);
+   }
+
+   @Test
+   public void testCompactVersions() throws Exception {
+      VersionFacade compactingVersionFacade = new VersionFacade(dataStorage, dataStorageDialect, new VersionCompactor(3, 0, 0, System::currentTimeMillis), true, SNAPSHOT_INTERVAL);
+      String shadow = createCollection(TEST_COMPACT);
+      String documentId = createVersions(compactingVersionFacade, TEST_COMPACT, 7);
+
+      // version 4 is the snapshot of the kept delta version 5
+      assertThat(dataStorage.count(shadow, dataStorageDialect.documentNestedIdFilter(documentId))).isEqualTo(4);
+      assertThat(compactingVersionFacade.readOldDocumentVersion(TEST_COMPACT, documentId, 5).getInteger("count")).isEqualTo(4);
+      assertThatThrownBy(() -> compactingVersionFacade.readOldDocumentVersion(TEST_COMPACT, documentId, 3))
+            .isInstanceOf(DocumentNotFoundException.class);
+   }
+
    /* @Test
     public void testDeleteShadow(){
        if (dataStorage.hasCollection(TEST_DELETE + SHADOW)) dataStorage.dropCollection(TEST_DELETE + SHADOW);
@@ -190,6 +233,17 @@ public class VersionFacadeIntegrationTest extends IntegrationTestBase {
        Assert.assertTrue(dataStorage.hasCollection(TEST_DELETE + SHADOW + ".delete"));
     }
  */
+   private String createVersions(VersionFacade versionFacade, String collectionName, int updates) throws Exception {
+      String documentId = dataStorage.createDocument(collectionName, createTestDocument());
+      for (int i = 1; i <= updates; i++) {
+         DataDocument actual = dataStorage.readDocument(collectionName, dataStorageDialect.documentIdFilter(documentId));
+         DataDocument newDocument = new DataDocument(actual);
+         newDocument.put("count", i);
+         versionFacade.newDocumentVersion(collectionName, actual, newDocument, false);
+      }
+      return documentId;
+   }
+
    private boolean testForEquiv(DataDocument doc, DataDocument equivalent) {
       return doc.keySet().containsAll(equivalent.keySet()) && doc.size() == equivalent.size();
    }
@@ -0,0 +1,110 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.provider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+
+import io.lumeer.engine.api.cache.CacheManager;
+import io.lumeer.engine.api.data.DataStorage;
+import io.lumeer.engine.controller.ConfigurationFacade;
+import io.lumeer.engine.controller.OrganizationFacade;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DataStorageProviderTest {
+
+   private static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+   private static final String ORGANIZATION = "LMR";
+
+   private AtomicLong time;
+   private OrganizationFacade organizationFacade;
+   private DataStorageProvider provider;
+
+   @Before
+   public void createProvider() {
+      time = new AtomicLong();
+
+      organizationFacade = Mockito.mock(OrganizationFacade.class);
+      Mockito.when(organizationFacade.getOrganizationCode()).thenReturn(ORGANIZATION);
+
+      CacheManager cacheManager = Mockito.mock(CacheManager.class);
+      Mockito.when(cacheManager.getCacheProvider(anyString())).thenReturn(null);
+
+      provider = new DataStorageProvider((cacheProvider, connections, database, useSsl) -> Mockito.mock(DataStorage.class),
+            Mockito.mock(ConfigurationFacade.class), organizationFacade, cacheManager, IDLE_TIMEOUT, time::get);
+   }
+
+   @Test
+   public void testEvictIdleStorage() {
+      DataStorage storage = provider.getUserStorage();
+      provider.releaseUserStorage(storage);
+
+      advance(IDLE_TIMEOUT / 2);
+      provider.evictIdleStorages();
+      Mockito.verify(storage, Mockito.never()).disconnect();
+
+      advance(IDLE_TIMEOUT);
+      provider.evictIdleStorages();
+      Mockito.verify(storage).disconnect();
+
+      DataStorage newStorage = provider.getUserStorage();
+      assertThat(newStorage).isNotSameAs(storage);
+   }
+
+   @Test
+   public void testKeepStorageInUse() {
+      DataStorage storage = provider.getUserStorage();
+
+      advance(2 * IDLE_TIMEOUT);
+      provider.evictIdleStorages();
+      Mockito.verify(storage, Mockito.never()).disconnect();
+      assertThat(provider.getUserStorage()).isSameAs(storage);
+
+      provider.releaseUserStorage(storage);
+      advance(2 * IDLE_TIMEOUT);
+      provider.evictIdleStorages();
+      Mockito.verify(storage, Mockito.never()).disconnect();
+
+      provider.releaseUserStorage(storage);
+      advance(2 * IDLE_TIMEOUT);
+      provider.evictIdleStorages();
+      Mockito.verify(storage).disconnect();
+   }
+
+   @Test
+   public void testReleaseRefreshesLastUse() {
+      DataStorage storage = provider.getUserStorage();
+
+      advance(2 * IDLE_TIMEOUT);
+      provider.releaseUserStorage(storage);
+      advance(IDLE_TIMEOUT / 2);
+      provider.evictIdleStorages();
+      Mockito.verify(storage, Mockito.never()).disconnect();
+   }
+
+   private void advance(long millis) {
+      time.addAndGet(millis);
+   }
+}
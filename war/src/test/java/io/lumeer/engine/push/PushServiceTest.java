@@ -0,0 +1,115 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.push;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.lumeer.engine.api.push.PushMessage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+public class PushServiceTest {
+
+   private static final String HTTP_SESSION = "Yw6pbvlJ7QpE8sWz";
+   private static final String TOKEN = HTTP_SESSION + ":0f8e9c2a-5d1b-4c7e-9a3f-2b6d8e1f4a70";
+
+   private static final PushMessage MESSAGE = new PushMessage("job", "job:1", "{}");
+
+   private PushService pushService;
+
+   @Before
+   public void setUp() {
+      pushService = new PushService();
+      pushService.getTokens().put(TOKEN, System.nanoTime());
+   }
+
+   @Test
+   public void testPublishToHttpSession() {
+      final List<String> sent = new ArrayList<>();
+      final Session session = openSession("ws1", "", sent);
+      final Session otherSession = openSession("ws2", "", new ArrayList<>());
+
+      assertThat(pushService.authenticateSession(session, TOKEN)).isTrue();
+      pushService.publishMessage(HTTP_SESSION, "", MESSAGE);
+      pushService.publishMessage(otherSession.getId(), "", MESSAGE);
+
+      assertThat(sent).containsExactly(MESSAGE.toString());
+   }
+
+   @Test
+   public void testPublishToChannelOfHttpSession() {
+      final List<String> sent = new ArrayList<>();
+      final List<String> otherSent = new ArrayList<>();
+      pushService.authenticateSession(openSession("ws1", "jobs", sent), TOKEN);
+      pushService.authenticateSession(openSession("ws2", "hints", otherSent), TOKEN);
+
+      pushService.publishMessage(HTTP_SESSION, "jobs", MESSAGE);
+
+      assertThat(sent).containsExactly(MESSAGE.toString());
+      assertThat(otherSent).isEmpty();
+   }
+
+   @Test
+   public void testNotPublishedToUnauthenticatedOrClosedSession() {
+      final List<String> sent = new ArrayList<>();
+      final Session session = openSession("ws1", "", sent);
+
+      assertThat(pushService.authenticateSession(session, HTTP_SESSION + ":unknown")).isFalse();
+      pushService.publishMessage(HTTP_SESSION, "", MESSAGE);
+      assertThat(sent).isEmpty();
+
+      pushService.authenticateSession(session, TOKEN);
+      pushService.unregisterSession(session);
+      pushService.publishMessage(HTTP_SESSION, "", MESSAGE);
+      assertThat(sent).isEmpty();
+   }
+
+   private Session openSession(final String id, final String channel, final List<String> sent) {
+      final RemoteEndpoint.Async remote = mock(RemoteEndpoint.Async.class);
+      doAnswer(invocation -> {
+         sent.add(invocation.getArgument(0));
+         ((SendHandler) invocation.getArgument(1)).onResult(new SendResult());
+         return null;
+      }).when(remote).sendText(anyString(), any(SendHandler.class));
+
+      final Session session = mock(Session.class);
+      when(session.getId()).thenReturn(id);
+      when(session.getAsyncRemote()).thenReturn(remote);
+      when(session.getPathParameters()).thenReturn(Collections.singletonMap(PushService.CHANNEL_PARAMETER, channel));
+      when(session.getUserProperties()).thenReturn(new HashMap<>());
+
+      pushService.registerSession(session);
+      return session;
+   }
+}
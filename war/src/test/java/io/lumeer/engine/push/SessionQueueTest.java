@@ -0,0 +1,118 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.push;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+public class SessionQueueTest {
+
+   private List<String> sent;
+   private List<SendHandler> pendingHandlers;
+   private PushStatistics statistics;
+   private SessionQueue queue;
+
+   @Before
+   public void setUp() {
+      sent = new ArrayList<>();
+      pendingHandlers = new ArrayList<>();
+      statistics = new PushStatistics();
+
+      final RemoteEndpoint.Async remote = mock(RemoteEndpoint.Async.class);
+      doAnswer(invocation -> {
+         sent.add(invocation.getArgument(0));
+         pendingHandlers.add(invocation.getArgument(1));
+         return null;
+      }).when(remote).sendText(anyString(), any(SendHandler.class));
+
+      final Session session = mock(Session.class);
+      when(session.getAsyncRemote()).thenReturn(remote);
+
+      queue = new SessionQueue(session, 2, statistics);
+   }
+
+   @Test
+   public void testSendsOneMessageAtATime() {
+      queue.offer("a");
+      queue.offer("b");
+      assertThat(sent).containsExactly("a");
+      assertThat(queue.size()).isEqualTo(1);
+
+      completeNext();
+      assertThat(sent).containsExactly("a", "b");
+
+      completeNext();
+      assertThat(queue.size()).isZero();
+      assertThat(statistics.getSentCount()).isEqualTo(2);
+   }
+
+   @Test
+   public void testDropsOldestMessagesOfSlowClient() {
+      queue.offer("a");
+      queue.offer("b");
+      queue.offer("c");
+      queue.offer("d");
+      assertThat(statistics.getDroppedCount()).isEqualTo(1);
+
+      completeNext();
+      completeNext();
+      completeNext();
+      assertThat(sent).containsExactly("a", "c", "d");
+   }
+
+   @Test
+   public void testCoalescesWaitingMessages() {
+      queue.offer("a");
+      queue.offer("b");
+      queue.offer("b");
+      assertThat(statistics.getCoalescedCount()).isEqualTo(1);
+
+      completeNext();
+      completeNext();
+      assertThat(sent).containsExactly("a", "b");
+   }
+
+   @Test
+   public void testContinuesAfterFailure() {
+      queue.offer("a");
+      queue.offer("b");
+
+      pendingHandlers.remove(0).onResult(new SendResult(new IllegalStateException("closed")));
+      assertThat(sent).containsExactly("a", "b");
+      assertThat(statistics.getFailedCount()).isEqualTo(1);
+   }
+
+   private void completeNext() {
+      pendingHandlers.remove(0).onResult(new SendResult());
+   }
+}
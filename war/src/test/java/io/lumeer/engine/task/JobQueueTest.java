@@ -0,0 +1,167 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+
+import io.lumeer.engine.api.LumeerConst;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.data.DataFilter;
+import io.lumeer.engine.api.data.DataSort;
+import io.lumeer.engine.api.data.DataStorage;
+import io.lumeer.storage.mongodb.MongoDbStorageDialect;
+
+import com.mongodb.MongoClient;
+import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+public class JobQueueTest {
+
+   private static final String JOB_ID = "5a0c1c6b2f1e4b3f8c7d9e01";
+   private static final String OWNER = "node1";
+
+   private DataStorage dataStorage;
+   private JobQueue jobQueue;
+
+   @Before
+   public void prepareQueue() {
+      dataStorage = Mockito.mock(DataStorage.class);
+      jobQueue = new JobQueue(dataStorage, new MongoDbStorageDialect());
+   }
+
+   @Test
+   public void testLeaseCountsAttempt() {
+      Mockito.when(dataStorage.aggregate(eq(LumeerConst.Job.COLLECTION_NAME), any(DataDocument.class), any(DataDocument.class))).thenReturn(Collections.emptyList());
+      Mockito.when(dataStorage.updateAndReadDocument(eq(LumeerConst.Job.COLLECTION_NAME), any(DataFilter.class), any(DataSort.class), any(DataDocument.class), any(DataDocument.class)))
+             .thenReturn(jobDocument(Job.State.RUNNING, 1));
+
+      Job job = jobQueue.lease(OWNER);
+      assertThat(job.getState()).isEqualTo(Job.State.RUNNING);
+      assertThat(job.getAttempts()).isEqualTo(1);
+
+      ArgumentCaptor<DataFilter> filter = ArgumentCaptor.forClass(DataFilter.class);
+      ArgumentCaptor<DataDocument> lease = ArgumentCaptor.forClass(DataDocument.class);
+      Mockito.verify(dataStorage).updateAndReadDocument(eq(LumeerConst.Job.COLLECTION_NAME), filter.capture(), any(DataSort.class), lease.capture(),
+            eq(new DataDocument(LumeerConst.Job.ATTR_ATTEMPTS, 1)));
+      Mockito.verify(dataStorage, Mockito.never()).updateAndReadDocument(any(), any(), any(), any());
+
+      assertThat(toBson(filter.getValue())).containsOnlyKeys("$or");
+      assertThat(lease.getValue().getString(LumeerConst.Job.ATTR_STATE)).isEqualTo(Job.State.RUNNING.name());
+      assertThat(lease.getValue().getString(LumeerConst.Job.ATTR_LEASE_OWNER)).isEqualTo(OWNER);
+      assertThat(lease.getValue()).doesNotContainKey(LumeerConst.Job.ATTR_ATTEMPTS);
+   }
+
+   @Test
+   public void testLeaseEmptyQueue() {
+      Mockito.when(dataStorage.aggregate(eq(LumeerConst.Job.COLLECTION_NAME), any(DataDocument.class), any(DataDocument.class))).thenReturn(Collections.emptyList());
+
+      assertThat(jobQueue.lease(OWNER)).isNull();
+   }
+
+   @Test
+   public void testLeaseSkipsBusyOrganizations() {
+      Mockito.when(dataStorage.aggregate(eq(LumeerConst.Job.COLLECTION_NAME), any(DataDocument.class), any(DataDocument.class))).thenReturn(Arrays.asList(
+            new DataDocument(LumeerConst.Job.ATTR_JOB_ID, "LMR").append("count", JobQueue.MAX_PER_ORGANIZATION),
+            new DataDocument(LumeerConst.Job.ATTR_JOB_ID, "ABC").append("count", JobQueue.MAX_PER_ORGANIZATION - 1),
+            new DataDocument(LumeerConst.Job.ATTR_JOB_ID, null).append("count", JobQueue.MAX_PER_ORGANIZATION)));
+
+      jobQueue.lease(OWNER);
+
+      ArgumentCaptor<DataFilter> filter = ArgumentCaptor.forClass(DataFilter.class);
+      Mockito.verify(dataStorage).updateAndReadDocument(eq(LumeerConst.Job.COLLECTION_NAME), filter.capture(), any(DataSort.class), any(DataDocument.class), any(DataDocument.class));
+
+      BsonDocument organizations = toBson(filter.getValue()).getArray("$and").get(1).asDocument().getDocument(LumeerConst.Job.ATTR_ORGANIZATION);
+      assertThat(organizations.getArray("$nin")).extracting(value -> value.asString().getValue()).containsOnly("LMR");
+   }
+
+   @Test
+   public void testFailRetries() {
+      mockLeasedUpdate();
+
+      long before = System.currentTimeMillis();
+      Job job = jobQueue.fail(Job.fromDocument(jobDocument(Job.State.RUNNING, 2)), OWNER, "timeout", true);
+      assertThat(job).isNotNull();
+
+      DataDocument update = leasedUpdate();
+      assertThat(update.getString(LumeerConst.Job.ATTR_STATE)).isEqualTo(Job.State.QUEUED.name());
+      assertThat(update.getString(LumeerConst.Job.ATTR_ERROR)).isEqualTo("timeout");
+      assertThat(update.get(LumeerConst.Job.ATTR_LEASE_OWNER)).isNull();
+      assertThat(update.getDate(LumeerConst.Job.ATTR_NOT_BEFORE).getTime()).isBetween(before + JobQueue.retryDelay(2), System.currentTimeMillis() + JobQueue.retryDelay(2));
+   }
+
+   @Test
+   public void testFailOutOfAttempts() {
+      mockLeasedUpdate();
+
+      jobQueue.fail(Job.fromDocument(jobDocument(Job.State.RUNNING, JobQueue.MAX_ATTEMPTS)), OWNER, "timeout", true);
+
+      DataDocument update = leasedUpdate();
+      assertThat(update.getString(LumeerConst.Job.ATTR_STATE)).isEqualTo(Job.State.FAILED.name());
+      assertThat(update.getString(LumeerConst.Job.ATTR_ERROR)).isEqualTo("timeout");
+      assertThat(update).containsKey(LumeerConst.Job.ATTR_TASK);
+      assertThat(update.get(LumeerConst.Job.ATTR_TASK)).isNull();
+      assertThat(update.getDate(LumeerConst.Job.ATTR_FINISH_DATE)).isNotNull();
+   }
+
+   @Test
+   public void testFailNotRetryable() {
+      mockLeasedUpdate();
+
+      jobQueue.fail(Job.fromDocument(jobDocument(Job.State.RUNNING, 1)), OWNER, "invalid data", false);
+
+      assertThat(leasedUpdate().getString(LumeerConst.Job.ATTR_STATE)).isEqualTo(Job.State.FAILED.name());
+   }
+
+   private void mockLeasedUpdate() {
+      Mockito.when(dataStorage.updateAndReadDocument(eq(LumeerConst.Job.COLLECTION_NAME), any(DataFilter.class), isNull(), any(DataDocument.class)))
+             .thenAnswer(invocation -> new DataDocument(jobDocument(Job.State.RUNNING, 0)).append(LumeerConst.Job.ATTR_STATE, ((DataDocument) invocation.getArgument(3)).getString(LumeerConst.Job.ATTR_STATE)));
+   }
+
+   private DataDocument leasedUpdate() {
+      ArgumentCaptor<DataFilter> filter = ArgumentCaptor.forClass(DataFilter.class);
+      ArgumentCaptor<DataDocument> update = ArgumentCaptor.forClass(DataDocument.class);
+      Mockito.verify(dataStorage).updateAndReadDocument(eq(LumeerConst.Job.COLLECTION_NAME), filter.capture(), isNull(), update.capture());
+
+      assertThat(toBson(filter.getValue()).toJson()).contains(JOB_ID).contains(OWNER).contains(Job.State.RUNNING.name());
+      return update.getValue();
+   }
+
+   private static DataDocument jobDocument(Job.State state, int attempts) {
+      return Job.createDocument(new DeleteCollectionTask("people"), "LMR", "PRJ", "pepa@lumeer.io", null, 0)
+                .append(LumeerConst.Job.ATTR_JOB_ID, JOB_ID)
+                .append(LumeerConst.Job.ATTR_STATE, state.name())
+                .append(LumeerConst.Job.ATTR_ATTEMPTS, attempts)
+                .append(LumeerConst.Job.ATTR_START_DATE, new Date());
+   }
+
+   private static BsonDocument toBson(DataFilter filter) {
+      return filter.<Bson>get().toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry());
+   }
+}
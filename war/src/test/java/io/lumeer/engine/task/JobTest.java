@@ -0,0 +1,98 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.lumeer.engine.api.LumeerConst;
+import io.lumeer.engine.api.data.DataDocument;
+
+import org.bson.Document;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+public class JobTest {
+
+   @Test
+   public void testTaskSerialization() throws Exception {
+      ImportTask task = new ImportTask("csv", "people", "name\nPepa\n".getBytes("UTF-8"));
+
+      assertThat(Job.deserializeTask(Job.serializeTask(task)))
+            .isInstanceOf(ImportTask.class)
+            .hasToString(task.toString());
+   }
+
+   @Test
+   public void testCreateDocument() throws Exception {
+      DataDocument document = Job.createDocument(new DeleteCollectionTask("people"), "LMR", "PRJ", "pepa@lumeer.io", "session", 5)
+            .append(LumeerConst.Job.ATTR_JOB_ID, "5a0c1c6b2f1e4b3f8c7d9e01");
+
+      Job job = Job.fromDocument(document);
+      assertThat(job.getId()).isEqualTo("5a0c1c6b2f1e4b3f8c7d9e01");
+      assertThat(job.getType()).isEqualTo("DeleteCollectionTask");
+      assertThat(job.getOrganizationCode()).isEqualTo("LMR");
+      assertThat(job.getProjectCode()).isEqualTo("PRJ");
+      assertThat(job.getUserEmail()).isEqualTo("pepa@lumeer.io");
+      assertThat(job.getSessionId()).isEqualTo("session");
+      assertThat(job.getPriority()).isEqualTo(5);
+      assertThat(job.getState()).isEqualTo(Job.State.QUEUED);
+      assertThat(job.getAttempts()).isZero();
+      assertThat(job.isCancelRequested()).isFalse();
+      assertThat(job.getTask()).isInstanceOf(DeleteCollectionTask.class);
+      assertThat(Job.fromDocument(null)).isNull();
+   }
+
+   @Test
+   public void testListedJobWithoutTask() {
+      DataDocument document = Job.createDocument(new DeleteCollectionTask("people"), "LMR", "PRJ", "pepa@lumeer.io", null, 0);
+      document.keySet().retainAll(Job.LISTED_ATTRIBUTES);
+
+      assertThat(document).doesNotContainKey(LumeerConst.Job.ATTR_TASK);
+      Job job = Job.fromDocument(document);
+      assertThat(job.getType()).isEqualTo("DeleteCollectionTask");
+      assertThat(job.getState()).isEqualTo(Job.State.QUEUED);
+      assertThatThrownBy(job::getTask).isInstanceOf(IOException.class);
+   }
+
+   @Test
+   public void testRetryDelay() {
+      assertThat(JobQueue.retryDelay(1)).isEqualTo(JobQueue.RETRY_DELAY);
+      assertThat(JobQueue.retryDelay(2)).isEqualTo(2 * JobQueue.RETRY_DELAY);
+      assertThat(JobQueue.retryDelay(3)).isEqualTo(4 * JobQueue.RETRY_DELAY);
+      assertThat(JobQueue.retryDelay(100)).isEqualTo(JobQueue.retryDelay(17));
+   }
+
+   @Test
+   public void testLeaseFilter() {
+      Document available = Document.parse(JobQueue.leaseFilter(1000L, Collections.emptySet()));
+      assertThat(available).containsOnlyKeys("$or");
+
+      Document fair = Document.parse(JobQueue.leaseFilter(1000L, new HashSet<>(Arrays.asList("LMR", "O\"K"))));
+      List<?> conditions = (List<?>) fair.get("$and");
+      assertThat(conditions).hasSize(2);
+      assertThat(((Document) ((Document) conditions.get(1)).get(LumeerConst.Job.ATTR_ORGANIZATION)).get("$nin"))
+            .asList().containsOnly("LMR", "O\"K");
+   }
+}
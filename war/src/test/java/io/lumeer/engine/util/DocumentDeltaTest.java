@@ -0,0 +1,69 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Answer Institute, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.engine.api.data.DataDocument;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class DocumentDeltaTest {
+
+   @Test
+   public void testDiffAndApply() {
+      DataDocument base = new DataDocument("_id", "5a0c1c6b2f1e4b3f8c7d9e01")
+            .append("name", "Pepa")
+            .append("age", 42)
+            .append("address", new DataDocument("city", "Brno"))
+            .append("tags", Arrays.asList("a", "b"));
+      DataDocument document = new DataDocument("_id", "5a0c1c6b2f1e4b3f8c7d9e01")
+            .append("name", "Pepa")
+            .append("age", 43)
+            .append("address", new DataDocument("city", "Praha"))
+            .append("tags", Arrays.asList("a", "b"))
+            .append("email", "pepa@lumeer.io");
+
+      DataDocument delta = DocumentDelta.diff(base, 3, document);
+
+      assertThat(delta.getInteger(DocumentDelta.BASE_VERSION_KEY)).isEqualTo(3);
+      assertThat(delta.getDataDocument(DocumentDelta.SET_KEY)).containsOnlyKeys("age", "address", "email");
+      assertThat(delta.getArrayList(DocumentDelta.UNSET_KEY, String.class)).isEmpty();
+
+      DataDocument rebuilt = DocumentDelta.apply(base, delta);
+      assertThat(rebuilt).containsOnlyKeys("_id", "name", "age", "address", "tags", "email");
+      assertThat(rebuilt.getInteger("age")).isEqualTo(43);
+      assertThat(rebuilt.getDataDocument("address").getString("city")).isEqualTo("Praha");
+      assertThat(base.getInteger("age")).isEqualTo(42);
+   }
+
+   @Test
+   public void testRemovedFields() {
+      DataDocument base = new DataDocument("name", "Pepa").append("age", 42);
+      DataDocument document = new DataDocument("name", "Pepa");
+
+      DataDocument delta = DocumentDelta.diff(base, 0, document);
+
+      assertThat(delta.getDataDocument(DocumentDelta.SET_KEY)).isEmpty();
+      assertThat(delta.getArrayList(DocumentDelta.UNSET_KEY, String.class)).containsExactly("age");
+      assertThat(DocumentDelta.apply(base, delta)).containsOnlyKeys("name");
+   }
+}